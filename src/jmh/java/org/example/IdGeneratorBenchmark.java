@@ -0,0 +1,53 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// ID allocation throughput with several threads drawing from one sequence. The counter
+// store is in memory, optionally with a simulated round trip per reservation standing in
+// for the $inc on the counters collection, so the effect of the block size shows without
+// a database. Change the thread count with -t.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"1", "20", "100"})
+    int blockSize;
+
+    @Param({"0", "500"})
+    long reserveLatencyMicros;
+
+    private IdAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        InMemoryCounterStore counters = new InMemoryCounterStore();
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(reserveLatencyMicros);
+        allocator = new IdAllocator(new CounterStore() {
+            @Override
+            public long reserve(IdFormat format, int count) {
+                if (latencyNanos > 0) {
+                    LockSupport.parkNanos(latencyNanos);
+                }
+                return counters.reserve(format, count);
+            }
+
+            @Override
+            public void advanceTo(IdFormat format, long value) {
+                counters.advanceTo(format, value);
+            }
+        }, blockSize);
+    }
+
+    @Benchmark
+    public String nextPatientId() {
+        return allocator.next(IdFormat.PATIENT);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializing list responses the two ways RestApiServer does: sendJsonResponse builds the
+// whole JSON string and its UTF-8 bytes, sendJsonStream writes record by record through a
+// buffered JsonWriter. The output goes to a stream that only counts bytes, like a socket.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024; // as in RestApiServer
+
+    @Param({"1000", "10000"})
+    int size;
+
+    private final Gson gson = new Gson();
+    private List<Patient> patients;
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(size);
+        patients = data.patients;
+        appointments = data.appointments;
+    }
+
+    @Benchmark
+    public long patientsAsString() throws IOException {
+        return writeString(patients);
+    }
+
+    @Benchmark
+    public long patientsStreamed() throws IOException {
+        return writeStream(patients, Patient.class);
+    }
+
+    @Benchmark
+    public long appointmentsAsString() throws IOException {
+        return writeString(appointments);
+    }
+
+    @Benchmark
+    public long appointmentsStreamed() throws IOException {
+        return writeStream(appointments, Appointment.class);
+    }
+
+    private long writeString(List<?> records) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        out.write(gson.toJson(records).getBytes(StandardCharsets.UTF_8));
+        return out.count;
+    }
+
+    private <T> long writeStream(List<T> records, Class<T> type) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+        writer.beginArray();
+        for (T record : records) {
+            gson.toJson(record, type, writer);
+        }
+        writer.endArray();
+        writer.close();
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
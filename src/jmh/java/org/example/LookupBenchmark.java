@@ -0,0 +1,104 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The lookups behind HospitalManagementSystem's getXById and getAppointmentsFor... methods,
+// on repositories indexed exactly as the system declares them, next to the list scans they
+// replaced. HospitalManagementSystem itself is a JFrame and cannot be built headless, so its
+// stores are reproduced here.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private final IndexedRepository<Patient> patients = new IndexedRepository<>(Patient::getPatientId);
+    private final IndexedRepository<Appointment> appointments = new IndexedRepository<>(Appointment::getAppointmentId)
+            .withIndex("doctorId", Appointment::getDoctorId)
+            .withIndex("patientId", Appointment::getPatientId)
+            .withIndex("date", Appointment::getDate);
+    private List<Patient> patientList;
+    private List<Appointment> appointmentList;
+    private String[] patientIds;
+    private String[] doctorIds;
+    private String[] dates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(size);
+        patients.putAll(data.patients);
+        appointments.putAll(data.appointments);
+        patientList = new ArrayList<>(data.patients);
+        appointmentList = new ArrayList<>(data.appointments);
+
+        // Keys are drawn in a fixed random order so lookups do not walk the maps sequentially
+        Random random = new Random(SyntheticData.SEED);
+        patientIds = new String[1024];
+        doctorIds = new String[1024];
+        dates = new String[1024];
+        for (int i = 0; i < patientIds.length; i++) {
+            patientIds[i] = data.patients.get(random.nextInt(data.patients.size())).getPatientId();
+            doctorIds[i] = data.doctors.get(random.nextInt(data.doctors.size())).getDoctorId();
+            dates[i] = data.appointments.get(random.nextInt(data.appointments.size())).getDate();
+        }
+    }
+
+    private int nextKey() {
+        next = (next + 1) & 1023;
+        return next;
+    }
+
+    @Benchmark
+    public Patient patientById() {
+        return patients.get(patientIds[nextKey()]);
+    }
+
+    @Benchmark
+    public Patient patientByIdScan() {
+        String id = patientIds[nextKey()];
+        for (Patient patient : patientList) {
+            if (patient.getPatientId().equals(id)) {
+                return patient;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public List<Appointment> appointmentsForDoctor() {
+        return appointments.findBy("doctorId", doctorIds[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Appointment> appointmentsForDoctorScan() {
+        String doctorId = doctorIds[nextKey()];
+        List<Appointment> result = new ArrayList<>();
+        for (Appointment appointment : appointmentList) {
+            if (appointment.getDoctorId().equals(doctorId)) {
+                result.add(appointment);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Appointment> appointmentsOnDate() {
+        return appointments.findBy("date", dates[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Appointment> appointmentsForPatient() {
+        return appointments.findBy("patientId", patientIds[nextKey()]);
+    }
+}
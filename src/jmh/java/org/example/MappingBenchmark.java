@@ -0,0 +1,137 @@
+package org.example;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Client-side cost of loading a whole collection: decoding raw BSON into domain objects
+// through the DomainCodecs, and for patients also through the Document + mapper path the
+// DAOs used before the codecs. Run with -prof gc to compare allocation per load.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+    private final EncoderContext encoderContext = EncoderContext.builder().build();
+    private final DocumentCodec documentCodec = new DocumentCodec(DatabaseConnection.CODEC_REGISTRY);
+    private final Codec<Patient> patientCodec = DatabaseConnection.CODEC_REGISTRY.get(Patient.class);
+    private final Codec<Doctor> doctorCodec = DatabaseConnection.CODEC_REGISTRY.get(Doctor.class);
+    private final Codec<Appointment> appointmentCodec = DatabaseConnection.CODEC_REGISTRY.get(Appointment.class);
+    private final Codec<Bill> billCodec = DatabaseConnection.CODEC_REGISTRY.get(Bill.class);
+
+    private List<Patient> patients;
+    private List<byte[]> rawPatients;
+    private List<byte[]> rawDoctors;
+    private List<byte[]> rawAppointments;
+    private List<byte[]> rawBills;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(size);
+        patients = data.patients;
+        rawPatients = SyntheticData.encode(data.patients, Patient.class);
+        rawDoctors = SyntheticData.encode(data.doctors, Doctor.class);
+        rawAppointments = SyntheticData.encode(data.appointments, Appointment.class);
+        rawBills = SyntheticData.encode(data.bills, Bill.class);
+    }
+
+    @Benchmark
+    public List<Patient> decodePatients() {
+        return decodeAll(rawPatients, patientCodec);
+    }
+
+    @Benchmark
+    public List<Patient> decodePatientsViaDocument() {
+        List<Patient> result = new ArrayList<>(rawPatients.size());
+        for (byte[] raw : rawPatients) {
+            result.add(documentToPatient(documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(raw)), decoderContext)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Doctor> decodeDoctors() {
+        return decodeAll(rawDoctors, doctorCodec);
+    }
+
+    @Benchmark
+    public List<Appointment> decodeAppointments() {
+        return decodeAll(rawAppointments, appointmentCodec);
+    }
+
+    @Benchmark
+    public List<Bill> decodeBills() {
+        return decodeAll(rawBills, billCodec);
+    }
+
+    // The write side: what insertMany and bulk upserts encode per patient
+    @Benchmark
+    public long encodePatients() {
+        long bytes = 0;
+        for (Patient patient : patients) {
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            patientCodec.encode(new BsonBinaryWriter(buffer), patient, encoderContext);
+            bytes += buffer.getSize();
+        }
+        return bytes;
+    }
+
+    private <T> List<T> decodeAll(List<byte[]> rawDocuments, Codec<T> codec) {
+        List<T> result = new ArrayList<>(rawDocuments.size());
+        for (byte[] raw : rawDocuments) {
+            result.add(codec.decode(new BsonBinaryReader(ByteBuffer.wrap(raw)), decoderContext));
+        }
+        return result;
+    }
+
+    // The mapping PatientDAO used before the codecs were introduced
+    static Patient documentToPatient(Document doc) {
+        Patient patient = new Patient(
+                doc.getString("patientId"),
+                doc.getString("name"),
+                doc.getInteger("age", 0),
+                doc.getString("gender"),
+                doc.getString("address"),
+                doc.getString("phone")
+        );
+
+        List<String> allergies = doc.getList("allergies", String.class);
+        if (allergies != null) {
+            for (String allergy : allergies) {
+                patient.addAllergy(allergy);
+            }
+        }
+
+        List<Document> medicationDocs = doc.getList("medications", Document.class);
+        if (medicationDocs != null) {
+            for (Document medDoc : medicationDocs) {
+                patient.addMedication(new Medication(
+                        medDoc.getString("name"),
+                        medDoc.getString("dosage"),
+                        medDoc.getString("frequency"),
+                        medDoc.getString("startDate"),
+                        medDoc.getString("endDate")
+                ));
+            }
+        }
+        return patient;
+    }
+}
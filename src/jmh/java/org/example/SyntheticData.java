@@ -0,0 +1,85 @@
+package org.example;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic datasets for the benchmarks, shaped like a hospital's data: each doctor sees
+// many patients, appointments spread over a year, a couple of bills per patient. The same
+// size and seed always produce the same records, so runs before and after a change compare.
+final class SyntheticData {
+
+    static final long SEED = 42;
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Neurology", "Pediatrics", "Orthopedics", "General"};
+    private static final String[] ALLERGIES = {"Penicillin", "Peanuts", "Latex", "Pollen", "Dust"};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    final List<Patient> patients;
+    final List<Doctor> doctors;
+    final List<Appointment> appointments;
+    final List<Bill> bills;
+
+    private SyntheticData(List<Patient> patients, List<Doctor> doctors, List<Appointment> appointments, List<Bill> bills) {
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+        this.bills = bills;
+    }
+
+    // size patients, one doctor per 100 patients, two appointments and two bills per patient
+    static SyntheticData generate(int size) {
+        Random random = new Random(SEED);
+        int doctorCount = Math.max(1, size / 100);
+
+        List<Doctor> doctors = new ArrayList<>(doctorCount);
+        for (int i = 1; i <= doctorCount; i++) {
+            doctors.add(new Doctor("DOC" + i, "Doctor " + i,
+                    SPECIALIZATIONS[i % SPECIALIZATIONS.length], "Mon-Fri 9:00-17:00"));
+        }
+
+        List<Patient> patients = new ArrayList<>(size);
+        List<Appointment> appointments = new ArrayList<>(size * 2);
+        List<Bill> bills = new ArrayList<>(size * 2);
+        for (int i = 1; i <= size; i++) {
+            String patientId = "PAT" + i;
+            Patient patient = new Patient(patientId, "Patient " + i, 1 + random.nextInt(95),
+                    random.nextBoolean() ? "Female" : "Male", i + " Main Street", "555-" + (1000 + random.nextInt(9000)));
+            patient.addAllergy(ALLERGIES[random.nextInt(ALLERGIES.length)]);
+            patient.addMedication(new Medication("Aspirin", "100mg", "Daily", "2024-01-01", "2024-06-01"));
+            patients.add(patient);
+
+            for (int j = 0; j < 2; j++) {
+                Doctor doctor = doctors.get(random.nextInt(doctorCount));
+                String number = String.valueOf(2 * i - 1 + j);
+                Appointment appointment = new Appointment("APP" + number, patientId, doctor.getDoctorId(),
+                        FIRST_DAY.plusDays(random.nextInt(365)).toString(), String.format("%02d:%02d", 9 + random.nextInt(8), 15 * random.nextInt(4)),
+                        "Follow-up visit", patient.getName(), doctor.getName());
+                appointment.setCompleted(random.nextInt(3) == 0);
+                appointments.add(appointment);
+
+                Bill bill = new Bill("BILL" + number, patientId, 50 + random.nextInt(950) + random.nextInt(100) / 100.0, "Consultation");
+                bill.setPaid(random.nextBoolean());
+                bills.add(bill);
+            }
+        }
+        return new SyntheticData(patients, doctors, appointments, bills);
+    }
+
+    // The records as raw BSON, i.e. what a find() receives from the server
+    static <T> List<byte[]> encode(List<T> records, Class<T> type) {
+        Codec<T> codec = DatabaseConnection.CODEC_REGISTRY.get(type);
+        List<byte[]> raw = new ArrayList<>(records.size());
+        for (T record : records) {
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            codec.encode(new BsonBinaryWriter(buffer), record, EncoderContext.builder().build());
+            raw.add(buffer.toByteArray());
+        }
+        return raw;
+    }
+}
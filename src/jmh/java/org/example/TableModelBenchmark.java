@@ -0,0 +1,75 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Populating the admin bill table after a refresh: the RecordTableModel the dashboards use,
+// which keeps references and formats cells when they are painted, against a DefaultTableModel
+// filled with one formatted Object[] per bill as before. Both then paint one screen of rows.
+// No listeners or components are attached, so this runs headless.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableModelBenchmark {
+
+    private static final int VISIBLE_ROWS = 40;
+    private static final String[] COLUMNS = {"ID", "Patient", "Amount", "Description", "Status"};
+
+    @Param({"1000", "10000"})
+    int size;
+
+    private final IndexedRepository<Patient> patients = new IndexedRepository<>(Patient::getPatientId);
+    private List<Bill> bills;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(size);
+        patients.putAll(data.patients);
+        bills = data.bills;
+    }
+
+    @Benchmark
+    public Object recordTableModel() {
+        RecordTableModel<Bill> model = new RecordTableModel<>(Bill::getBillId)
+                .addColumn("ID", Bill::getBillId)
+                .addColumn("Patient", this::patientName)
+                .addColumn("Amount", b -> String.format("$%.2f", b.getAmount()))
+                .addColumn("Description", Bill::getDescription)
+                .addColumn("Status", b -> b.isPaid() ? "Paid" : "Pending");
+        model.setRecords(bills);
+        return paintVisibleRows(model);
+    }
+
+    @Benchmark
+    public Object defaultTableModel() {
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
+        for (Bill bill : bills) {
+            model.addRow(new Object[]{bill.getBillId(), patientName(bill), String.format("$%.2f", bill.getAmount()),
+                    bill.getDescription(), bill.isPaid() ? "Paid" : "Pending"});
+        }
+        return paintVisibleRows(model);
+    }
+
+    private Object patientName(Bill bill) {
+        Patient patient = patients.get(bill.getPatientId());
+        return patient != null ? patient.getName() : "Unknown";
+    }
+
+    private static Object paintVisibleRows(TableModel model) {
+        Object last = null;
+        int rows = Math.min(VISIBLE_ROWS, model.getRowCount());
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                last = model.getValueAt(row, column);
+            }
+        }
+        return last;
+    }
+}
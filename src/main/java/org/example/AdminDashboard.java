@@ -1,8 +1,8 @@
 package org.example;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +10,8 @@ import java.util.Map;
 class AdminDashboard extends JPanel {
     private HospitalManagementSystem system;
     private JTabbedPane tabbedPane;
+    private TabLoadCoordinator tabLoader;
+    private final LoadingIndicator loadingIndicator = new LoadingIndicator();
 
     public AdminDashboard(HospitalManagementSystem system) {
         this.system = system;
@@ -23,11 +25,18 @@ class AdminDashboard extends JPanel {
         // Tabbed interface
         tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Segoe UI", Font.PLAIN, 14)); // Set font for tabs
+        tabLoader = new TabLoadCoordinator(tabbedPane);
         tabbedPane.addTab("Patients", new PatientManagementPanel());
         tabbedPane.addTab("Doctors", new DoctorManagementPanel());
         tabbedPane.addTab("Billing", new BillingManagementPanel());
         tabbedPane.addTab("Users", new UserManagementPanel());
+        for (Component comp : tabbedPane.getComponents()) {
+            if (comp instanceof Refreshable) {
+                tabLoader.register(comp, ((Refreshable) comp)::loadData);
+            }
+        }
         add(tabbedPane, BorderLayout.CENTER);
+        add(loadingIndicator, BorderLayout.PAGE_END);
     }
 
     public void refreshData() {
@@ -40,22 +49,36 @@ class AdminDashboard extends JPanel {
         System.out.println("Admin Dashboard - all panels refreshed");
     }
 
+    // Loads the tables in the background, starting with the selected tab
+    public void loadData() {
+        tabLoader.loadAll();
+    }
+
+    public void cancelLoading() {
+        tabLoader.cancelAll();
+    }
+
     interface Refreshable {
         void refreshData();
+
+        // Starts filling the table off the EDT
+        TableLoader<?> loadData();
     }
 
     class PatientManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<Patient> tableModel;
         private JTable patientTable;
 
         public PatientManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"ID", "Name", "Age", "Gender", "Phone"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(Patient::getPatientId)
+                    .addColumn("ID", Patient::getPatientId)
+                    .addColumn("Name", Patient::getName)
+                    .addColumn("Age", Patient::getAge)
+                    .addColumn("Gender", Patient::getGender)
+                    .addColumn("Phone", Patient::getPhone);
             patientTable = system.new StyledTable(tableModel); // Use StyledTable
             JScrollPane scrollPane = new JScrollPane(patientTable);
             add(scrollPane, BorderLayout.CENTER);
@@ -75,8 +98,7 @@ class AdminDashboard extends JPanel {
             deleteButton.addActionListener(e -> deletePatient());
             refreshButton.addActionListener(e -> {
                 System.out.println("Patient Refresh button clicked - refreshing patient data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
 
             buttonPanel.add(addButton);
@@ -92,22 +114,21 @@ class AdminDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing patient table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             List<Patient> currentPatients = system.getAllPatients();
             System.out.println("Found " + currentPatients.size() + " patients");
 
-            for (Patient p : currentPatients) {
-                tableModel.addRow(new Object[]{
-                        p.getPatientId(), p.getName(), p.getAge(), p.getGender(), p.getPhone()
-                });
-            }
-
-            tableModel.fireTableDataChanged();
+            tableModel.setRecords(currentPatients);
             patientTable.revalidate();
             patientTable.repaint();
             System.out.println("Patient table refreshed");
         }
 
+        @Override
+        public TableLoader<?> loadData() {
+            return TableLoader.start(tableModel, system::getAllPatients, loadingIndicator);
+        }
+
         private void showPatientDialog(Patient patient) {
             JDialog dialog = new JDialog();
             dialog.setTitle(patient == null ? "Add Patient" : "Edit Patient");
@@ -159,15 +180,21 @@ class AdminDashboard extends JPanel {
                             phoneField.getText()
                     );
 
+                    WriteResult result;
                     if (patient == null) {
                         System.out.println("Adding new patient: " + p.getName());
-                        system.addPatient(p);
+                        result = system.addPatient(p);
                     } else {
                         System.out.println("Updating patient: " + p.getName());
                         system.deletePatient(patient.getPatientId());
-                        system.addPatient(p);
+                        result = system.addPatient(p);
                     }
                     refreshData();
+                    if (!result.isSuccess()) {
+                        JOptionPane.showMessageDialog(dialog, HospitalManagementSystem.notSavedMessage("Patient", p.getPatientId(), result),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     dialog.dispose();
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(dialog, "Please enter valid age", "Error", JOptionPane.ERROR_MESSAGE);
@@ -220,17 +247,18 @@ class AdminDashboard extends JPanel {
     }
 
     class DoctorManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<Doctor> tableModel;
         private JTable doctorTable;
 
         public DoctorManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"ID", "Name", "Specialization", "Availability"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(Doctor::getDoctorId)
+                    .addColumn("ID", Doctor::getDoctorId)
+                    .addColumn("Name", Doctor::getName)
+                    .addColumn("Specialization", Doctor::getSpecialization)
+                    .addColumn("Availability", Doctor::getAvailability);
             doctorTable = system.new StyledTable(tableModel);
             JScrollPane scrollPane = new JScrollPane(doctorTable);
             add(scrollPane, BorderLayout.CENTER);
@@ -250,8 +278,7 @@ class AdminDashboard extends JPanel {
             deleteButton.addActionListener(e -> deleteDoctor());
             refreshButton.addActionListener(e -> {
                 System.out.println("Doctor Refresh button clicked - refreshing doctor data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
 
             buttonPanel.add(addButton);
@@ -267,22 +294,21 @@ class AdminDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing doctor table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             List<Doctor> currentDoctors = system.getAllDoctors();
             System.out.println("Found " + currentDoctors.size() + " doctors");
 
-            for (Doctor d : currentDoctors) {
-                tableModel.addRow(new Object[]{
-                        d.getDoctorId(), d.getName(), d.getSpecialization(), d.getAvailability()
-                });
-            }
-
-            tableModel.fireTableDataChanged();
+            tableModel.setRecords(currentDoctors);
             doctorTable.revalidate();
             doctorTable.repaint();
             System.out.println("Doctor table refreshed");
         }
 
+        @Override
+        public TableLoader<?> loadData() {
+            return TableLoader.start(tableModel, system::getAllDoctors, loadingIndicator);
+        }
+
         private void showDoctorDialog(Doctor doctor) {
             JDialog dialog = new JDialog();
             dialog.setTitle(doctor == null ? "Add Doctor" : "Edit Doctor");
@@ -323,15 +349,21 @@ class AdminDashboard extends JPanel {
                         availField.getText()
                 );
 
+                WriteResult result;
                 if (doctor == null) {
                     System.out.println("Adding new doctor: " + d.getName());
-                    system.addDoctor(d);
+                    result = system.addDoctor(d);
                 } else {
                     System.out.println("Updating doctor: " + d.getName());
                     system.deleteDoctor(doctor.getDoctorId());
-                    system.addDoctor(d);
+                    result = system.addDoctor(d);
                 }
                 refreshData();
+                if (!result.isSuccess()) {
+                    JOptionPane.showMessageDialog(dialog, HospitalManagementSystem.notSavedMessage("Doctor", d.getDoctorId(), result),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
                 dialog.dispose();
             });
 
@@ -381,17 +413,22 @@ class AdminDashboard extends JPanel {
     }
 
     class BillingManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<Bill> tableModel;
         private JTable billTable;
 
         public BillingManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"ID", "Patient", "Amount", "Description", "Status"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(Bill::getBillId)
+                    .addColumn("ID", Bill::getBillId)
+                    .addColumn("Patient", b -> {
+                        Patient p = system.getPatientById(b.getPatientId());
+                        return p != null ? p.getName() : "Unknown";
+                    })
+                    .addColumn("Amount", b -> String.format("$%.2f", b.getAmount()))
+                    .addColumn("Description", Bill::getDescription)
+                    .addColumn("Status", b -> b.isPaid() ? "Paid" : "Pending");
             billTable = system.new StyledTable(tableModel);
             JScrollPane scrollPane = new JScrollPane(billTable);
             add(scrollPane, BorderLayout.CENTER);
@@ -411,8 +448,7 @@ class AdminDashboard extends JPanel {
             //deleteButton.addActionListener(e -> deleteBill());
             refreshButton.addActionListener(e -> {
                 System.out.println("Billing Refresh button clicked - refreshing billing data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
 
             buttonPanel.add(addButton);
@@ -428,39 +464,33 @@ class AdminDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing billing table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             List<Bill> currentBills = system.getAllBills();
             System.out.println("Found " + currentBills.size() + " bills");
 
-            for (Bill b : currentBills) {
-                Patient p = system.getPatientById(b.getPatientId());
-                tableModel.addRow(new Object[]{
-                        b.getBillId(),
-                        p != null ? p.getName() : "Unknown",
-                        String.format("$%.2f", b.getAmount()),
-                        b.getDescription(),
-                        b.isPaid() ? "Paid" : "Pending"
-                });
-            }
-
-            tableModel.fireTableDataChanged();
+            tableModel.setRecords(currentBills);
             billTable.revalidate();
             billTable.repaint();
             System.out.println("Billing table refreshed");
         }
 
+        @Override
+        public TableLoader<?> loadData() {
+            return TableLoader.start(tableModel, system::getAllBills, loadingIndicator);
+        }
+
         private void showBillDialog() {
             JDialog dialog = new JDialog();
             dialog.setTitle("New Bill");
             dialog.setModal(true);
             dialog.setLayout(new GridLayout(0, 2, 10, 10));
 
-            JComboBox<Patient> patientCombo = new JComboBox<>();
+            JComboBox<PatientSummary> patientCombo = new JComboBox<>();
             JTextField amountField = new JTextField();
             JTextArea descArea = new JTextArea(3, 20);
 
             // Populate patient combo
-            for (Patient p : system.getAllPatients()) {
+            for (PatientSummary p : system.getPatientSummaries()) {
                 patientCombo.addItem(p);
             }
 
@@ -474,7 +504,7 @@ class AdminDashboard extends JPanel {
             JButton saveButton = new JButton("Save");
             saveButton.addActionListener(e -> {
                 try {
-                    Patient p = (Patient) patientCombo.getSelectedItem();
+                    PatientSummary p = (PatientSummary) patientCombo.getSelectedItem();
                     double amount = Double.parseDouble(amountField.getText());
                     String desc = descArea.getText();
 
@@ -485,7 +515,12 @@ class AdminDashboard extends JPanel {
                     String id = IDGenerator.generateBillID();
                     Bill newBill = new Bill(id, p.getPatientId(), amount, desc);
                     System.out.println("Creating new bill for patient: " + p.getName() + " - Amount: $" + amount);
-                    system.addBill(newBill);
+                    WriteResult result = system.addBill(newBill);
+                    if (!result.isSuccess()) {
+                        JOptionPane.showMessageDialog(dialog, HospitalManagementSystem.notSavedMessage("Bill", id, result),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     refreshData();
                     dialog.dispose();
                 } catch (NumberFormatException ex) {
@@ -521,7 +556,7 @@ class AdminDashboard extends JPanel {
             String patientName = (String) tableModel.getValueAt(row, 1);
             System.out.println("Marking bill as paid: " + id + " for patient: " + patientName);
             system.markBillPaid(id);
-            refreshData();
+            tableModel.recordChanged(id); // Only the status cell changes
         }
 
         private void deleteBill() {
@@ -538,24 +573,24 @@ class AdminDashboard extends JPanel {
 
             if (confirm == JOptionPane.YES_OPTION) {
                 System.out.println("Deleting bill: " + id + " for patient: " + patientName);
-                system.getAllBills().removeIf(b -> b.getBillId().equals(id));
+                system.deleteBill(id);
                 refreshData();
             }
         }
     }
 
     class UserManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<User> tableModel;
         private JTable userTable;
 
         public UserManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"Username", "Role", "Password"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(User::getUsername)
+                    .addColumn("Username", User::getUsername)
+                    .addColumn("Role", User::getRole)
+                    .addColumn("Password", User::getPassword);
             userTable = system.new StyledTable(tableModel);
             add(new JScrollPane(userTable), BorderLayout.CENTER);
 
@@ -574,8 +609,7 @@ class AdminDashboard extends JPanel {
             resetPassButton.addActionListener(e -> resetPassword());
             refreshButton.addActionListener(e -> {
                 System.out.println("User Refresh button clicked - refreshing user data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
 
             buttonPanel.add(addButton);
@@ -591,25 +625,23 @@ class AdminDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing user table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             Map<String, User> currentUsers = system.getUsers();
             System.out.println("Found " + currentUsers.size() + " users");
 
-            for (Map.Entry<String, User> entry : currentUsers.entrySet()) {
-                User u = entry.getValue();
-                tableModel.addRow(new Object[]{
-                        u.getUsername(),
-                        u.getRole(),
-                        u.getPassword()
-                });
-            }
-
-            tableModel.fireTableDataChanged();
+            tableModel.setRecords(currentUsers.values());
             userTable.revalidate();
             userTable.repaint();
             System.out.println("User table refreshed");
         }
 
+        @Override
+        public TableLoader<?> loadData() {
+            // The user map is a plain HashMap, so it is copied here on the EDT
+            List<User> snapshot = new ArrayList<>(system.getUsers().values());
+            return TableLoader.start(tableModel, () -> snapshot, loadingIndicator);
+        }
+
         private void showUserDialog(User user) {
             JDialog dialog = new JDialog();
             dialog.setTitle(user == null ? "Add User" : "Edit User");
@@ -6,6 +6,7 @@ class Appointment implements Serializable {
     private String appointmentId, patientId, doctorId, date, time, description;
     private String patientName, doctorName; // Added for better display
     private boolean completed;
+    private transient ChangeSet changes;
 
     // Original constructor
     public Appointment(String appointmentId, String patientId, String doctorId,
@@ -28,16 +29,23 @@ class Appointment implements Serializable {
         this.doctorName = doctorName;
     }
 
+    // An appointment holding no data, only the ID, whose edits become a partial update (PATCH)
+    static Appointment patch(String appointmentId) {
+        Appointment appointment = new Appointment(appointmentId, null, null, null, null, null);
+        appointment.markClean();
+        return appointment;
+    }
+
     // Utility method to set names after creation
     public void setNames(String patientName, String doctorName) {
-        this.patientName = patientName;
-        this.doctorName = doctorName;
+        setPatientName(patientName);
+        setDoctorName(doctorName);
     }
 
     // Utility method to populate names from Patient and Doctor objects
     public void setNames(Patient patient, Doctor doctor) {
-        this.patientName = patient != null ? patient.getName() : null;
-        this.doctorName = doctor != null ? doctor.getName() : null;
+        setPatientName(patient != null ? patient.getName() : null);
+        setDoctorName(doctor != null ? doctor.getName() : null);
     }
 
     // Getters and setters
@@ -51,9 +59,26 @@ class Appointment implements Serializable {
     public String getDoctorName() { return doctorName; }
     public boolean isCompleted() { return completed; }
 
-    public void setCompleted(boolean completed) { this.completed = completed; }
-    public void setPatientName(String patientName) { this.patientName = patientName; }
-    public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+    public void setCompleted(boolean completed) { this.completed = completed; track("completed", completed); }
+    public void setPatientName(String patientName) { this.patientName = patientName; track("patientName", patientName); }
+    public void setDoctorName(String doctorName) { this.doctorName = doctorName; track("doctorName", doctorName); }
+    public void setPatientId(String patientId) { this.patientId = patientId; track("patientId", patientId); }
+    public void setDoctorId(String doctorId) { this.doctorId = doctorId; track("doctorId", doctorId); }
+    public void setDate(String date) { this.date = date; track("date", date); }
+    public void setTime(String time) { this.time = time; track("time", time); }
+    public void setDescription(String description) { this.description = description; track("description", description); }
+
+    // Edits since the appointment was read or saved; null for appointments built from scratch
+    public ChangeSet getChanges() { return changes; }
+
+    // The appointment now matches what is stored; later edits are recorded
+    public void markClean() { this.changes = new ChangeSet(); }
+
+    private void track(String field, Object value) {
+        if (changes != null) {
+            changes.set(field, value);
+        }
+    }
 
     // Enhanced toString for better debugging
     @Override
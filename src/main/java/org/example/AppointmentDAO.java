@@ -2,69 +2,95 @@ package org.example;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import static com.mongodb.client.model.Filters.*;
 
-public class AppointmentDAO {
+public class AppointmentDAO implements AppointmentStore {
+    private static final int STREAM_BATCH_SIZE = 500;
+    static final List<String> INSERT_ONLY_FIELDS = List.of("completed");
+
     private MongoCollection<Document> collection;
+    private MongoCollection<Appointment> typedCollection; // decoded by DomainCodecs
+    private RecordCache cache; // getAppointmentById, shared by all DAOs of the collection
+    private CollectionVersions versions; // ETags of the REST API
+    private DeletionLog deletions; // tombstones read by the polling change source
 
     public AppointmentDAO() {
-        this.collection = DatabaseConnection.getInstance()
-                .getDatabase()
-                .getCollection("appointments");
+        this.collection = DatabaseConnection.getInstance().getCollection("appointments");
+        this.typedCollection = collection.withDocumentClass(Appointment.class);
+        this.cache = RecordCache.forCollection("appointments");
+        this.versions = CollectionVersions.forCollection("appointments");
+        this.deletions = DeletionLog.forCollection("appointments");
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "appointmentId");
+        ensureScheduleIndexes(collection);
     }
 
-    // Create
-    public boolean insertAppointment(Appointment appointment) {
+    // Serve the range reads below, in their sort order: one doctor's appointments by start, and
+    // everyone's by start
+    static void ensureScheduleIndexes(MongoCollection<Document> collection) {
         try {
-            // Check if appointment already exists
-            if (getAppointmentById(appointment.getAppointmentId()) != null) {
-                System.err.println("Appointment with ID " + appointment.getAppointmentId() + " already exists");
-                return false;
-            }
+            collection.createIndex(Indexes.ascending("doctorId", TemporalFields.APPOINTMENT_START, "appointmentId"),
+                    new IndexOptions().name("doctorId_startAt"));
+            collection.createIndex(Indexes.ascending(TemporalFields.APPOINTMENT_START, "appointmentId"),
+                    new IndexOptions().name("startAt"));
+        } catch (Exception e) {
+            System.err.println("Could not create appointment schedule indexes: " + e.getMessage());
+        }
+    }
 
-            Document doc = new Document("appointmentId", appointment.getAppointmentId())
-                    .append("patientId", appointment.getPatientId())
-                    .append("patientName", appointment.getPatientName()) // Added patient name
-                    .append("doctorId", appointment.getDoctorId())
-                    .append("doctorName", appointment.getDoctorName()) // Added doctor name
-                    .append("date", appointment.getDate())
-                    .append("time", appointment.getTime())
-                    .append("description", appointment.getDescription())
-                    .append("completed", appointment.isCompleted());
-
-            collection.insertOne(doc);
+    // Create - duplicate IDs are rejected by the unique index on appointmentId
+    @Override
+    public WriteResult insertAppointment(Appointment appointment) {
+        try {
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(appointment)));
             System.out.println("Appointment " + appointment.getAppointmentId() + " inserted successfully");
-            return true;
+            return WriteResult.APPLIED;
         } catch (Exception e) {
-            System.err.println("Error inserting appointment: " + e.getMessage());
-            return false;
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("Appointment with ID " + appointment.getAppointmentId() + " already exists");
+            } else {
+                System.err.println("Error inserting appointment: " + e.getMessage());
+            }
+            return result;
+        } finally {
+            written(appointment.getAppointmentId());
         }
     }
 
     // Read
+    @Override
     public Appointment getAppointmentById(String appointmentId) {
         try {
-            Document doc = collection.find(eq("appointmentId", appointmentId)).first();
-            if (doc != null) {
-                return documentToAppointment(doc);
-            }
+            return cache.find(collection, "appointmentId", appointmentId, Appointment.class);
         } catch (Exception e) {
             System.err.println("Error getting appointment: " + e.getMessage());
         }
         return null;
     }
 
+    @Override
     public List<Appointment> getAllAppointments() {
         List<Appointment> appointments = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find().iterator();
+            MongoCursor<Appointment> cursor = typedCollection.find().iterator();
             while (cursor.hasNext()) {
-                appointments.add(documentToAppointment(cursor.next()));
+                appointments.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -73,12 +99,49 @@ public class AppointmentDAO {
         return appointments;
     }
 
+    // Keyset pagination ordered by appointmentId; reads one extra document to detect the next page
+    @Override
+    public Page<Appointment> getAppointmentsPage(ListQuery query) {
+        return getAppointmentsPage(query, RecordFilter.NONE);
+    }
+
+    // Filters come from RecordFilter.APPOINTMENTS; a projection, if any, is ignored here
+    @Override
+    public Page<Appointment> getAppointmentsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(typedCollection, "appointmentId", query, filter, null, Appointment::getAppointmentId);
+    }
+
+    // Selected fields only, as raw documents, so unselected fields are absent rather than defaulted
+    @Override
+    public Page<Document> getAppointmentFieldsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(collection, "appointmentId", query, filter, filter.projection(),
+                doc -> doc.getString("appointmentId"));
+    }
+
+    // Streams every appointment in appointmentId order. Unlike getAllAppointments() errors are not swallowed,
+    // because the caller may already be writing the response when the cursor is opened.
+    @Override
+    public RecordCursor<Appointment> streamAppointments() {
+        return streamAppointments(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Appointment> streamAppointments(RecordFilter filter) {
+        return KeysetQueries.stream(typedCollection, "appointmentId", filter, null, STREAM_BATCH_SIZE);
+    }
+
+    @Override
+    public RecordCursor<Document> streamAppointmentFields(RecordFilter filter) {
+        return KeysetQueries.stream(collection, "appointmentId", filter, filter.projection(), STREAM_BATCH_SIZE);
+    }
+
+    @Override
     public List<Appointment> getAppointmentsByPatientId(String patientId) {
         List<Appointment> appointments = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find(eq("patientId", patientId)).iterator();
+            MongoCursor<Appointment> cursor = typedCollection.find(eq("patientId", patientId)).iterator();
             while (cursor.hasNext()) {
-                appointments.add(documentToAppointment(cursor.next()));
+                appointments.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -87,12 +150,13 @@ public class AppointmentDAO {
         return appointments;
     }
 
+    @Override
     public List<Appointment> getAppointmentsByDoctorId(String doctorId) {
         List<Appointment> appointments = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find(eq("doctorId", doctorId)).iterator();
+            MongoCursor<Appointment> cursor = typedCollection.find(eq("doctorId", doctorId)).iterator();
             while (cursor.hasNext()) {
-                appointments.add(documentToAppointment(cursor.next()));
+                appointments.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -101,119 +165,319 @@ public class AppointmentDAO {
         return appointments;
     }
 
-    // Update - FIXED to check if record exists
-    public boolean updateAppointment(Appointment appointment) {
-        try {
-            // First check if appointment exists
-            if (getAppointmentById(appointment.getAppointmentId()) == null) {
-                System.err.println("Cannot update: Appointment with ID " + appointment.getAppointmentId() + " does not exist");
-                return false;
-            }
+    // Appointments starting in [from, to), earliest first - a range scan of the startAt index
+    @Override
+    public List<Appointment> getAppointmentsBetween(LocalDateTime from, LocalDateTime to) {
+        return findStarting(startsIn(from, to), "appointments between " + from + " and " + to);
+    }
 
-            Document updateDoc = new Document("$set", new Document()
-                    .append("patientId", appointment.getPatientId())
-                    .append("patientName", appointment.getPatientName()) // Update patient name
-                    .append("doctorId", appointment.getDoctorId())
-                    .append("doctorName", appointment.getDoctorName()) // Update doctor name
-                    .append("date", appointment.getDate())
-                    .append("time", appointment.getTime())
-                    .append("description", appointment.getDescription())
-                    .append("completed", appointment.isCompleted()));
+    // One doctor's appointments starting in [from, to) - a range scan of the (doctorId, startAt) index
+    @Override
+    public List<Appointment> getAppointmentsForDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+        return findStarting(and(eq("doctorId", doctorId), startsIn(from, to)), "appointments of doctor " + doctorId);
+    }
 
-            UpdateResult result = collection.updateOne(eq("appointmentId", appointment.getAppointmentId()), updateDoc);
+    private static Bson startsIn(LocalDateTime from, LocalDateTime to) {
+        return and(gte(TemporalFields.APPOINTMENT_START, TemporalFields.toDate(from)),
+                lt(TemporalFields.APPOINTMENT_START, TemporalFields.toDate(to)));
+    }
 
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Appointment " + appointment.getAppointmentId() + " updated successfully");
-                return true;
-            } else {
-                System.err.println("No appointment found with ID: " + appointment.getAppointmentId());
-                return false;
+    private List<Appointment> findStarting(Bson filter, String what) {
+        List<Appointment> appointments = new ArrayList<>();
+        try (MongoCursor<Appointment> cursor = typedCollection.find(filter)
+                .sort(Sorts.ascending(TemporalFields.APPOINTMENT_START, "appointmentId"))
+                .iterator()) {
+            while (cursor.hasNext()) {
+                appointments.add(cursor.next());
             }
         } catch (Exception e) {
-            System.err.println("Error updating appointment: " + e.getMessage());
-            return false;
+            System.err.println("Error getting " + what + ": " + e.getMessage());
         }
+        return appointments;
     }
 
-    // Mark appointment completed - FIXED to check if record exists
-    public boolean markAppointmentCompleted(String appointmentId) {
+    // Update - existence comes from the matched count, no read beforehand. An appointment that was
+    // read writes only the fields changed since; one built from scratch is written in full.
+    @Override
+    public WriteResult updateAppointment(Appointment appointment) {
         try {
-            // First check if appointment exists
-            if (getAppointmentById(appointmentId) == null) {
-                System.err.println("Cannot complete: Appointment with ID " + appointmentId + " does not exist");
-                return false;
+            Document updateDoc = updateDocument(appointment);
+            if (updateDoc.isEmpty()) {
+                return WriteResult.UNCHANGED;
             }
 
-            Document updateDoc = new Document("$set", new Document("completed", true));
-            UpdateResult result = collection.updateOne(eq("appointmentId", appointmentId), updateDoc);
-
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Appointment " + appointmentId + " marked as completed");
-                return true;
+            WriteResult result = WriteResult.ofUpdate(WriteOperation.UPDATE.on(collection).updateOne(eq("appointmentId", appointment.getAppointmentId()), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
+                System.err.println("No appointment found with ID: " + appointment.getAppointmentId());
             } else {
-                System.err.println("No appointment found with ID: " + appointmentId);
-                return false;
+                appointment.markClean();
+                System.out.println("Appointment " + appointment.getAppointmentId() + " updated successfully");
             }
+            return result;
         } catch (Exception e) {
-            System.err.println("Error marking appointment completed: " + e.getMessage());
-            return false;
+            System.err.println("Error updating appointment: " + e.getMessage());
+            return WriteResult.FAILED;
+        } finally {
+            written(appointment.getAppointmentId());
+        }
+    }
+
+    // What updateAppointment writes; empty when nothing changed. A changed date or time writes
+    // both halves with the startAt they make, so the three always agree with each other.
+    static Document updateDocument(Appointment appointment) {
+        ChangeSet changes = appointment.getChanges();
+        if (changes != null) {
+            Document update = changes.toUpdate();
+            if (changes.changedFields().contains("date") || changes.changedFields().contains("time")) {
+                update.get("$set", Document.class)
+                        .append("date", appointment.getDate())
+                        .append("time", appointment.getTime())
+                        .append(TemporalFields.APPOINTMENT_START, startOf(appointment));
+            }
+            return update;
         }
+        return new Document("$set", new Document()
+                .append("patientId", appointment.getPatientId())
+                .append("patientName", appointment.getPatientName()) // Update patient name
+                .append("doctorId", appointment.getDoctorId())
+                .append("doctorName", appointment.getDoctorName()) // Update doctor name
+                .append("date", appointment.getDate())
+                .append("time", appointment.getTime())
+                .append("description", appointment.getDescription())
+                .append("completed", appointment.isCompleted())
+                .append(TemporalFields.APPOINTMENT_START, startOf(appointment)));
     }
 
-    // Delete - FIXED to check if record exists
-    public boolean deleteAppointment(String appointmentId) {
+    // Updates the editable fields and returns the stored appointment, keeping its completion status.
+    // Returns null if the appointment does not exist; database errors propagate to the caller.
+    @Override
+    public Appointment updateAppointmentDetails(Appointment appointment) {
         try {
-            // First check if appointment exists
-            if (getAppointmentById(appointmentId) == null) {
-                System.err.println("Cannot delete: Appointment with ID " + appointmentId + " does not exist");
-                return false;
+            Document updateDoc = detailsUpdate(appointment);
+            Appointment updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("appointmentId", appointment.getAppointmentId()), ChangeTracking.stampUpdate(updateDoc),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No appointment found with ID: " + appointment.getAppointmentId());
+                return null;
             }
+            System.out.println("Appointment " + appointment.getAppointmentId() + " updated successfully");
+            return updated;
+        } finally {
+            written(appointment.getAppointmentId());
+        }
+    }
 
-            DeleteResult result = collection.deleteOne(eq("appointmentId", appointmentId));
+    static Document detailsUpdate(Appointment appointment) {
+        return new Document("$set", new Document()
+                .append("patientId", appointment.getPatientId())
+                .append("patientName", appointment.getPatientName())
+                .append("doctorId", appointment.getDoctorId())
+                .append("doctorName", appointment.getDoctorName())
+                .append("date", appointment.getDate())
+                .append("time", appointment.getTime())
+                .append("description", appointment.getDescription())
+                .append(TemporalFields.APPOINTMENT_START, startOf(appointment)));
+    }
 
-            if (result.getDeletedCount() > 0) {
-                System.out.println("Appointment " + appointmentId + " deleted successfully");
-                return true;
+    // Applies only the edits recorded on a patch (see Appointment.patch) and returns the stored
+    // appointment afterwards. Returns null if it does not exist; database errors propagate.
+    // A patch may carry the date without the time or the other way round. startAt is then
+    // worked out from the stored half the patch keeps and set in the same update, which only
+    // applies while that half is still stored; if a concurrent write moved it, the patch is
+    // worked out again from a fresh read.
+    @Override
+    public Appointment patchAppointment(Appointment patch) {
+        String appointmentId = patch.getAppointmentId();
+        try {
+            ChangeSet.require(patch.getChanges());
+            String kept = keptStartField(patch);
+            while (true) {
+                Bson filter = eq("appointmentId", appointmentId);
+                Appointment current = null;
+                if (kept != null) {
+                    current = typedCollection.find(filter).first();
+                    if (current == null) {
+                        break;
+                    }
+                    filter = and(filter, eq(kept, startField(current, kept)));
+                }
+                Appointment updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(filter,
+                        ChangeTracking.stampUpdate(patchUpdate(patch, current)),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+                if (updated != null) {
+                    System.out.println("Appointment " + appointmentId + " patched: " + patch.getChanges().changedFields());
+                    return updated;
+                }
+                if (kept == null) {
+                    break;
+                }
+            }
+            System.err.println("No appointment found with ID: " + appointmentId);
+            return null;
+        } finally {
+            written(appointmentId);
+        }
+    }
+
+    // Mark appointment completed - UNCHANGED when it was already completed
+    @Override
+    public WriteResult markAppointmentCompleted(String appointmentId) {
+        try {
+            Document updateDoc = new Document("$set", new Document("completed", true));
+            WriteResult result = WriteResult.ofStateChange(WriteOperation.UPDATE.on(collection).updateOne(eq("appointmentId", appointmentId), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
+                System.err.println("No appointment found with ID: " + appointmentId);
+            } else if (result == WriteResult.UNCHANGED) {
+                System.out.println("Appointment " + appointmentId + " was already completed");
             } else {
+                System.out.println("Appointment " + appointmentId + " marked as completed");
+            }
+            return result;
+        } catch (Exception e) {
+            System.err.println("Error marking appointment completed: " + e.getMessage());
+            return WriteResult.FAILED;
+        } finally {
+            written(appointmentId);
+        }
+    }
+
+    // Delete - existence comes from the deleted count
+    @Override
+    public WriteResult deleteAppointment(String appointmentId) {
+        try {
+            WriteResult result = WriteResult.ofDelete(WriteOperation.DELETE.on(collection).deleteOne(eq("appointmentId", appointmentId)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No appointment found with ID: " + appointmentId);
-                return false;
+            } else {
+                System.out.println("Appointment " + appointmentId + " deleted successfully");
+                deletions.recordDeleted(List.of(appointmentId));
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error deleting appointment: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(appointmentId);
+        }
+    }
+
+    // Bulk operations - one bulkWrite per call, results reported per item
+    @Override
+    public BulkWriteSummary bulkInsertAppointments(List<Appointment> appointments, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            models.add(new InsertOneModel<>(ChangeTracking.stampInsert(toDocument(appointment))));
+            ids.add(appointment.getAppointmentId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "insert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    // Existing appointments keep their completion status; new ones get the submitted value
+    @Override
+    public BulkWriteSummary bulkUpsertAppointments(List<Appointment> appointments, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            models.add(new UpdateOneModel<>(eq("appointmentId", appointment.getAppointmentId()),
+                    ChangeTracking.stampUpdate(upsertDocument(appointment)), new UpdateOptions().upsert(true)));
+            ids.add(appointment.getAppointmentId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "upsert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    static Document upsertDocument(Appointment appointment) {
+        Document doc = toDocument(appointment);
+        Document set = new Document();
+        Document setOnInsert = new Document();
+        for (String field : doc.keySet()) {
+            if (INSERT_ONLY_FIELDS.contains(field)) {
+                setOnInsert.append(field, doc.get(field));
+            } else if (!"appointmentId".equals(field)) {
+                set.append(field, doc.get(field));
+            }
+        }
+        return new Document("$set", set).append("$setOnInsert", setOnInsert);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteAppointments(List<String> appointmentIds, boolean ordered) {
+        BulkWriteSummary summary = BulkWriter.executeDelete(WriteOperation.BULK.on(collection), "appointmentId", appointmentIds, ordered);
+        deletions.recordDeleted(summary.idsWith(BulkWriteSummary.ItemStatus.OK));
+        written(appointmentIds);
+        return summary;
+    }
+
+    // Every write ends here, applied or not: the cached copy and the published version of
+    // the record are out of date. The version moves last, so a reader that sees the new
+    // version cannot get the old copy from the cache.
+    private void written(String appointmentId) {
+        cache.invalidate(appointmentId);
+        versions.changed(appointmentId);
+    }
+
+    private void written(List<String> appointmentIds) {
+        for (String appointmentId : appointmentIds) {
+            written(appointmentId);
         }
     }
 
     // Check if appointment exists
+    @Override
     public boolean appointmentExists(String appointmentId) {
         return getAppointmentById(appointmentId) != null;
     }
 
-    // Helper method - Updated to handle patient and doctor names
-    private Appointment documentToAppointment(Document doc) {
-        Appointment appointment = new Appointment(
-                doc.getString("appointmentId"),
-                doc.getString("patientId"),
-                doc.getString("doctorId"),
-                doc.getString("date"),
-                doc.getString("time"),
-                doc.getString("description")
-        );
+    static boolean movesStart(Appointment patch) {
+        return patch.getChanges().changedFields().contains("date") || patch.getChanges().changedFields().contains("time");
+    }
 
-        // Set completion status
-        appointment.setCompleted(doc.getBoolean("completed", false));
+    // The half of the start ("date" or "time") a patch moving the start leaves as stored; null
+    // when it sets both or moves nothing
+    static String keptStartField(Appointment patch) {
+        Set<String> changed = patch.getChanges().changedFields();
+        if (changed.contains("date") == changed.contains("time")) {
+            return null;
+        }
+        return changed.contains("date") ? "time" : "date";
+    }
 
-        // Set patient and doctor names if available
-        String patientName = doc.getString("patientName");
-        String doctorName = doc.getString("doctorName");
+    private static String startField(Appointment appointment, String field) {
+        return "date".equals(field) ? appointment.getDate() : appointment.getTime();
+    }
 
-        if (patientName != null) {
-            appointment.setPatientName(patientName);
-        }
-        if (doctorName != null) {
-            appointment.setDoctorName(doctorName);
+    // The patch's update; one that moves the start also sets startAt, taking the half it keeps
+    // from current (the stored appointment, null when the patch sets both halves)
+    static Document patchUpdate(Appointment patch, Appointment current) {
+        Document update = ChangeSet.require(patch.getChanges()).toUpdate();
+        if (movesStart(patch)) {
+            String kept = keptStartField(patch);
+            String date = "date".equals(kept) ? current.getDate() : patch.getDate();
+            String time = "time".equals(kept) ? current.getTime() : patch.getTime();
+            update.get("$set", Document.class).append(TemporalFields.APPOINTMENT_START, TemporalFields.toDate(date, time));
         }
+        return update;
+    }
 
-        return appointment;
+    static Date startOf(Appointment appointment) {
+        return TemporalFields.toDate(appointment.getDate(), appointment.getTime());
     }
+
+    static Document toDocument(Appointment appointment) {
+        return new Document("appointmentId", appointment.getAppointmentId())
+                .append("patientId", appointment.getPatientId())
+                .append("patientName", appointment.getPatientName()) // Added patient name
+                .append("doctorId", appointment.getDoctorId())
+                .append("doctorName", appointment.getDoctorName()) // Added doctor name
+                .append("date", appointment.getDate())
+                .append("time", appointment.getTime())
+                .append("description", appointment.getDescription())
+                .append("completed", appointment.isCompleted())
+                .append(TemporalFields.APPOINTMENT_START, startOf(appointment));
+    }
+
 }
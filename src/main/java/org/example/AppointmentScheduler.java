@@ -0,0 +1,367 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Keeps a timeline of booked appointments per doctor so a doctor cannot be booked twice for
+// the same time, and finds the next free slots inside the doctor's working hours. Appointments
+// only carry a start date and time, so every appointment lasts one slot:
+//   -Dcarehub.schedule.slotMinutes=30   (default)
+// A timeline is a tree of bookings ordered by start. Because all bookings have the same length,
+// one starting at t overlaps [s, s + length) exactly when s - length < t < s + length, so a
+// conflict check is a single ceiling lookup and the tree needs no max-end augmentation to act as
+// an interval tree. Timelines are read from the appointment source the first time a doctor is
+// scheduled and kept current by reserve/release; clear() drops them after outside changes.
+//
+// Other processes book too, so a timeline alone can miss a stored appointment. Before taking a
+// slot, reserve asks the store which appointments the doctor has around it (a range read of the
+// doctorId_startAt index) and brings the timeline up to date there, so what another writer
+// stored conflicts just like a local booking.
+final class AppointmentScheduler {
+
+    static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final int MAX_SEARCH_DAYS = 366;
+    private static final int SUGGESTED_SLOTS = 3;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+    private static final Comparator<Booking> BY_START =
+            Comparator.comparingLong((Booking booking) -> booking.start).thenComparing(booking -> booking.appointmentId);
+
+    private final int slotMinutes;
+    private final Function<String, Doctor> doctors;
+    private final Function<String, List<Appointment>> appointmentsOfDoctor;
+    private final StoredBookings stored;
+    private final Map<String, Timeline> timelines = new ConcurrentHashMap<>();
+    private final Map<String, Booking> bookings = new ConcurrentHashMap<>(); // by appointment ID
+
+    // A doctor's stored appointments starting in [from, to)
+    @FunctionalInterface
+    interface StoredBookings {
+        List<Appointment> between(String doctorId, LocalDateTime from, LocalDateTime to);
+    }
+
+    AppointmentScheduler(int slotMinutes, Function<String, Doctor> doctors,
+                         Function<String, List<Appointment>> appointmentsOfDoctor, StoredBookings stored) {
+        if (slotMinutes < 1 || slotMinutes > WorkingHours.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Slot length must be between 1 and 1440 minutes: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+        this.doctors = doctors;
+        this.appointmentsOfDoctor = appointmentsOfDoctor;
+        this.stored = stored;
+    }
+
+    static AppointmentScheduler fromSystemProperties(Function<String, Doctor> doctors,
+                                                     Function<String, List<Appointment>> appointmentsOfDoctor,
+                                                     StoredBookings stored) {
+        int slotMinutes = Integer.getInteger("carehub.schedule.slotMinutes", DEFAULT_SLOT_MINUTES);
+        return new AppointmentScheduler(slotMinutes, doctors, appointmentsOfDoctor, stored);
+    }
+
+    int getSlotMinutes() { return slotMinutes; }
+
+    // A booked appointment: one slot starting at the given minute since the epoch. Bookings read
+    // from the store are dropped once the store no longer has them; those made by reserve may
+    // not be written yet, so they stay until released.
+    static final class Booking {
+        private final String appointmentId;
+        private final String doctorId;
+        private final long start;
+        private final boolean fromStore;
+
+        private Booking(String appointmentId, String doctorId, long start, boolean fromStore) {
+            this.appointmentId = appointmentId;
+            this.doctorId = doctorId;
+            this.start = start;
+            this.fromStore = fromStore;
+        }
+
+        String getAppointmentId() { return appointmentId; }
+        String getDoctorId() { return doctorId; }
+        LocalDateTime getStart() { return dateTimeOf(start); }
+    }
+
+    // Thrown when the slot is held by another appointment; the message names it and the
+    // doctor's next free slots
+    static final class ConflictException extends IllegalStateException {
+        private final String conflictingAppointmentId;
+
+        ConflictException(String message, String conflictingAppointmentId) {
+            super(message);
+            this.conflictingAppointmentId = conflictingAppointmentId;
+        }
+
+        String getConflictingAppointmentId() { return conflictingAppointmentId; }
+    }
+
+    private final class Timeline {
+        private final TreeSet<Booking> byStart = new TreeSet<>(BY_START);
+
+        // The first booking other than the given appointment overlapping a slot starting then
+        Booking conflict(long start, String appointmentId) {
+            for (Booking booking : byStart.tailSet(bound(start - slotMinutes + 1), true)) {
+                if (booking.start >= start + slotMinutes) {
+                    return null;
+                }
+                if (!booking.appointmentId.equals(appointmentId)) {
+                    return booking;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Parses the appointment's date and time and checks them against the doctor's working
+    // hours; throws IllegalArgumentException saying what is wrong
+    LocalDateTime slotStart(String doctorId, String date, String time) {
+        LocalDateTime start = TemporalFields.parse(date, time);
+        WorkingHours hours = workingHoursOf(doctorId);
+        if (!hours.covers(start, slotMinutes)) {
+            throw new IllegalArgumentException("Doctor " + doctorId + " is not available for a " + slotMinutes
+                    + " minute appointment at " + format(start) + " (working hours: " + hours + ")");
+        }
+        return start;
+    }
+
+    WorkingHours workingHoursOf(String doctorId) {
+        Doctor doctor = doctors.apply(doctorId);
+        return doctor != null ? WorkingHours.parse(doctor.getAvailability()) : WorkingHours.ALWAYS;
+    }
+
+    // Checks the appointment's date and time and books its slot, moving the booking if the
+    // appointment already had one. Throws IllegalArgumentException for an unusable time and
+    // ConflictException when another appointment holds it. Returns the booking the appointment
+    // had before, to hand to restore if the write this guards fails.
+    Booking reserve(Appointment appointment) {
+        String doctorId = appointment.getDoctorId();
+        return reserve(appointment.getAppointmentId(), doctorId,
+                slotStart(doctorId, appointment.getDate(), appointment.getTime()));
+    }
+
+    Booking reserve(String appointmentId, String doctorId, LocalDateTime start) {
+        Timeline timeline = timeline(doctorId);
+        long minute = minuteOf(start);
+        refresh(timeline, doctorId, minute);
+        Booking previous;
+        synchronized (timeline) {
+            Booking taken = timeline.conflict(minute, appointmentId);
+            if (taken != null) {
+                throw new ConflictException("Doctor " + doctorId + " already has appointment " + taken.appointmentId
+                        + " at " + format(dateTimeOf(taken.start)) + ". Next free: "
+                        + describe(nextFreeSlots(doctorId, start, SUGGESTED_SLOTS)), taken.appointmentId);
+            }
+            previous = bookings.get(appointmentId);
+            if (previous != null && previous.doctorId.equals(doctorId)) {
+                timeline.byStart.remove(previous);
+            }
+            Booking booking = new Booking(appointmentId, doctorId, minute, false);
+            timeline.byStart.add(booking);
+            bookings.put(appointmentId, booking);
+        }
+        if (previous != null && !previous.doctorId.equals(doctorId)) {
+            unbook(previous);
+        }
+        return previous;
+    }
+
+    // Removes the appointment's booking and puts back the one it had before (null for none)
+    void restore(String appointmentId, Booking previous) {
+        Booking current = bookings.remove(appointmentId);
+        if (current != null) {
+            unbook(current);
+        }
+        if (previous != null) {
+            Timeline timeline = timeline(previous.doctorId);
+            synchronized (timeline) {
+                timeline.byStart.add(previous);
+                bookings.put(appointmentId, previous);
+            }
+        }
+    }
+
+    void release(String appointmentId) {
+        restore(appointmentId, null);
+    }
+
+    // Forgets all timelines; they are read again from the appointment source when next needed
+    void clear() {
+        timelines.clear();
+        bookings.clear();
+    }
+
+    // The first free slots at or after the given time, on the doctor's slot grid: starts are
+    // the beginning of the working day plus whole slots. Each step either returns a slot or
+    // jumps past a booking, so the search costs a tree lookup per slot returned or skipped.
+    List<LocalDateTime> nextFreeSlots(String doctorId, LocalDateTime from, int count) {
+        WorkingHours hours = workingHoursOf(doctorId);
+        List<LocalDateTime> free = new ArrayList<>();
+        if (hours.getEndMinute() - hours.getStartMinute() < slotMinutes) {
+            return free;
+        }
+        Timeline timeline = timeline(doctorId);
+        long candidate = minuteOf(from);
+        long lastDay = Math.floorDiv(candidate, WorkingHours.MINUTES_PER_DAY) + MAX_SEARCH_DAYS;
+        synchronized (timeline) {
+            while (free.size() < count) {
+                long day = Math.floorDiv(candidate, WorkingHours.MINUTES_PER_DAY);
+                if (day > lastDay) {
+                    break;
+                }
+                long nextDay = (day + 1) * WorkingHours.MINUTES_PER_DAY;
+                if (!hours.worksOn(LocalDate.ofEpochDay(day).getDayOfWeek())) {
+                    candidate = nextDay;
+                    continue;
+                }
+                long dayStart = day * WorkingHours.MINUTES_PER_DAY + hours.getStartMinute();
+                long dayEnd = day * WorkingHours.MINUTES_PER_DAY + hours.getEndMinute();
+                candidate = dayStart + Math.ceilDiv(Math.max(candidate - dayStart, 0), slotMinutes) * slotMinutes;
+                if (candidate + slotMinutes > dayEnd) {
+                    candidate = nextDay;
+                    continue;
+                }
+                Booking taken = timeline.conflict(candidate, null);
+                if (taken != null) {
+                    candidate = taken.start + slotMinutes;
+                    continue;
+                }
+                free.add(dateTimeOf(candidate));
+                candidate += slotMinutes;
+            }
+        }
+        return free;
+    }
+
+    // Brings the part of the timeline a slot starting at minute could overlap up to date with
+    // the store: appointments stored there are booked, and bookings read from the store earlier
+    // that it no longer has there (deleted or moved by another writer) are dropped
+    private void refresh(Timeline timeline, String doctorId, long minute) {
+        long from = minute - slotMinutes + 1;
+        long to = minute + slotMinutes;
+        Map<String, Booking> found = new HashMap<>();
+        for (Appointment appointment : stored.between(doctorId, dateTimeOf(from), dateTimeOf(to))) {
+            Booking booking = bookingOf(appointment, doctorId);
+            if (booking != null && booking.start >= from && booking.start < to) {
+                found.put(booking.appointmentId, booking);
+            }
+        }
+        List<Booking> elsewhere = new ArrayList<>();
+        synchronized (timeline) {
+            Iterator<Booking> window = timeline.byStart.subSet(bound(from), bound(to)).iterator();
+            while (window.hasNext()) {
+                Booking booking = window.next();
+                if (booking.fromStore && !found.containsKey(booking.appointmentId)) {
+                    window.remove();
+                    bookings.remove(booking.appointmentId, booking);
+                }
+            }
+            for (Booking booking : found.values()) {
+                Booking known = bookings.get(booking.appointmentId);
+                if (known != null && !known.fromStore && known.start != booking.start) {
+                    continue; // this process is moving it; its own booking is the newer one
+                }
+                if (known != null && known.doctorId.equals(doctorId)) {
+                    timeline.byStart.remove(known);
+                } else if (known != null) {
+                    elsewhere.add(known);
+                }
+                timeline.byStart.add(booking);
+                bookings.put(booking.appointmentId, booking);
+            }
+        }
+        // Outside this timeline's lock, so no two timeline locks are ever held together
+        for (Booking booking : elsewhere) {
+            unbook(booking);
+        }
+    }
+
+    private static Booking bound(long minute) {
+        return new Booking("", null, minute, false);
+    }
+
+    // Loaded outside the map's compute, so a slow read blocks no other doctor; if two threads
+    // load the same doctor at once, the first timeline stored wins
+    private Timeline timeline(String doctorId) {
+        Timeline timeline = timelines.get(doctorId);
+        if (timeline != null) {
+            return timeline;
+        }
+        Timeline loaded = load(doctorId);
+        timeline = timelines.putIfAbsent(doctorId, loaded);
+        return timeline != null ? timeline : loaded;
+    }
+
+    // Appointments whose date or time cannot be read stay off the timeline: they can neither
+    // conflict nor be found free, which is all a free-text time allows
+    private Timeline load(String doctorId) {
+        Timeline timeline = new Timeline();
+        List<Appointment> appointments = appointmentsOfDoctor.apply(doctorId);
+        if (appointments == null) {
+            return timeline;
+        }
+        for (Appointment appointment : appointments) {
+            Booking booking = bookingOf(appointment, doctorId);
+            if (booking != null) {
+                timeline.byStart.add(booking);
+                bookings.putIfAbsent(booking.appointmentId, booking);
+            }
+        }
+        return timeline;
+    }
+
+    private static Booking bookingOf(Appointment appointment, String doctorId) {
+        try {
+            return new Booking(appointment.getAppointmentId(), doctorId,
+                    minuteOf(TemporalFields.parse(appointment.getDate(), appointment.getTime())), true);
+        } catch (IllegalArgumentException e) {
+            return null; // unschedulable legacy value
+        }
+    }
+
+    private void unbook(Booking booking) {
+        Timeline timeline = timelines.get(booking.doctorId);
+        if (timeline != null) {
+            synchronized (timeline) {
+                timeline.byStart.remove(booking);
+            }
+        }
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * WorkingHours.MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalDateTime dateTimeOf(long minute) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(minute, WorkingHours.MINUTES_PER_DAY));
+        return day.atTime(LocalTime.ofSecondOfDay(Math.floorMod(minute, WorkingHours.MINUTES_PER_DAY) * 60L));
+    }
+
+    static String formatTime(LocalDateTime time) {
+        return time.format(TIME);
+    }
+
+    static String format(LocalDateTime time) {
+        return time.toLocalDate() + " " + formatTime(time);
+    }
+
+    private static String describe(List<LocalDateTime> slots) {
+        if (slots.isEmpty()) {
+            return "none within a year";
+        }
+        List<String> formatted = new ArrayList<>();
+        for (LocalDateTime slot : slots) {
+            formatted.add(format(slot));
+        }
+        return String.join(", ", formatted);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Storage for appointments; see PatientStore for the conventions
+public interface AppointmentStore {
+
+    WriteResult insertAppointment(Appointment appointment);
+
+    Appointment getAppointmentById(String appointmentId);
+
+    List<Appointment> getAllAppointments();
+
+    Page<Appointment> getAppointmentsPage(ListQuery query);
+
+    Page<Appointment> getAppointmentsPage(ListQuery query, RecordFilter filter);
+
+    Page<Document> getAppointmentFieldsPage(ListQuery query, RecordFilter filter);
+
+    RecordCursor<Appointment> streamAppointments();
+
+    RecordCursor<Appointment> streamAppointments(RecordFilter filter);
+
+    RecordCursor<Document> streamAppointmentFields(RecordFilter filter);
+
+    List<Appointment> getAppointmentsByPatientId(String patientId);
+
+    List<Appointment> getAppointmentsByDoctorId(String doctorId);
+
+    // Starting in [from, to), earliest first; index range scans on startAt (see TemporalFields)
+    List<Appointment> getAppointmentsBetween(LocalDateTime from, LocalDateTime to);
+
+    List<Appointment> getAppointmentsForDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to);
+
+    WriteResult updateAppointment(Appointment appointment);
+
+    // Keeps the completion status; null if the appointment does not exist; errors propagate
+    Appointment updateAppointmentDetails(Appointment appointment);
+
+    Appointment patchAppointment(Appointment patch);
+
+    // UNCHANGED when it was already completed
+    WriteResult markAppointmentCompleted(String appointmentId);
+
+    WriteResult deleteAppointment(String appointmentId);
+
+    BulkWriteSummary bulkInsertAppointments(List<Appointment> appointments, boolean ordered);
+
+    BulkWriteSummary bulkUpsertAppointments(List<Appointment> appointments, boolean ordered);
+
+    BulkWriteSummary bulkDeleteAppointments(List<String> appointmentIds, boolean ordered);
+
+    boolean appointmentExists(String appointmentId);
+}
@@ -6,6 +6,7 @@ class Bill implements Serializable {
     private String billId, patientId, description;
     private double amount;
     private boolean paid;
+    private transient ChangeSet changes;
 
     public Bill(String billId, String patientId, double amount, String description) {
         this.billId = billId;
@@ -14,11 +15,33 @@ class Bill implements Serializable {
         this.description = description;
     }
 
+    // A bill holding no data, only the ID, whose edits become a partial update (PATCH)
+    static Bill patch(String billId) {
+        Bill bill = new Bill(billId, null, 0, null);
+        bill.markClean();
+        return bill;
+    }
+
     // Getters and setters
     public String getBillId() { return billId; }
     public String getPatientId() { return patientId; }
     public double getAmount() { return amount; }
     public String getDescription() { return description; }
     public boolean isPaid() { return paid; }
-    public void setPaid(boolean paid) { this.paid = paid; }
+    public void setPaid(boolean paid) { this.paid = paid; track("paid", paid); }
+    public void setPatientId(String patientId) { this.patientId = patientId; track("patientId", patientId); }
+    public void setAmount(double amount) { this.amount = amount; track("amount", amount); }
+    public void setDescription(String description) { this.description = description; track("description", description); }
+
+    // Edits since the bill was read or saved; null for bills built from scratch
+    public ChangeSet getChanges() { return changes; }
+
+    // The bill now matches what is stored; later edits are recorded
+    public void markClean() { this.changes = new ChangeSet(); }
+
+    private void track(String field, Object value) {
+        if (changes != null) {
+            changes.set(field, value);
+        }
+    }
 }
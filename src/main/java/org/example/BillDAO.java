@@ -2,65 +2,74 @@ package org.example;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import java.util.ArrayList;
 import java.util.List;
 import static com.mongodb.client.model.Filters.*;
 
-public class BillDAO {
+public class BillDAO implements BillStore {
+    private static final int STREAM_BATCH_SIZE = 500;
+    static final List<String> INSERT_ONLY_FIELDS = List.of("paid");
+
     private MongoCollection<Document> collection;
+    private MongoCollection<Bill> typedCollection; // decoded by DomainCodecs
+    private RecordCache cache; // getBillById, shared by all DAOs of the collection
+    private CollectionVersions versions; // ETags of the REST API
+    private DeletionLog deletions; // tombstones read by the polling change source
 
     public BillDAO() {
-        this.collection = DatabaseConnection.getInstance()
-                .getDatabase()
-                .getCollection("bills");
+        this.collection = DatabaseConnection.getInstance().getCollection("bills");
+        this.typedCollection = collection.withDocumentClass(Bill.class);
+        this.cache = RecordCache.forCollection("bills");
+        this.versions = CollectionVersions.forCollection("bills");
+        this.deletions = DeletionLog.forCollection("bills");
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "billId");
     }
 
-    // Create
-    public boolean insertBill(Bill bill) {
+    // Create - duplicate IDs are rejected by the unique index on billId
+    @Override
+    public WriteResult insertBill(Bill bill) {
         try {
-            // Check if bill already exists
-            if (getBillById(bill.getBillId()) != null) {
-                System.err.println("Bill with ID " + bill.getBillId() + " already exists");
-                return false;
-            }
-
-            Document doc = new Document("billId", bill.getBillId())
-                    .append("patientId", bill.getPatientId())
-                    .append("amount", bill.getAmount())
-                    .append("description", bill.getDescription())
-                    .append("paid", bill.isPaid());
-
-            collection.insertOne(doc);
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(bill)));
             System.out.println("Bill " + bill.getBillId() + " inserted successfully");
-            return true;
+            return WriteResult.APPLIED;
         } catch (Exception e) {
-            System.err.println("Error inserting bill: " + e.getMessage());
-            return false;
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("Bill with ID " + bill.getBillId() + " already exists");
+            } else {
+                System.err.println("Error inserting bill: " + e.getMessage());
+            }
+            return result;
+        } finally {
+            written(bill.getBillId());
         }
     }
 
     // Read
+    @Override
     public Bill getBillById(String billId) {
         try {
-            Document doc = collection.find(eq("billId", billId)).first();
-            if (doc != null) {
-                return documentToBill(doc);
-            }
+            return cache.find(collection, "billId", billId, Bill.class);
         } catch (Exception e) {
             System.err.println("Error getting bill: " + e.getMessage());
         }
         return null;
     }
 
+    @Override
     public List<Bill> getAllBills() {
         List<Bill> bills = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find().iterator();
+            MongoCursor<Bill> cursor = typedCollection.find().iterator();
             while (cursor.hasNext()) {
-                bills.add(documentToBill(cursor.next()));
+                bills.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -69,12 +78,49 @@ public class BillDAO {
         return bills;
     }
 
+    // Keyset pagination ordered by billId; reads one extra document to detect the next page
+    @Override
+    public Page<Bill> getBillsPage(ListQuery query) {
+        return getBillsPage(query, RecordFilter.NONE);
+    }
+
+    // Filters come from RecordFilter.BILLS; a projection, if any, is ignored here
+    @Override
+    public Page<Bill> getBillsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(typedCollection, "billId", query, filter, null, Bill::getBillId);
+    }
+
+    // Selected fields only, as raw documents, so unselected fields are absent rather than defaulted
+    @Override
+    public Page<Document> getBillFieldsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(collection, "billId", query, filter, filter.projection(),
+                doc -> doc.getString("billId"));
+    }
+
+    // Streams every bill in billId order. Unlike getAllBills() errors are not swallowed,
+    // because the caller may already be writing the response when the cursor is opened.
+    @Override
+    public RecordCursor<Bill> streamBills() {
+        return streamBills(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Bill> streamBills(RecordFilter filter) {
+        return KeysetQueries.stream(typedCollection, "billId", filter, null, STREAM_BATCH_SIZE);
+    }
+
+    @Override
+    public RecordCursor<Document> streamBillFields(RecordFilter filter) {
+        return KeysetQueries.stream(collection, "billId", filter, filter.projection(), STREAM_BATCH_SIZE);
+    }
+
+    @Override
     public List<Bill> getBillsByPatientId(String patientId) {
         List<Bill> bills = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find(eq("patientId", patientId)).iterator();
+            MongoCursor<Bill> cursor = typedCollection.find(eq("patientId", patientId)).iterator();
             while (cursor.hasNext()) {
-                bills.add(documentToBill(cursor.next()));
+                bills.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -83,99 +129,206 @@ public class BillDAO {
         return bills;
     }
 
-    // Update - FIXED to check if record exists
-    public boolean updateBill(Bill bill) {
+    // Update - existence comes from the matched count, no read beforehand. A bill that was
+    // read writes only the fields changed since; one built from scratch is written in full.
+    @Override
+    public WriteResult updateBill(Bill bill) {
         try {
-            // First check if bill exists
-            if (getBillById(bill.getBillId()) == null) {
-                System.err.println("Cannot update: Bill with ID " + bill.getBillId() + " does not exist");
-                return false;
+            Document updateDoc = updateDocument(bill);
+            if (updateDoc.isEmpty()) {
+                return WriteResult.UNCHANGED;
             }
 
-            Document updateDoc = new Document("$set", new Document()
-                    .append("patientId", bill.getPatientId())
-                    .append("amount", bill.getAmount())
-                    .append("description", bill.getDescription())
-                    .append("paid", bill.isPaid()));
-
-            UpdateResult result = collection.updateOne(eq("billId", bill.getBillId()), updateDoc);
-
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Bill " + bill.getBillId() + " updated successfully");
-                return true;
-            } else {
+            WriteResult result = WriteResult.ofUpdate(WriteOperation.UPDATE.on(collection).updateOne(eq("billId", bill.getBillId()), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No bill found with ID: " + bill.getBillId());
-                return false;
+            } else {
+                bill.markClean();
+                System.out.println("Bill " + bill.getBillId() + " updated successfully");
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error updating bill: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(bill.getBillId());
         }
     }
 
-    // Mark bill paid - FIXED to check if record exists
-    public boolean markBillPaid(String billId) {
+    // What updateBill writes; empty when nothing changed
+    static Document updateDocument(Bill bill) {
+        ChangeSet changes = bill.getChanges();
+        return changes != null ? changes.toUpdate() : new Document("$set", new Document()
+                .append("patientId", bill.getPatientId())
+                .append("amount", bill.getAmount())
+                .append("description", bill.getDescription())
+                .append("paid", bill.isPaid()));
+    }
+
+    // Updates the editable fields and returns the stored bill, keeping its payment status.
+    // Returns null if the bill does not exist; database errors propagate to the caller.
+    @Override
+    public Bill updateBillDetails(Bill bill) {
         try {
-            // First check if bill exists
-            if (getBillById(billId) == null) {
-                System.err.println("Cannot pay: Bill with ID " + billId + " does not exist");
-                return false;
+            Document updateDoc = detailsUpdate(bill);
+            Bill updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("billId", bill.getBillId()), ChangeTracking.stampUpdate(updateDoc),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No bill found with ID: " + bill.getBillId());
+                return null;
             }
+            System.out.println("Bill " + bill.getBillId() + " updated successfully");
+            return updated;
+        } finally {
+            written(bill.getBillId());
+        }
+    }
 
-            Document updateDoc = new Document("$set", new Document("paid", true));
-            UpdateResult result = collection.updateOne(eq("billId", billId), updateDoc);
+    static Document detailsUpdate(Bill bill) {
+        return new Document("$set", new Document()
+                .append("patientId", bill.getPatientId())
+                .append("amount", bill.getAmount())
+                .append("description", bill.getDescription()));
+    }
 
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Bill " + billId + " marked as paid");
-                return true;
-            } else {
+    // Applies only the edits recorded on a patch (see Bill.patch) and returns the stored bill
+    // afterwards. Returns null if the bill does not exist; database errors propagate.
+    @Override
+    public Bill patchBill(Bill patch) {
+        try {
+            Bill updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("billId", patch.getBillId()),
+                    ChangeTracking.stampUpdate(ChangeSet.require(patch.getChanges()).toUpdate()),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No bill found with ID: " + patch.getBillId());
+                return null;
+            }
+            System.out.println("Bill " + patch.getBillId() + " patched: " + patch.getChanges().changedFields());
+            return updated;
+        } finally {
+            written(patch.getBillId());
+        }
+    }
+
+    // Mark bill paid - UNCHANGED when it was already paid
+    @Override
+    public WriteResult markBillPaid(String billId) {
+        try {
+            Document updateDoc = new Document("$set", new Document("paid", true));
+            WriteResult result = WriteResult.ofStateChange(WriteOperation.UPDATE.on(collection).updateOne(eq("billId", billId), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No bill found with ID: " + billId);
-                return false;
+            } else if (result == WriteResult.UNCHANGED) {
+                System.out.println("Bill " + billId + " was already paid");
+            } else {
+                System.out.println("Bill " + billId + " marked as paid");
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error marking bill paid: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(billId);
         }
     }
 
-    // Delete - FIXED to check if record exists
-    public boolean deleteBill(String billId) {
+    // Delete - existence comes from the deleted count
+    @Override
+    public WriteResult deleteBill(String billId) {
         try {
-            // First check if bill exists
-            if (getBillById(billId) == null) {
-                System.err.println("Cannot delete: Bill with ID " + billId + " does not exist");
-                return false;
-            }
-
-            DeleteResult result = collection.deleteOne(eq("billId", billId));
-
-            if (result.getDeletedCount() > 0) {
-                System.out.println("Bill " + billId + " deleted successfully");
-                return true;
-            } else {
+            WriteResult result = WriteResult.ofDelete(WriteOperation.DELETE.on(collection).deleteOne(eq("billId", billId)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No bill found with ID: " + billId);
-                return false;
+            } else {
+                System.out.println("Bill " + billId + " deleted successfully");
+                deletions.recordDeleted(List.of(billId));
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error deleting bill: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(billId);
+        }
+    }
+
+    // Bulk operations - one bulkWrite per call, results reported per item
+    @Override
+    public BulkWriteSummary bulkInsertBills(List<Bill> bills, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Bill bill : bills) {
+            models.add(new InsertOneModel<>(ChangeTracking.stampInsert(toDocument(bill))));
+            ids.add(bill.getBillId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "insert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    // Existing bills keep their payment status; new ones get the submitted value
+    @Override
+    public BulkWriteSummary bulkUpsertBills(List<Bill> bills, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Bill bill : bills) {
+            models.add(new UpdateOneModel<>(eq("billId", bill.getBillId()),
+                    ChangeTracking.stampUpdate(upsertDocument(bill)), new UpdateOptions().upsert(true)));
+            ids.add(bill.getBillId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "upsert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    static Document upsertDocument(Bill bill) {
+        Document doc = toDocument(bill);
+        Document set = new Document();
+        Document setOnInsert = new Document();
+        for (String field : doc.keySet()) {
+            if (INSERT_ONLY_FIELDS.contains(field)) {
+                setOnInsert.append(field, doc.get(field));
+            } else if (!"billId".equals(field)) {
+                set.append(field, doc.get(field));
+            }
+        }
+        return new Document("$set", set).append("$setOnInsert", setOnInsert);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteBills(List<String> billIds, boolean ordered) {
+        BulkWriteSummary summary = BulkWriter.executeDelete(WriteOperation.BULK.on(collection), "billId", billIds, ordered);
+        deletions.recordDeleted(summary.idsWith(BulkWriteSummary.ItemStatus.OK));
+        written(billIds);
+        return summary;
+    }
+
+    // Every write ends here, applied or not: the cached copy and the published version of
+    // the record are out of date. The version moves last, so a reader that sees the new
+    // version cannot get the old copy from the cache.
+    private void written(String billId) {
+        cache.invalidate(billId);
+        versions.changed(billId);
+    }
+
+    private void written(List<String> billIds) {
+        for (String billId : billIds) {
+            written(billId);
         }
     }
 
     // Check if bill exists
+    @Override
     public boolean billExists(String billId) {
         return getBillById(billId) != null;
     }
 
-    // Helper method
-    private Bill documentToBill(Document doc) {
-        Bill bill = new Bill(
-                doc.getString("billId"),
-                doc.getString("patientId"),
-                doc.getDouble("amount"),
-                doc.getString("description")
-        );
-        bill.setPaid(doc.getBoolean("paid", false));
-        return bill;
+    static Document toDocument(Bill bill) {
+        return new Document("billId", bill.getBillId())
+                .append("patientId", bill.getPatientId())
+                .append("amount", bill.getAmount())
+                .append("description", bill.getDescription())
+                .append("paid", bill.isPaid());
     }
+
 }
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.List;
+
+// Storage for bills; see PatientStore for the conventions
+public interface BillStore {
+
+    WriteResult insertBill(Bill bill);
+
+    Bill getBillById(String billId);
+
+    List<Bill> getAllBills();
+
+    Page<Bill> getBillsPage(ListQuery query);
+
+    Page<Bill> getBillsPage(ListQuery query, RecordFilter filter);
+
+    Page<Document> getBillFieldsPage(ListQuery query, RecordFilter filter);
+
+    RecordCursor<Bill> streamBills();
+
+    RecordCursor<Bill> streamBills(RecordFilter filter);
+
+    RecordCursor<Document> streamBillFields(RecordFilter filter);
+
+    List<Bill> getBillsByPatientId(String patientId);
+
+    WriteResult updateBill(Bill bill);
+
+    // Keeps the payment status; null if the bill does not exist; errors propagate
+    Bill updateBillDetails(Bill bill);
+
+    Bill patchBill(Bill patch);
+
+    // UNCHANGED when it was already paid
+    WriteResult markBillPaid(String billId);
+
+    WriteResult deleteBill(String billId);
+
+    BulkWriteSummary bulkInsertBills(List<Bill> bills, boolean ordered);
+
+    BulkWriteSummary bulkUpsertBills(List<Bill> bills, boolean ordered);
+
+    BulkWriteSummary bulkDeleteBills(List<String> billIds, boolean ordered);
+
+    boolean billExists(String billId);
+}
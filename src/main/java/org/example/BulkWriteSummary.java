@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Result of a bulk insert/upsert/delete: collection-wide counts plus one entry per
+// submitted item, in request order. Serialized as the /api/*/bulk response body.
+public class BulkWriteSummary {
+
+    public enum ItemStatus {
+        OK,
+        DUPLICATE,   // insert rejected by the unique index
+        NOT_FOUND,   // delete of a key that matched nothing; not a failure
+        FAILED,
+        SKIPPED      // not attempted because an earlier item failed in an ordered write
+    }
+
+    public static class ItemResult {
+        private final int index;
+        private final String id;
+        private ItemStatus status = ItemStatus.OK;
+        private Boolean created;   // upserts only: true when the item inserted a new document
+        private String error;
+
+        ItemResult(int index, String id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        public int getIndex() { return index; }
+        public String getId() { return id; }
+        public ItemStatus getStatus() { return status; }
+        public Boolean getCreated() { return created; }
+        public String getError() { return error; }
+    }
+
+    private final String operation;
+    private final boolean ordered;
+    private final int received;
+    private int inserted;
+    private int upserted;
+    private int matched;
+    private int modified;
+    private int deleted;
+    private int failed;
+    private final List<ItemResult> results = new ArrayList<>();
+
+    public BulkWriteSummary(String operation, boolean ordered, List<String> ids) {
+        this.operation = operation;
+        this.ordered = ordered;
+        this.received = ids.size();
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(new ItemResult(i, ids.get(i)));
+        }
+    }
+
+    void setCounts(int inserted, int upserted, int matched, int modified, int deleted) {
+        this.inserted = inserted;
+        this.upserted = upserted;
+        this.matched = matched;
+        this.modified = modified;
+        this.deleted = deleted;
+    }
+
+    void markCreated(int index) {
+        results.get(index).created = true;
+    }
+
+    // A missing key does not stop an ordered delete, so it is not counted as failed
+    void markNotFound(int index) {
+        ItemResult item = results.get(index);
+        if (item.status == ItemStatus.OK) {
+            item.status = ItemStatus.NOT_FOUND;
+        }
+    }
+
+    void markFailed(int index, ItemStatus status, String error) {
+        ItemResult item = results.get(index);
+        if (item.status == ItemStatus.OK) {
+            failed++;
+        }
+        item.status = status;
+        item.error = error;
+    }
+
+    // Takes over the outcome of a write of some of this summary's items; positions.get(i) is
+    // the index here of item i of the part
+    void merge(BulkWriteSummary part, List<Integer> positions) {
+        setCounts(part.inserted, part.upserted, part.matched, part.modified, part.deleted);
+        for (int i = 0; i < positions.size(); i++) {
+            ItemResult item = part.results.get(i);
+            int index = positions.get(i);
+            if (item.status != ItemStatus.OK) {
+                markFailed(index, item.status, item.error);
+            }
+            if (Boolean.TRUE.equals(item.created)) {
+                markCreated(index);
+            }
+        }
+    }
+
+    // IDs of the items that ended with the given status, in request order
+    List<String> idsWith(ItemStatus status) {
+        List<String> ids = new ArrayList<>();
+        for (ItemResult item : results) {
+            if (item.status == status) {
+                ids.add(item.id);
+            }
+        }
+        return ids;
+    }
+
+    public String getOperation() { return operation; }
+    public boolean isOrdered() { return ordered; }
+    public int getReceived() { return received; }
+    public int getInserted() { return inserted; }
+    public int getUpserted() { return upserted; }
+    public int getMatched() { return matched; }
+    public int getModified() { return modified; }
+    public int getDeleted() { return deleted; }
+    public int getFailed() { return failed; }
+    public List<ItemResult> getResults() { return results; }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+
+// Runs a list of write models as one bulkWrite and maps the outcome back onto the
+// submitted items. ids.get(i) is the business key of models.get(i).
+final class BulkWriter {
+
+    private BulkWriter() {
+    }
+
+    static BulkWriteSummary execute(MongoCollection<Document> collection, String operation,
+                                    List<WriteModel<Document>> models, List<String> ids, boolean ordered) {
+        BulkWriteSummary summary = new BulkWriteSummary(operation, ordered, ids);
+        if (models.isEmpty()) {
+            return summary;
+        }
+
+        try {
+            BulkWriteResult result = collection.bulkWrite(models, new BulkWriteOptions().ordered(ordered));
+            applyResult(summary, result);
+        } catch (MongoBulkWriteException e) {
+            applyResult(summary, e.getWriteResult());
+            int firstError = models.size();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                BulkWriteSummary.ItemStatus status = ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                        ? BulkWriteSummary.ItemStatus.DUPLICATE
+                        : BulkWriteSummary.ItemStatus.FAILED;
+                summary.markFailed(error.getIndex(), status, error.getMessage());
+                firstError = Math.min(firstError, error.getIndex());
+            }
+            if (ordered) {
+                // An ordered bulk write stops at the first error
+                for (int i = firstError + 1; i < models.size(); i++) {
+                    summary.markFailed(i, BulkWriteSummary.ItemStatus.SKIPPED, null);
+                }
+            }
+            System.err.println("Bulk " + operation + " completed with " + e.getWriteErrors().size() + " write errors");
+        } catch (Exception e) {
+            System.err.println("Error executing bulk " + operation + ": " + e.getMessage());
+            for (int i = 0; i < models.size(); i++) {
+                summary.markFailed(i, BulkWriteSummary.ItemStatus.FAILED, e.getMessage());
+            }
+        }
+        return summary;
+    }
+
+    // Deletes one document per key. A bulkWrite only returns the total deleted count, so the
+    // keys that exist are read first with one $in query and the rest are reported NOT_FOUND.
+    // A key deleted by someone else between the read and the write is still reported OK.
+    static BulkWriteSummary executeDelete(MongoCollection<Document> collection, String keyField,
+                                          List<String> ids, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        for (String id : ids) {
+            models.add(new DeleteOneModel<>(eq(keyField, id)));
+        }
+        Set<String> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            try {
+                collection.find(in(keyField, ids))
+                        .projection(Projections.fields(Projections.include(keyField), Projections.excludeId()))
+                        .forEach(document -> existing.add(document.getString(keyField)));
+            } catch (Exception e) {
+                // Without the pre-read every key is assumed present, as before
+                System.err.println("Error reading keys before bulk delete: " + e.getMessage());
+                existing.addAll(ids);
+            }
+        }
+        BulkWriteSummary summary = execute(collection, "delete", models, ids, ordered);
+        for (int i = 0; i < ids.size(); i++) {
+            if (!existing.contains(ids.get(i))) {
+                summary.markNotFound(i);
+            }
+        }
+        return summary;
+    }
+
+    private static void applyResult(BulkWriteSummary summary, BulkWriteResult result) {
+        if (!result.wasAcknowledged()) {
+            return;
+        }
+        summary.setCounts(result.getInsertedCount(), result.getUpserts().size(),
+                result.getMatchedCount(), result.getModifiedCount(), result.getDeletedCount());
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            summary.markCreated(upsert.getIndex());
+        }
+    }
+}
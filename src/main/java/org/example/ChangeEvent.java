@@ -0,0 +1,40 @@
+package org.example;
+
+// One change reported by a ChangeSource. UPSERT carries the full record, DELETE only
+// the record ID, and RESET means the source could not account for some changes (lost
+// resume token, dropped collection) so the target has to reload that collection.
+final class ChangeEvent<T> {
+
+    enum Type { UPSERT, DELETE, RESET }
+
+    private final Type type;
+    private final String id;
+    private final T record;
+
+    private ChangeEvent(Type type, String id, T record) {
+        this.type = type;
+        this.id = id;
+        this.record = record;
+    }
+
+    static <T> ChangeEvent<T> upsert(String id, T record) {
+        return new ChangeEvent<>(Type.UPSERT, id, record);
+    }
+
+    static <T> ChangeEvent<T> delete(String id) {
+        return new ChangeEvent<>(Type.DELETE, id, null);
+    }
+
+    static <T> ChangeEvent<T> reset() {
+        return new ChangeEvent<>(Type.RESET, null, null);
+    }
+
+    Type getType() { return type; }
+    String getId() { return id; }
+    T getRecord() { return record; }
+
+    @Override
+    public String toString() {
+        return type + (id == null ? "" : " " + id);
+    }
+}
@@ -0,0 +1,227 @@
+package org.example;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Keeps the local caches in step with the database by applying change deltas instead of
+// reloading whole collections. Fetching (network I/O) and applying (cache mutation) are
+// split: fetch() may run on any thread and only queues changes, applyPending() drains the
+// queue in order and must run on the single thread that owns the caches.
+//
+// Each collection is watched through a change stream when the server supports it and
+// through lastModified polling otherwise. After a failed poll the source is reopened at its
+// last resume token; if that position is no longer available the target is reloaded once.
+// A reload is read in full while fetching, and only the swap of the cache content is queued.
+class ChangeFeed implements Closeable {
+
+    // Server error codes meaning the resume position cannot be used any more
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int INVALID_RESUME_TOKEN = 260;
+
+    private final List<Subscription<?>> subscriptions = new ArrayList<>();
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    // Watches a MongoDB collection, preferring a change stream and falling back to polling
+    <T> void watchCollection(MongoCollection<Document> collection, Class<T> type, String keyField,
+                             Function<T, String> idOf, ChangeTarget<T> target) {
+        watch(collection.getNamespace().getCollectionName(),
+                new MongoChangeStreamSource<>(collection, type, keyField, idOf),
+                () -> new PollingChangeSource<>(collection, type, keyField, idOf),
+                target);
+    }
+
+    // Opens the source immediately, so a load performed after this call misses nothing.
+    // If the source cannot be opened the fallback is used instead.
+    synchronized <T> void watch(String name, ChangeSource<T> source, Supplier<ChangeSource<T>> fallback,
+                                ChangeTarget<T> target) {
+        Subscription<T> subscription = new Subscription<>(name, source, target);
+        try {
+            source.open(null);
+        } catch (RuntimeException e) {
+            System.err.println("Change stream unavailable for " + name + " (" + e.getMessage()
+                    + "), polling for changes instead");
+            subscription.source = fallback.get();
+            subscription.source.open(null);
+        }
+        subscriptions.add(subscription);
+    }
+
+    // Reads available changes from every source and queues them; returns the number queued
+    synchronized int fetch() {
+        int queued = 0;
+        for (Subscription<?> subscription : subscriptions) {
+            queued += subscription.fetch();
+        }
+        return queued;
+    }
+
+    // Applies queued changes in the order they were fetched; returns the number applied
+    int applyPending() {
+        int applied = 0;
+        Runnable change;
+        while ((change = pending.poll()) != null) {
+            change.run();
+            applied++;
+        }
+        return applied;
+    }
+
+    // Fetch and apply on the calling thread, which must be the apply thread
+    int sync() {
+        fetch();
+        return applyPending();
+    }
+
+    // Polls in the background and hands queued changes to applyExecutor (e.g. the EDT),
+    // running onChange there after each non-empty batch
+    synchronized void start(long intervalMillis, Executor applyExecutor, Runnable onChange) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (fetch() > 0) {
+                    applyExecutor.execute(() -> {
+                        if (applyPending() > 0) {
+                            onChange.run();
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                // An escaping exception would cancel the schedule
+                System.err.println("Change feed poll failed: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.source.close();
+        }
+        subscriptions.clear();
+    }
+
+    private static boolean isPositionLost(RuntimeException e) {
+        if (e instanceof MongoCommandException) {
+            int code = ((MongoCommandException) e).getErrorCode();
+            return code == CHANGE_STREAM_HISTORY_LOST || code == INVALID_RESUME_TOKEN
+                    || code == CHANGE_STREAM_FATAL_ERROR;
+        }
+        return false;
+    }
+
+    private final class Subscription<T> {
+        private final String name;
+        private final ChangeTarget<T> target;
+        private ChangeSource<T> source;
+        private String resumeToken;
+        private boolean reloadNeeded;
+
+        Subscription(String name, ChangeSource<T> source, ChangeTarget<T> target) {
+            this.name = name;
+            this.source = source;
+            this.target = target;
+        }
+
+        int fetch() {
+            int queued = 0;
+            if (reloadNeeded) {
+                if (!queueReload()) {
+                    return 0;
+                }
+                queued++;
+            }
+            List<ChangeEvent<T>> events;
+            try {
+                events = source.poll();
+                resumeToken = source.resumeToken();
+            } catch (RuntimeException e) {
+                System.err.println("Error reading changes for " + name + ": " + e.getMessage());
+                return queued + (reopen() && queueReload() ? 1 : 0);
+            }
+            for (ChangeEvent<T> event : events) {
+                if (event.getType() == ChangeEvent.Type.RESET) {
+                    if (!queueReload()) {
+                        return queued; // the rest is covered by the retried reload
+                    }
+                } else {
+                    pending.add(() -> apply(event));
+                }
+                queued++;
+            }
+            return queued;
+        }
+
+        // Reads the full content here, off the apply thread, and queues only the swap. A failed
+        // read is retried on the next fetch.
+        private boolean queueReload() {
+            try {
+                List<T> records = target.loadAll();
+                pending.add(() -> target.replaceAll(records));
+                reloadNeeded = false;
+                return true;
+            } catch (RuntimeException e) {
+                System.err.println("Could not reload " + name + ", retrying on the next fetch: " + e.getMessage());
+                reloadNeeded = true;
+                return false;
+            }
+        }
+
+        // Returns true when the position was lost and the source restarted, so a reload is due
+        private boolean reopen() {
+            source.close();
+            try {
+                source.open(resumeToken);
+            } catch (RuntimeException e) {
+                if (!isPositionLost(e)) {
+                    // Still failing; the next fetch retries from the same position
+                    System.err.println("Could not reopen change source for " + name + ": " + e.getMessage());
+                    return false;
+                }
+                System.err.println("Resume position lost for " + name + ", reloading it");
+                source.open(null);
+                resumeToken = source.resumeToken();
+                return true;
+            }
+            return false;
+        }
+
+        private void apply(ChangeEvent<T> event) {
+            switch (event.getType()) {
+                case UPSERT:
+                    target.upsert(event.getId(), event.getRecord());
+                    break;
+                case DELETE:
+                    target.delete(event.getId());
+                    break;
+                default:
+                    break; // RESET is turned into a reload while fetching
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Field changes recorded by a domain object since it was read, turned into the smallest
+// update document: changed scalars go into $set, list additions into $push / $addToSet and
+// removals into $pull, so an edit never rewrites untouched fields or whole arrays.
+//
+// MongoDB rejects an update that both adds to and removes from the same array, so a list
+// that sees both (or is assigned wholesale) is written in full with $set instead.
+final class ChangeSet {
+
+    private enum ListOp { PUSH, ADD_TO_SET, PULL }
+
+    private static final class ListChange {
+        final ListOp op;
+        final String matchKey; // pulls only: match elements by this sub-field instead of by value
+        final List<Object> values = new ArrayList<>();
+
+        ListChange(ListOp op, String matchKey) {
+            this.op = op;
+            this.matchKey = matchKey;
+        }
+    }
+
+    private final Map<String, Object> sets = new LinkedHashMap<>();
+    private final Map<String, ListChange> lists = new LinkedHashMap<>();
+    private final Set<String> replaced = new LinkedHashSet<>();
+
+    void set(String field, Object value) {
+        sets.put(field, value);
+    }
+
+    void push(String field, Object value) {
+        addListChange(field, ListOp.PUSH, null, value);
+    }
+
+    // For lists with set semantics; an element already stored is not added twice
+    void addToSet(String field, Object value) {
+        addListChange(field, ListOp.ADD_TO_SET, null, value);
+    }
+
+    void pull(String field, Object value) {
+        addListChange(field, ListOp.PULL, null, value);
+    }
+
+    // Removes every element whose matchKey sub-field equals value
+    void pullWhere(String field, String matchKey, Object value) {
+        addListChange(field, ListOp.PULL, matchKey, value);
+    }
+
+    // The whole list will be written with its current value
+    void replace(String field) {
+        lists.remove(field);
+        replaced.add(field);
+    }
+
+    private void addListChange(String field, ListOp op, String matchKey, Object value) {
+        if (replaced.contains(field)) {
+            return;
+        }
+        ListChange change = lists.get(field);
+        if (change == null) {
+            change = new ListChange(op, matchKey);
+            lists.put(field, change);
+        } else if (change.op != op || !Objects.equals(change.matchKey, matchKey)) {
+            replace(field);
+            return;
+        }
+        change.values.add(value);
+    }
+
+    // Patches must change something; an empty one is a client error
+    static ChangeSet require(ChangeSet changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        return changes;
+    }
+
+    boolean isEmpty() {
+        return sets.isEmpty() && lists.isEmpty() && replaced.isEmpty();
+    }
+
+    Set<String> changedFields() {
+        Set<String> fields = new LinkedHashSet<>(sets.keySet());
+        fields.addAll(lists.keySet());
+        fields.addAll(replaced);
+        return fields;
+    }
+
+    // For objects without list fields
+    Document toUpdate() {
+        return toUpdate(field -> {
+            throw new IllegalStateException("No current value for " + field);
+        }, value -> value);
+    }
+
+    // currentValue supplies replaced lists in stored form; encode converts list elements
+    // (e.g. Medication) to what the collection stores. An empty result means nothing changed.
+    Document toUpdate(Function<String, Object> currentValue, UnaryOperator<Object> encode) {
+        Document set = new Document(sets);
+        for (String field : replaced) {
+            set.append(field, currentValue.apply(field));
+        }
+        Document push = new Document();
+        Document addToSet = new Document();
+        Document pull = new Document();
+        for (Map.Entry<String, ListChange> entry : lists.entrySet()) {
+            ListChange change = entry.getValue();
+            List<Object> values = new ArrayList<>();
+            for (Object value : change.values) {
+                values.add(change.matchKey == null ? encode.apply(value) : value);
+            }
+            switch (change.op) {
+                case PUSH:
+                    push.append(entry.getKey(), new Document("$each", values));
+                    break;
+                case ADD_TO_SET:
+                    addToSet.append(entry.getKey(), new Document("$each", values));
+                    break;
+                default:
+                    Object condition = values.size() == 1 ? values.get(0) : new Document("$in", values);
+                    pull.append(entry.getKey(), change.matchKey == null ? condition : new Document(change.matchKey, condition));
+            }
+        }
+
+        Document update = new Document();
+        if (!set.isEmpty()) {
+            update.append("$set", set);
+        }
+        if (!push.isEmpty()) {
+            update.append("$push", push);
+        }
+        if (!addToSet.isEmpty()) {
+            update.append("$addToSet", addToSet);
+        }
+        if (!pull.isEmpty()) {
+            update.append("$pull", pull);
+        }
+        return update;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.List;
+
+// Feed of inserts, updates and deletes for one collection. Positions are opaque strings
+// so a source can be reopened where it stopped after an error.
+interface ChangeSource<T> extends Closeable {
+
+    // Starts watching after the given position, or from now when resumeToken is null
+    void open(String resumeToken);
+
+    // Returns the changes available right now without blocking; empty when there are none
+    List<ChangeEvent<T>> poll();
+
+    // Position just after the last change returned by poll(); null if nothing is known yet
+    String resumeToken();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Local cache that ChangeFeed applies changes to. upsert, delete and replaceAll are only
+// called from the feed's apply thread (the EDT in the desktop client); loadAll is called
+// while fetching, so it may read the database.
+interface ChangeTarget<T> {
+
+    void upsert(String id, T record);
+
+    void delete(String id);
+
+    // Incremental history was lost: everything to put in the cache instead
+    List<T> loadAll();
+
+    // Replaces the cached content with what loadAll returned
+    void replaceAll(List<T> records);
+
+    static <T> ChangeTarget<T> of(IndexedRepository<T> repository, Supplier<List<T>> loader) {
+        return new ChangeTarget<T>() {
+            @Override
+            public void upsert(String id, T record) {
+                repository.put(record);
+            }
+
+            @Override
+            public void delete(String id) {
+                repository.remove(id);
+            }
+
+            @Override
+            public List<T> loadAll() {
+                return loader.get();
+            }
+
+            @Override
+            public void replaceAll(List<T> records) {
+                repository.replaceAll(records);
+            }
+        };
+    }
+}
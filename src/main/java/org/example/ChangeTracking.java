@@ -0,0 +1,27 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.Date;
+
+// Every DAO write records a lastModified timestamp so the polling change source can
+// fetch only the documents changed since its last pass. Updates use $currentDate,
+// i.e. the server clock; inserts carry the client clock, which the polling overlap
+// window absorbs.
+final class ChangeTracking {
+
+    static final String LAST_MODIFIED = "lastModified";
+
+    private ChangeTracking() {
+    }
+
+    // For documents passed to insertOne / InsertOneModel / ReplaceOneModel
+    static Document stampInsert(Document document) {
+        return document.append(LAST_MODIFIED, new Date());
+    }
+
+    // For update documents built from $set / $setOnInsert operators
+    static Document stampUpdate(Document update) {
+        return update.append("$currentDate", new Document(LAST_MODIFIED, true));
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Version counters of one collection, from which the REST API builds strong ETags. Every write
+// through the stores of this process moves the collection's counter and the counter of the
+// written record after the write is applied; a read takes the counter before it reads, so a
+// tag is never newer than the data sent with it.
+//
+// Records share a fixed set of counters by hash, so memory stays constant however many are
+// written. A write can thus also retire the tag of an unrelated record, which costs that
+// record one full response and never a wrong 304.
+//
+// Writes made by other processes (the desktop client, another server) are not seen here, so
+// tags also change every max age; that bounds how long such a write can be answered with 304:
+//   -Dcarehub.etag.maxAgeSeconds=60   (default; 0 trusts the counters alone)
+// Tags carry a random ID of the process, so they do not survive a restart.
+final class CollectionVersions {
+
+    static final long DEFAULT_MAX_AGE_SECONDS = 60;
+
+    private static final int STRIPES = 4096;
+    private static final String PROCESS = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private static final Map<String, CollectionVersions> SHARED = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private final AtomicLong collection = new AtomicLong();
+    private final AtomicLongArray records = new AtomicLongArray(STRIPES);
+
+    CollectionVersions(String name, long maxAgeSeconds, LongSupplier clock) {
+        this.name = name;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(maxAgeSeconds, 0));
+        this.clock = clock;
+    }
+
+    // The process-wide versions of a collection, shared by its MongoDB and in-memory stores
+    static CollectionVersions forCollection(String collection) {
+        return SHARED.computeIfAbsent(collection, name -> new CollectionVersions(name,
+                Long.getLong("carehub.etag.maxAgeSeconds", DEFAULT_MAX_AGE_SECONDS), System::nanoTime));
+    }
+
+    // Called after every write of the record, whether or not it was applied
+    void changed(String key) {
+        records.incrementAndGet(stripe(key));
+        collection.incrementAndGet();
+    }
+
+    // Called after a write that may have touched any record
+    void changedAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            records.incrementAndGet(i);
+        }
+        collection.incrementAndGet();
+    }
+
+    long getVersion() {
+        return collection.get();
+    }
+
+    long getVersion(String key) {
+        return records.get(stripe(key));
+    }
+
+    // Tag of a response built from the whole collection; variant tells apart the different
+    // responses of one collection (path and query)
+    String collectionTag(String variant) {
+        return tag("c" + Long.toString(getVersion(), 36), variant);
+    }
+
+    // Tag of a response built from one record
+    String recordTag(String key) {
+        return tag("r" + Long.toString(getVersion(key), 36), key);
+    }
+
+    private String tag(String version, String variant) {
+        StringBuilder tag = new StringBuilder("\"").append(PROCESS).append('-').append(name).append('-').append(version);
+        if (maxAgeNanos > 0) {
+            tag.append('-').append(Long.toString(clock.getAsLong() / maxAgeNanos, 36));
+        }
+        return tag.append('-').append(Integer.toHexString(variant.hashCode())).append('"').toString();
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
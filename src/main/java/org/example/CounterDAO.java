@@ -0,0 +1,90 @@
+package org.example;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import static com.mongodb.client.model.Filters.*;
+
+// Sequence counters shared by every process, one document per ID format:
+// { _id: "patientId", seq: 42 }. $inc and $max are atomic on a single document, so
+// concurrent reservations from several JVMs always get disjoint blocks.
+public class CounterDAO implements CounterStore {
+    private static final String SEQUENCE_FIELD = "seq";
+
+    private MongoDatabase database;
+    private MongoCollection<Document> collection;
+    // Formats whose counter was checked against the existing IDs by this process
+    private final Set<String> seeded = ConcurrentHashMap.newKeySet();
+
+    public CounterDAO() {
+        this.database = DatabaseConnection.getInstance().getDatabase();
+        // Not configurable: a reservation lost in a failover, or a stale counter read,
+        // would hand out IDs twice
+        this.collection = database.getCollection("counters")
+                .withReadPreference(ReadPreference.primary())
+                .withWriteConcern(WriteConcern.MAJORITY);
+    }
+
+    @Override
+    public long reserve(IdFormat format, int count) {
+        seedFromCollection(format);
+        try {
+            Document counter = collection.findOneAndUpdate(eq("_id", format.getIdField()),
+                    Updates.inc(SEQUENCE_FIELD, (long) count),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            return counter.get(SEQUENCE_FIELD, Number.class).longValue();
+        } catch (Exception e) {
+            System.err.println("Error reserving IDs for " + format + ": " + e.getMessage());
+            // Guessing a number here would hand out duplicates
+            throw new IllegalStateException("Could not reserve IDs for " + format, e);
+        }
+    }
+
+    @Override
+    public void advanceTo(IdFormat format, long value) {
+        try {
+            collection.updateOne(eq("_id", format.getIdField()), Updates.max(SEQUENCE_FIELD, value),
+                    new UpdateOptions().upsert(true));
+        } catch (Exception e) {
+            System.err.println("Error advancing counter for " + format + ": " + e.getMessage());
+        }
+    }
+
+    // A counter created before any ID was allocated through it (existing data, or IDs
+    // from the old in-process generator) starts behind the stored records. The first
+    // reservation in each process raises it past the highest stored ID; the hint makes the
+    // scan read only the unique ID index.
+    private void seedFromCollection(IdFormat format) {
+        if (seeded.contains(format.getIdField())) {
+            return;
+        }
+        try {
+            long highest = 0;
+            try (MongoCursor<Document> cursor = database.getCollection(format.getCollection())
+                    .find()
+                    .projection(Projections.fields(Projections.include(format.getIdField()), Projections.excludeId()))
+                    .hint(Indexes.ascending(format.getIdField()))
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    Object id = cursor.next().get(format.getIdField());
+                    highest = Math.max(highest, format.parse(String.valueOf(id)));
+                }
+            }
+            advanceTo(format, highest);
+            seeded.add(format.getIdField());
+        } catch (Exception e) {
+            System.err.println("Error reading existing IDs for " + format + ": " + e.getMessage());
+        }
+    }
+}
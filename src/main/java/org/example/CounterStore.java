@@ -0,0 +1,13 @@
+package org.example;
+
+// Persistent sequence counters. Both operations must be atomic in the store itself so
+// that several threads and processes can share one counter without coordinating.
+public interface CounterStore {
+
+    // Adds count to the counter and returns the new value; the caller owns the
+    // sequence numbers (value - count, value]
+    long reserve(IdFormat format, int count);
+
+    // Raises the counter to at least value; never moves it backwards
+    void advanceTo(IdFormat format, long value);
+}
@@ -1,12 +1,23 @@
 package org.example;
 
+import com.mongodb.MongoCommandException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import org.bson.Document;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class DatabaseSchemaInitializer {
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+    private static final int MAX_REPORTED_DUPLICATES = 10;
+
     private MongoDatabase database;
 
     public DatabaseSchemaInitializer() {
@@ -179,6 +190,9 @@ public class DatabaseSchemaInitializer {
                             .append("time", new Document()
                                     .append("bsonType", "string")
                                     .append("description", "Time in HH:MM format"))
+                            .append("startAt", new Document()
+                                    .append("bsonType", Arrays.asList("date", "null"))
+                                    .append("description", "Date and time as a BSON date; null when they cannot be read"))
                             .append("description", new Document()
                                     .append("bsonType", "string"))
                             .append("completed", new Document()
@@ -239,39 +253,104 @@ public class DatabaseSchemaInitializer {
         try {
             // Users collection indexes
             MongoCollection<Document> usersCollection = database.getCollection("users");
-            usersCollection.createIndex(new Document("username", 1)); // Unique index on username
+            ensureUniqueIndex(usersCollection, "username"); // Unique index on username
 
             // Patients collection indexes
             MongoCollection<Document> patientsCollection = database.getCollection("patients");
-            patientsCollection.createIndex(new Document("patientId", 1)); // Unique index on patientId
+            ensureUniqueIndex(patientsCollection, "patientId"); // Unique index on patientId
             patientsCollection.createIndex(new Document("name", 1)); // Index on name for search
             patientsCollection.createIndex(new Document("phone", 1)); // Index on phone
 
             // Doctors collection indexes
             MongoCollection<Document> doctorsCollection = database.getCollection("doctors");
-            doctorsCollection.createIndex(new Document("doctorId", 1)); // Unique index on doctorId
+            ensureUniqueIndex(doctorsCollection, "doctorId"); // Unique index on doctorId
             doctorsCollection.createIndex(new Document("specialization", 1)); // Index on specialization
 
             // Appointments collection indexes
             MongoCollection<Document> appointmentsCollection = database.getCollection("appointments");
-            appointmentsCollection.createIndex(new Document("appointmentId", 1)); // Unique index on appointmentId
+            ensureUniqueIndex(appointmentsCollection, "appointmentId"); // Unique index on appointmentId
             appointmentsCollection.createIndex(new Document("patientId", 1)); // Index on patientId
             appointmentsCollection.createIndex(new Document("doctorId", 1)); // Index on doctorId
             appointmentsCollection.createIndex(new Document("date", 1)); // Index on date
             appointmentsCollection.createIndex(new Document("completed", 1)); // Index on completed status
+            AppointmentDAO.ensureScheduleIndexes(appointmentsCollection); // Index on doctorId, startAt and on startAt
 
             // Bills collection indexes
             MongoCollection<Document> billsCollection = database.getCollection("bills");
-            billsCollection.createIndex(new Document("billId", 1)); // Unique index on billId
+            ensureUniqueIndex(billsCollection, "billId"); // Unique index on billId
             billsCollection.createIndex(new Document("patientId", 1)); // Index on patientId
             billsCollection.createIndex(new Document("paid", 1)); // Index on paid status
 
+            // Medical records collection indexes
+            MongoCollection<Document> medicalRecordsCollection = database.getCollection(MedicalRecordDAO.COLLECTION);
+            ensureUniqueIndex(medicalRecordsCollection, "recordId"); // Unique index on recordId
+            MedicalRecordDAO.ensureHistoryIndex(medicalRecordsCollection); // Index on patientId, visitDate and visitAt
+
             System.out.println("Database indexes created successfully");
         } catch (Exception e) {
             System.err.println("Error creating indexes: " + e.getMessage());
         }
     }
 
+    // DAOs rely on these indexes instead of reading before writing, so they are created from
+    // the DAO constructors as well. An older non-unique index on the same key is replaced, but
+    // only once the key has no duplicates (older builds could reissue IDs after deletes): until
+    // they are resolved the old index stays and the duplicates are reported.
+    public static void ensureUniqueIndex(MongoCollection<Document> collection, String field) {
+        IndexOptions options = new IndexOptions().unique(true);
+        try {
+            collection.createIndex(Indexes.ascending(field), options);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != INDEX_OPTIONS_CONFLICT && e.getErrorCode() != INDEX_KEY_SPECS_CONFLICT) {
+                System.err.println("Could not create unique index on " + field + ": " + e.getErrorMessage());
+                return;
+            }
+            replaceWithUniqueIndex(collection, field, options);
+        } catch (Exception e) {
+            System.err.println("Could not create unique index on " + field + ": " + e.getMessage());
+        }
+    }
+
+    private static void replaceWithUniqueIndex(MongoCollection<Document> collection, String field, IndexOptions options) {
+        List<Document> duplicates;
+        try {
+            duplicates = collection.aggregate(Arrays.asList(
+                    Aggregates.group("$" + field, Accumulators.sum("count", 1)),
+                    Aggregates.match(Filters.gt("count", 1)),
+                    Aggregates.limit(MAX_REPORTED_DUPLICATES))).into(new ArrayList<>());
+        } catch (Exception e) {
+            System.err.println("Could not check " + field + " for duplicates, keeping its non-unique index: " + e.getMessage());
+            return;
+        }
+        if (!duplicates.isEmpty()) {
+            List<Object> values = new ArrayList<>();
+            for (Document duplicate : duplicates) {
+                values.add(duplicate.get("_id"));
+            }
+            System.err.println("Keeping the non-unique index on " + field + " of " + collection.getNamespace().getCollectionName()
+                    + ": these values are stored more than once (first " + MAX_REPORTED_DUPLICATES + " shown): " + values);
+            return;
+        }
+        try {
+            collection.dropIndex(Indexes.ascending(field));
+        } catch (Exception e) {
+            System.err.println("Could not replace index on " + field + ": " + e.getMessage());
+            return;
+        }
+        try {
+            collection.createIndex(Indexes.ascending(field), options);
+            System.out.println("Replaced non-unique index on " + field + " with a unique index");
+        } catch (Exception e) {
+            // A duplicate written since the check: put the old index back rather than leave none
+            System.err.println("Could not create unique index on " + field + ", restoring the non-unique one: " + e.getMessage());
+            try {
+                collection.createIndex(Indexes.ascending(field));
+            } catch (Exception restoreError) {
+                System.err.println("Could not restore index on " + field + ": " + restoreError.getMessage());
+            }
+        }
+    }
+
     private void insertSampleData() {
         try {
             // Check if data already exists
@@ -323,8 +402,7 @@ public class DatabaseSchemaInitializer {
                             .append("address", "123 Main St")
                             .append("phone", "555-1234")
                             .append("allergies", Arrays.asList())
-                            .append("medications", Arrays.asList())
-                            .append("medicalHistory", Arrays.asList()),
+                            .append("medications", Arrays.asList()),
                     new Document("patientId", "PAT2")
                             .append("name", "Jane Smith")
                             .append("age", 28)
@@ -332,8 +410,7 @@ public class DatabaseSchemaInitializer {
                             .append("address", "456 Oak Ave")
                             .append("phone", "555-5678")
                             .append("allergies", Arrays.asList("Peanuts"))
-                            .append("medications", Arrays.asList())
-                            .append("medicalHistory", Arrays.asList()),
+                            .append("medications", Arrays.asList()),
                     new Document("patientId", "PAT3")
                             .append("name", "Robert Johnson")
                             .append("age", 45)
@@ -342,7 +419,6 @@ public class DatabaseSchemaInitializer {
                             .append("phone", "555-9012")
                             .append("allergies", Arrays.asList())
                             .append("medications", Arrays.asList())
-                            .append("medicalHistory", Arrays.asList())
             );
             patientsCollection.insertMany(patients);
 
@@ -356,6 +432,7 @@ public class DatabaseSchemaInitializer {
                             .append("doctorName", "Dr. Smith")
                             .append("date", "2024-01-15")
                             .append("time", "10:00")
+                            .append("startAt", TemporalFields.toDate("2024-01-15", "10:00"))
                             .append("description", "Regular checkup")
                             .append("completed", false),
                     new Document("appointmentId", "APP2")
@@ -365,6 +442,7 @@ public class DatabaseSchemaInitializer {
                             .append("doctorName", "Dr. Johnson")
                             .append("date", "2024-01-15")
                             .append("time", "11:30")
+                            .append("startAt", TemporalFields.toDate("2024-01-15", "11:30"))
                             .append("description", "Headache consultation")
                             .append("completed", false)
             );
@@ -400,6 +478,8 @@ public class DatabaseSchemaInitializer {
             database.getCollection("doctors").drop();
             database.getCollection("appointments").drop();
             database.getCollection("bills").drop();
+            database.getCollection(MedicalRecordDAO.COLLECTION).drop();
+            RecordCache.clearAll();
             System.out.println("All collections dropped successfully");
         } catch (Exception e) {
             System.err.println("Error dropping collections: " + e.getMessage());
@@ -410,7 +490,7 @@ public class DatabaseSchemaInitializer {
         try {
             System.out.println("\n=== Database Statistics ===");
 
-            String[] collections = {"users", "patients", "doctors", "appointments", "bills"};
+            String[] collections = {"users", "patients", "doctors", "appointments", "bills", MedicalRecordDAO.COLLECTION};
 
             for (String collectionName : collections) {
                 MongoCollection<Document> collection = database.getCollection(collectionName);
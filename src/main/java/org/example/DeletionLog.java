@@ -0,0 +1,85 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gte;
+
+// Tombstones for deleted records, kept in the shared "deletions" collection. A deleted document
+// cannot be found by its lastModified stamp, so every DAO delete path records the keys it
+// removed here, stamped like any other write, and the polling change source reads only the
+// tombstones newer than its position. A tombstone without a key means the whole collection was
+// cleared. Tombstones expire after RETENTION_HOURS; deletes made outside the DAOs are not
+// recorded and are only found by the poller's periodic key diff.
+final class DeletionLog {
+
+    static final String COLLECTION = "deletions";
+    static final String SOURCE = "collection";
+    static final String KEY = "key";
+    static final long RETENTION_HOURS = 24;
+
+    private final MongoCollection<Document> tombstones;
+    private final String source;
+
+    DeletionLog(MongoCollection<Document> tombstones, String source) {
+        this.tombstones = tombstones;
+        this.source = source;
+    }
+
+    static DeletionLog forCollection(String source) {
+        return new DeletionLog(DatabaseConnection.getInstance().getCollection(COLLECTION), source);
+    }
+
+    // Called by the reader; writers do not need the indexes
+    void ensureIndexes() {
+        tombstones.createIndex(Indexes.ascending(SOURCE, ChangeTracking.LAST_MODIFIED));
+        tombstones.createIndex(Indexes.ascending(ChangeTracking.LAST_MODIFIED),
+                new IndexOptions().expireAfter(RETENTION_HOURS, TimeUnit.HOURS));
+    }
+
+    // A lost tombstone only delays the delete until the next key diff, so a failure is logged
+    // and does not fail the delete that already happened
+    void recordDeleted(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Document> documents = new ArrayList<>();
+        for (String key : keys) {
+            documents.add(ChangeTracking.stampInsert(new Document(SOURCE, source).append(KEY, key)));
+        }
+        try {
+            WriteOperation.DELETE.on(tombstones).insertMany(documents);
+        } catch (Exception e) {
+            System.err.println("Error recording deletes from " + source + ": " + e.getMessage());
+        }
+    }
+
+    void recordCleared() {
+        try {
+            WriteOperation.DELETE.on(tombstones).insertOne(ChangeTracking.stampInsert(new Document(SOURCE, source)));
+        } catch (Exception e) {
+            System.err.println("Error recording clear of " + source + ": " + e.getMessage());
+        }
+    }
+
+    // Tombstones stamped at or after the given time, oldest first
+    MongoCursor<Document> since(long millis) {
+        return tombstones.find(and(eq(SOURCE, source), gte(ChangeTracking.LAST_MODIFIED, new Date(millis))))
+                .projection(Projections.fields(Projections.include(KEY, ChangeTracking.LAST_MODIFIED), Projections.excludeId()))
+                .sort(Sorts.ascending(ChangeTracking.LAST_MODIFIED))
+                .iterator();
+    }
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 class Doctor implements Serializable {
     private String doctorId, name, specialization, availability;
+    private transient ChangeSet changes;
 
     public Doctor(String doctorId, String name, String specialization, String availability) {
         this.doctorId = doctorId;
@@ -12,12 +13,36 @@ class Doctor implements Serializable {
         this.availability = availability;
     }
 
+    // A doctor holding no data, only the ID, whose edits become a partial update (PATCH)
+    static Doctor patch(String doctorId) {
+        Doctor doctor = new Doctor(doctorId, null, null, null);
+        doctor.markClean();
+        return doctor;
+    }
+
     // Getters
     public String getDoctorId() { return doctorId; }
     public String getName() { return name; }
     public String getSpecialization() { return specialization; }
     public String getAvailability() { return availability; }
 
+    // Setters
+    public void setName(String name) { this.name = name; track("name", name); }
+    public void setSpecialization(String specialization) { this.specialization = specialization; track("specialization", specialization); }
+    public void setAvailability(String availability) { this.availability = availability; track("availability", availability); }
+
+    // Edits since the doctor was read or saved; null for doctors built from scratch
+    public ChangeSet getChanges() { return changes; }
+
+    // The doctor now matches what is stored; later edits are recorded
+    public void markClean() { this.changes = new ChangeSet(); }
+
+    private void track(String field, Object value) {
+        if (changes != null) {
+            changes.set(field, value);
+        }
+    }
+
     @Override
     public String toString() { return name + " (" + specialization + ")"; }
 }
@@ -2,64 +2,73 @@ package org.example;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import java.util.ArrayList;
 import java.util.List;
 import static com.mongodb.client.model.Filters.*;
 
-public class DoctorDAO {
+public class DoctorDAO implements DoctorStore {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private MongoCollection<Document> collection;
+    private MongoCollection<Doctor> typedCollection; // decoded by DomainCodecs
+    private RecordCache cache; // getDoctorById, shared by all DAOs of the collection
+    private CollectionVersions versions; // ETags of the REST API
+    private DeletionLog deletions; // tombstones read by the polling change source
 
     public DoctorDAO() {
-        this.collection = DatabaseConnection.getInstance()
-                .getDatabase()
-                .getCollection("doctors");
+        this.collection = DatabaseConnection.getInstance().getCollection("doctors");
+        this.typedCollection = collection.withDocumentClass(Doctor.class);
+        this.cache = RecordCache.forCollection("doctors");
+        this.versions = CollectionVersions.forCollection("doctors");
+        this.deletions = DeletionLog.forCollection("doctors");
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "doctorId");
     }
 
-    // Create
-    public boolean insertDoctor(Doctor doctor) {
+    // Create - duplicate IDs are rejected by the unique index on doctorId
+    @Override
+    public WriteResult insertDoctor(Doctor doctor) {
         try {
-            // Check if doctor already exists
-            if (getDoctorById(doctor.getDoctorId()) != null) {
-                System.err.println("Doctor with ID " + doctor.getDoctorId() + " already exists");
-                return false;
-            }
-
-            Document doc = new Document("doctorId", doctor.getDoctorId())
-                    .append("name", doctor.getName())
-                    .append("specialization", doctor.getSpecialization())
-                    .append("availability", doctor.getAvailability());
-
-            collection.insertOne(doc);
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(doctor)));
             System.out.println("Doctor " + doctor.getDoctorId() + " inserted successfully");
-            return true;
+            return WriteResult.APPLIED;
         } catch (Exception e) {
-            System.err.println("Error inserting doctor: " + e.getMessage());
-            return false;
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("Doctor with ID " + doctor.getDoctorId() + " already exists");
+            } else {
+                System.err.println("Error inserting doctor: " + e.getMessage());
+            }
+            return result;
+        } finally {
+            written(doctor.getDoctorId());
         }
     }
 
     // Read
+    @Override
     public Doctor getDoctorById(String doctorId) {
         try {
-            Document doc = collection.find(eq("doctorId", doctorId)).first();
-            if (doc != null) {
-                return documentToDoctor(doc);
-            }
+            return cache.find(collection, "doctorId", doctorId, Doctor.class);
         } catch (Exception e) {
             System.err.println("Error getting doctor: " + e.getMessage());
         }
         return null;
     }
 
+    @Override
     public List<Doctor> getAllDoctors() {
         List<Doctor> doctors = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find().iterator();
+            MongoCursor<Doctor> cursor = typedCollection.find().iterator();
             while (cursor.hasNext()) {
-                doctors.add(documentToDoctor(cursor.next()));
+                doctors.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -68,71 +77,177 @@ public class DoctorDAO {
         return doctors;
     }
 
-    // Update - FIXED to check if record exists
-    public boolean updateDoctor(Doctor doctor) {
-        try {
-            // First check if doctor exists
-            if (getDoctorById(doctor.getDoctorId()) == null) {
-                System.err.println("Cannot update: Doctor with ID " + doctor.getDoctorId() + " does not exist");
-                return false;
-            }
+    // Keyset pagination ordered by doctorId; reads one extra document to detect the next page
+    @Override
+    public Page<Doctor> getDoctorsPage(ListQuery query) {
+        return getDoctorsPage(query, RecordFilter.NONE);
+    }
+
+    // Filters come from RecordFilter.DOCTORS; a projection, if any, is ignored here
+    @Override
+    public Page<Doctor> getDoctorsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(typedCollection, "doctorId", query, filter, null, Doctor::getDoctorId);
+    }
 
-            Document updateDoc = new Document("$set", new Document()
-                    .append("name", doctor.getName())
-                    .append("specialization", doctor.getSpecialization())
-                    .append("availability", doctor.getAvailability()));
+    // Selected fields only, as raw documents, so unselected fields are absent rather than defaulted
+    @Override
+    public Page<Document> getDoctorFieldsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(collection, "doctorId", query, filter, filter.projection(),
+                doc -> doc.getString("doctorId"));
+    }
 
-            UpdateResult result = collection.updateOne(eq("doctorId", doctor.getDoctorId()), updateDoc);
+    // Streams every doctor in doctorId order. Unlike getAllDoctors() errors are not swallowed,
+    // because the caller may already be writing the response when the cursor is opened.
+    @Override
+    public RecordCursor<Doctor> streamDoctors() {
+        return streamDoctors(RecordFilter.NONE);
+    }
 
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Doctor " + doctor.getDoctorId() + " updated successfully");
-                return true;
-            } else {
+    @Override
+    public RecordCursor<Doctor> streamDoctors(RecordFilter filter) {
+        return KeysetQueries.stream(typedCollection, "doctorId", filter, null, STREAM_BATCH_SIZE);
+    }
+
+    @Override
+    public RecordCursor<Document> streamDoctorFields(RecordFilter filter) {
+        return KeysetQueries.stream(collection, "doctorId", filter, filter.projection(), STREAM_BATCH_SIZE);
+    }
+
+    // Update - existence comes from the matched count, no read beforehand. A doctor that was
+    // read writes only the fields changed since; one built from scratch is written in full.
+    @Override
+    public WriteResult updateDoctor(Doctor doctor) {
+        try {
+            Document updateDoc = updateDocument(doctor);
+            if (updateDoc.isEmpty()) {
+                return WriteResult.UNCHANGED;
+            }
+
+            WriteResult result = WriteResult.ofUpdate(WriteOperation.UPDATE.on(collection).updateOne(eq("doctorId", doctor.getDoctorId()), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No doctor found with ID: " + doctor.getDoctorId());
-                return false;
+            } else {
+                doctor.markClean();
+                System.out.println("Doctor " + doctor.getDoctorId() + " updated successfully");
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error updating doctor: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(doctor.getDoctorId());
         }
     }
 
-    // Delete - FIXED to check if record exists
-    public boolean deleteDoctor(String doctorId) {
+    // What updateDoctor writes; empty when nothing changed
+    static Document updateDocument(Doctor doctor) {
+        ChangeSet changes = doctor.getChanges();
+        return changes != null ? changes.toUpdate() : new Document("$set", new Document()
+                .append("name", doctor.getName())
+                .append("specialization", doctor.getSpecialization())
+                .append("availability", doctor.getAvailability()));
+    }
+
+    // Applies only the edits recorded on a patch (see Doctor.patch) and returns the stored doctor
+    // afterwards. Returns null if the doctor does not exist; database errors propagate.
+    @Override
+    public Doctor patchDoctor(Doctor patch) {
         try {
-            // First check if doctor exists
-            if (getDoctorById(doctorId) == null) {
-                System.err.println("Cannot delete: Doctor with ID " + doctorId + " does not exist");
-                return false;
+            Doctor updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("doctorId", patch.getDoctorId()),
+                    ChangeTracking.stampUpdate(ChangeSet.require(patch.getChanges()).toUpdate()),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No doctor found with ID: " + patch.getDoctorId());
+                return null;
             }
+            System.out.println("Doctor " + patch.getDoctorId() + " patched: " + patch.getChanges().changedFields());
+            return updated;
+        } finally {
+            written(patch.getDoctorId());
+        }
+    }
 
-            DeleteResult result = collection.deleteOne(eq("doctorId", doctorId));
-
-            if (result.getDeletedCount() > 0) {
-                System.out.println("Doctor " + doctorId + " deleted successfully");
-                return true;
-            } else {
+    // Delete - existence comes from the deleted count
+    @Override
+    public WriteResult deleteDoctor(String doctorId) {
+        try {
+            WriteResult result = WriteResult.ofDelete(WriteOperation.DELETE.on(collection).deleteOne(eq("doctorId", doctorId)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No doctor found with ID: " + doctorId);
-                return false;
+            } else {
+                System.out.println("Doctor " + doctorId + " deleted successfully");
+                deletions.recordDeleted(List.of(doctorId));
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error deleting doctor: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(doctorId);
+        }
+    }
+
+    // Bulk operations - one bulkWrite per call, results reported per item
+    @Override
+    public BulkWriteSummary bulkInsertDoctors(List<Doctor> doctors, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            models.add(new InsertOneModel<>(ChangeTracking.stampInsert(toDocument(doctor))));
+            ids.add(doctor.getDoctorId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "insert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    @Override
+    public BulkWriteSummary bulkUpsertDoctors(List<Doctor> doctors, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            models.add(new ReplaceOneModel<>(eq("doctorId", doctor.getDoctorId()), ChangeTracking.stampInsert(toDocument(doctor)),
+                    new ReplaceOptions().upsert(true)));
+            ids.add(doctor.getDoctorId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "upsert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteDoctors(List<String> doctorIds, boolean ordered) {
+        BulkWriteSummary summary = BulkWriter.executeDelete(WriteOperation.BULK.on(collection), "doctorId", doctorIds, ordered);
+        deletions.recordDeleted(summary.idsWith(BulkWriteSummary.ItemStatus.OK));
+        written(doctorIds);
+        return summary;
+    }
+
+    // Every write ends here, applied or not: the cached copy and the published version of
+    // the record are out of date. The version moves last, so a reader that sees the new
+    // version cannot get the old copy from the cache.
+    private void written(String doctorId) {
+        cache.invalidate(doctorId);
+        versions.changed(doctorId);
+    }
+
+    private void written(List<String> doctorIds) {
+        for (String doctorId : doctorIds) {
+            written(doctorId);
         }
     }
 
     // Check if doctor exists
+    @Override
     public boolean doctorExists(String doctorId) {
         return getDoctorById(doctorId) != null;
     }
 
-    // Helper method
-    private Doctor documentToDoctor(Document doc) {
-        return new Doctor(
-                doc.getString("doctorId"),
-                doc.getString("name"),
-                doc.getString("specialization"),
-                doc.getString("availability")
-        );
+    static Document toDocument(Doctor doctor) {
+        return new Document("doctorId", doctor.getDoctorId())
+                .append("name", doctor.getName())
+                .append("specialization", doctor.getSpecialization())
+                .append("availability", doctor.getAvailability());
     }
+
 }
@@ -1,19 +1,21 @@
 package org.example;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
 
 class DoctorDashboard extends JPanel {
     private HospitalManagementSystem system;
-    private DefaultTableModel appointmentTableModel;
-    private DefaultTableModel medicalRecordsTableModel;
+    private RecordTableModel<Appointment> appointmentTableModel;
+    private RecordTableModel<MedicalRecord> medicalRecordsTableModel;
     private JTable appointmentTable;
     private JTable medicalRecordsTable;
     private JTabbedPane tabbedPane;
+    private TabLoadCoordinator tabLoader;
+    private final LoadingIndicator loadingIndicator = new LoadingIndicator();
 
     public DoctorDashboard(HospitalManagementSystem system) {
         this.system = system;
@@ -26,6 +28,7 @@ class DoctorDashboard extends JPanel {
 
         tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Segoe UI", Font.PLAIN, 14)); // Set font for tabs
+        tabLoader = new TabLoadCoordinator(tabbedPane);
         // Appointments tab
         JPanel appointmentsPanel = createAppointmentsPanel();
         tabbedPane.addTab("Appointments", appointmentsPanel);
@@ -34,12 +37,16 @@ class DoctorDashboard extends JPanel {
         JPanel medicalRecordsPanel = createMedicalRecordsPanel();
         tabbedPane.addTab("Medical Records", medicalRecordsPanel);
 
+        tabLoader.register(appointmentsPanel, this::loadAppointments);
+        tabLoader.register(medicalRecordsPanel, this::loadMedicalRecords);
+
         add(tabbedPane, BorderLayout.CENTER);
 
         // Button panel
         JPanel buttonPanel = new JPanel();
         JButton logoutButton = ButtonStyle.createRedButton("Logout");
         logoutButton.addActionListener(e -> system.showLoginPanel());
+        buttonPanel.add(loadingIndicator);
         buttonPanel.add(logoutButton);
         add(buttonPanel, BorderLayout.SOUTH);
 
@@ -50,10 +57,13 @@ class DoctorDashboard extends JPanel {
         JPanel panel = new JPanel(new BorderLayout());
 
         // Appointments table
-        String[] columns = {"ID", "Patient", "Date", "Time", "Description", "Status"};
-        appointmentTableModel = new DefaultTableModel(columns, 0) {
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        appointmentTableModel = new RecordTableModel<>(Appointment::getAppointmentId)
+                .addColumn("ID", Appointment::getAppointmentId)
+                .addColumn("Patient", a -> patientNameOf(a.getPatientId()))
+                .addColumn("Date", Appointment::getDate)
+                .addColumn("Time", Appointment::getTime)
+                .addColumn("Description", Appointment::getDescription)
+                .addColumn("Status", a -> a.isCompleted() ? "Completed" : "Pending");
         appointmentTable = system.new StyledTable(appointmentTableModel);
         JScrollPane scrollPane = new JScrollPane(appointmentTable);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -67,8 +77,7 @@ class DoctorDashboard extends JPanel {
         completeButton.addActionListener(e -> markAppointmentCompleted());
         refreshButton.addActionListener(e -> {
             System.out.println("Refresh button clicked - refreshing doctor dashboard data...");
-            system.refreshAllData(); // Refresh from database first
-            refreshData(); // Then refresh UI
+            system.refreshAllData(); // Reloads the visible dashboard in the background
         });
         addRecordButton.addActionListener(e -> showAddMedicalRecordDialog());
 
@@ -84,10 +93,13 @@ class DoctorDashboard extends JPanel {
         JPanel panel = new JPanel(new BorderLayout());
 
         // Medical Records table
-        String[] columns = {"Record ID", "Patient ID", "Patient", "Date", "Diagnosis", "Treatment"};
-        medicalRecordsTableModel = new DefaultTableModel(columns, 0) {
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        medicalRecordsTableModel = new RecordTableModel<>(MedicalRecord::getRecordId)
+                .addColumn("Record ID", MedicalRecord::getRecordId)
+                .addColumn("Patient ID", MedicalRecord::getPatientId)
+                .addColumn("Patient", r -> patientNameOf(r.getPatientId()))
+                .addColumn("Date", MedicalRecord::getVisitDate)
+                .addColumn("Diagnosis", MedicalRecord::getDiagnosis)
+                .addColumn("Treatment", MedicalRecord::getTreatment);
         medicalRecordsTable = system.new StyledTable(medicalRecordsTableModel);
         JScrollPane scrollPane = new JScrollPane(medicalRecordsTable);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -112,42 +124,17 @@ class DoctorDashboard extends JPanel {
 
     public void refreshData() {
         System.out.println("Refreshing doctor dashboard data...");
+        tabLoader.cancelAll();
 
         // Refresh appointments
-        appointmentTableModel.setRowCount(0);
         List<Appointment> currentAppointments = system.getAllAppointments();
         System.out.println("Found " + currentAppointments.size() + " appointments");
-
-        for (Appointment a : currentAppointments) {
-            Patient p = system.getPatientById(a.getPatientId());
-            String patientName = p != null ? p.getName() : "Unknown";
-            appointmentTableModel.addRow(new Object[]{
-                    a.getAppointmentId(),
-                    patientName,
-                    a.getDate(),
-                    a.getTime(),
-                    a.getDescription(),
-                    a.isCompleted() ? "Completed" : "Pending"
-            });
-        }
+        appointmentTableModel.setRecords(currentAppointments);
 
         // Refresh medical records
-        medicalRecordsTableModel.setRowCount(0);
         List<Patient> currentPatients = system.getAllPatients();
         System.out.println("Processing medical records for " + currentPatients.size() + " patients");
-
-        for (Patient patient : currentPatients) {
-            for (MedicalRecord record : patient.getMedicalHistory()) {
-                medicalRecordsTableModel.addRow(new Object[]{
-                        record.getRecordId(),
-                        patient.getPatientId(), // Now showing Patient ID
-                        patient.getName(),
-                        record.getVisitDate(),
-                        record.getDiagnosis(),
-                        record.getTreatment()
-                });
-            }
-        }
+        medicalRecordsTableModel.setRecords(medicalRecordsOf(currentPatients));
 
         // Refresh table displays
         appointmentTable.revalidate();
@@ -158,6 +145,48 @@ class DoctorDashboard extends JPanel {
         System.out.println("Doctor dashboard refreshed");
     }
 
+    // Loads both tables in the background, starting with the selected tab
+    public void loadData() {
+        tabLoader.loadAll();
+    }
+
+    public void cancelLoading() {
+        tabLoader.cancelAll();
+    }
+
+    private TableLoader<?> loadAppointments() {
+        return TableLoader.start(appointmentTableModel, system::getAllAppointments, loadingIndicator);
+    }
+
+    private TableLoader<?> loadMedicalRecords() {
+        return TableLoader.start(medicalRecordsTableModel, () -> {
+            // The cache holds patients without their histories. They are read here, on the
+            // worker, but installed and collected on the EDT, which also edits those lists.
+            Runnable install = system.fetchClinicalData(system.getAllPatients());
+            List<MedicalRecord> records = new ArrayList<>();
+            SwingUtilities.invokeAndWait(() -> {
+                install.run();
+                records.addAll(medicalRecordsOf(system.getAllPatients()));
+            });
+            return records;
+        }, loadingIndicator);
+    }
+
+    // Looked up when a cell is painted, so only visible rows pay for it
+    private String patientNameOf(String patientId) {
+        Patient p = system.getPatientById(patientId);
+        return p != null ? p.getName() : "Unknown";
+    }
+
+    // Flattens the patients' histories into one list of record references, no copies
+    private List<MedicalRecord> medicalRecordsOf(List<Patient> patients) {
+        List<MedicalRecord> records = new ArrayList<>();
+        for (Patient patient : patients) {
+            records.addAll(patient.getMedicalHistory());
+        }
+        return records;
+    }
+
     private void markAppointmentCompleted() {
         int row = appointmentTable.getSelectedRow();
         if (row == -1) {
@@ -167,7 +196,7 @@ class DoctorDashboard extends JPanel {
 
         String id = (String) appointmentTableModel.getValueAt(row, 0);
         system.markAppointmentCompleted(id);
-        refreshData();
+        appointmentTableModel.recordChanged(id); // Only the status cell changes
     }
 
     private void showAddMedicalRecordDialog() {
@@ -178,13 +207,11 @@ class DoctorDashboard extends JPanel {
         }
 
         String appointmentId = (String) appointmentTableModel.getValueAt(row, 0);
-        Appointment appointment = system.getAllAppointments().stream()
-                .filter(a -> a.getAppointmentId().equals(appointmentId))
-                .findFirst().orElse(null);
+        Appointment appointment = system.getAppointmentById(appointmentId);
 
         if (appointment == null) return;
 
-        Patient patient = system.getPatientById(appointment.getPatientId());
+        Patient patient = system.getPatientDetails(appointment.getPatientId());
         if (patient == null) return;
 
         // Create dialog
@@ -225,7 +252,7 @@ class DoctorDashboard extends JPanel {
         JButton cancelButton = new JButton("Cancel");
 
         saveButton.addActionListener(e -> {
-            String recordId = "MR" + System.currentTimeMillis();
+            String recordId = IDGenerator.generateMedicalRecordID();
             MedicalRecord record = new MedicalRecord(
                     recordId,
                     patient.getPatientId(),
@@ -235,7 +262,10 @@ class DoctorDashboard extends JPanel {
                     notesArea.getText()
             );
 
-            patient.addMedicalRecord(record);
+            if (!system.addMedicalRecord(patient, record)) {
+                JOptionPane.showMessageDialog(dialog, "Could not save the medical record", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             refreshData();
             dialog.dispose();
             JOptionPane.showMessageDialog(this, "Medical record added successfully!");
@@ -259,23 +289,11 @@ class DoctorDashboard extends JPanel {
             return;
         }
 
-        String recordId = (String) medicalRecordsTableModel.getValueAt(row, 0);
-
-        // Find the record
-        MedicalRecord record = null;
-        Patient patient = null;
-        for (Patient p : system.getAllPatients()) {
-            for (MedicalRecord r : p.getMedicalHistory()) {
-                if (r.getRecordId().equals(recordId)) {
-                    record = r;
-                    patient = p;
-                    break;
-                }
-            }
-            if (record != null) break;
-        }
+        // The model row holds the record itself, so no search is needed
+        MedicalRecord record = medicalRecordsTableModel.getRecordAt(row);
+        Patient patient = record != null ? system.getPatientById(record.getPatientId()) : null;
 
-        if (record == null) return;
+        if (record == null || patient == null) return;
 
         // Show details dialog
         String details = String.format(
@@ -297,7 +315,7 @@ class DoctorDashboard extends JPanel {
         String patientId = JOptionPane.showInputDialog(this, "Enter Patient ID:");
         if (patientId == null || patientId.trim().isEmpty()) return;
 
-        Patient patient = system.getPatientById(patientId);
+        Patient patient = system.getPatientDetails(patientId);
         if (patient == null) {
             JOptionPane.showMessageDialog(this, "Patient not found!", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -330,6 +348,7 @@ class DoctorDashboard extends JPanel {
 
                 Medication medication = new Medication(name, dosage, frequency, startDate, endDate);
                 patient.addMedication(medication);
+                system.savePatientChanges(patient);
                 listModel.addElement(medication);
             }
         });
@@ -338,6 +357,7 @@ class DoctorDashboard extends JPanel {
             Medication selected = medicationList.getSelectedValue();
             if (selected != null) {
                 patient.removeMedication(selected.getName());
+                system.savePatientChanges(patient);
                 listModel.removeElement(selected);
             }
         });
@@ -358,7 +378,7 @@ class DoctorDashboard extends JPanel {
         String patientId = JOptionPane.showInputDialog(this, "Enter Patient ID:");
         if (patientId == null || patientId.trim().isEmpty()) return;
 
-        Patient patient = system.getPatientById(patientId);
+        Patient patient = system.getPatientDetails(patientId);
         if (patient == null) {
             JOptionPane.showMessageDialog(this, "Patient not found!", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -385,6 +405,7 @@ class DoctorDashboard extends JPanel {
             String allergy = JOptionPane.showInputDialog(dialog, "Enter Allergy:");
             if (allergy != null && !allergy.trim().isEmpty()) {
                 patient.addAllergy(allergy);
+                system.savePatientChanges(patient);
                 listModel.addElement(allergy);
             }
         });
@@ -393,6 +414,7 @@ class DoctorDashboard extends JPanel {
             String selected = allergyList.getSelectedValue();
             if (selected != null) {
                 patient.removeAllergy(selected);
+                system.savePatientChanges(patient);
                 listModel.removeElement(selected);
             }
         });
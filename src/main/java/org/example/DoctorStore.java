@@ -0,0 +1,41 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.List;
+
+// Storage for doctors; see PatientStore for the conventions
+public interface DoctorStore {
+
+    WriteResult insertDoctor(Doctor doctor);
+
+    Doctor getDoctorById(String doctorId);
+
+    List<Doctor> getAllDoctors();
+
+    Page<Doctor> getDoctorsPage(ListQuery query);
+
+    Page<Doctor> getDoctorsPage(ListQuery query, RecordFilter filter);
+
+    Page<Document> getDoctorFieldsPage(ListQuery query, RecordFilter filter);
+
+    RecordCursor<Doctor> streamDoctors();
+
+    RecordCursor<Doctor> streamDoctors(RecordFilter filter);
+
+    RecordCursor<Document> streamDoctorFields(RecordFilter filter);
+
+    WriteResult updateDoctor(Doctor doctor);
+
+    Doctor patchDoctor(Doctor patch);
+
+    WriteResult deleteDoctor(String doctorId);
+
+    BulkWriteSummary bulkInsertDoctors(List<Doctor> doctors, boolean ordered);
+
+    BulkWriteSummary bulkUpsertDoctors(List<Doctor> doctors, boolean ordered);
+
+    BulkWriteSummary bulkDeleteDoctors(List<String> doctorIds, boolean ordered);
+
+    boolean doctorExists(String doctorId);
+}
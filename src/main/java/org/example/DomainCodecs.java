@@ -0,0 +1,589 @@
+package org.example;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-written BSON codecs for the domain classes, registered with the MongoClient in
+// DatabaseConnection. Decoding reads the BSON stream straight into the POJO instead of
+// building an org.bson.Document first. Field names match what the DAOs have always
+// written (camelCase), not the unused snake_case @BsonProperty annotations.
+public class DomainCodecs implements CodecProvider {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (clazz == Patient.class) {
+            return (Codec<T>) new PatientCodec();
+        }
+        if (clazz == Doctor.class) {
+            return (Codec<T>) new DoctorCodec();
+        }
+        if (clazz == Appointment.class) {
+            return (Codec<T>) new AppointmentCodec();
+        }
+        if (clazz == Bill.class) {
+            return (Codec<T>) new BillCodec();
+        }
+        if (clazz == User.class) {
+            return (Codec<T>) new UserCodec();
+        }
+        if (clazz == MedicalRecord.class) {
+            return (Codec<T>) new MedicalRecordCodec();
+        }
+        return null;
+    }
+
+    static class PatientCodec implements Codec<Patient> {
+        @Override
+        public Patient decode(BsonReader reader, DecoderContext decoderContext) {
+            ObjectId id = null;
+            String patientId = null, name = null, gender = null, address = null, phone = null;
+            int age = 0;
+            List<String> allergies = null;
+            List<Medication> medications = null;
+            List<MedicalRecord> medicalHistory = null;
+
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "_id":
+                        id = readObjectId(reader);
+                        break;
+                    case "patientId":
+                        patientId = readString(reader);
+                        break;
+                    case "name":
+                        name = readString(reader);
+                        break;
+                    case "age":
+                        age = (int) readNumber(reader);
+                        break;
+                    case "gender":
+                        gender = readString(reader);
+                        break;
+                    case "address":
+                        address = readString(reader);
+                        break;
+                    case "phone":
+                        phone = readString(reader);
+                        break;
+                    case "allergies":
+                        allergies = readStringList(reader);
+                        break;
+                    case "medications":
+                        medications = readMedications(reader);
+                        break;
+                    case "medicalHistory":
+                        medicalHistory = readMedicalHistory(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+
+            Patient patient = new Patient(patientId, name, age, gender, address, phone);
+            patient.setId(id);
+            if (allergies != null) {
+                patient.setAllergies(allergies);
+            }
+            if (medications != null) {
+                patient.setMedications(medications);
+            }
+            if (medicalHistory != null) {
+                patient.setMedicalHistory(medicalHistory);
+            }
+            patient.markClean(); // decoded objects track edits for partial updates
+            return patient;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Patient patient, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            if (patient.getId() != null) {
+                writer.writeObjectId("_id", patient.getId());
+            }
+            writeString(writer, "patientId", patient.getPatientId());
+            writeString(writer, "name", patient.getName());
+            writer.writeInt32("age", patient.getAge());
+            writeString(writer, "gender", patient.getGender());
+            writeString(writer, "address", patient.getAddress());
+            writeString(writer, "phone", patient.getPhone());
+
+            writer.writeStartArray("allergies");
+            for (String allergy : patient.getAllergies()) {
+                if (allergy == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeString(allergy);
+                }
+            }
+            writer.writeEndArray();
+
+            writer.writeStartArray("medications");
+            for (Medication medication : patient.getMedications()) {
+                writer.writeStartDocument();
+                writeString(writer, "name", medication.getName());
+                writeString(writer, "dosage", medication.getDosage());
+                writeString(writer, "frequency", medication.getFrequency());
+                writeString(writer, "startDate", medication.getStartDate());
+                writeString(writer, "endDate", medication.getEndDate());
+                writer.writeBoolean("isActive", medication.isActive());
+                writer.writeEndDocument();
+            }
+            writer.writeEndArray();
+
+            writer.writeStartArray("medicalHistory");
+            for (MedicalRecord record : patient.getMedicalHistory()) {
+                writeMedicalRecord(writer, record);
+            }
+            writer.writeEndArray();
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<Patient> getEncoderClass() {
+            return Patient.class;
+        }
+
+        private List<Medication> readMedications(BsonReader reader) {
+            if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+                reader.skipValue();
+                return null;
+            }
+            List<Medication> medications = new ArrayList<>();
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                    reader.skipValue();
+                    continue;
+                }
+                String name = null, dosage = null, frequency = null, startDate = null, endDate = null;
+                boolean active = true;
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    switch (reader.readName()) {
+                        case "name":
+                            name = readString(reader);
+                            break;
+                        case "dosage":
+                            dosage = readString(reader);
+                            break;
+                        case "frequency":
+                            frequency = readString(reader);
+                            break;
+                        case "startDate":
+                            startDate = readString(reader);
+                            break;
+                        case "endDate":
+                            endDate = readString(reader);
+                            break;
+                        case "isActive":
+                            active = readBoolean(reader, true);
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.readEndDocument();
+                Medication medication = new Medication(name, dosage, frequency, startDate, endDate);
+                medication.setActive(active);
+                medications.add(medication);
+            }
+            reader.readEndArray();
+            return medications;
+        }
+
+        private List<MedicalRecord> readMedicalHistory(BsonReader reader) {
+            if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+                reader.skipValue();
+                return null;
+            }
+            List<MedicalRecord> records = new ArrayList<>();
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                    reader.skipValue();
+                    continue;
+                }
+                records.add(readMedicalRecord(reader));
+            }
+            reader.readEndArray();
+            return records;
+        }
+    }
+
+    static MedicalRecord readMedicalRecord(BsonReader reader) {
+        String recordId = null, patientId = null, doctorId = null, diagnosis = null, treatment = null, notes = null;
+        String visitDate = null, visitTime = null;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "recordId":
+                    recordId = readString(reader);
+                    break;
+                case "patientId":
+                    patientId = readString(reader);
+                    break;
+                case "doctorId":
+                    doctorId = readString(reader);
+                    break;
+                case "diagnosis":
+                    diagnosis = readString(reader);
+                    break;
+                case "treatment":
+                    treatment = readString(reader);
+                    break;
+                case "notes":
+                    notes = readString(reader);
+                    break;
+                case "visitDate":
+                    visitDate = readString(reader);
+                    break;
+                case "visitTime":
+                    visitTime = readString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        if (visitDate == null || visitTime == null) {
+            // Older records without a stored visit: keep the previous behaviour of stamping the load time
+            MedicalRecord record = new MedicalRecord(recordId, patientId, doctorId, diagnosis, treatment, notes);
+            if (visitDate != null) {
+                record.setVisitDate(visitDate);
+            }
+            if (visitTime != null) {
+                record.setVisitTime(visitTime);
+            }
+            return record;
+        }
+        return new MedicalRecord(recordId, patientId, doctorId, diagnosis, treatment, notes, visitDate, visitTime);
+    }
+
+    static void writeMedicalRecord(BsonWriter writer, MedicalRecord record) {
+        writer.writeStartDocument();
+        writeString(writer, "recordId", record.getRecordId());
+        writeString(writer, "patientId", record.getPatientId());
+        writeString(writer, "doctorId", record.getDoctorId());
+        writeString(writer, "diagnosis", record.getDiagnosis());
+        writeString(writer, "treatment", record.getTreatment());
+        writeString(writer, "notes", record.getNotes());
+        writeString(writer, "visitDate", record.getVisitDate());
+        writeString(writer, "visitTime", record.getVisitTime());
+        writer.writeEndDocument();
+    }
+
+    // Documents of the medicalRecords collection have the same shape as the embedded entries
+    static class MedicalRecordCodec implements Codec<MedicalRecord> {
+        @Override
+        public MedicalRecord decode(BsonReader reader, DecoderContext decoderContext) {
+            return readMedicalRecord(reader);
+        }
+
+        @Override
+        public void encode(BsonWriter writer, MedicalRecord record, EncoderContext encoderContext) {
+            writeMedicalRecord(writer, record);
+        }
+
+        @Override
+        public Class<MedicalRecord> getEncoderClass() {
+            return MedicalRecord.class;
+        }
+    }
+
+    static class DoctorCodec implements Codec<Doctor> {
+        @Override
+        public Doctor decode(BsonReader reader, DecoderContext decoderContext) {
+            String doctorId = null, name = null, specialization = null, availability = null;
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "doctorId":
+                        doctorId = readString(reader);
+                        break;
+                    case "name":
+                        name = readString(reader);
+                        break;
+                    case "specialization":
+                        specialization = readString(reader);
+                        break;
+                    case "availability":
+                        availability = readString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            Doctor doctor = new Doctor(doctorId, name, specialization, availability);
+            doctor.markClean();
+            return doctor;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Doctor doctor, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            writeString(writer, "doctorId", doctor.getDoctorId());
+            writeString(writer, "name", doctor.getName());
+            writeString(writer, "specialization", doctor.getSpecialization());
+            writeString(writer, "availability", doctor.getAvailability());
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<Doctor> getEncoderClass() {
+            return Doctor.class;
+        }
+    }
+
+    static class AppointmentCodec implements Codec<Appointment> {
+        @Override
+        public Appointment decode(BsonReader reader, DecoderContext decoderContext) {
+            String appointmentId = null, patientId = null, doctorId = null, date = null, time = null, description = null;
+            String patientName = null, doctorName = null;
+            boolean completed = false;
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "appointmentId":
+                        appointmentId = readString(reader);
+                        break;
+                    case "patientId":
+                        patientId = readString(reader);
+                        break;
+                    case "patientName":
+                        patientName = readString(reader);
+                        break;
+                    case "doctorId":
+                        doctorId = readString(reader);
+                        break;
+                    case "doctorName":
+                        doctorName = readString(reader);
+                        break;
+                    case "date":
+                        date = readString(reader);
+                        break;
+                    case "time":
+                        time = readString(reader);
+                        break;
+                    case "description":
+                        description = readString(reader);
+                        break;
+                    case "completed":
+                        completed = readBoolean(reader, false);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+
+            Appointment appointment = new Appointment(appointmentId, patientId, doctorId, date, time, description,
+                    patientName, doctorName);
+            appointment.setCompleted(completed);
+            appointment.markClean();
+            return appointment;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Appointment appointment, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            writeString(writer, "appointmentId", appointment.getAppointmentId());
+            writeString(writer, "patientId", appointment.getPatientId());
+            writeString(writer, "patientName", appointment.getPatientName());
+            writeString(writer, "doctorId", appointment.getDoctorId());
+            writeString(writer, "doctorName", appointment.getDoctorName());
+            writeString(writer, "date", appointment.getDate());
+            writeString(writer, "time", appointment.getTime());
+            writeString(writer, "description", appointment.getDescription());
+            writer.writeBoolean("completed", appointment.isCompleted());
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<Appointment> getEncoderClass() {
+            return Appointment.class;
+        }
+    }
+
+    static class BillCodec implements Codec<Bill> {
+        @Override
+        public Bill decode(BsonReader reader, DecoderContext decoderContext) {
+            String billId = null, patientId = null, description = null;
+            double amount = 0;
+            boolean paid = false;
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "billId":
+                        billId = readString(reader);
+                        break;
+                    case "patientId":
+                        patientId = readString(reader);
+                        break;
+                    case "amount":
+                        amount = readNumber(reader);
+                        break;
+                    case "description":
+                        description = readString(reader);
+                        break;
+                    case "paid":
+                        paid = readBoolean(reader, false);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+
+            Bill bill = new Bill(billId, patientId, amount, description);
+            bill.setPaid(paid);
+            bill.markClean();
+            return bill;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, Bill bill, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            writeString(writer, "billId", bill.getBillId());
+            writeString(writer, "patientId", bill.getPatientId());
+            writer.writeDouble("amount", bill.getAmount());
+            writeString(writer, "description", bill.getDescription());
+            writer.writeBoolean("paid", bill.isPaid());
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<Bill> getEncoderClass() {
+            return Bill.class;
+        }
+    }
+
+    static class UserCodec implements Codec<User> {
+        @Override
+        public User decode(BsonReader reader, DecoderContext decoderContext) {
+            ObjectId id = null;
+            String username = null, password = null, role = null;
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "_id":
+                        id = readObjectId(reader);
+                        break;
+                    case "username":
+                        username = readString(reader);
+                        break;
+                    case "password":
+                        password = readString(reader);
+                        break;
+                    case "role":
+                        role = readString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+
+            User user = new User(username, password, role != null ? UserRole.valueOf(role) : null);
+            user.setId(id);
+            return user;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, User user, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            if (user.getId() != null) {
+                writer.writeObjectId("_id", user.getId());
+            }
+            writeString(writer, "username", user.getUsername());
+            writeString(writer, "password", user.getPassword());
+            writeString(writer, "role", user.getRole() != null ? user.getRole().toString() : null);
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<User> getEncoderClass() {
+            return User.class;
+        }
+    }
+
+    // Reader/writer helpers. Values of an unexpected type are skipped rather than failing the whole load.
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static double readNumber(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return reader.readDouble();
+            case DECIMAL128:
+                return reader.readDecimal128().doubleValue();
+            default:
+                reader.skipValue();
+                return 0;
+        }
+    }
+
+    static boolean readBoolean(BsonReader reader, boolean defaultValue) {
+        if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+            return reader.readBoolean();
+        }
+        reader.skipValue();
+        return defaultValue;
+    }
+
+    static ObjectId readObjectId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    static List<String> readStringList(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String value = readString(reader);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        reader.readEndArray();
+        return values;
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+}
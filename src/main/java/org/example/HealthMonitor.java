@@ -0,0 +1,237 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+// Runs the registered dependency checks on one background thread at a fixed interval and
+// caches the outcome. Health endpoints only read the cached snapshot, so polling them never
+// reaches the database and probe cost stays one round of checks per interval no matter how
+// many load balancers are asking.
+//
+// The checks of a round run in parallel on their own threads and each gets checkTimeoutMs to
+// answer; one that does not is recorded DOWN and is not started again until it returns, so a
+// hung dependency cannot hold up the round or pile up threads. Liveness follows a heartbeat
+// the probe thread sets before running the checks.
+class HealthMonitor implements Closeable {
+
+    enum Status { UP, DEGRADED, DOWN }
+
+    interface Check {
+        Result run() throws Exception;
+    }
+
+    static final class Result {
+        final Status status;
+        final Map<String, Object> details;
+
+        private Result(Status status, Map<String, Object> details) {
+            this.status = status;
+            this.details = details;
+        }
+
+        static Result of(Status status, Map<String, Object> details) {
+            return new Result(status, details == null ? new LinkedHashMap<>() : details);
+        }
+
+        static Result up(Map<String, Object> details) {
+            return of(Status.UP, details);
+        }
+    }
+
+    // One probe round; immutable once published
+    static final class Snapshot {
+        final Status status;
+        final long checkedAt;
+        final Map<String, Map<String, Object>> checks;
+
+        Snapshot(Status status, long checkedAt, Map<String, Map<String, Object>> checks) {
+            this.status = status;
+            this.checkedAt = checkedAt;
+            this.checks = checks;
+        }
+    }
+
+    private static final class Registration {
+        final Check check;
+        final boolean critical;
+        Future<Result> running; // probe thread only
+
+        Registration(Check check, boolean critical) {
+            this.check = check;
+            this.critical = critical;
+        }
+    }
+
+    // A snapshot this many intervals old means the probe thread is stuck
+    private static final int STALE_AFTER_INTERVALS = 3;
+
+    private final long intervalMs;
+    private final long checkTimeoutMs;
+    private final LongSupplier clock;
+    private final Map<String, Registration> registrations = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "health-probe");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService checks = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "health-check");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Snapshot snapshot;
+    private volatile long heartbeat = -1;
+
+    HealthMonitor(long intervalMs) {
+        this(intervalMs, System::currentTimeMillis);
+    }
+
+    HealthMonitor(long intervalMs, LongSupplier clock) {
+        this(intervalMs, intervalMs / 2, clock);
+    }
+
+    HealthMonitor(long intervalMs, long checkTimeoutMs, LongSupplier clock) {
+        this.intervalMs = intervalMs;
+        this.checkTimeoutMs = Math.max(1, Math.min(checkTimeoutMs, intervalMs));
+        this.clock = clock;
+    }
+
+    // Reads carehub.health.intervalMs (default 5000) and carehub.health.checkTimeoutMs
+    // (default 2000, at most the interval)
+    static HealthMonitor fromSystemProperties() {
+        return new HealthMonitor(Long.getLong("carehub.health.intervalMs", 5000L),
+                Long.getLong("carehub.health.checkTimeoutMs", 2000L), System::currentTimeMillis);
+    }
+
+    long getCheckTimeoutMs() {
+        return checkTimeoutMs;
+    }
+
+    // Critical checks decide readiness; the others are reported but only degrade status.
+    // Register everything before start().
+    HealthMonitor register(String name, boolean critical, Check check) {
+        registrations.put(name, new Registration(check, critical));
+        return this;
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                probeNow();
+            } catch (Throwable t) {
+                System.err.println("Health probe failed: " + t.getMessage());
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs every check once and publishes the result; returns within checkTimeoutMs
+    Snapshot probeNow() {
+        heartbeat = clock.getAsLong();
+        long started = System.nanoTime();
+        for (Registration registration : registrations.values()) {
+            if (registration.running == null || registration.running.isDone()) {
+                registration.running = checks.submit(registration.check::run);
+            }
+        }
+
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(checkTimeoutMs);
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        Status overall = Status.UP;
+        for (Map.Entry<String, Registration> entry : registrations.entrySet()) {
+            Registration registration = entry.getValue();
+            Result result;
+            try {
+                result = registration.running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                result = failed("No answer within " + checkTimeoutMs + " ms");
+            } catch (ExecutionException e) {
+                result = failed(e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = failed("Probe interrupted");
+            }
+
+            Map<String, Object> entryDetails = new LinkedHashMap<>();
+            entryDetails.put("status", result.status.toString());
+            entryDetails.put("critical", registration.critical);
+            entryDetails.put("probeMs", (System.nanoTime() - started) / 1_000_000);
+            entryDetails.putAll(result.details);
+            results.put(entry.getKey(), entryDetails);
+
+            Status effect = result.status == Status.DOWN && !registration.critical ? Status.DEGRADED : result.status;
+            if (effect.ordinal() > overall.ordinal()) {
+                overall = effect;
+            }
+        }
+        Snapshot probed = new Snapshot(overall, clock.getAsLong(), results);
+        snapshot = probed;
+        return probed;
+    }
+
+    private static Result failed(String error) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("error", error);
+        return Result.of(Status.DOWN, details);
+    }
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    long ageMs() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : clock.getAsLong() - current.checkedAt;
+    }
+
+    boolean isFresh() {
+        long age = ageMs();
+        return age >= 0 && age <= intervalMs * STALE_AFTER_INTERVALS;
+    }
+
+    // The process is alive while the probe thread keeps starting rounds (or has not had its
+    // first chance yet); dependency failures and hung checks do not affect liveness
+    boolean isLive() {
+        long beat = heartbeat;
+        return beat < 0 ? !scheduler.isShutdown() : clock.getAsLong() - beat <= intervalMs * STALE_AFTER_INTERVALS;
+    }
+
+    // Ready to take traffic: a fresh snapshot with every critical dependency up
+    boolean isReady() {
+        Snapshot current = snapshot;
+        return current != null && isFresh() && current.status != Status.DOWN;
+    }
+
+    // Body for GET /health
+    Map<String, Object> report() {
+        Snapshot current = snapshot;
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (current == null) {
+            report.put("status", Status.DOWN.toString());
+            report.put("reason", "No probe has completed yet");
+        } else {
+            report.put("status", (isFresh() ? current.status : Status.DOWN).toString());
+            report.put("checkedAt", current.checkedAt);
+            report.put("ageMs", ageMs());
+            report.put("stale", !isFresh());
+            report.put("checks", current.checks);
+        }
+        report.put("intervalMs", intervalMs);
+        report.put("timestamp", clock.getAsLong());
+        return report;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        checks.shutdownNow();
+    }
+}
@@ -1,24 +1,47 @@
 package org.example;
+import com.mongodb.client.MongoDatabase;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import java.awt.*;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class HospitalManagementSystem extends JFrame {
-    // DAO instances for database operations
-    private PatientDAO patientDAO;
-    private DoctorDAO doctorDAO;
-    private AppointmentDAO appointmentDAO;
-    private BillDAO billDAO;
-    private UserDAO userDAO;
+    // Stores of the selected backend (see StorageBackend)
+    private StorageBackend storage;
+    private PatientStore patientDAO;
+    private DoctorStore doctorDAO;
+    private AppointmentStore appointmentDAO;
+    private BillStore billDAO;
+    private UserStore userDAO;
+    private MedicalRecordStore medicalRecordDAO;
+    private ChangeFeed changeFeed; // null without MongoDB or when the feed could not be started
+    private SwingWorker<Runnable, Void> dataLoader; // database read for the dashboard being shown
+
+    private static final String BY_DOCTOR = "doctorId";
+    private static final String BY_PATIENT = "patientId";
+    private static final String BY_DATE = "date";
+    private static final long CHANGE_POLL_INTERVAL_MS = 3000;
 
     // In-memory cache for better performance (optional)
     private Map<String, User> users = new HashMap<>();
-    private List<Patient> patients = new ArrayList<>();
-    private List<Doctor> doctors = new ArrayList<>();
-    private List<Appointment> appointments = new ArrayList<>();
-    private List<Bill> bills = new ArrayList<>();
+    // Indexed by ID plus the foreign keys the dashboards look up per row
+    private final IndexedRepository<Patient> patients = new IndexedRepository<>(Patient::getPatientId);
+    private final IndexedRepository<Doctor> doctors = new IndexedRepository<>(Doctor::getDoctorId);
+    private final IndexedRepository<Appointment> appointments = new IndexedRepository<>(Appointment::getAppointmentId)
+            .withIndex(BY_DOCTOR, Appointment::getDoctorId)
+            .withIndex(BY_PATIENT, Appointment::getPatientId)
+            .withIndex(BY_DATE, Appointment::getDate);
+    private final IndexedRepository<Bill> bills = new IndexedRepository<>(Bill::getBillId)
+            .withIndex(BY_PATIENT, Bill::getPatientId);
+    // Booked slots per doctor, read from the caches above and cleared whenever they are reloaded
+    // or the change feed brings appointment changes; bookings are checked against the store too
+    private final AppointmentScheduler scheduler = AppointmentScheduler.fromSystemProperties(
+            doctors::get, doctorId -> appointments.findBy(BY_DOCTOR, doctorId),
+            (doctorId, from, to) -> appointmentDAO != null ? appointmentDAO.getAppointmentsForDoctorBetween(doctorId, from, to) : List.of());
 
     // Colors
     public final Color PRIMARY_COLOR = new Color(0, 123, 255);
@@ -45,6 +68,7 @@ public class HospitalManagementSystem extends JFrame {
         }
 
         initializeDatabase();
+        IDGenerator.initializeCounters(this);
         createPanels();
 
         add(mainPanel);
@@ -52,59 +76,80 @@ public class HospitalManagementSystem extends JFrame {
 
         // Add shutdown hook to close database connection
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            DatabaseConnection.getInstance().closeConnection();
+            if (changeFeed != null) {
+                changeFeed.close();
+            }
+            if (storage != null && storage.isPersistent()) {
+                DatabaseConnection.getInstance().closeConnection();
+            }
         }));
     }
 
+    // Offline mode is the in-memory backend: edits work as usual but last only until exit
     private void initializeDatabase() {
         try {
             // Test database connection
-            if (!DatabaseConnection.getInstance().testConnection()) {
+            if (StorageBackend.configuredType() == StorageBackend.Type.MONGODB
+                    && !DatabaseConnection.getInstance().testConnection()) {
                 JOptionPane.showMessageDialog(this,
                         "Failed to connect to database. Running in offline mode.",
                         "Database Connection Error",
                         JOptionPane.WARNING_MESSAGE);
-                initializeOfflineData();
+                openStorage(StorageBackend.inMemory());
                 return;
             }
 
-            // Initialize DAO objects
-            patientDAO = new PatientDAO();
-            doctorDAO = new DoctorDAO();
-            appointmentDAO = new AppointmentDAO();
-            billDAO = new BillDAO();
-            userDAO = new UserDAO();
-
-            // Initialize default users if needed
-            userDAO.initializeDefaultUsers();
-
-            // Load data from database
-            loadDataFromDatabase();
-
+            openStorage(StorageBackend.fromSystemProperties());
             System.out.println("Database initialized successfully!");
         } catch (Exception e) {
             System.err.println("Database initialization failed: " + e.getMessage());
             e.printStackTrace();
-            initializeOfflineData();
+            openStorage(StorageBackend.inMemory());
         }
     }
 
+    private void openStorage(StorageBackend backend) {
+        storage = backend;
+        patientDAO = backend.getPatientStore();
+        doctorDAO = backend.getDoctorStore();
+        appointmentDAO = backend.getAppointmentStore();
+        billDAO = backend.getBillStore();
+        userDAO = backend.getUserStore();
+        medicalRecordDAO = backend.getMedicalRecordStore();
+
+        // IDs come from the shared counters so other processes cannot allocate the same ones
+        IDGenerator.useCounterStore(backend.getCounterStore());
+
+        // Initialize default users if needed
+        userDAO.initializeDefaultUsers();
+
+        // Start watching before the initial load so no change falls in between. Only MongoDB
+        // has other writers to watch for.
+        if (backend.isPersistent()) {
+            startChangeFeed();
+        }
+
+        // Load data from database
+        loadDataFromDatabase();
+    }
+
     private void loadDataFromDatabase() {
         try {
             // Load users
             users = userDAO.getAllUsers();
 
             // Load patients
-            patients = patientDAO.getAllPatients();
+            patients.replaceAll(patientDAO.getAllPatientsWithoutClinicalData());
 
             // Load doctors
-            doctors = doctorDAO.getAllDoctors();
+            doctors.replaceAll(doctorDAO.getAllDoctors());
 
             // Load appointments
-            appointments = appointmentDAO.getAllAppointments();
+            appointments.replaceAll(appointmentDAO.getAllAppointments());
 
             // Load bills
-            bills = billDAO.getAllBills();
+            bills.replaceAll(billDAO.getAllBills());
+            scheduler.clear();
 
             // If no sample data exists, create some
             if (doctors.isEmpty()) {
@@ -119,84 +164,20 @@ public class HospitalManagementSystem extends JFrame {
 
     private void initializeSampleData() {
         try {
-            // Add sample doctors
-            Doctor doc1 = new Doctor("DOC1", "Dr. Smith", "Cardiology", "9AM-5PM");
-            Doctor doc2 = new Doctor("DOC2", "Dr. Johnson", "Neurology", "10AM-6PM");
-            Doctor doc3 = new Doctor("DOC3", "Dr. Williams", "Pediatrics", "8AM-4PM");
-
-            doctorDAO.insertDoctor(doc1);
-            doctorDAO.insertDoctor(doc2);
-            doctorDAO.insertDoctor(doc3);
-            doctors.add(doc1);
-            doctors.add(doc2);
-            doctors.add(doc3);
-
-            // Add sample patients
-            Patient pat1 = new Patient("PAT1", "John Doe", 35, "Male", "123 Main St", "555-1234");
-            Patient pat2 = new Patient("PAT2", "Jane Smith", 28, "Female", "456 Oak Ave", "555-5678");
-            Patient pat3 = new Patient("PAT3", "Robert Johnson", 45, "Male", "789 Pine Rd", "555-9012");
-
-            patientDAO.insertPatient(pat1);
-            patientDAO.insertPatient(pat2);
-            patientDAO.insertPatient(pat3);
-            patients.add(pat1);
-            patients.add(pat2);
-            patients.add(pat3);
-
-            // Add sample appointments with patient and doctor names
-            Appointment app1 = new Appointment("APP1", "PAT1", "DOC1", "2023-06-15", "10:00", "Regular checkup");
-            app1.setNames(pat1, doc1); // Set the names
-            Appointment app2 = new Appointment("APP2", "PAT2", "DOC2", "2023-06-15", "11:30", "Headache consultation");
-            app2.setNames(pat2, doc2); // Set the names
-
-            appointmentDAO.insertAppointment(app1);
-            appointmentDAO.insertAppointment(app2);
-            appointments.add(app1);
-            appointments.add(app2);
-
-            // Add sample bills
-            Bill bill1 = new Bill("BILL1", "PAT1", 150.00, "Consultation fee");
-            Bill bill2 = new Bill("BILL2", "PAT2", 200.00, "Lab tests");
-
-            billDAO.insertBill(bill1);
-            billDAO.insertBill(bill2);
-            bills.add(bill1);
-            bills.add(bill2);
-
-            System.out.println("Sample data initialized in database.");
+            storage.insertSampleData();
+            patients.replaceAll(patientDAO.getAllPatientsWithoutClinicalData());
+            doctors.replaceAll(doctorDAO.getAllDoctors());
+            appointments.replaceAll(appointmentDAO.getAllAppointments());
+            bills.replaceAll(billDAO.getAllBills());
+            scheduler.clear();
+
+            System.out.println("Sample data initialized in " + storage + " storage.");
         } catch (Exception e) {
             System.err.println("Error initializing sample data: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void initializeOfflineData() {
-        // Fallback to in-memory data if database is not available
-        users.put("admin", new User("admin", "admin123", UserRole.ADMIN));
-        users.put("doctor1", new User("doctor1", "doc123", UserRole.DOCTOR));
-        users.put("reception1", new User("reception1", "recep123", UserRole.RECEPTIONIST));
-
-        doctors.add(new Doctor("DOC1", "Dr. Smith", "Cardiology", "9AM-5PM"));
-        doctors.add(new Doctor("DOC2", "Dr. Johnson", "Neurology", "10AM-6PM"));
-        doctors.add(new Doctor("DOC3", "Dr. Williams", "Pediatrics", "8AM-4PM"));
-
-        patients.add(new Patient("PAT1", "John Doe", 35, "Male", "123 Main St", "555-1234"));
-        patients.add(new Patient("PAT2", "Jane Smith", 28, "Female", "456 Oak Ave", "555-5678"));
-        patients.add(new Patient("PAT3", "Robert Johnson", 45, "Male", "789 Pine Rd", "555-9012"));
-
-        // Create appointments with names
-        Appointment app1 = new Appointment("APP1", "PAT1", "DOC1", "2023-06-15", "10:00", "Regular checkup");
-        app1.setNames("John Doe", "Dr. Smith");
-        Appointment app2 = new Appointment("APP2", "PAT2", "DOC2", "2023-06-15", "11:30", "Headache consultation");
-        app2.setNames("Jane Smith", "Dr. Johnson");
-
-        appointments.add(app1);
-        appointments.add(app2);
-
-        bills.add(new Bill("BILL1", "PAT1", 150.00, "Consultation fee"));
-        bills.add(new Bill("BILL2", "PAT2", 200.00, "Lab tests"));
-    }
-
     private void createPanels() {
         loginPanel = new LoginPanel(this);
         adminDashboard = new AdminDashboard(this);
@@ -211,76 +192,232 @@ public class HospitalManagementSystem extends JFrame {
 
     // Navigation methods
     public void showLoginPanel() {
+        cancelDataLoads();
         loginPanel.clearFields();
         cardLayout.show(mainPanel, "LOGIN");
     }
 
+    // The dashboards are shown immediately and filled in the background
     public void showAdminDashboard() {
-        refreshDataFromDatabase();
-        adminDashboard.refreshData();
         cardLayout.show(mainPanel, "ADMIN");
+        loadDashboardData(adminDashboard::loadData);
     }
 
     public void showDoctorDashboard() {
-        refreshDataFromDatabase();
-        doctorDashboard.refreshData();
         cardLayout.show(mainPanel, "DOCTOR");
+        loadDashboardData(doctorDashboard::loadData);
     }
 
     public void showReceptionistDashboard() {
-        refreshDataFromDatabase();
-        receptionistDashboard.refreshData();
         cardLayout.show(mainPanel, "RECEPTIONIST");
+        loadDashboardData(receptionistDashboard::loadData);
     }
 
-    // Refresh data from database
-    private void refreshDataFromDatabase() {
-        if (patientDAO != null) {
-            try {
-                System.out.println("Refreshing data from database...");
+    // Reads from the database on a worker thread, updates the caches on the EDT and then
+    // starts the dashboard's table loads. A newer call cancels an unfinished older one.
+    private void loadDashboardData(Runnable loadTables) {
+        cancelDataLoads();
+        SwingWorker<Runnable, Void> loader = new SwingWorker<Runnable, Void>() {
+            @Override
+            protected Runnable doInBackground() {
+                return fetchDataFromDatabase();
+            }
 
-                // Clear existing data first
-                patients.clear();
-                doctors.clear();
-                appointments.clear();
-                bills.clear();
-                users.clear();
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    get().run();
+                    scheduler.clear();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error loading dashboard data: " + e.getMessage());
+                }
+                loadTables.run();
+            }
+        };
+        dataLoader = loader;
+        loader.execute();
+    }
 
-                // Load fresh data from database
-                patients.addAll(patientDAO.getAllPatients());
-                doctors.addAll(doctorDAO.getAllDoctors());
-                appointments.addAll(appointmentDAO.getAllAppointments());
-                bills.addAll(billDAO.getAllBills());
-                users.putAll(userDAO.getAllUsers());
+    private void cancelDataLoads() {
+        if (dataLoader != null) {
+            dataLoader.cancel(true);
+            dataLoader = null;
+        }
+        if (adminDashboard != null) {
+            adminDashboard.cancelLoading();
+        }
+        if (doctorDashboard != null) {
+            doctorDashboard.cancelLoading();
+        }
+        if (receptionistDashboard != null) {
+            receptionistDashboard.cancelLoading();
+        }
+    }
+
+    private void startChangeFeed() {
+        ChangeFeed feed = new ChangeFeed();
+        try {
+            MongoDatabase database = DatabaseConnection.getInstance().getDatabase();
+            feed.watchCollection(database.getCollection("patients"), Patient.class, "patientId",
+                    Patient::getPatientId, new ChangeTarget<Patient>() {
+                        // The feed delivers whole documents, but history lives in medicalRecords,
+                        // so changed patients read their clinical data again when next opened
+                        @Override
+                        public void upsert(String id, Patient patient) {
+                            patient.deferClinicalData();
+                            patients.put(patient);
+                        }
+
+                        @Override
+                        public void delete(String id) {
+                            patients.remove(id);
+                        }
+
+                        @Override
+                        public List<Patient> loadAll() {
+                            return patientDAO.getAllPatientsWithoutClinicalData();
+                        }
+
+                        @Override
+                        public void replaceAll(List<Patient> all) {
+                            patients.replaceAll(all);
+                        }
+                    });
+            feed.watchCollection(database.getCollection("doctors"), Doctor.class, "doctorId",
+                    Doctor::getDoctorId, ChangeTarget.of(doctors, doctorDAO::getAllDoctors));
+            ChangeTarget<Appointment> appointmentCache = ChangeTarget.of(appointments, appointmentDAO::getAllAppointments);
+            feed.watchCollection(database.getCollection("appointments"), Appointment.class, "appointmentId",
+                    Appointment::getAppointmentId, new ChangeTarget<Appointment>() {
+                        // Timelines are rebuilt from the cache when next needed, so bookings made
+                        // elsewhere show up in free slots as well
+                        @Override
+                        public void upsert(String id, Appointment appointment) {
+                            appointmentCache.upsert(id, appointment);
+                            scheduler.clear();
+                        }
+
+                        @Override
+                        public void delete(String id) {
+                            appointmentCache.delete(id);
+                            scheduler.clear();
+                        }
+
+                        @Override
+                        public List<Appointment> loadAll() {
+                            return appointmentCache.loadAll();
+                        }
+
+                        @Override
+                        public void replaceAll(List<Appointment> all) {
+                            appointmentCache.replaceAll(all);
+                            scheduler.clear();
+                        }
+                    });
+            feed.watchCollection(database.getCollection("bills"), Bill.class, "billId",
+                    Bill::getBillId, ChangeTarget.of(bills, billDAO::getAllBills));
+            feed.watchCollection(database.getCollection("users"), User.class, "username",
+                    User::getUsername, new ChangeTarget<User>() {
+                        @Override
+                        public void upsert(String id, User user) {
+                            users.put(id, user);
+                        }
+
+                        @Override
+                        public void delete(String id) {
+                            users.remove(id);
+                        }
+
+                        @Override
+                        public List<User> loadAll() {
+                            return new ArrayList<>(userDAO.getAllUsers().values());
+                        }
+
+                        @Override
+                        public void replaceAll(List<User> all) {
+                            users.clear();
+                            for (User user : all) {
+                                users.put(user.getUsername(), user);
+                            }
+                        }
+                    });
+            feed.start(CHANGE_POLL_INTERVAL_MS, SwingUtilities::invokeLater, this::loadVisibleDashboard);
+            changeFeed = feed;
+        } catch (Exception e) {
+            System.err.println("Change feed unavailable, falling back to full reloads: " + e.getMessage());
+            feed.close();
+        }
+    }
+
+    private void loadVisibleDashboard() {
+        if (adminDashboard != null && adminDashboard.isShowing()) {
+            adminDashboard.loadData();
+        }
+        if (doctorDashboard != null && doctorDashboard.isShowing()) {
+            doctorDashboard.loadData();
+        }
+        if (receptionistDashboard != null && receptionistDashboard.isShowing()) {
+            receptionistDashboard.loadData();
+        }
+    }
+
+    // Reads from the database and returns the step that updates the caches. The read is safe
+    // off the EDT; the returned step must run on the EDT. With the change feed running only
+    // the changes made since the last refresh are read; the full reload is kept for when the
+    // feed is unavailable.
+    private Runnable fetchDataFromDatabase() {
+        if (changeFeed != null) {
+            try {
+                changeFeed.fetch();
+                return () -> {
+                    int applied = changeFeed.applyPending();
+                    if (applied > 0) {
+                        System.out.println("Applied " + applied + " database changes");
+                    }
+                };
+            } catch (Exception e) {
+                System.err.println("Error reading database changes, reloading: " + e.getMessage());
+            }
+        }
+        if (patientDAO == null) {
+            System.out.println("DAO is null, cannot refresh from database");
+            return () -> { };
+        }
+        try {
+            System.out.println("Refreshing data from database...");
+            List<Patient> freshPatients = patientDAO.getAllPatientsWithoutClinicalData();
+            List<Doctor> freshDoctors = doctorDAO.getAllDoctors();
+            List<Appointment> freshAppointments = appointmentDAO.getAllAppointments();
+            List<Bill> freshBills = billDAO.getAllBills();
+            Map<String, User> freshUsers = userDAO.getAllUsers();
+
+            return () -> {
+                // Replace the cached data and rebuild the indexes
+                patients.replaceAll(freshPatients);
+                doctors.replaceAll(freshDoctors);
+                appointments.replaceAll(freshAppointments);
+                bills.replaceAll(freshBills);
+                users.clear();
+                users.putAll(freshUsers);
 
                 System.out.println("Data refreshed - Patients: " + patients.size() +
                         ", Doctors: " + doctors.size() +
                         ", Appointments: " + appointments.size() +
                         ", Bills: " + bills.size() +
                         ", Users: " + users.size());
-            } catch (Exception e) {
-                System.err.println("Error refreshing data from database: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            System.out.println("DAO is null, cannot refresh from database");
+            };
+        } catch (Exception e) {
+            System.err.println("Error refreshing data from database: " + e.getMessage());
+            e.printStackTrace();
+            return () -> { };
         }
     }
 
-    // Add a public method to manually refresh data
+    // Add a public method to manually refresh data; the visible dashboard reloads in the background
     public void refreshAllData() {
-        refreshDataFromDatabase();
-
-        // Refresh all dashboard UIs
-        if (adminDashboard != null) {
-            adminDashboard.refreshData();
-        }
-        if (doctorDashboard != null) {
-            doctorDashboard.refreshData();
-        }
-        if (receptionistDashboard != null) {
-            receptionistDashboard.refreshData();
-        }
+        loadDashboardData(this::loadVisibleDashboard);
     }
 
     // Authentication
@@ -298,115 +435,251 @@ public class HospitalManagementSystem extends JFrame {
     }
 
     // Data access methods
-    public List<Patient> getAllPatients() { return new ArrayList<>(patients); }
-    public List<Doctor> getAllDoctors() { return new ArrayList<>(doctors); }
-    public List<Appointment> getAllAppointments() { return new ArrayList<>(appointments); }
-    public List<Bill> getAllBills() { return new ArrayList<>(bills); }
+    public List<Patient> getAllPatients() { return patients.values(); }
+    public List<Doctor> getAllDoctors() { return doctors.values(); }
+    public List<Appointment> getAllAppointments() { return appointments.values(); }
+    public List<Bill> getAllBills() { return bills.values(); }
 
     public Patient getPatientById(String id) {
-        return patients.stream().filter(p -> p.getPatientId().equals(id)).findFirst().orElse(null);
+        return patients.get(id);
     }
 
-    public Doctor getDoctorById(String id) {
-        return doctors.stream().filter(d -> d.getDoctorId().equals(id)).findFirst().orElse(null);
+    // Pickers only need names and IDs, which the cache always has
+    public List<PatientSummary> getPatientSummaries() {
+        List<PatientSummary> summaries = new ArrayList<>();
+        for (Patient patient : patients.values()) {
+            summaries.add(PatientSummary.of(patient));
+        }
+        return summaries;
     }
 
-    // CRUD operations with database integration
-    public void addPatient(Patient patient) {
-        patients.add(patient);
-        if (patientDAO != null) {
-            boolean success = patientDAO.insertPatient(patient);
-            if (success) {
-                System.out.println("Patient added successfully, refreshing data...");
-                refreshDataFromDatabase(); // Refresh to get latest data
-            }
+    // Patients are cached without allergies, medications and medical history. Detail views use
+    // this to read them from the database the first time they are opened.
+    public Patient getPatientDetails(String id) {
+        Patient patient = patients.get(id);
+        if (patient != null) {
+            loadClinicalData(Collections.singletonList(patient));
         }
+        return patient;
     }
 
-    public void addDoctor(Doctor doctor) {
-        doctors.add(doctor);
-        if (doctorDAO != null) {
-            boolean success = doctorDAO.insertDoctor(doctor);
-            if (success) {
-                System.out.println("Doctor added successfully, refreshing data...");
-                refreshDataFromDatabase();
+    // Reads the missing clinical data of the given cached patients in batches: allergies and
+    // medications from the patient documents, history from the medicalRecords collection
+    public void loadClinicalData(List<Patient> patientList) {
+        fetchClinicalData(patientList).run();
+    }
+
+    // The reading half of loadClinicalData, for worker threads: the data is read into detached
+    // copies, and the returned step installs it in the cached patients. That step must run on
+    // the EDT, which reads and appends to the same lists in the record dialogs.
+    public Runnable fetchClinicalData(List<Patient> patientList) {
+        if (patientDAO == null) {
+            return () -> { };
+        }
+        List<Patient> deferred = new ArrayList<>();
+        Map<String, Patient> loaded = new HashMap<>();
+        for (Patient patient : patientList) {
+            if (patient.isClinicalDataDeferred()) {
+                deferred.add(patient);
+                loaded.put(patient.getPatientId(), Patient.patch(patient.getPatientId()));
             }
         }
+        if (deferred.isEmpty() || !patientDAO.loadClinicalData(loaded.values())) {
+            return () -> { };
+        }
+        Map<String, List<MedicalRecord>> histories = medicalRecordDAO.getRecordsForPatients(new ArrayList<>(loaded.keySet()));
+        if (histories == null) {
+            return () -> { };
+        }
+        return () -> {
+            for (Patient patient : deferred) {
+                Patient copy = loaded.get(patient.getPatientId());
+                if (!patient.isClinicalDataDeferred() || copy.isClinicalDataDeferred()) {
+                    continue; // installed meanwhile, or the patient document is gone
+                }
+                // Documents not migrated yet still carry embedded entries; keep them, skip copies
+                List<MedicalRecord> history = new ArrayList<>(copy.getMedicalHistory() != null ? copy.getMedicalHistory() : List.of());
+                Set<String> known = new HashSet<>();
+                for (MedicalRecord record : history) {
+                    known.add(record.getRecordId());
+                }
+                for (MedicalRecord record : histories.getOrDefault(patient.getPatientId(), List.of())) {
+                    if (known.add(record.getRecordId())) {
+                        history.add(record);
+                    }
+                }
+                patient.setClinicalData(copy.getAllergies(), copy.getMedications(), history);
+            }
+        };
     }
 
-    public void addAppointment(Appointment appointment) {
-        // Ensure names are set before adding to database
-        if (appointment.getPatientName() == null || appointment.getDoctorName() == null) {
-            Patient patient = getPatientById(appointment.getPatientId());
-            Doctor doctor = getDoctorById(appointment.getDoctorId());
-            appointment.setNames(patient, doctor);
+    // Appends a visit to the patient's history; stored on its own, the patient document is not rewritten
+    public boolean addMedicalRecord(Patient patient, MedicalRecord record) {
+        if (medicalRecordDAO != null && !medicalRecordDAO.insertRecord(record).isSuccess()) {
+            return false;
         }
+        patient.addMedicalRecord(record);
+        return true;
+    }
 
-        appointments.add(appointment);
-        if (appointmentDAO != null) {
-            boolean success = appointmentDAO.insertAppointment(appointment);
-            if (success) {
-                System.out.println("Appointment added successfully, refreshing data...");
-                refreshDataFromDatabase();
-            }
+    // Writes the edits made to a cached patient since it was read, e.g. an added allergy
+    // becomes a single $addToSet rather than a rewrite of the patient document
+    public void savePatientChanges(Patient patient) {
+        if (patientDAO != null && !patientDAO.updatePatient(patient).isSuccess()) {
+            System.err.println("Changes to patient " + patient.getPatientId() + " were not saved to the database");
+        }
+    }
+
+    public Doctor getDoctorById(String id) {
+        return doctors.get(id);
+    }
+
+    public Appointment getAppointmentById(String id) {
+        return appointments.get(id);
+    }
+
+    public Bill getBillById(String id) {
+        return bills.get(id);
+    }
+
+    public List<Appointment> getAppointmentsForDoctor(String doctorId) {
+        return appointments.findBy(BY_DOCTOR, doctorId);
+    }
+
+    public List<Appointment> getAppointmentsForPatient(String patientId) {
+        return appointments.findBy(BY_PATIENT, patientId);
+    }
+
+    public List<Appointment> getAppointmentsOnDate(String date) {
+        return appointments.findBy(BY_DATE, date);
+    }
+
+    // Free slots offered when a requested time is taken or outside the doctor's hours
+    public List<LocalDateTime> getFreeSlots(String doctorId, LocalDateTime from, int count) {
+        return scheduler.nextFreeSlots(doctorId, from, count);
+    }
+
+    public List<Bill> getBillsForPatient(String patientId) {
+        return bills.findBy(BY_PATIENT, patientId);
+    }
+
+    // CRUD operations with database integration. The indexed store is updated in place,
+    // so a successful write no longer triggers a full reload of every collection. A record
+    // is only cached once the database accepted it; a DUPLICATE must not replace the copy of
+    // the record that already has that ID. Callers show notSavedMessage for a failed result.
+    public WriteResult addPatient(Patient patient) {
+        WriteResult result = patientDAO != null ? patientDAO.insertPatient(patient) : WriteResult.APPLIED;
+        if (result.isSuccess()) {
+            patients.put(patient);
+        } else {
+            System.err.println("Patient " + patient.getPatientId() + " was not saved to the database: " + result);
         }
+        return result;
     }
 
-    public void addBill(Bill bill) {
-        bills.add(bill);
-        if (billDAO != null) {
-            boolean success = billDAO.insertBill(bill);
-            if (success) {
-                System.out.println("Bill added successfully, refreshing data...");
-                refreshDataFromDatabase();
+    public WriteResult addDoctor(Doctor doctor) {
+        WriteResult result = doctorDAO != null ? doctorDAO.insertDoctor(doctor) : WriteResult.APPLIED;
+        if (result.isSuccess()) {
+            doctors.put(doctor);
+        } else {
+            System.err.println("Doctor " + doctor.getDoctorId() + " was not saved to the database: " + result);
+        }
+        return result;
+    }
+
+    // Throws IllegalArgumentException for a date or time the doctor cannot be booked at and
+    // AppointmentScheduler.ConflictException when the doctor is already booked then
+    public WriteResult addAppointment(Appointment appointment) {
+        // The slot is held before the insert and given back if the insert does not happen
+        AppointmentScheduler.Booking previous = scheduler.reserve(appointment);
+        WriteResult result;
+        try {
+            // Ensure names are set before adding to database
+            if (appointment.getPatientName() == null || appointment.getDoctorName() == null) {
+                Patient patient = getPatientById(appointment.getPatientId());
+                Doctor doctor = getDoctorById(appointment.getDoctorId());
+                appointment.setNames(patient, doctor);
             }
+
+            result = appointmentDAO != null ? appointmentDAO.insertAppointment(appointment) : WriteResult.APPLIED;
+        } catch (RuntimeException e) {
+            scheduler.restore(appointment.getAppointmentId(), previous);
+            throw e;
+        }
+        if (result.isSuccess()) {
+            appointments.put(appointment);
+        } else {
+            scheduler.restore(appointment.getAppointmentId(), previous);
+            System.err.println("Appointment " + appointment.getAppointmentId() + " was not saved to the database: " + result);
+        }
+        return result;
+    }
+
+    public WriteResult addBill(Bill bill) {
+        WriteResult result = billDAO != null ? billDAO.insertBill(bill) : WriteResult.APPLIED;
+        if (result.isSuccess()) {
+            bills.put(bill);
+        } else {
+            System.err.println("Bill " + bill.getBillId() + " was not saved to the database: " + result);
         }
+        return result;
+    }
+
+    // Dialog text for an add that the database did not accept
+    public static String notSavedMessage(String what, String id, WriteResult result) {
+        if (result == WriteResult.DUPLICATE) {
+            return what + " " + id + " already exists.";
+        }
+        return what + " " + id + " could not be saved to the database.";
     }
 
     public void deletePatient(String id) {
-        patients.removeIf(p -> p.getPatientId().equals(id));
-        if (patientDAO != null) {
-            boolean success = patientDAO.deletePatient(id);
-            if (success) {
-                System.out.println("Patient deleted successfully, refreshing data...");
-                refreshDataFromDatabase();
-            }
+        patients.remove(id);
+        if (patientDAO != null && !patientDAO.deletePatient(id).isSuccess()) {
+            System.err.println("Patient " + id + " was not deleted from the database");
         }
     }
 
     public void deleteDoctor(String id) {
-        doctors.removeIf(d -> d.getDoctorId().equals(id));
-        if (doctorDAO != null) {
-            boolean success = doctorDAO.deleteDoctor(id);
-            if (success) {
-                System.out.println("Doctor deleted successfully, refreshing data...");
-                refreshDataFromDatabase();
-            }
+        doctors.remove(id);
+        if (doctorDAO != null && !doctorDAO.deleteDoctor(id).isSuccess()) {
+            System.err.println("Doctor " + id + " was not deleted from the database");
+        }
+    }
+
+    public void deleteAppointment(String id) {
+        appointments.remove(id);
+        scheduler.release(id);
+        if (appointmentDAO != null && !appointmentDAO.deleteAppointment(id).isSuccess()) {
+            System.err.println("Appointment " + id + " was not deleted from the database");
+        }
+    }
+
+    public void deleteBill(String id) {
+        bills.remove(id);
+        if (billDAO != null && !billDAO.deleteBill(id).isSuccess()) {
+            System.err.println("Bill " + id + " was not deleted from the database");
         }
     }
 
     public void markAppointmentCompleted(String id) {
-        appointments.stream()
-                .filter(a -> a.getAppointmentId().equals(id))
-                .findFirst()
-                .ifPresent(a -> {
-                    a.setCompleted(true);
-                    if (appointmentDAO != null) {
-                        appointmentDAO.markAppointmentCompleted(id);
-                    }
-                });
+        Appointment appointment = appointments.get(id);
+        if (appointment != null) {
+            appointment.setCompleted(true);
+            if (appointmentDAO != null) {
+                appointmentDAO.markAppointmentCompleted(id);
+            }
+        }
     }
 
     public void markBillPaid(String id) {
-        bills.stream()
-                .filter(b -> b.getBillId().equals(id))
-                .findFirst()
-                .ifPresent(b -> {
-                    b.setPaid(true);
-                    if (billDAO != null) {
-                        billDAO.markBillPaid(id);
-                    }
-                });
+        Bill bill = bills.get(id);
+        if (bill != null) {
+            bill.setPaid(true);
+            if (billDAO != null) {
+                billDAO.markBillPaid(id);
+            }
+        }
     }
 
     public Map<String, User> getUsers() {
@@ -484,7 +757,7 @@ public class HospitalManagementSystem extends JFrame {
     }
 
     class StyledTable extends JTable {
-        public StyledTable(DefaultTableModel model) {
+        public StyledTable(TableModel model) {
             super(model);
             setShowGrid(false);
             setIntercellSpacing(new Dimension(0, 0));
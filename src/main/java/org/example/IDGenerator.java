@@ -1,32 +1,53 @@
 package org.example;
 
+import java.util.Collection;
+import java.util.function.Function;
+
 public class IDGenerator {
-    private static int patientCounter = 3;
-    private static int doctorCounter = 3;
-    private static int appointmentCounter = 2;
-    private static int billCounter = 2;
+    // In-process counters until a shared store is configured (offline mode and tests)
+    private static volatile IdAllocator allocator = new IdAllocator(new InMemoryCounterStore());
 
     public static String generatePatientID() {
-        return "PAT" + (++patientCounter);
+        return generate(IdFormat.PATIENT);
     }
 
     public static String generateDoctorID() {
-        return "DOC" + (++doctorCounter);
+        return generate(IdFormat.DOCTOR);
     }
 
     public static String generateAppointmentID() {
-        return "APP" + (++appointmentCounter);
+        return generate(IdFormat.APPOINTMENT);
     }
 
     public static String generateBillID() {
-        return "BILL" + (++billCounter);
+        return generate(IdFormat.BILL);
+    }
+
+    public static String generateMedicalRecordID() {
+        return generate(IdFormat.MEDICAL_RECORD);
+    }
+
+    // Thread-safe; unique across processes when they share a counter store
+    public static String generate(IdFormat format) {
+        return allocator.next(format);
     }
 
-    // Initialize counters from existing data
+    // Allocate from the given store, e.g. the counters collection, from now on
+    public static void useCounterStore(CounterStore store) {
+        allocator = new IdAllocator(store);
+    }
+
+    // Moves the counters past the highest existing IDs. Counters never go back, so IDs
+    // freed by deletes are not handed out again.
     public static void initializeCounters(HospitalManagementSystem system) {
-        patientCounter = system.getAllPatients().size();
-        doctorCounter = system.getAllDoctors().size();
-        appointmentCounter = system.getAllAppointments().size();
-        billCounter = system.getAllBills().size();
+        allocator.advanceTo(IdFormat.PATIENT, highest(IdFormat.PATIENT, system.getAllPatients(), Patient::getPatientId));
+        allocator.advanceTo(IdFormat.DOCTOR, highest(IdFormat.DOCTOR, system.getAllDoctors(), Doctor::getDoctorId));
+        allocator.advanceTo(IdFormat.APPOINTMENT,
+                highest(IdFormat.APPOINTMENT, system.getAllAppointments(), Appointment::getAppointmentId));
+        allocator.advanceTo(IdFormat.BILL, highest(IdFormat.BILL, system.getAllBills(), Bill::getBillId));
+    }
+
+    private static <T> long highest(IdFormat format, Collection<T> records, Function<T, String> idOf) {
+        return format.highest(records.stream().map(idOf).toList());
     }
-}
\ No newline at end of file
+}
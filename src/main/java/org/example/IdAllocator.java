@@ -0,0 +1,96 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands out IDs from blocks reserved in a CounterStore. Within a block an ID costs one
+// getAndIncrement, so concurrent callers never lock; only the caller that exhausts a block
+// goes back to the store, once, for the next one. Blocks never overlap because the store
+// reserves them atomically, which keeps IDs unique across threads and processes. Numbers
+// left in a block when the process exits are skipped, not reused.
+class IdAllocator {
+
+    static final int DEFAULT_BLOCK_SIZE = 20;
+
+    private final CounterStore store;
+    private final int blockSize;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    IdAllocator(CounterStore store) {
+        this(store, DEFAULT_BLOCK_SIZE);
+    }
+
+    IdAllocator(CounterStore store, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.store = store;
+        this.blockSize = blockSize;
+    }
+
+    String next(IdFormat format) {
+        return format.format(sequence(format).next());
+    }
+
+    // Moves the counter past existing IDs; numbers already handed out here are dropped
+    // so the next ID is taken from a block above value
+    void advanceTo(IdFormat format, long value) {
+        Sequence sequence = sequence(format);
+        synchronized (sequence) {
+            store.advanceTo(format, value);
+            sequence.block = Block.EMPTY;
+        }
+    }
+
+    private Sequence sequence(IdFormat format) {
+        return sequences.computeIfAbsent(format.getIdField(), k -> new Sequence(format));
+    }
+
+    private final class Sequence {
+        private final IdFormat format;
+        private volatile Block block = Block.EMPTY;
+
+        Sequence(IdFormat format) {
+            this.format = format;
+        }
+
+        long next() {
+            while (true) {
+                Block current = block;
+                long value = current.take();
+                if (value > 0) {
+                    return value;
+                }
+                refill(current);
+            }
+        }
+
+        // Only one caller reserves a new block; the others wait and retry on it
+        private synchronized void refill(Block exhausted) {
+            if (block != exhausted) {
+                return;
+            }
+            long last = store.reserve(format, blockSize);
+            block = new Block(last - blockSize + 1, last);
+        }
+    }
+
+    private static final class Block {
+        static final Block EMPTY = new Block(1, 0);
+
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        // Next number in the block, or -1 once it is used up
+        long take() {
+            long value = next.getAndIncrement();
+            return value <= last ? value : -1;
+        }
+    }
+}
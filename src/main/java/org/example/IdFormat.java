@@ -0,0 +1,56 @@
+package org.example;
+
+// How the IDs of one record type look (prefix + sequence number) and which counter and
+// collection they belong to. New record types plug in by declaring another format.
+public final class IdFormat {
+    public static final IdFormat PATIENT = new IdFormat("patientId", "PAT", "patients");
+    public static final IdFormat DOCTOR = new IdFormat("doctorId", "DOC", "doctors");
+    public static final IdFormat APPOINTMENT = new IdFormat("appointmentId", "APP", "appointments");
+    public static final IdFormat BILL = new IdFormat("billId", "BILL", "bills");
+    public static final IdFormat MEDICAL_RECORD = new IdFormat("recordId", "REC", "medicalRecords");
+
+    private final String idField;
+    private final String prefix;
+    private final String collection;
+
+    public IdFormat(String idField, String prefix, String collection) {
+        this.idField = idField;
+        this.prefix = prefix;
+        this.collection = collection;
+    }
+
+    // Also the name of the counter document
+    public String getIdField() { return idField; }
+    public String getPrefix() { return prefix; }
+    public String getCollection() { return collection; }
+
+    public String format(long sequence) {
+        return prefix + sequence;
+    }
+
+    // Sequence number of an ID in this format, or -1 when the ID does not match
+    public long parse(String id) {
+        if (id == null || id.length() <= prefix.length() || !id.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Highest sequence number among the IDs, 0 when none match
+    public long highest(Iterable<String> ids) {
+        long highest = 0;
+        for (String id : ids) {
+            highest = Math.max(highest, parse(id));
+        }
+        return highest;
+    }
+
+    @Override
+    public String toString() {
+        return prefix + " (" + collection + "." + idField + ")";
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Appointments kept in this JVM, indexed by patient, doctor and date, with the same start-time
+// range indexes as AppointmentDAO; see InMemoryPatientStore
+class InMemoryAppointmentStore implements AppointmentStore {
+
+    private final InMemoryCollection appointments = new InMemoryCollection("appointmentId",
+            "patientId", "doctorId", "date")
+            .withVersions(CollectionVersions.forCollection("appointments"))
+            .withRangeIndex("doctorId", TemporalFields.APPOINTMENT_START)
+            .withRangeIndex(null, TemporalFields.APPOINTMENT_START);
+
+    @Override
+    public WriteResult insertAppointment(Appointment appointment) {
+        WriteResult result = appointments.insert(ChangeTracking.stampInsert(AppointmentDAO.toDocument(appointment)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("Appointment with ID " + appointment.getAppointmentId() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public Appointment getAppointmentById(String appointmentId) {
+        return appointments.get(appointmentId, Appointment.class);
+    }
+
+    @Override
+    public List<Appointment> getAllAppointments() {
+        return appointments.findAll(Appointment.class);
+    }
+
+    @Override
+    public Page<Appointment> getAppointmentsPage(ListQuery query) {
+        return getAppointmentsPage(query, RecordFilter.NONE);
+    }
+
+    @Override
+    public Page<Appointment> getAppointmentsPage(ListQuery query, RecordFilter filter) {
+        return appointments.page(query, filter, Appointment.class);
+    }
+
+    @Override
+    public Page<Document> getAppointmentFieldsPage(ListQuery query, RecordFilter filter) {
+        return appointments.fieldsPage(query, filter);
+    }
+
+    @Override
+    public RecordCursor<Appointment> streamAppointments() {
+        return streamAppointments(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Appointment> streamAppointments(RecordFilter filter) {
+        return appointments.stream(filter, Appointment.class);
+    }
+
+    @Override
+    public RecordCursor<Document> streamAppointmentFields(RecordFilter filter) {
+        return appointments.streamFields(filter);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByPatientId(String patientId) {
+        return appointments.findBy("patientId", patientId, Appointment.class);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByDoctorId(String doctorId) {
+        return appointments.findBy("doctorId", doctorId, Appointment.class);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsBetween(LocalDateTime from, LocalDateTime to) {
+        return appointments.findRange(null, null, TemporalFields.APPOINTMENT_START,
+                TemporalFields.toDate(from), TemporalFields.toDate(to), Appointment.class);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsForDoctorBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+        return appointments.findRange("doctorId", doctorId, TemporalFields.APPOINTMENT_START,
+                TemporalFields.toDate(from), TemporalFields.toDate(to), Appointment.class);
+    }
+
+    @Override
+    public WriteResult updateAppointment(Appointment appointment) {
+        Document updateDoc = AppointmentDAO.updateDocument(appointment);
+        if (updateDoc.isEmpty()) {
+            return WriteResult.UNCHANGED;
+        }
+        WriteResult result = appointments.update(appointment.getAppointmentId(), ChangeTracking.stampUpdate(updateDoc));
+        if (result == WriteResult.APPLIED) {
+            appointment.markClean();
+        }
+        return result;
+    }
+
+    @Override
+    public Appointment updateAppointmentDetails(Appointment appointment) {
+        return appointments.updateAndGet(appointment.getAppointmentId(),
+                ChangeTracking.stampUpdate(AppointmentDAO.detailsUpdate(appointment)), Appointment.class);
+    }
+
+    // Holding the collection's lock makes reading the half of the start a patch keeps and
+    // writing startAt from it one step; see AppointmentDAO.patchAppointment
+    @Override
+    public Appointment patchAppointment(Appointment patch) {
+        ChangeSet.require(patch.getChanges());
+        synchronized (appointments) {
+            Appointment current = null;
+            if (AppointmentDAO.keptStartField(patch) != null) {
+                current = getAppointmentById(patch.getAppointmentId());
+                if (current == null) {
+                    return null;
+                }
+            }
+            return appointments.updateAndGet(patch.getAppointmentId(),
+                    ChangeTracking.stampUpdate(AppointmentDAO.patchUpdate(patch, current)), Appointment.class);
+        }
+    }
+
+    @Override
+    public WriteResult markAppointmentCompleted(String appointmentId) {
+        return appointments.updateState(appointmentId,
+                ChangeTracking.stampUpdate(new Document("$set", new Document("completed", true))));
+    }
+
+    @Override
+    public WriteResult deleteAppointment(String appointmentId) {
+        return appointments.delete(appointmentId);
+    }
+
+    @Override
+    public BulkWriteSummary bulkInsertAppointments(List<Appointment> list, boolean ordered) {
+        List<Document> documents = new ArrayList<>();
+        for (Appointment appointment : list) {
+            documents.add(ChangeTracking.stampInsert(AppointmentDAO.toDocument(appointment)));
+        }
+        return appointments.bulkInsert(documents, ids(list), ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkUpsertAppointments(List<Appointment> list, boolean ordered) {
+        List<Document> updates = new ArrayList<>();
+        for (Appointment appointment : list) {
+            updates.add(ChangeTracking.stampUpdate(AppointmentDAO.upsertDocument(appointment)));
+        }
+        return appointments.bulkUpsert(updates, ids(list), ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteAppointments(List<String> appointmentIds, boolean ordered) {
+        return appointments.bulkDelete(appointmentIds, ordered);
+    }
+
+    @Override
+    public boolean appointmentExists(String appointmentId) {
+        return appointments.exists(appointmentId);
+    }
+
+    private static List<String> ids(List<Appointment> list) {
+        List<String> ids = new ArrayList<>();
+        for (Appointment appointment : list) {
+            ids.add(appointment.getAppointmentId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Bills kept in this JVM, indexed by patient; see InMemoryPatientStore
+class InMemoryBillStore implements BillStore {
+
+    private final InMemoryCollection bills = new InMemoryCollection("billId", "patientId")
+            .withVersions(CollectionVersions.forCollection("bills"));
+
+    @Override
+    public WriteResult insertBill(Bill bill) {
+        WriteResult result = bills.insert(ChangeTracking.stampInsert(BillDAO.toDocument(bill)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("Bill with ID " + bill.getBillId() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public Bill getBillById(String billId) {
+        return bills.get(billId, Bill.class);
+    }
+
+    @Override
+    public List<Bill> getAllBills() {
+        return bills.findAll(Bill.class);
+    }
+
+    @Override
+    public Page<Bill> getBillsPage(ListQuery query) {
+        return getBillsPage(query, RecordFilter.NONE);
+    }
+
+    @Override
+    public Page<Bill> getBillsPage(ListQuery query, RecordFilter filter) {
+        return bills.page(query, filter, Bill.class);
+    }
+
+    @Override
+    public Page<Document> getBillFieldsPage(ListQuery query, RecordFilter filter) {
+        return bills.fieldsPage(query, filter);
+    }
+
+    @Override
+    public RecordCursor<Bill> streamBills() {
+        return streamBills(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Bill> streamBills(RecordFilter filter) {
+        return bills.stream(filter, Bill.class);
+    }
+
+    @Override
+    public RecordCursor<Document> streamBillFields(RecordFilter filter) {
+        return bills.streamFields(filter);
+    }
+
+    @Override
+    public List<Bill> getBillsByPatientId(String patientId) {
+        return bills.findBy("patientId", patientId, Bill.class);
+    }
+
+    @Override
+    public WriteResult updateBill(Bill bill) {
+        Document updateDoc = BillDAO.updateDocument(bill);
+        if (updateDoc.isEmpty()) {
+            return WriteResult.UNCHANGED;
+        }
+        WriteResult result = bills.update(bill.getBillId(), ChangeTracking.stampUpdate(updateDoc));
+        if (result == WriteResult.APPLIED) {
+            bill.markClean();
+        }
+        return result;
+    }
+
+    @Override
+    public Bill updateBillDetails(Bill bill) {
+        return bills.updateAndGet(bill.getBillId(),
+                ChangeTracking.stampUpdate(BillDAO.detailsUpdate(bill)), Bill.class);
+    }
+
+    @Override
+    public Bill patchBill(Bill patch) {
+        return bills.updateAndGet(patch.getBillId(),
+                ChangeTracking.stampUpdate(ChangeSet.require(patch.getChanges()).toUpdate()), Bill.class);
+    }
+
+    @Override
+    public WriteResult markBillPaid(String billId) {
+        return bills.updateState(billId,
+                ChangeTracking.stampUpdate(new Document("$set", new Document("paid", true))));
+    }
+
+    @Override
+    public WriteResult deleteBill(String billId) {
+        return bills.delete(billId);
+    }
+
+    @Override
+    public BulkWriteSummary bulkInsertBills(List<Bill> list, boolean ordered) {
+        List<Document> documents = new ArrayList<>();
+        for (Bill bill : list) {
+            documents.add(ChangeTracking.stampInsert(BillDAO.toDocument(bill)));
+        }
+        return bills.bulkInsert(documents, ids(list), ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkUpsertBills(List<Bill> list, boolean ordered) {
+        List<Document> updates = new ArrayList<>();
+        for (Bill bill : list) {
+            updates.add(ChangeTracking.stampUpdate(BillDAO.upsertDocument(bill)));
+        }
+        return bills.bulkUpsert(updates, ids(list), ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteBills(List<String> billIds, boolean ordered) {
+        return bills.bulkDelete(billIds, ordered);
+    }
+
+    @Override
+    public boolean billExists(String billId) {
+        return bills.exists(billId);
+    }
+
+    private static List<String> ids(List<Bill> list) {
+        List<String> ids = new ArrayList<>();
+        for (Bill bill : list) {
+            ids.add(bill.getBillId());
+        }
+        return ids;
+    }
+}
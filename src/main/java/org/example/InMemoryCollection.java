@@ -0,0 +1,689 @@
+package org.example;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+// The embedded storage engine behind the in-memory stores: one collection of documents
+// ordered by its unique business key, with hash indexes on the fields the stores look up by
+// and ordered range indexes on (field, date) pairs, like MongoDB compound indexes.
+//
+// Writes take the collection's lock, build a new document and swap it in; a stored document is
+// never changed in place, so reads need no lock and always see a whole version of a record.
+// Documents are copied on the way in and out, and the update documents are the same ones the
+// DAOs send to MongoDB, applied here with the same semantics for the operators they use.
+final class InMemoryCollection {
+
+    private final String keyField;
+    private final ConcurrentSkipListMap<String, Document> documents = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Object, Set<String>>> indexes = new ConcurrentHashMap<>();
+    private final List<RangeIndex> rangeIndexes = new ArrayList<>();
+    private CollectionVersions versions;
+
+    InMemoryCollection(String keyField, String... indexedFields) {
+        this.keyField = keyField;
+        for (String field : indexedFields) {
+            indexes.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Documents ordered by groupField, then by the Date in rangeField, then by key; groupField
+    // null orders the whole collection by the date. Documents without a date are left out.
+    // Must be declared before documents are added.
+    InMemoryCollection withRangeIndex(String groupField, String rangeField) {
+        if (!documents.isEmpty()) {
+            throw new IllegalStateException("Indexes must be declared on an empty collection");
+        }
+        rangeIndexes.add(new RangeIndex(groupField, rangeField));
+        return this;
+    }
+
+    // Versions moved after every change, for the ETags of the REST API
+    InMemoryCollection withVersions(CollectionVersions versions) {
+        this.versions = versions;
+        return this;
+    }
+
+    private static final class RangeEntry implements Comparable<RangeEntry> {
+        final String group;
+        final long time;
+        final String key;
+
+        RangeEntry(String group, long time, String key) {
+            this.group = group;
+            this.time = time;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(RangeEntry other) {
+            int byGroup = group.compareTo(other.group);
+            if (byGroup != 0) {
+                return byGroup;
+            }
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : key.compareTo(other.key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RangeEntry && compareTo((RangeEntry) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, time, key);
+        }
+    }
+
+    private static final class RangeIndex {
+        final String groupField;
+        final String rangeField;
+        final ConcurrentSkipListSet<RangeEntry> entries = new ConcurrentSkipListSet<>();
+
+        RangeIndex(String groupField, String rangeField) {
+            this.groupField = groupField;
+            this.rangeField = rangeField;
+        }
+
+        boolean serves(String group, String range) {
+            return Objects.equals(groupField, group) && rangeField.equals(range);
+        }
+
+        // null when the document has no date to be ordered by
+        RangeEntry entryOf(String key, Document document) {
+            if (document == null || !(document.get(rangeField) instanceof Date)) {
+                return null;
+            }
+            return new RangeEntry(groupOf(document), ((Date) document.get(rangeField)).getTime(), key);
+        }
+
+        String groupOf(Document document) {
+            return groupField == null ? "" : String.valueOf(document.get(groupField));
+        }
+    }
+
+    String getKeyField() {
+        return keyField;
+    }
+
+    // DUPLICATE when a document with the same key exists, as with a unique index
+    synchronized WriteResult insert(Document document) {
+        String key = document.getString(keyField);
+        if (key == null) {
+            throw new IllegalArgumentException(keyField + " is required");
+        }
+        if (documents.containsKey(key)) {
+            return WriteResult.DUPLICATE;
+        }
+        store(key, null, copy(document));
+        return WriteResult.APPLIED;
+    }
+
+    // APPLIED whenever the document exists, like WriteResult.ofUpdate
+    WriteResult update(String key, Document update) {
+        WriteResult result = updateState(key, update);
+        return result == WriteResult.UNCHANGED ? WriteResult.APPLIED : result;
+    }
+
+    // UNCHANGED when the update leaves every field but lastModified as it was, like
+    // WriteResult.ofStateChange; the document is then left alone
+    synchronized WriteResult updateState(String key, Document update) {
+        Document current = documents.get(key);
+        if (current == null) {
+            return WriteResult.NOT_FOUND;
+        }
+        Document updated = apply(current, update, false);
+        if (sameContent(current, updated)) {
+            return WriteResult.UNCHANGED;
+        }
+        store(key, current, updated);
+        return WriteResult.APPLIED;
+    }
+
+    // The document after the update, or null if there is none (findOneAndUpdate with AFTER)
+    synchronized Document updateAndGet(String key, Document update) {
+        Document current = documents.get(key);
+        if (current == null) {
+            return null;
+        }
+        Document updated = apply(current, update, false);
+        store(key, current, updated);
+        return copy(updated);
+    }
+
+    // Creates the document from the key, $set and $setOnInsert when it does not exist; returns
+    // true if it was created
+    synchronized boolean upsert(String key, Document update) {
+        Document current = documents.get(key);
+        Document base = current != null ? current : new Document(keyField, key);
+        Document updated = apply(base, update, current == null);
+        store(key, current, updated);
+        return current == null;
+    }
+
+    // Stores the document as given, replacing any with the same key; returns true if it was created
+    synchronized boolean replace(Document document) {
+        String key = document.getString(keyField);
+        Document current = documents.get(key);
+        store(key, current, copy(document));
+        return current == null;
+    }
+
+    synchronized WriteResult delete(String key) {
+        Document removed = documents.remove(key);
+        if (removed == null) {
+            return WriteResult.NOT_FOUND;
+        }
+        unindex(key, removed);
+        changed(key);
+        return WriteResult.APPLIED;
+    }
+
+    synchronized long deleteAll() {
+        long count = documents.size();
+        documents.clear();
+        for (Map<Object, Set<String>> index : indexes.values()) {
+            index.clear();
+        }
+        for (RangeIndex index : rangeIndexes) {
+            index.entries.clear();
+        }
+        if (versions != null) {
+            versions.changedAll();
+        }
+        return count;
+    }
+
+    Document get(String key) {
+        Document document = documents.get(key);
+        return document != null ? copy(document) : null;
+    }
+
+    boolean exists(String key) {
+        return documents.containsKey(key);
+    }
+
+    long count() {
+        return documents.size();
+    }
+
+    // Documents whose field equals value, in key order; served from the index when there is one
+    List<Document> findBy(String field, Object value) {
+        List<Document> result = new ArrayList<>();
+        Map<Object, Set<String>> index = indexes.get(field);
+        if (index == null) {
+            for (Document document : documents.values()) {
+                if (Objects.equals(document.get(field), value)) {
+                    result.add(copy(document));
+                }
+            }
+            return result;
+        }
+        Set<String> keys = index.get(value);
+        if (keys == null) {
+            return result;
+        }
+        for (String key : new TreeSet<>(keys)) {
+            Document document = documents.get(key);
+            // The index may briefly lag a concurrent write, so the value is checked again
+            if (document != null && Objects.equals(document.get(field), value)) {
+                result.add(copy(document));
+            }
+        }
+        return result;
+    }
+
+    // Documents whose groupField equals groupValue (ignored when groupField is null) and whose
+    // rangeField date is in [from, to), in date order; served from the range index when there
+    // is one, as a scan of just that slice of it
+    List<Document> findRange(String groupField, Object groupValue, String rangeField, Date from, Date to) {
+        List<Document> result = new ArrayList<>();
+        RangeIndex index = null;
+        for (RangeIndex candidate : rangeIndexes) {
+            if (candidate.serves(groupField, rangeField)) {
+                index = candidate;
+            }
+        }
+        if (index == null) {
+            List<Document> matches = new ArrayList<>();
+            for (Document document : documents.values()) {
+                if (inRange(document, groupField, groupValue, rangeField, from, to)) {
+                    matches.add(copy(document));
+                }
+            }
+            matches.sort((a, b) -> a.getDate(rangeField).compareTo(b.getDate(rangeField)));
+            return matches;
+        }
+        String group = groupField == null ? "" : String.valueOf(groupValue);
+        for (RangeEntry entry : index.entries.subSet(new RangeEntry(group, from.getTime(), ""), true,
+                new RangeEntry(group, to.getTime(), ""), false)) {
+            Document document = documents.get(entry.key);
+            // The index may briefly lag a concurrent write, so the values are checked again
+            if (document != null && inRange(document, groupField, groupValue, rangeField, from, to)) {
+                result.add(copy(document));
+            }
+        }
+        return result;
+    }
+
+    private static boolean inRange(Document document, String groupField, Object groupValue, String rangeField,
+                                   Date from, Date to) {
+        if (groupField != null && !Objects.equals(document.get(groupField), groupValue)) {
+            return false;
+        }
+        Object value = document.get(rangeField);
+        return value instanceof Date && !((Date) value).before(from) && ((Date) value).before(to);
+    }
+
+    List<Document> findAll() {
+        List<Document> result = new ArrayList<>(documents.size());
+        for (Document document : documents.values()) {
+            result.add(copy(document));
+        }
+        return result;
+    }
+
+    <T> T get(String key, Class<T> type) {
+        return decode(documents.get(key), type);
+    }
+
+    <T> T updateAndGet(String key, Document update, Class<T> type) {
+        return decode(updateAndGet(key, update), type);
+    }
+
+    <T> List<T> findBy(String field, Object value, Class<T> type) {
+        return decodeAll(findBy(field, value), type);
+    }
+
+    <T> List<T> findRange(String groupField, Object groupValue, String rangeField, Date from, Date to, Class<T> type) {
+        return decodeAll(findRange(groupField, groupValue, rangeField, from, to), type);
+    }
+
+    <T> List<T> findAll(Class<T> type) {
+        return decodeAll(findAll(), type);
+    }
+
+    // Whole records; a projection on the filter is ignored, as in KeysetQueries
+    <T> Page<T> page(ListQuery query, RecordFilter filter, Class<T> type) {
+        Page<Document> page = page(query, filter, false);
+        return new Page<>(decodeAll(page.getItems(), type), page.getNextCursor());
+    }
+
+    Page<Document> fieldsPage(ListQuery query, RecordFilter filter) {
+        return page(query, filter, true);
+    }
+
+    <T> RecordCursor<T> stream(RecordFilter filter, Class<T> type) {
+        return cursor(iterate(null, filter, false), document -> decode(document, type));
+    }
+
+    RecordCursor<Document> streamFields(RecordFilter filter) {
+        return cursor(iterate(null, filter, true), document -> document);
+    }
+
+    private static <T> RecordCursor<T> cursor(Iterator<Document> documents, Function<Document, T> mapper) {
+        return new RecordCursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return documents.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return mapper.apply(documents.next());
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // Keyset page over the documents after the query's key that match the filter, projected if
+    // asked to. Reads one extra match to detect the next page.
+    private Page<Document> page(ListQuery query, RecordFilter filter, boolean projected) {
+        List<Document> items = new ArrayList<>();
+        Iterator<Document> matches = iterate(query.getAfterKey(), filter, projected);
+        while (matches.hasNext() && items.size() <= query.getLimit()) {
+            items.add(matches.next());
+        }
+        String nextCursor = null;
+        if (items.size() > query.getLimit()) {
+            items.remove(items.size() - 1);
+            nextCursor = ListQuery.encodeCursor(items.get(items.size() - 1).getString(keyField));
+        }
+        return new Page<>(items, nextCursor);
+    }
+
+    // Lazily walks the matching documents in key order, like a server cursor
+    private Iterator<Document> iterate(String afterKey, RecordFilter filter, boolean projected) {
+        NavigableMap<String, Document> range = afterKey == null ? documents : documents.tailMap(afterKey, false);
+        Iterator<Document> stored = range.values().iterator();
+        return new Iterator<Document>() {
+            private Document next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && stored.hasNext()) {
+                    Document candidate = stored.next();
+                    if (filter.matches(candidate)) {
+                        next = projected && filter.hasProjection() ? copy(filter.project(candidate)) : copy(candidate);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    // Bulk writes run item by item; an ordered one stops at the first failure and reports the
+    // rest as skipped, as a MongoDB bulkWrite does
+    BulkWriteSummary bulkInsert(List<Document> documents, List<String> ids, boolean ordered) {
+        BulkWriteSummary summary = new BulkWriteSummary("insert", ordered, ids);
+        int inserted = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            WriteResult result = insert(documents.get(i));
+            if (result == WriteResult.APPLIED) {
+                inserted++;
+            } else {
+                summary.markFailed(i, BulkWriteSummary.ItemStatus.DUPLICATE, "Duplicate key: " + ids.get(i));
+                if (ordered) {
+                    skipRest(summary, i + 1, ids.size());
+                    break;
+                }
+            }
+        }
+        summary.setCounts(inserted, 0, 0, 0, 0);
+        return summary;
+    }
+
+    BulkWriteSummary bulkUpsert(List<Document> updates, List<String> ids, boolean ordered) {
+        BulkWriteSummary summary = new BulkWriteSummary("upsert", ordered, ids);
+        int upserted = 0;
+        int matched = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            if (upsert(ids.get(i), updates.get(i))) {
+                summary.markCreated(i);
+                upserted++;
+            } else {
+                matched++;
+            }
+        }
+        summary.setCounts(0, upserted, matched, matched, 0);
+        return summary;
+    }
+
+    BulkWriteSummary bulkReplace(List<Document> documents, List<String> ids, boolean ordered) {
+        BulkWriteSummary summary = new BulkWriteSummary("upsert", ordered, ids);
+        int upserted = 0;
+        int matched = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            if (replace(documents.get(i))) {
+                summary.markCreated(i);
+                upserted++;
+            } else {
+                matched++;
+            }
+        }
+        summary.setCounts(0, upserted, matched, matched, 0);
+        return summary;
+    }
+
+    // A delete of a missing key is not an error, matching deleteOne in a bulkWrite, but the
+    // item is reported NOT_FOUND
+    BulkWriteSummary bulkDelete(List<String> ids, boolean ordered) {
+        BulkWriteSummary summary = new BulkWriteSummary("delete", ordered, ids);
+        int deleted = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (delete(ids.get(i)) == WriteResult.APPLIED) {
+                deleted++;
+            } else {
+                summary.markNotFound(i);
+            }
+        }
+        summary.setCounts(0, 0, 0, 0, deleted);
+        return summary;
+    }
+
+    private static void skipRest(BulkWriteSummary summary, int from, int size) {
+        for (int i = from; i < size; i++) {
+            summary.markFailed(i, BulkWriteSummary.ItemStatus.SKIPPED, null);
+        }
+    }
+
+    // Callers hold the lock; only index entries whose value changed are touched
+    private void store(String key, Document previous, Document document) {
+        documents.put(key, document);
+        for (Map.Entry<String, Map<Object, Set<String>>> index : indexes.entrySet()) {
+            Object before = previous != null ? previous.get(index.getKey()) : null;
+            Object after = document.get(index.getKey());
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (after != null) {
+                index.getValue().computeIfAbsent(after, v -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            if (before != null) {
+                removeFromIndex(index.getValue(), before, key);
+            }
+        }
+        for (RangeIndex index : rangeIndexes) {
+            RangeEntry before = index.entryOf(key, previous);
+            RangeEntry after = index.entryOf(key, document);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (after != null) {
+                index.entries.add(after);
+            }
+            if (before != null) {
+                index.entries.remove(before);
+            }
+        }
+        changed(key);
+    }
+
+    private void changed(String key) {
+        if (versions != null) {
+            versions.changed(key);
+        }
+    }
+
+    private void unindex(String key, Document document) {
+        for (Map.Entry<String, Map<Object, Set<String>>> index : indexes.entrySet()) {
+            Object value = document.get(index.getKey());
+            if (value != null) {
+                removeFromIndex(index.getValue(), value, key);
+            }
+        }
+        for (RangeIndex index : rangeIndexes) {
+            RangeEntry entry = index.entryOf(key, document);
+            if (entry != null) {
+                index.entries.remove(entry);
+            }
+        }
+    }
+
+    private static void removeFromIndex(Map<Object, Set<String>> index, Object value, String key) {
+        Set<String> keys = index.get(value);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    // Applies an update document to a copy of the stored one. Throws IllegalArgumentException
+    // for operators the DAOs never send.
+    static Document apply(Document stored, Document update, boolean inserting) {
+        Document result = copy(stored);
+        for (Map.Entry<String, Object> operator : update.entrySet()) {
+            Document fields = (Document) operator.getValue();
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                String name = field.getKey();
+                Object value = field.getValue();
+                switch (operator.getKey()) {
+                    case "$set":
+                        result.put(name, copyValue(value));
+                        break;
+                    case "$setOnInsert":
+                        if (inserting) {
+                            result.put(name, copyValue(value));
+                        }
+                        break;
+                    case "$unset":
+                        result.remove(name);
+                        break;
+                    case "$currentDate":
+                        result.put(name, new Date());
+                        break;
+                    case "$push":
+                        list(result, name).addAll(eachOf(value));
+                        break;
+                    case "$addToSet":
+                        List<Object> set = list(result, name);
+                        for (Object element : eachOf(value)) {
+                            if (!set.contains(element)) {
+                                set.add(element);
+                            }
+                        }
+                        break;
+                    case "$pull":
+                        list(result, name).removeIf(element -> pullMatches(element, value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported update operator: " + operator.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Document document, String field) {
+        Object value = document.get(field);
+        if (value == null) {
+            List<Object> created = new ArrayList<>();
+            document.put(field, created);
+            return created;
+        }
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(field + " is not an array");
+        }
+        return (List<Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> eachOf(Object value) {
+        if (value instanceof Document && ((Document) value).containsKey("$each")) {
+            List<Object> each = new ArrayList<>();
+            for (Object element : (List<Object>) ((Document) value).get("$each")) {
+                each.add(copyValue(element));
+            }
+            return each;
+        }
+        return Collections.singletonList(copyValue(value));
+    }
+
+    // A value, {$in: [...]}, or {subField: value-or-$in} for arrays of documents
+    @SuppressWarnings("unchecked")
+    private static boolean pullMatches(Object element, Object condition) {
+        if (!(condition instanceof Document)) {
+            return Objects.equals(element, condition);
+        }
+        Document match = (Document) condition;
+        if (match.containsKey("$in")) {
+            return ((List<Object>) match.get("$in")).contains(element);
+        }
+        if (!(element instanceof Document)) {
+            return false;
+        }
+        for (Map.Entry<String, Object> field : match.entrySet()) {
+            if (!pullMatches(((Document) element).get(field.getKey()), field.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameContent(Document a, Document b) {
+        Document left = new Document(a);
+        Document right = new Document(b);
+        left.remove(ChangeTracking.LAST_MODIFIED);
+        right.remove(ChangeTracking.LAST_MODIFIED);
+        return left.equals(right);
+    }
+
+    static Document copy(Document document) {
+        Document copy = new Document();
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            copy.put(field.getKey(), copyValue(field.getValue()));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Document) {
+            return copy((Document) value);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<?>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        return value;
+    }
+
+    // Decodes with the same codecs as the typed MongoDB collections, so the objects come back
+    // exactly as a DAO would return them, change tracking included
+    static <T> T decode(Document document, Class<T> type) {
+        if (document == null) {
+            return null;
+        }
+        Codec<T> codec = DatabaseConnection.CODEC_REGISTRY.get(type);
+        BsonDocument bson = document.toBsonDocument(Document.class, DatabaseConnection.CODEC_REGISTRY);
+        return codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    private static <T> List<T> decodeAll(List<Document> documents, Class<T> type) {
+        List<T> result = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            result.add(decode(document, type));
+        }
+        return result;
+    }
+}
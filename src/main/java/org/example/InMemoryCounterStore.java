@@ -0,0 +1,25 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counters for offline mode and tests; unique within this JVM only
+class InMemoryCounterStore implements CounterStore {
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public long reserve(IdFormat format, int count) {
+        return counter(format).addAndGet(count);
+    }
+
+    @Override
+    public void advanceTo(IdFormat format, long value) {
+        counter(format).accumulateAndGet(value, Math::max);
+    }
+
+    private AtomicLong counter(IdFormat format) {
+        return counters.computeIfAbsent(format.getIdField(), k -> new AtomicLong());
+    }
+}
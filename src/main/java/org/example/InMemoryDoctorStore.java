@@ -0,0 +1,123 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Doctors kept in this JVM; see InMemoryPatientStore
+class InMemoryDoctorStore implements DoctorStore {
+
+    private final InMemoryCollection doctors = new InMemoryCollection("doctorId", "specialization")
+            .withVersions(CollectionVersions.forCollection("doctors"));
+
+    @Override
+    public WriteResult insertDoctor(Doctor doctor) {
+        WriteResult result = doctors.insert(ChangeTracking.stampInsert(DoctorDAO.toDocument(doctor)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("Doctor with ID " + doctor.getDoctorId() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public Doctor getDoctorById(String doctorId) {
+        return doctors.get(doctorId, Doctor.class);
+    }
+
+    @Override
+    public List<Doctor> getAllDoctors() {
+        return doctors.findAll(Doctor.class);
+    }
+
+    @Override
+    public Page<Doctor> getDoctorsPage(ListQuery query) {
+        return getDoctorsPage(query, RecordFilter.NONE);
+    }
+
+    @Override
+    public Page<Doctor> getDoctorsPage(ListQuery query, RecordFilter filter) {
+        return doctors.page(query, filter, Doctor.class);
+    }
+
+    @Override
+    public Page<Document> getDoctorFieldsPage(ListQuery query, RecordFilter filter) {
+        return doctors.fieldsPage(query, filter);
+    }
+
+    @Override
+    public RecordCursor<Doctor> streamDoctors() {
+        return streamDoctors(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Doctor> streamDoctors(RecordFilter filter) {
+        return doctors.stream(filter, Doctor.class);
+    }
+
+    @Override
+    public RecordCursor<Document> streamDoctorFields(RecordFilter filter) {
+        return doctors.streamFields(filter);
+    }
+
+    @Override
+    public WriteResult updateDoctor(Doctor doctor) {
+        Document updateDoc = DoctorDAO.updateDocument(doctor);
+        if (updateDoc.isEmpty()) {
+            return WriteResult.UNCHANGED;
+        }
+        WriteResult result = doctors.update(doctor.getDoctorId(), ChangeTracking.stampUpdate(updateDoc));
+        if (result == WriteResult.APPLIED) {
+            doctor.markClean();
+        }
+        return result;
+    }
+
+    @Override
+    public Doctor patchDoctor(Doctor patch) {
+        return doctors.updateAndGet(patch.getDoctorId(),
+                ChangeTracking.stampUpdate(ChangeSet.require(patch.getChanges()).toUpdate()), Doctor.class);
+    }
+
+    @Override
+    public WriteResult deleteDoctor(String doctorId) {
+        return doctors.delete(doctorId);
+    }
+
+    @Override
+    public BulkWriteSummary bulkInsertDoctors(List<Doctor> list, boolean ordered) {
+        return doctors.bulkInsert(documents(list), ids(list), ordered);
+    }
+
+    // Replaces whole doctors, as DoctorDAO's ReplaceOneModel upserts do
+    @Override
+    public BulkWriteSummary bulkUpsertDoctors(List<Doctor> list, boolean ordered) {
+        return doctors.bulkReplace(documents(list), ids(list), ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeleteDoctors(List<String> doctorIds, boolean ordered) {
+        return doctors.bulkDelete(doctorIds, ordered);
+    }
+
+    @Override
+    public boolean doctorExists(String doctorId) {
+        return doctors.exists(doctorId);
+    }
+
+    private static List<Document> documents(List<Doctor> list) {
+        List<Document> documents = new ArrayList<>();
+        for (Doctor doctor : list) {
+            documents.add(ChangeTracking.stampInsert(DoctorDAO.toDocument(doctor)));
+        }
+        return documents;
+    }
+
+    private static List<String> ids(List<Doctor> list) {
+        List<String> ids = new ArrayList<>();
+        for (Doctor doctor : list) {
+            ids.add(doctor.getDoctorId());
+        }
+        return ids;
+    }
+}
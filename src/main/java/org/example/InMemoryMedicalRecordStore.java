@@ -0,0 +1,111 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Medical records kept in this JVM, indexed by patient; see InMemoryPatientStore. Histories
+// are small, so the visit order MedicalRecordDAO gets from its compound index is a sort here.
+class InMemoryMedicalRecordStore implements MedicalRecordStore {
+
+    private static final char CURSOR_SEPARATOR = '|';
+    private static final Comparator<Document> VISIT_ORDER = Comparator
+            .comparing((Document doc) -> doc.getString("visitDate"), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(doc -> doc.getString("recordId"));
+
+    private final InMemoryCollection records = new InMemoryCollection("recordId", "patientId")
+            .withRangeIndex("patientId", TemporalFields.VISIT);
+
+    @Override
+    public WriteResult insertRecord(MedicalRecord record) {
+        WriteResult result = records.insert(ChangeTracking.stampInsert(MedicalRecordDAO.toDocument(record)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("Medical record with ID " + record.getRecordId() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public BulkWriteSummary bulkInsertRecords(List<MedicalRecord> list) {
+        List<Document> documents = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (MedicalRecord record : list) {
+            documents.add(ChangeTracking.stampInsert(MedicalRecordDAO.toDocument(record)));
+            ids.add(record.getRecordId());
+        }
+        return records.bulkInsert(documents, ids, false);
+    }
+
+    @Override
+    public List<MedicalRecord> getRecordsForPatient(String patientId) {
+        List<MedicalRecord> history = new ArrayList<>();
+        for (Document doc : history(patientId)) {
+            history.add(InMemoryCollection.decode(doc, MedicalRecord.class));
+        }
+        return history;
+    }
+
+    @Override
+    public Map<String, List<MedicalRecord>> getRecordsForPatients(Collection<String> patientIds) {
+        Map<String, List<MedicalRecord>> histories = new HashMap<>();
+        for (String patientId : patientIds) {
+            histories.put(patientId, getRecordsForPatient(patientId));
+        }
+        return histories;
+    }
+
+    @Override
+    public Page<MedicalRecord> getRecordsPage(String patientId, ListQuery query) {
+        List<Document> newestFirst = history(patientId);
+        newestFirst.sort(VISIT_ORDER.reversed());
+        String afterKey = query.getAfterKey();
+        Document after = null;
+        if (afterKey != null) {
+            int separator = afterKey.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            after = new Document("visitDate", afterKey.substring(0, separator))
+                    .append("recordId", afterKey.substring(separator + 1));
+        }
+
+        List<MedicalRecord> page = new ArrayList<>();
+        String nextCursor = null;
+        for (Document doc : newestFirst) {
+            if (after != null && VISIT_ORDER.compare(doc, after) >= 0) {
+                continue;
+            }
+            if (page.size() == query.getLimit()) {
+                MedicalRecord last = page.get(page.size() - 1);
+                nextCursor = ListQuery.encodeCursor(last.getVisitDate() + CURSOR_SEPARATOR + last.getRecordId());
+                break;
+            }
+            page.add(InMemoryCollection.decode(doc, MedicalRecord.class));
+        }
+        return new Page<>(page, nextCursor);
+    }
+
+    @Override
+    public List<MedicalRecord> getRecordsBetween(String patientId, LocalDateTime from, LocalDateTime to) {
+        return records.findRange("patientId", patientId, TemporalFields.VISIT,
+                TemporalFields.toDate(from), TemporalFields.toDate(to), MedicalRecord.class);
+    }
+
+    @Override
+    public long getRecordCount(String patientId) {
+        return records.findBy("patientId", patientId).size();
+    }
+
+    // Oldest visit first
+    private List<Document> history(String patientId) {
+        List<Document> history = records.findBy("patientId", patientId);
+        history.sort(VISIT_ORDER);
+        return history;
+    }
+}
@@ -0,0 +1,176 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Patients kept in this JVM, for offline mode, tests and load runs. Writes apply the same
+// update documents PatientDAO sends to MongoDB, so both backends treat an edit alike.
+class InMemoryPatientStore implements PatientStore {
+
+    private final InMemoryCollection patients = new InMemoryCollection("patientId", "name", "phone")
+            .withVersions(CollectionVersions.forCollection("patients"));
+
+    @Override
+    public WriteResult insertPatient(Patient patient) {
+        WriteResult result = patients.insert(ChangeTracking.stampInsert(PatientDAO.toDocument(patient)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("Patient with ID " + patient.getPatientId() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public Patient getPatientById(String patientId) {
+        return patients.get(patientId, Patient.class);
+    }
+
+    @Override
+    public List<Patient> getAllPatients() {
+        return patients.findAll(Patient.class);
+    }
+
+    @Override
+    public List<PatientSummary> getPatientSummaries() {
+        List<PatientSummary> summaries = new ArrayList<>();
+        for (Document doc : patients.findAll()) {
+            summaries.add(PatientSummary.fromDocument(doc));
+        }
+        return summaries;
+    }
+
+    @Override
+    public List<Patient> getAllPatientsWithoutClinicalData() {
+        List<Patient> result = new ArrayList<>();
+        for (Patient patient : patients.findAll(Patient.class)) {
+            patient.setClinicalData(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            patient.deferClinicalData();
+            patient.markClean();
+            result.add(patient);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean loadClinicalData(Collection<Patient> toLoad) {
+        for (Patient patient : toLoad) {
+            if (!patient.isClinicalDataDeferred()) {
+                continue;
+            }
+            Patient loaded = patients.get(patient.getPatientId(), Patient.class);
+            if (loaded != null) {
+                patient.setClinicalData(loaded.getAllergies(), loaded.getMedications(), loaded.getMedicalHistory());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Page<Patient> getPatientsPage(ListQuery query) {
+        return getPatientsPage(query, RecordFilter.NONE);
+    }
+
+    @Override
+    public Page<Patient> getPatientsPage(ListQuery query, RecordFilter filter) {
+        return patients.page(query, filter, Patient.class);
+    }
+
+    @Override
+    public Page<Document> getPatientFieldsPage(ListQuery query, RecordFilter filter) {
+        return patients.fieldsPage(query, filter);
+    }
+
+    @Override
+    public RecordCursor<Patient> streamPatients() {
+        return streamPatients(RecordFilter.NONE);
+    }
+
+    @Override
+    public RecordCursor<Patient> streamPatients(RecordFilter filter) {
+        return patients.stream(filter, Patient.class);
+    }
+
+    @Override
+    public RecordCursor<Document> streamPatientFields(RecordFilter filter) {
+        return patients.streamFields(filter);
+    }
+
+    @Override
+    public WriteResult updatePatient(Patient patient) {
+        try {
+            Document updateDoc = PatientDAO.updateDocument(patient);
+            if (updateDoc.isEmpty()) {
+                return WriteResult.UNCHANGED;
+            }
+            WriteResult result = patients.update(patient.getPatientId(), ChangeTracking.stampUpdate(updateDoc));
+            if (result == WriteResult.APPLIED) {
+                patient.markClean();
+            }
+            return result;
+        } catch (Exception e) {
+            System.err.println("Error updating patient: " + e.getMessage());
+            return WriteResult.FAILED;
+        }
+    }
+
+    @Override
+    public Patient patchPatient(Patient patch) {
+        return patients.updateAndGet(patch.getPatientId(),
+                ChangeTracking.stampUpdate(PatientDAO.patchDocument(patch)), Patient.class);
+    }
+
+    @Override
+    public Patient updatePatientDetails(Patient patient) {
+        return patients.updateAndGet(patient.getPatientId(),
+                ChangeTracking.stampUpdate(PatientDAO.detailsUpdate(patient)), Patient.class);
+    }
+
+    @Override
+    public WriteResult deletePatient(String patientId) {
+        return patients.delete(patientId);
+    }
+
+    @Override
+    public long deleteAllPatients() {
+        return patients.deleteAll();
+    }
+
+    @Override
+    public long getPatientCount() {
+        return patients.count();
+    }
+
+    @Override
+    public BulkWriteSummary bulkInsertPatients(List<Patient> list, boolean ordered) {
+        List<Document> documents = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Patient patient : list) {
+            documents.add(ChangeTracking.stampInsert(PatientDAO.toDocument(patient)));
+            ids.add(patient.getPatientId());
+        }
+        return patients.bulkInsert(documents, ids, ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkUpsertPatients(List<Patient> list, boolean ordered) {
+        List<Document> updates = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Patient patient : list) {
+            updates.add(ChangeTracking.stampUpdate(PatientDAO.upsertDocument(patient)));
+            ids.add(patient.getPatientId());
+        }
+        return patients.bulkUpsert(updates, ids, ordered);
+    }
+
+    @Override
+    public BulkWriteSummary bulkDeletePatients(List<String> patientIds, boolean ordered) {
+        return patients.bulkDelete(patientIds, ordered);
+    }
+
+    @Override
+    public boolean patientExists(String patientId) {
+        return patients.exists(patientId);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Login accounts kept in this JVM; see InMemoryPatientStore
+class InMemoryUserStore implements UserStore {
+
+    private final InMemoryCollection users = new InMemoryCollection("username");
+
+    @Override
+    public WriteResult insertUser(User user) {
+        WriteResult result = users.insert(ChangeTracking.stampInsert(UserDAO.toDocument(user)));
+        if (result == WriteResult.DUPLICATE) {
+            System.err.println("User with username " + user.getUsername() + " already exists");
+        }
+        return result;
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return users.get(username, User.class);
+    }
+
+    @Override
+    public Map<String, User> getAllUsers() {
+        Map<String, User> result = new HashMap<>();
+        for (User user : users.findAll(User.class)) {
+            result.put(user.getUsername(), user);
+        }
+        return result;
+    }
+
+    @Override
+    public Page<User> getUsersPage(ListQuery query) {
+        return users.page(query, RecordFilter.NONE, User.class);
+    }
+
+    @Override
+    public RecordCursor<User> streamUsers() {
+        return users.stream(RecordFilter.NONE, User.class);
+    }
+
+    @Override
+    public WriteResult updateUser(User user) {
+        return users.update(user.getUsername(), ChangeTracking.stampUpdate(new Document("$set", new Document()
+                .append("password", user.getPassword())
+                .append("role", user.getRole().toString()))));
+    }
+
+    @Override
+    public WriteResult updateUserPassword(String username, String newPassword) {
+        return users.update(username, ChangeTracking.stampUpdate(new Document("$set", new Document("password", newPassword))));
+    }
+
+    @Override
+    public WriteResult deleteUser(String username) {
+        return users.delete(username);
+    }
+
+    @Override
+    public User authenticateUser(String username, String password) {
+        User user = getUserByUsername(username);
+        return user != null && password != null && password.equals(user.getPassword()) ? user : null;
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return users.exists(username);
+    }
+
+    @Override
+    public void initializeDefaultUsers() {
+        if (users.count() == 0) {
+            List<User> defaults = UserStore.defaultUsers();
+            for (User user : defaults) {
+                insertUser(user);
+            }
+        }
+    }
+}
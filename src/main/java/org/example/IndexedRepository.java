@@ -0,0 +1,210 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-memory store keyed by record ID with optional secondary indexes (e.g. appointments
+// by doctorId). Every index is updated on put/remove, so lookups are hash probes instead
+// of list scans and never need a rebuild. Iteration follows insertion order, matching the
+// ArrayLists this replaces. Guarded by a read-write lock so table loaders can read it off
+// the EDT while the EDT applies changes.
+class IndexedRepository<T> {
+
+    private final Function<T, String> idOf;
+    private final Map<String, T> byId = new LinkedHashMap<>();
+    private final Map<String, SecondaryIndex<T>> indexes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    IndexedRepository(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    // Registers a secondary index; must be called before records are added
+    IndexedRepository<T> withIndex(String name, Function<T, String> keyOf) {
+        if (!byId.isEmpty()) {
+            throw new IllegalStateException("Indexes must be declared on an empty repository");
+        }
+        indexes.put(name, new SecondaryIndex<>(keyOf));
+        return this;
+    }
+
+    // Inserts or replaces the record with the same ID, re-keying its index entries
+    void put(T record) {
+        lock.writeLock().lock();
+        try {
+            putLocked(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void putAll(Collection<T> records) {
+        lock.writeLock().lock();
+        try {
+            for (T record : records) {
+                putLocked(record);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(T record) {
+        String id = idOf.apply(record);
+        T previous = byId.put(id, record);
+        for (SecondaryIndex<T> index : indexes.values()) {
+            if (previous != null) {
+                index.remove(previous, id);
+            }
+            index.add(record, id);
+        }
+    }
+
+    T remove(String id) {
+        lock.writeLock().lock();
+        try {
+            T removed = byId.remove(id);
+            if (removed != null) {
+                for (SecondaryIndex<T> index : indexes.values()) {
+                    index.remove(removed, id);
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replaces the whole content, e.g. after a reload from the database
+    void replaceAll(Collection<T> records) {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            for (T record : records) {
+                putLocked(record);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearLocked() {
+        byId.clear();
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    T get(String id) {
+        if (id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean contains(String id) {
+        return get(id) != null;
+    }
+
+    // Records whose indexed field equals key, in insertion order
+    List<T> findBy(String indexName, String key) {
+        SecondaryIndex<T> index = indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("No index named " + indexName);
+        }
+        lock.readLock().lock();
+        try {
+            Set<String> ids = index.idsFor(key);
+            List<T> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                result.add(byId.get(id));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Snapshot copy; later changes are not reflected in the returned list
+    List<T> values() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(byId.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class SecondaryIndex<T> {
+        private final Function<T, String> keyOf;
+        private final Map<String, Set<String>> idsByKey = new HashMap<>();
+
+        SecondaryIndex(Function<T, String> keyOf) {
+            this.keyOf = keyOf;
+        }
+
+        void add(T record, String id) {
+            String key = keyOf.apply(record);
+            if (key != null) {
+                idsByKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(id);
+            }
+        }
+
+        void remove(T record, String id) {
+            String key = keyOf.apply(record);
+            Set<String> ids = key == null ? null : idsByKey.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByKey.remove(key);
+                }
+            }
+        }
+
+        Set<String> idsFor(String key) {
+            Set<String> ids = key == null ? null : idsByKey.get(key);
+            return ids == null ? Collections.emptySet() : ids;
+        }
+
+        void clear() {
+            idsByKey.clear();
+        }
+    }
+}
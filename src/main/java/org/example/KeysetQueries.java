@@ -0,0 +1,57 @@
+package org.example;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Filtered list reads shared by the DAOs, ordered by the collection's unique business key.
+// Works for typed collections and, with a projection, for raw Documents.
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    // Keyset pagination; reads one extra document to detect the next page. Errors propagate:
+    // a partial page without a next cursor would look like the last one.
+    static <T> Page<T> page(MongoCollection<T> collection, String keyField, ListQuery query,
+                            RecordFilter filter, Bson projection, Function<T, String> keyOf) {
+        List<T> items = new ArrayList<>();
+        String nextCursor = null;
+        Bson where = query.getAfterKey() == null
+                ? filter.toBson()
+                : filter.and(Filters.gt(keyField, query.getAfterKey()));
+        try (MongoCursor<T> cursor = find(collection, keyField, where, projection)
+                .limit(query.getLimit() + 1)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                items.add(cursor.next());
+            }
+        }
+
+        if (items.size() > query.getLimit()) {
+            items.remove(items.size() - 1);
+            nextCursor = ListQuery.encodeCursor(keyOf.apply(items.get(items.size() - 1)));
+        }
+        return new Page<>(items, nextCursor);
+    }
+
+    // Errors are not swallowed: the caller may already be writing the response
+    static <T> RecordCursor<T> stream(MongoCollection<T> collection, String keyField, RecordFilter filter,
+                                      Bson projection, int batchSize) {
+        return RecordCursor.over(find(collection, keyField, filter.toBson(), projection)
+                .batchSize(batchSize)
+                .iterator());
+    }
+
+    private static <T> FindIterable<T> find(MongoCollection<T> collection, String keyField, Bson where, Bson projection) {
+        FindIterable<T> find = collection.find(where).sort(Sorts.ascending(keyField));
+        return projection == null ? find : find.projection(projection);
+    }
+}
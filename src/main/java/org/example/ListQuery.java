@@ -0,0 +1,64 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Parameters for keyset-paginated list reads. Pages are ordered by the
+// collection's business key (patientId, doctorId, ...), which is backed by a
+// unique index, so each page is a range scan that never uses skip().
+public class ListQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String CURSOR_PREFIX = "k:";
+
+    private final String afterKey;
+    private final int limit;
+
+    public ListQuery(String afterKey, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.afterKey = afterKey;
+        this.limit = Math.min(limit, MAX_LIMIT);
+    }
+
+    public static ListQuery firstPage(int limit) {
+        return new ListQuery(null, limit);
+    }
+
+    // Builds a query from the raw "cursor" and "limit" request parameters (either may be null)
+    public static ListQuery fromParameters(String cursor, String limit) {
+        int pageSize = DEFAULT_LIMIT;
+        if (limit != null && !limit.isEmpty()) {
+            try {
+                pageSize = Integer.parseInt(limit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("limit must be a number");
+            }
+        }
+        String afterKey = (cursor == null || cursor.isEmpty()) ? null : decodeCursor(cursor);
+        return new ListQuery(afterKey, pageSize);
+    }
+
+    public String getAfterKey() { return afterKey; }
+    public int getLimit() { return limit; }
+
+    // Continuation tokens are opaque to clients: base64url of the last key on the page
+    public static String encodeCursor(String key) {
+        byte[] raw = (CURSOR_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static String decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return raw.substring(CURSOR_PREFIX.length());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
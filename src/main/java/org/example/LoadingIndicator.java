@@ -0,0 +1,35 @@
+package org.example;
+
+import javax.swing.*;
+import java.util.HashSet;
+import java.util.Set;
+
+// Progress bar shown while a dashboard has background loads running. Tracks any number of
+// SwingWorkers and shows the progress of the most recently started one.
+class LoadingIndicator extends JProgressBar {
+
+    private final Set<SwingWorker<?, ?>> active = new HashSet<>();
+
+    LoadingIndicator() {
+        super(0, 100);
+        setStringPainted(true);
+        setString("Loading...");
+        setVisible(false);
+    }
+
+    // Must be called on the EDT before the worker is executed
+    void track(SwingWorker<?, ?> worker) {
+        active.add(worker);
+        setValue(0);
+        setVisible(true);
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                setValue((Integer) event.getNewValue());
+            } else if ("state".equals(event.getPropertyName())
+                    && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                active.remove(worker);
+                setVisible(!active.isEmpty());
+            }
+        });
+    }
+}
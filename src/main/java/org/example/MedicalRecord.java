@@ -33,12 +33,26 @@ class MedicalRecord implements Serializable {
         this.treatment = treatment;
         this.notes = notes;
 
-        // Set current date and time
-        LocalDateTime now = LocalDateTime.now();
+        // Set current date and time, in the zone visitAt is read in
+        LocalDateTime now = LocalDateTime.now(TemporalFields.zone());
         this.visitDate = now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
         this.visitTime = now.format(DateTimeFormatter.ofPattern("HH:mm"));
     }
 
+    // Used when loading a stored record, so the visit is not re-stamped with the current time
+    public MedicalRecord(String recordId, String patientId, String doctorId,
+                         String diagnosis, String treatment, String notes,
+                         String visitDate, String visitTime) {
+        this.recordId = recordId;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.diagnosis = diagnosis;
+        this.treatment = treatment;
+        this.notes = notes;
+        this.visitDate = visitDate;
+        this.visitTime = visitTime;
+    }
+
     // Getters
     public String getRecordId() { return recordId; }
     public void setRecordId(String recordId) { this.recordId = recordId; }
@@ -0,0 +1,212 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static com.mongodb.client.model.Filters.*;
+
+// Medical records live in their own collection, one document per visit, instead of an array
+// inside the patient. Records are append-only: there is no update or delete, so a patient's
+// history never rewrites or grows the patient document.
+public class MedicalRecordDAO implements MedicalRecordStore {
+    static final String COLLECTION = "medicalRecords";
+    private static final int PATIENT_BATCH_SIZE = 1000; // patient IDs per $in
+    private static final char CURSOR_SEPARATOR = '|';
+
+    private MongoCollection<Document> collection;
+    private MongoCollection<MedicalRecord> typedCollection; // decoded by DomainCodecs
+
+    public MedicalRecordDAO() {
+        this.collection = DatabaseConnection.getInstance().getCollection(COLLECTION);
+        this.typedCollection = collection.withDocumentClass(MedicalRecord.class);
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "recordId");
+        ensureHistoryIndex(collection);
+    }
+
+    // Serves per-patient history in visit order, and the keyset pages below; the second index
+    // serves the visit time range reads
+    static void ensureHistoryIndex(MongoCollection<Document> collection) {
+        try {
+            collection.createIndex(Indexes.ascending("patientId", "visitDate", "recordId"),
+                    new IndexOptions().name("patientId_visitDate"));
+            collection.createIndex(Indexes.ascending("patientId", TemporalFields.VISIT, "recordId"),
+                    new IndexOptions().name("patientId_visitAt"));
+        } catch (Exception e) {
+            System.err.println("Could not create medical record index: " + e.getMessage());
+        }
+    }
+
+    // Create - duplicate IDs are rejected by the unique index on recordId
+    @Override
+    public WriteResult insertRecord(MedicalRecord record) {
+        try {
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(record)));
+            System.out.println("Medical record " + record.getRecordId() + " inserted successfully");
+            return WriteResult.APPLIED;
+        } catch (Exception e) {
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("Medical record with ID " + record.getRecordId() + " already exists");
+            } else {
+                System.err.println("Error inserting medical record: " + e.getMessage());
+            }
+            return result;
+        }
+    }
+
+    // Unordered, so records that already exist (e.g. from an earlier migration run) are
+    // reported as duplicates without stopping the rest
+    @Override
+    public BulkWriteSummary bulkInsertRecords(List<MedicalRecord> records) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (MedicalRecord record : records) {
+            models.add(new InsertOneModel<>(ChangeTracking.stampInsert(toDocument(record))));
+            ids.add(record.getRecordId());
+        }
+        return BulkWriter.execute(WriteOperation.BULK.on(collection), "insert", models, ids, false);
+    }
+
+    // Read - a patient's full history, oldest visit first
+    @Override
+    public List<MedicalRecord> getRecordsForPatient(String patientId) {
+        List<MedicalRecord> records = new ArrayList<>();
+        try {
+            MongoCursor<MedicalRecord> cursor = typedCollection.find(eq("patientId", patientId))
+                    .sort(Sorts.ascending("visitDate", "recordId"))
+                    .iterator();
+            try {
+                while (cursor.hasNext()) {
+                    records.add(cursor.next());
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Error getting medical records: " + e.getMessage());
+        }
+        return records;
+    }
+
+    // Histories of many patients, one query per PATIENT_BATCH_SIZE patients. Every requested
+    // patient gets an entry, empty if it has no records; null on error.
+    @Override
+    public Map<String, List<MedicalRecord>> getRecordsForPatients(Collection<String> patientIds) {
+        Map<String, List<MedicalRecord>> histories = new HashMap<>();
+        for (String patientId : patientIds) {
+            histories.put(patientId, new ArrayList<>());
+        }
+        List<String> ids = new ArrayList<>(histories.keySet());
+        try {
+            for (int from = 0; from < ids.size(); from += PATIENT_BATCH_SIZE) {
+                List<String> batch = ids.subList(from, Math.min(from + PATIENT_BATCH_SIZE, ids.size()));
+                MongoCursor<MedicalRecord> cursor = typedCollection.find(in("patientId", batch))
+                        .sort(Sorts.ascending("patientId", "visitDate", "recordId"))
+                        .iterator();
+                try {
+                    while (cursor.hasNext()) {
+                        MedicalRecord record = cursor.next();
+                        histories.get(record.getPatientId()).add(record);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return histories;
+        } catch (Exception e) {
+            System.err.println("Error getting medical records: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Keyset pagination over one patient's history, newest visit first. The cursor carries
+    // the visit date and record ID of the last record, so every page is an index range scan.
+    // Errors propagate, so a failed page is not mistaken for the last one.
+    @Override
+    public Page<MedicalRecord> getRecordsPage(String patientId, ListQuery query) {
+        List<MedicalRecord> records = new ArrayList<>();
+        String nextCursor = null;
+        Bson filter = eq("patientId", patientId);
+        if (query.getAfterKey() != null) {
+            String afterKey = query.getAfterKey();
+            int separator = afterKey.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String visitDate = afterKey.substring(0, separator);
+            String recordId = afterKey.substring(separator + 1);
+            filter = and(filter, or(lt("visitDate", visitDate),
+                    and(eq("visitDate", visitDate), lt("recordId", recordId))));
+        }
+        MongoCursor<MedicalRecord> cursor = typedCollection.find(filter)
+                .sort(Sorts.descending("visitDate", "recordId"))
+                .limit(query.getLimit() + 1)
+                .iterator();
+        try {
+            while (cursor.hasNext()) {
+                records.add(cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (records.size() > query.getLimit()) {
+            records.remove(records.size() - 1);
+            MedicalRecord last = records.get(records.size() - 1);
+            nextCursor = ListQuery.encodeCursor(last.getVisitDate() + CURSOR_SEPARATOR + last.getRecordId());
+        }
+        return new Page<>(records, nextCursor);
+    }
+
+    // e.g. the last 90 days of visits - a range scan of the (patientId, visitAt) index
+    @Override
+    public List<MedicalRecord> getRecordsBetween(String patientId, LocalDateTime from, LocalDateTime to) {
+        List<MedicalRecord> records = new ArrayList<>();
+        try (MongoCursor<MedicalRecord> cursor = typedCollection.find(and(eq("patientId", patientId),
+                        gte(TemporalFields.VISIT, TemporalFields.toDate(from)),
+                        lt(TemporalFields.VISIT, TemporalFields.toDate(to))))
+                .sort(Sorts.ascending(TemporalFields.VISIT, "recordId"))
+                .iterator()) {
+            while (cursor.hasNext()) {
+                records.add(cursor.next());
+            }
+        } catch (Exception e) {
+            System.err.println("Error getting medical records between " + from + " and " + to + ": " + e.getMessage());
+        }
+        return records;
+    }
+
+    @Override
+    public long getRecordCount(String patientId) {
+        try {
+            return collection.countDocuments(eq("patientId", patientId));
+        } catch (Exception e) {
+            System.err.println("Error counting medical records: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    static Document toDocument(MedicalRecord record) {
+        return new Document("recordId", record.getRecordId())
+                .append("patientId", record.getPatientId())
+                .append("doctorId", record.getDoctorId())
+                .append("diagnosis", record.getDiagnosis())
+                .append("treatment", record.getTreatment())
+                .append("notes", record.getNotes())
+                .append("visitDate", record.getVisitDate())
+                .append("visitTime", record.getVisitTime())
+                .append(TemporalFields.VISIT, TemporalFields.toDate(record.getVisitDate(), record.getVisitTime()));
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import java.util.ArrayList;
+import java.util.List;
+import static com.mongodb.client.model.Filters.*;
+
+// Moves medical history embedded in patient documents into the medicalRecords collection.
+// Each patient is handled on its own: its records are inserted, then the embedded array is
+// removed. Re-running is safe - records already copied are skipped as duplicates, and only
+// patients that still have an embedded array are visited.
+//
+//   java -cp carehub.jar org.example.MedicalRecordMigration
+public class MedicalRecordMigration {
+    private final MongoCollection<Document> patients;
+    private final MedicalRecordDAO records;
+
+    public MedicalRecordMigration() {
+        this(DatabaseConnection.getInstance().getCollection("patients"), new MedicalRecordDAO());
+    }
+
+    MedicalRecordMigration(MongoCollection<Document> patients, MedicalRecordDAO records) {
+        this.patients = patients;
+        this.records = records;
+    }
+
+    // Returns the number of records moved; patients whose records could not all be written
+    // keep their embedded array and are picked up again by the next run
+    public long migrate() {
+        long moved = 0;
+        int migratedPatients = 0;
+        int failedPatients = 0;
+        MongoCursor<Document> cursor = patients.find(exists("medicalHistory"))
+                .projection(Projections.include("patientId", "medicalHistory"))
+                .iterator();
+        try {
+            while (cursor.hasNext()) {
+                Document patient = cursor.next();
+                String patientId = patient.getString("patientId");
+                List<MedicalRecord> history = toRecords(patientId, patient.getList("medicalHistory", Document.class));
+
+                if (!history.isEmpty()) {
+                    BulkWriteSummary summary = records.bulkInsertRecords(history);
+                    int notWritten = notWritten(summary);
+                    if (notWritten > 0) {
+                        System.err.println("Keeping embedded history of " + patientId + ": "
+                                + notWritten + " records could not be written");
+                        failedPatients++;
+                        continue;
+                    }
+                    moved += summary.getInserted();
+                }
+                WriteOperation.UPDATE.on(patients).updateOne(eq("_id", patient.get("_id")),
+                        ChangeTracking.stampUpdate(new Document("$unset", new Document("medicalHistory", ""))));
+                migratedPatients++;
+            }
+        } finally {
+            cursor.close();
+        }
+        System.out.println("Moved " + moved + " medical records of " + migratedPatients + " patients"
+                + (failedPatients > 0 ? ", " + failedPatients + " patients left for the next run" : ""));
+        return moved;
+    }
+
+    // Duplicates were copied by an earlier run and count as written
+    private static int notWritten(BulkWriteSummary summary) {
+        int count = 0;
+        for (BulkWriteSummary.ItemResult item : summary.getResults()) {
+            if (item.getStatus() != BulkWriteSummary.ItemStatus.OK
+                    && item.getStatus() != BulkWriteSummary.ItemStatus.DUPLICATE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Embedded entries written by older versions may lack an ID or the owning patient
+    static List<MedicalRecord> toRecords(String patientId, List<Document> embedded) {
+        List<MedicalRecord> history = new ArrayList<>();
+        if (embedded == null) {
+            return history;
+        }
+        for (int i = 0; i < embedded.size(); i++) {
+            Document doc = embedded.get(i);
+            String recordId = doc.getString("recordId");
+            if (recordId == null || recordId.isEmpty()) {
+                recordId = patientId + "-MR" + i; // stable, so a re-run produces the same ID
+            }
+            MedicalRecord record = new MedicalRecord(recordId, patientId, doc.getString("doctorId"),
+                    doc.getString("diagnosis"), doc.getString("treatment"), doc.getString("notes"),
+                    doc.getString("visitDate"), doc.getString("visitTime"));
+            history.add(record);
+        }
+        return history;
+    }
+
+    public static void main(String[] args) {
+        try {
+            new MedicalRecordMigration().migrate();
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
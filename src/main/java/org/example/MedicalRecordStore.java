@@ -0,0 +1,29 @@
+package org.example;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Append-only storage for medical records; see PatientStore for the conventions
+public interface MedicalRecordStore {
+
+    WriteResult insertRecord(MedicalRecord record);
+
+    // Unordered; records that already exist are reported as duplicates
+    BulkWriteSummary bulkInsertRecords(List<MedicalRecord> records);
+
+    // Oldest visit first
+    List<MedicalRecord> getRecordsForPatient(String patientId);
+
+    // Every requested patient gets an entry, empty if it has no records; null on error
+    Map<String, List<MedicalRecord>> getRecordsForPatients(Collection<String> patientIds);
+
+    // Newest visit first; a malformed cursor throws IllegalArgumentException
+    Page<MedicalRecord> getRecordsPage(String patientId, ListQuery query);
+
+    // Visits in [from, to), oldest first; an index range scan on visitAt (see TemporalFields)
+    List<MedicalRecord> getRecordsBetween(String patientId, LocalDateTime from, LocalDateTime to);
+
+    long getRecordCount(String patientId);
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Change source backed by a MongoDB change stream (replica sets and sharded clusters only).
+// Delete events carry just the _id, so the source keeps an _id -> record ID map, loaded with
+// an ID-only projection when the stream is opened and maintained from the events it sees.
+class MongoChangeStreamSource<T> implements ChangeSource<T> {
+
+    // Upper bound per poll so one call never holds the apply thread for long
+    private static final int MAX_EVENTS_PER_POLL = 1000;
+
+    private final MongoCollection<Document> collection;
+    private final Class<T> type;
+    private final String keyField;
+    private final Function<T, String> idOf;
+    private final Map<BsonValue, String> keysByObjectId = new HashMap<>();
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<T>> cursor;
+    private String resumeToken;
+
+    MongoChangeStreamSource(MongoCollection<Document> collection, Class<T> type,
+                            String keyField, Function<T, String> idOf) {
+        this.collection = collection;
+        this.type = type;
+        this.keyField = keyField;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public void open(String resumeToken) {
+        close();
+        ChangeStreamIterable<T> stream = collection.watch(type).fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(BsonDocument.parse(resumeToken));
+        }
+        cursor = stream.cursor();
+        this.resumeToken = resumeToken;
+        // Loaded after the stream is positioned so no insert falls between the two
+        loadObjectIdKeys();
+    }
+
+    @Override
+    public List<ChangeEvent<T>> poll() {
+        List<ChangeEvent<T>> events = new ArrayList<>();
+        while (events.size() < MAX_EVENTS_PER_POLL) {
+            ChangeStreamDocument<T> change = cursor.tryNext();
+            if (change == null) {
+                break;
+            }
+            ChangeEvent<T> event = toEvent(change);
+            if (event == null) {
+                continue;
+            }
+            events.add(event);
+            if (change.getOperationType() == OperationType.INVALIDATE) {
+                // An invalidated stream cannot be resumed; start over from now
+                open(null);
+                return events;
+            }
+        }
+        BsonDocument token = cursor.getResumeToken();
+        if (token != null) {
+            resumeToken = token.toJson();
+        }
+        return events;
+    }
+
+    private ChangeEvent<T> toEvent(ChangeStreamDocument<T> change) {
+        BsonValue objectId = change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id");
+        switch (change.getOperationType()) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                T record = change.getFullDocument();
+                if (record == null) {
+                    return null; // deleted before the lookup; the delete event follows
+                }
+                String id = idOf.apply(record);
+                keysByObjectId.put(objectId, id);
+                return ChangeEvent.upsert(id, record);
+            case DELETE:
+                String deletedId = keysByObjectId.remove(objectId);
+                return deletedId == null ? ChangeEvent.reset() : ChangeEvent.delete(deletedId);
+            case DROP:
+            case RENAME:
+            case DROP_DATABASE:
+            case INVALIDATE:
+                return ChangeEvent.reset();
+            default:
+                return null;
+        }
+    }
+
+    // Needs _id next to the key, which the key index does not hold, so this reads the
+    // documents; it runs once per open, not per poll
+    private void loadObjectIdKeys() {
+        keysByObjectId.clear();
+        try (MongoCursor<BsonDocument> keys = collection.withDocumentClass(BsonDocument.class)
+                .find()
+                .projection(Projections.include(keyField))
+                .iterator()) {
+            while (keys.hasNext()) {
+                BsonDocument key = keys.next();
+                if (key.isString(keyField)) {
+                    keysByObjectId.put(key.get("_id"), key.getString(keyField).getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public String resumeToken() {
+        return resumeToken;
+    }
+
+    @Override
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example;
+
+import java.util.List;
+
+// One page of a keyset-paginated list. nextCursor is null on the last page.
+public class Page<T> {
+    private final List<T> items;
+    private final int count;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.count = items.size();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public int getCount() { return count; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
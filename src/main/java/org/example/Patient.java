@@ -22,6 +22,12 @@ class Patient implements Serializable {
     private List<String> allergies;
     private List<Medication> medications;
 
+    // Set when the patient was read without allergies, medications and medical history
+    private transient volatile boolean clinicalDataDeferred;
+
+    // Edits since the patient was read or saved; null for patients built from scratch
+    private transient ChangeSet changes;
+
     public Patient() {} // Required no-arg constructor
 
     public Patient(String patientId, String name, int age, String gender, String address, String phone) {
@@ -37,6 +43,16 @@ class Patient implements Serializable {
         this.medications = new ArrayList<>();
     }
 
+    // A patient holding no data, only the ID, whose edits become a partial update (PATCH).
+    // Its lists are empty rather than the stored ones, so it is deferred: a list edit that
+    // would need the whole list written is rejected instead of wiping the stored list.
+    static Patient patch(String patientId) {
+        Patient patient = new Patient(patientId, null, 0, null, null, null);
+        patient.deferClinicalData();
+        patient.markClean();
+        return patient;
+    }
+
     // Getters and setters
     public ObjectId getId() { return id; }
     public void setId(ObjectId id) { this.id = id; }
@@ -45,19 +61,19 @@ class Patient implements Serializable {
     public void setPatientId(String patientId) { this.patientId = patientId; }
 
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; track("name", name); }
 
     public int getAge() { return age; }
-    public void setAge(int age) { this.age = age; }
+    public void setAge(int age) { this.age = age; track("age", age); }
 
     public String getGender() { return gender; }
-    public void setGender(String gender) { this.gender = gender; }
+    public void setGender(String gender) { this.gender = gender; track("gender", gender); }
 
     public String getAddress() { return address; }
-    public void setAddress(String address) { this.address = address; }
+    public void setAddress(String address) { this.address = address; track("address", address); }
 
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+    public void setPhone(String phone) { this.phone = phone; track("phone", phone); }
 
     public List<MedicalRecord> getMedicalHistory() { return medicalHistory; }
     public void setMedicalHistory(List<MedicalRecord> medicalHistory) {
@@ -67,11 +83,28 @@ class Patient implements Serializable {
     public List<String> getAllergies() { return allergies; }
     public void setAllergies(List<String> allergies) {
         this.allergies = allergies;
+        if (changes != null) {
+            changes.replace("allergies");
+        }
     }
 
     public List<Medication> getMedications() { return medications; }
     public void setMedications(List<Medication> medications) {
         this.medications = medications;
+        if (changes != null) {
+            changes.replace("medications");
+        }
+    }
+
+    public boolean isClinicalDataDeferred() { return clinicalDataDeferred; }
+    public void deferClinicalData() { this.clinicalDataDeferred = true; }
+
+    // Installs the lazily loaded clinical data; the lists are in place before the flag clears
+    public void setClinicalData(List<String> allergies, List<Medication> medications, List<MedicalRecord> medicalHistory) {
+        this.allergies = allergies;
+        this.medications = medications;
+        this.medicalHistory = medicalHistory;
+        this.clinicalDataDeferred = false;
     }
 
     public void addMedicalRecord(MedicalRecord record) {
@@ -81,19 +114,43 @@ class Patient implements Serializable {
     public void addAllergy(String allergy) {
         if (!allergies.contains(allergy)) {
             allergies.add(allergy);
+            if (changes != null) {
+                changes.addToSet("allergies", allergy);
+            }
         }
     }
 
     public void removeAllergy(String allergy) {
         allergies.remove(allergy);
+        if (changes != null) {
+            changes.pull("allergies", allergy);
+        }
     }
 
     public void addMedication(Medication medication) {
         medications.add(medication);
+        if (changes != null) {
+            changes.push("medications", medication);
+        }
     }
 
     public void removeMedication(String medicationName) {
         medications.removeIf(med -> med.getName().equals(medicationName));
+        if (changes != null) {
+            changes.pullWhere("medications", "name", medicationName);
+        }
+    }
+
+    // Medical history is not tracked: records are appended through MedicalRecordDAO
+    public ChangeSet getChanges() { return changes; }
+
+    // The patient now matches what is stored; later edits are recorded
+    public void markClean() { this.changes = new ChangeSet(); }
+
+    private void track(String field, Object value) {
+        if (changes != null) {
+            changes.set(field, value);
+        }
     }
 
     public String getLatestDiagnosis() {
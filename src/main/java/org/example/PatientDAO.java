@@ -2,70 +2,82 @@ package org.example;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import static com.mongodb.client.model.Filters.*;
 
-public class PatientDAO {
+public class PatientDAO implements PatientStore {
+    private static final int STREAM_BATCH_SIZE = 500;
+    // medicalHistory only remains in documents not yet moved to medicalRecords by MedicalRecordMigration
+    static final List<String> CLINICAL_FIELDS = List.of("allergies", "medications", "medicalHistory");
+    private static final int CLINICAL_BATCH_SIZE = 1000; // patient IDs per $in when loading clinical data
+
     private MongoCollection<Document> collection;
+    private MongoCollection<Patient> typedCollection; // decoded by DomainCodecs
+    private RecordCache cache; // getPatientById, shared by all DAOs of the collection
+    private CollectionVersions versions; // ETags of the REST API
+    private DeletionLog deletions; // tombstones read by the polling change source
 
     public PatientDAO() {
-        this.collection = DatabaseConnection.getInstance()
-                .getDatabase()
-                .getCollection("patients");
+        this.collection = DatabaseConnection.getInstance().getCollection("patients");
+        this.typedCollection = collection.withDocumentClass(Patient.class);
+        this.cache = RecordCache.forCollection("patients");
+        this.versions = CollectionVersions.forCollection("patients");
+        this.deletions = DeletionLog.forCollection("patients");
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "patientId");
     }
 
-    // Create
-    public boolean insertPatient(Patient patient) {
+    // Create - duplicate IDs are rejected by the unique index on patientId
+    @Override
+    public WriteResult insertPatient(Patient patient) {
         try {
-            // Check if patient already exists
-            if (getPatientById(patient.getPatientId()) != null) {
-                System.err.println("Patient with ID " + patient.getPatientId() + " already exists");
-                return false;
-            }
-
-            Document doc = new Document("patientId", patient.getPatientId())
-                    .append("name", patient.getName())
-                    .append("age", patient.getAge())
-                    .append("gender", patient.getGender())
-                    .append("address", patient.getAddress())
-                    .append("phone", patient.getPhone())
-                    .append("allergies", patient.getAllergies())
-                    .append("medications", convertMedicationsToDocuments(patient.getMedications()))
-                    .append("medicalHistory", convertMedicalRecordsToDocuments(patient.getMedicalHistory()));
-
-            collection.insertOne(doc);
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(patient)));
             System.out.println("Patient " + patient.getPatientId() + " inserted successfully");
-            return true;
+            return WriteResult.APPLIED;
         } catch (Exception e) {
-            System.err.println("Error inserting patient: " + e.getMessage());
-            return false;
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("Patient with ID " + patient.getPatientId() + " already exists");
+            } else {
+                System.err.println("Error inserting patient: " + e.getMessage());
+            }
+            return result;
+        } finally {
+            written(patient.getPatientId());
         }
     }
 
     // Read
+    @Override
     public Patient getPatientById(String patientId) {
         try {
-            Document doc = collection.find(eq("patientId", patientId)).first();
-            if (doc != null) {
-                return documentToPatient(doc);
-            }
+            return cache.find(collection, "patientId", patientId, Patient.class);
         } catch (Exception e) {
             System.err.println("Error getting patient: " + e.getMessage());
         }
         return null;
     }
 
+    @Override
     public List<Patient> getAllPatients() {
         List<Patient> patients = new ArrayList<>();
         try {
-            MongoCursor<Document> cursor = collection.find().iterator();
+            MongoCursor<Patient> cursor = typedCollection.find().iterator();
             while (cursor.hasNext()) {
-                patients.add(documentToPatient(cursor.next()));
+                patients.add(cursor.next());
             }
             cursor.close();
         } catch (Exception e) {
@@ -74,87 +86,287 @@ public class PatientDAO {
         return patients;
     }
 
-    // Update - FIXED to check if record exists
-    public boolean updatePatient(Patient patient) {
+    // Summary fields only, for pickers and lists; clinical data is never read
+    @Override
+    public List<PatientSummary> getPatientSummaries() {
+        List<PatientSummary> summaries = new ArrayList<>();
         try {
-            System.out.println("=== DAO UPDATE PATIENT DEBUG ===");
-            System.out.println("Attempting to update patient: " + patient.getPatientId());
+            MongoCursor<Document> cursor = collection.find()
+                    .projection(Projections.fields(Projections.include(PatientSummary.FIELDS), Projections.excludeId()))
+                    .iterator();
+            try {
+                while (cursor.hasNext()) {
+                    summaries.add(PatientSummary.fromDocument(cursor.next()));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Error getting patient summaries: " + e.getMessage());
+        }
+        return summaries;
+    }
 
-            // First check if patient exists
-            Patient existingPatient = getPatientById(patient.getPatientId());
-            System.out.println("Patient exists in database: " + (existingPatient != null));
+    // Every patient without allergies, medications and medical history, which make up most of a
+    // patient document. The patients are marked deferred; loadClinicalData fills them in later.
+    @Override
+    public List<Patient> getAllPatientsWithoutClinicalData() {
+        List<Patient> patients = new ArrayList<>();
+        try {
+            MongoCursor<Patient> cursor = typedCollection.find()
+                    .projection(Projections.exclude(CLINICAL_FIELDS))
+                    .iterator();
+            try {
+                while (cursor.hasNext()) {
+                    Patient patient = cursor.next();
+                    patient.deferClinicalData();
+                    patients.add(patient);
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Error getting patients: " + e.getMessage());
+        }
+        return patients;
+    }
 
-            if (existingPatient == null) {
-                System.err.println("Cannot update: Patient with ID " + patient.getPatientId() + " does not exist");
-                return false;
+    // Reads the clinical data of the deferred patients among the given ones, one query per
+    // CLINICAL_BATCH_SIZE patients. Returns false if it could not be read.
+    @Override
+    public boolean loadClinicalData(Collection<Patient> patients) {
+        Map<String, Patient> pending = new HashMap<>();
+        for (Patient patient : patients) {
+            if (patient.isClinicalDataDeferred()) {
+                pending.put(patient.getPatientId(), patient);
+            }
+        }
+        List<String> ids = new ArrayList<>(pending.keySet());
+        List<String> fields = new ArrayList<>(CLINICAL_FIELDS);
+        fields.add("patientId");
+        try {
+            for (int from = 0; from < ids.size(); from += CLINICAL_BATCH_SIZE) {
+                List<String> batch = ids.subList(from, Math.min(from + CLINICAL_BATCH_SIZE, ids.size()));
+                MongoCursor<Patient> cursor = typedCollection.find(in("patientId", batch))
+                        .projection(Projections.fields(Projections.include(fields), Projections.excludeId()))
+                        .iterator();
+                try {
+                    while (cursor.hasNext()) {
+                        Patient loaded = cursor.next();
+                        Patient target = pending.get(loaded.getPatientId());
+                        if (target != null) {
+                            target.setClinicalData(loaded.getAllergies(), loaded.getMedications(), loaded.getMedicalHistory());
+                        }
+                    }
+                } finally {
+                    cursor.close();
+                }
             }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error loading clinical data: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Keyset pagination ordered by patientId; reads one extra document to detect the next page
+    @Override
+    public Page<Patient> getPatientsPage(ListQuery query) {
+        return getPatientsPage(query, RecordFilter.NONE);
+    }
 
-            Document updateDoc = new Document("$set", new Document()
-                    .append("name", patient.getName())
-                    .append("age", patient.getAge())
-                    .append("gender", patient.getGender())
-                    .append("address", patient.getAddress())
-                    .append("phone", patient.getPhone())
-                    .append("allergies", patient.getAllergies())
-                    .append("medications", convertMedicationsToDocuments(patient.getMedications()))
-                    .append("medicalHistory", convertMedicalRecordsToDocuments(patient.getMedicalHistory())));
+    // Filters come from RecordFilter.PATIENTS; a projection, if any, is ignored here
+    @Override
+    public Page<Patient> getPatientsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(typedCollection, "patientId", query, filter, null, Patient::getPatientId);
+    }
 
-            System.out.println("Executing MongoDB update...");
-            UpdateResult result = collection.updateOne(eq("patientId", patient.getPatientId()), updateDoc);
+    // Selected fields only, as raw documents, so unselected fields are absent rather than defaulted
+    @Override
+    public Page<Document> getPatientFieldsPage(ListQuery query, RecordFilter filter) {
+        return KeysetQueries.page(collection, "patientId", query, filter, filter.projection(),
+                doc -> doc.getString("patientId"));
+    }
 
-            System.out.println("MongoDB update result - Matched: " + result.getMatchedCount() + ", Modified: " + result.getModifiedCount());
+    // Streams every patient in patientId order. Unlike getAllPatients() errors are not swallowed,
+    // because the caller may already be writing the response when the cursor is opened.
+    @Override
+    public RecordCursor<Patient> streamPatients() {
+        return streamPatients(RecordFilter.NONE);
+    }
 
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Patient " + patient.getPatientId() + " updated successfully");
-                return true;
-            } else {
+    @Override
+    public RecordCursor<Patient> streamPatients(RecordFilter filter) {
+        return KeysetQueries.stream(typedCollection, "patientId", filter, null, STREAM_BATCH_SIZE);
+    }
+
+    @Override
+    public RecordCursor<Document> streamPatientFields(RecordFilter filter) {
+        return KeysetQueries.stream(collection, "patientId", filter, filter.projection(), STREAM_BATCH_SIZE);
+    }
+
+    // Update - existence comes from the matched count, no read beforehand. A patient that was
+    // read writes only what changed since: $set for edited fields, $addToSet/$push/$pull for
+    // allergies and medications added or removed. One built from scratch is written in full.
+    @Override
+    public WriteResult updatePatient(Patient patient) {
+        try {
+            Document updateDoc = updateDocument(patient);
+            if (updateDoc.isEmpty()) {
+                return WriteResult.UNCHANGED;
+            }
+
+            WriteResult result = WriteResult.ofUpdate(
+                    WriteOperation.UPDATE.on(collection).updateOne(eq("patientId", patient.getPatientId()), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No patient found with ID: " + patient.getPatientId());
-                return false;
+            } else {
+                patient.markClean();
+                System.out.println("Patient " + patient.getPatientId() + " updated successfully");
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error updating patient: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(patient.getPatientId());
+        }
+    }
+
+    // What updatePatient writes: the recorded changes of a patient that was read, every field of
+    // one built from scratch. Empty when nothing changed.
+    static Document updateDocument(Patient patient) {
+        ChangeSet changes = patient.getChanges();
+        return changes != null ? changes.toUpdate(field -> storedList(patient, field), PatientDAO::encode)
+                : fullUpdate(patient);
+    }
+
+    private static Document fullUpdate(Patient patient) {
+        Document set = new Document()
+                .append("name", patient.getName())
+                .append("age", patient.getAge())
+                .append("gender", patient.getGender())
+                .append("address", patient.getAddress())
+                .append("phone", patient.getPhone());
+        // A patient read without clinical data holds empty lists that must not overwrite the stored ones.
+        // Medical history is never written here; records are appended through MedicalRecordDAO.
+        if (!patient.isClinicalDataDeferred()) {
+            set.append("allergies", patient.getAllergies())
+                    .append("medications", convertMedicationsToDocuments(patient.getMedications()));
         }
+        return new Document("$set", set);
     }
 
-    // Delete - FIXED to check if record exists
-    public boolean deletePatient(String patientId) {
+    // Applies only the edits recorded on a patch (see Patient.patch) and returns the stored patient
+    // afterwards. Returns null if the patient does not exist; database errors propagate.
+    @Override
+    public Patient patchPatient(Patient patch) {
         try {
-            // First check if patient exists
-            if (getPatientById(patientId) == null) {
-                System.err.println("Cannot delete: Patient with ID " + patientId + " does not exist");
-                return false;
+            Document updateDoc = patchDocument(patch);
+            Patient updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("patientId", patch.getPatientId()),
+                    ChangeTracking.stampUpdate(updateDoc), new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No patient found with ID: " + patch.getPatientId());
+                return null;
             }
+            System.out.println("Patient " + patch.getPatientId() + " patched: " + patch.getChanges().changedFields());
+            return updated;
+        } finally {
+            written(patch.getPatientId());
+        }
+    }
 
-            DeleteResult result = collection.deleteOne(eq("patientId", patientId));
+    static Document patchDocument(Patient patch) {
+        return ChangeSet.require(patch.getChanges()).toUpdate(field -> storedList(patch, field), PatientDAO::encode);
+    }
 
-            if (result.getDeletedCount() > 0) {
-                System.out.println("Patient " + patientId + " deleted successfully");
-                return true;
-            } else {
+    // A list written whole because it was reassigned, or both grew and shrank since the last save.
+    // A deferred patient does not hold the stored list, so writing it would lose data.
+    private static Object storedList(Patient patient, String field) {
+        if (patient.isClinicalDataDeferred()) {
+            throw new IllegalStateException("Clinical data of " + patient.getPatientId() + " is not loaded");
+        }
+        if ("allergies".equals(field)) {
+            return patient.getAllergies();
+        }
+        if ("medications".equals(field)) {
+            return convertMedicationsToDocuments(patient.getMedications());
+        }
+        throw new IllegalArgumentException("Not a list field: " + field);
+    }
+
+    private static Object encode(Object value) {
+        return value instanceof Medication ? toDocument((Medication) value) : value;
+    }
+
+    // Updates only the demographic fields and returns the stored patient afterwards, leaving
+    // allergies, medications and medical history untouched. Returns null if the patient does not
+    // exist; database errors propagate so callers can tell them apart from a missing patient.
+    @Override
+    public Patient updatePatientDetails(Patient patient) {
+        try {
+            Document updateDoc = detailsUpdate(patient);
+            Patient updated = WriteOperation.UPDATE.on(typedCollection).findOneAndUpdate(eq("patientId", patient.getPatientId()), ChangeTracking.stampUpdate(updateDoc),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            if (updated == null) {
+                System.err.println("No patient found with ID: " + patient.getPatientId());
+                return null;
+            }
+            System.out.println("Patient " + patient.getPatientId() + " updated successfully");
+            return updated;
+        } finally {
+            written(patient.getPatientId());
+        }
+    }
+
+    static Document detailsUpdate(Patient patient) {
+        return new Document("$set", new Document()
+                .append("name", patient.getName())
+                .append("age", patient.getAge())
+                .append("gender", patient.getGender())
+                .append("address", patient.getAddress())
+                .append("phone", patient.getPhone()));
+    }
+
+    // Delete - existence comes from the deleted count
+    @Override
+    public WriteResult deletePatient(String patientId) {
+        try {
+            WriteResult result = WriteResult.ofDelete(WriteOperation.DELETE.on(collection).deleteOne(eq("patientId", patientId)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No patient found with ID: " + patientId);
-                return false;
+            } else {
+                System.out.println("Patient " + patientId + " deleted successfully");
+                deletions.recordDeleted(List.of(patientId));
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error deleting patient: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
+        } finally {
+            written(patientId);
         }
     }
 
-    // Delete all patients
-    public boolean deleteAllPatients() {
+    // Delete all patients - returns the number deleted, or -1 on error
+    @Override
+    public long deleteAllPatients() {
         try {
-            DeleteResult result = collection.deleteMany(new Document()); // Empty filter = delete all
+            DeleteResult result = WriteOperation.DELETE.on(collection).deleteMany(new Document()); // Empty filter = delete all
             System.out.println("Deleted " + result.getDeletedCount() + " patients");
-            return true;
+            deletions.recordCleared();
+            return result.getDeletedCount();
         } catch (Exception e) {
             System.err.println("Error deleting all patients: " + e.getMessage());
-            return false;
+            return -1;
+        } finally {
+            cache.clear();
+            versions.changedAll();
         }
     }
 
     // Get count of patients
+    @Override
     public long getPatientCount() {
         try {
             return collection.countDocuments();
@@ -164,91 +376,103 @@ public class PatientDAO {
         }
     }
 
-    // Check if patient exists
-    public boolean patientExists(String patientId) {
-        return getPatientById(patientId) != null;
+    // Bulk operations - one bulkWrite per call, results reported per item
+    @Override
+    public BulkWriteSummary bulkInsertPatients(List<Patient> patients, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Patient patient : patients) {
+            models.add(new InsertOneModel<>(ChangeTracking.stampInsert(toDocument(patient))));
+            ids.add(patient.getPatientId());
+        }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "insert", models, ids, ordered);
+        written(ids);
+        return summary;
     }
 
-    // Helper methods
-    private Patient documentToPatient(Document doc) {
-        Patient patient = new Patient(
-                doc.getString("patientId"),
-                doc.getString("name"),
-                doc.getInteger("age", 0),
-                doc.getString("gender"),
-                doc.getString("address"),
-                doc.getString("phone")
-        );
-
-        // Add allergies
-        List<String> allergies = doc.getList("allergies", String.class);
-        if (allergies != null) {
-            for (String allergy : allergies) {
-                patient.addAllergy(allergy);
-            }
+    // Existing patients keep their allergies, medications and medical history; new ones get the submitted values
+    @Override
+    public BulkWriteSummary bulkUpsertPatients(List<Patient> patients, boolean ordered) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (Patient patient : patients) {
+            models.add(new UpdateOneModel<>(eq("patientId", patient.getPatientId()),
+                    ChangeTracking.stampUpdate(upsertDocument(patient)), new UpdateOptions().upsert(true)));
+            ids.add(patient.getPatientId());
         }
+        BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "upsert", models, ids, ordered);
+        written(ids);
+        return summary;
+    }
 
-        // Add medications
-        List<Document> medicationDocs = doc.getList("medications", Document.class);
-        if (medicationDocs != null) {
-            for (Document medDoc : medicationDocs) {
-                Medication medication = new Medication(
-                        medDoc.getString("name"),
-                        medDoc.getString("dosage"),
-                        medDoc.getString("frequency"),
-                        medDoc.getString("startDate"),
-                        medDoc.getString("endDate")
-                );
-                patient.addMedication(medication);
+    static Document upsertDocument(Patient patient) {
+        Document doc = toDocument(patient);
+        Document set = new Document();
+        Document setOnInsert = new Document();
+        for (String field : doc.keySet()) {
+            if (CLINICAL_FIELDS.contains(field)) {
+                setOnInsert.append(field, doc.get(field));
+            } else if (!"patientId".equals(field)) {
+                set.append(field, doc.get(field));
             }
         }
+        return new Document("$set", set).append("$setOnInsert", setOnInsert);
+    }
 
-        // Add medical history
-        List<Document> historyDocs = doc.getList("medicalHistory", Document.class);
-        if (historyDocs != null) {
-            for (Document histDoc : historyDocs) {
-                MedicalRecord record = new MedicalRecord(
-                        histDoc.getString("recordId"),
-                        histDoc.getString("patientId"),
-                        histDoc.getString("doctorId"),
-                        histDoc.getString("diagnosis"),
-                        histDoc.getString("treatment"),
-                        histDoc.getString("notes")
-                );
-                patient.addMedicalRecord(record);
-            }
+    @Override
+    public BulkWriteSummary bulkDeletePatients(List<String> patientIds, boolean ordered) {
+        BulkWriteSummary summary = BulkWriter.executeDelete(WriteOperation.BULK.on(collection), "patientId", patientIds, ordered);
+        deletions.recordDeleted(summary.idsWith(BulkWriteSummary.ItemStatus.OK));
+        written(patientIds);
+        return summary;
+    }
+
+    // Every write ends here, applied or not: the cached copy and the published version of
+    // the record are out of date. The version moves last, so a reader that sees the new
+    // version cannot get the old copy from the cache.
+    private void written(String patientId) {
+        cache.invalidate(patientId);
+        versions.changed(patientId);
+    }
+
+    private void written(List<String> patientIds) {
+        for (String patientId : patientIds) {
+            written(patientId);
         }
+    }
+
+    // Check if patient exists
+    @Override
+    public boolean patientExists(String patientId) {
+        return getPatientById(patientId) != null;
+    }
 
-        return patient;
+    static Document toDocument(Patient patient) {
+        return new Document("patientId", patient.getPatientId())
+                .append("name", patient.getName())
+                .append("age", patient.getAge())
+                .append("gender", patient.getGender())
+                .append("address", patient.getAddress())
+                .append("phone", patient.getPhone())
+                .append("allergies", patient.getAllergies())
+                .append("medications", convertMedicationsToDocuments(patient.getMedications()));
     }
 
-    private List<Document> convertMedicationsToDocuments(List<Medication> medications) {
+    private static List<Document> convertMedicationsToDocuments(List<Medication> medications) {
         List<Document> docs = new ArrayList<>();
         for (Medication med : medications) {
-            docs.add(new Document()
-                    .append("name", med.getName())
-                    .append("dosage", med.getDosage())
-                    .append("frequency", med.getFrequency())
-                    .append("startDate", med.getStartDate())
-                    .append("endDate", med.getEndDate())
-                    .append("isActive", med.isActive()));
+            docs.add(toDocument(med));
         }
         return docs;
     }
 
-    private List<Document> convertMedicalRecordsToDocuments(List<MedicalRecord> records) {
-        List<Document> docs = new ArrayList<>();
-        for (MedicalRecord record : records) {
-            docs.add(new Document()
-                    .append("recordId", record.getRecordId())
-                    .append("patientId", record.getPatientId())
-                    .append("doctorId", record.getDoctorId())
-                    .append("diagnosis", record.getDiagnosis())
-                    .append("treatment", record.getTreatment())
-                    .append("notes", record.getNotes())
-                    .append("visitDate", record.getVisitDate())
-                    .append("visitTime", record.getVisitTime()));
-        }
-        return docs;
+    private static Document toDocument(Medication med) {
+        return new Document()
+                .append("name", med.getName())
+                .append("dosage", med.getDosage())
+                .append("frequency", med.getFrequency())
+                .append("startDate", med.getStartDate())
+                .append("endDate", med.getEndDate())
+                .append("isActive", med.isActive());
     }
 }
@@ -0,0 +1,63 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+// Storage for patients. PatientDAO keeps them in MongoDB and InMemoryPatientStore in this JVM;
+// StorageBackend picks one at startup. Both report writes as WriteResult and return null or an
+// empty result from reads that fail, except where a method says errors propagate.
+public interface PatientStore {
+
+    WriteResult insertPatient(Patient patient);
+
+    Patient getPatientById(String patientId);
+
+    List<Patient> getAllPatients();
+
+    // Summary fields only, for pickers and lists
+    List<PatientSummary> getPatientSummaries();
+
+    // Patients marked deferred, without allergies, medications and medical history
+    List<Patient> getAllPatientsWithoutClinicalData();
+
+    // Fills in the clinical data of the deferred patients among the given ones; false on error
+    boolean loadClinicalData(Collection<Patient> patients);
+
+    Page<Patient> getPatientsPage(ListQuery query);
+
+    Page<Patient> getPatientsPage(ListQuery query, RecordFilter filter);
+
+    Page<Document> getPatientFieldsPage(ListQuery query, RecordFilter filter);
+
+    // Errors propagate; the caller may already be writing the response
+    RecordCursor<Patient> streamPatients();
+
+    RecordCursor<Patient> streamPatients(RecordFilter filter);
+
+    RecordCursor<Document> streamPatientFields(RecordFilter filter);
+
+    WriteResult updatePatient(Patient patient);
+
+    // Null if the patient does not exist; errors propagate
+    Patient patchPatient(Patient patch);
+
+    // Demographic fields only; null if the patient does not exist; errors propagate
+    Patient updatePatientDetails(Patient patient);
+
+    WriteResult deletePatient(String patientId);
+
+    // The number deleted, or -1 on error
+    long deleteAllPatients();
+
+    long getPatientCount();
+
+    BulkWriteSummary bulkInsertPatients(List<Patient> patients, boolean ordered);
+
+    BulkWriteSummary bulkUpsertPatients(List<Patient> patients, boolean ordered);
+
+    BulkWriteSummary bulkDeletePatients(List<String> patientIds, boolean ordered);
+
+    boolean patientExists(String patientId);
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import org.bson.Document;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// The identifying fields of a patient, for pickers and lists that never show clinical data.
+// Read with a projection, so allergies, medications and medical history are never decoded.
+class PatientSummary {
+
+    static final List<String> FIELDS = Arrays.asList("patientId", "name", "age", "gender", "phone");
+
+    private final String patientId;
+    private final String name;
+    private final int age;
+    private final String gender;
+    private final String phone;
+
+    PatientSummary(String patientId, String name, int age, String gender, String phone) {
+        this.patientId = patientId;
+        this.name = name;
+        this.age = age;
+        this.gender = gender;
+        this.phone = phone;
+    }
+
+    static PatientSummary of(Patient patient) {
+        return new PatientSummary(patient.getPatientId(), patient.getName(), patient.getAge(),
+                patient.getGender(), patient.getPhone());
+    }
+
+    static PatientSummary fromDocument(Document doc) {
+        Number age = doc.get("age", Number.class);
+        return new PatientSummary(doc.getString("patientId"), doc.getString("name"),
+                age != null ? age.intValue() : 0, doc.getString("gender"), doc.getString("phone"));
+    }
+
+    public String getPatientId() { return patientId; }
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    public String getGender() { return gender; }
+    public String getPhone() { return phone; }
+
+    // Same patient, whichever read produced it, so a combo box can select a fresh summary
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PatientSummary && Objects.equals(patientId, ((PatientSummary) o).patientId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(patientId);
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " (" + this.patientId + ")";
+    }
+}
@@ -0,0 +1,175 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.mongodb.client.model.Filters.gte;
+
+// Fallback change source for standalone servers, where change streams are not available.
+// Each poll reads the documents whose lastModified is at or after the last one seen (minus
+// an overlap window for clock skew between clients) and the DeletionLog tombstones from the
+// same window; both queries are bounded by what changed. Deletes made outside the DAOs leave
+// no tombstone, so the keys are diffed against the key index every FULL_DIFF_MILLIS, and at
+// once when a tombstone says the collection was cleared.
+class PollingChangeSource<T> implements ChangeSource<T> {
+
+    static final long OVERLAP_MILLIS = 5_000;
+    static final long FULL_DIFF_MILLIS = 15 * 60_000;
+
+    private final MongoCollection<Document> collection;
+    private final String keyField;
+    private final Function<T, String> idOf;
+    private final Codec<T> codec;
+    private final DeletionLog deletions;
+
+    private long since;
+    private long lastFullDiff;
+    private Set<String> knownIds = new HashSet<>();
+    // Versions already reported inside the overlap window, so they are not reported twice
+    private final Map<String, Long> reportedVersions = new HashMap<>();
+    private final Map<String, Long> reportedDeletes = new HashMap<>();
+    private long reportedClear;
+
+    PollingChangeSource(MongoCollection<Document> collection, Class<T> type,
+                        String keyField, Function<T, String> idOf) {
+        this.collection = collection;
+        this.keyField = keyField;
+        this.idOf = idOf;
+        this.codec = collection.getCodecRegistry().get(type);
+        this.deletions = DeletionLog.forCollection(collection.getNamespace().getCollectionName());
+    }
+
+    @Override
+    public void open(String resumeToken) {
+        collection.createIndex(Indexes.ascending(ChangeTracking.LAST_MODIFIED));
+        deletions.ensureIndexes();
+        since = resumeToken == null ? System.currentTimeMillis() : Long.parseLong(resumeToken);
+        reportedVersions.clear();
+        reportedDeletes.clear();
+        reportedClear = 0;
+        knownIds = loadIds();
+        lastFullDiff = System.currentTimeMillis();
+    }
+
+    @Override
+    public List<ChangeEvent<T>> poll() {
+        List<ChangeEvent<T>> events = new ArrayList<>();
+        long from = since - OVERLAP_MILLIS;
+        long newest = since;
+
+        // Tombstones are read before the documents: a key that shows up in both was inserted
+        // again after the delete and is still there
+        Map<String, Long> deleted = new HashMap<>();
+        boolean cleared = false;
+        try (MongoCursor<Document> tombstones = deletions.since(from)) {
+            while (tombstones.hasNext()) {
+                Document tombstone = tombstones.next();
+                long modified = tombstone.getDate(ChangeTracking.LAST_MODIFIED).getTime();
+                newest = Math.max(newest, modified);
+                String key = tombstone.getString(DeletionLog.KEY);
+                if (key != null) {
+                    deleted.put(key, modified);
+                } else if (modified > reportedClear) {
+                    reportedClear = modified;
+                    cleared = true;
+                }
+            }
+        }
+
+        try (MongoCursor<RawBsonDocument> changed = collection.withDocumentClass(RawBsonDocument.class)
+                .find(gte(ChangeTracking.LAST_MODIFIED, new Date(from)))
+                .sort(Sorts.ascending(ChangeTracking.LAST_MODIFIED))
+                .iterator()) {
+            while (changed.hasNext()) {
+                RawBsonDocument raw = changed.next();
+                long modified = raw.getDateTime(ChangeTracking.LAST_MODIFIED).getValue();
+                T record = codec.decode(raw.asBsonReader(), DecoderContext.builder().build());
+                String id = idOf.apply(record);
+                newest = Math.max(newest, modified);
+                deleted.remove(id);
+                knownIds.add(id);
+                Long reported = reportedVersions.put(id, modified);
+                if (reported == null || reported != modified) {
+                    events.add(ChangeEvent.upsert(id, record));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Long> tombstone : deleted.entrySet()) {
+            Long reported = reportedDeletes.put(tombstone.getKey(), tombstone.getValue());
+            if (reported == null || !reported.equals(tombstone.getValue())) {
+                events.add(delete(tombstone.getKey()));
+            }
+        }
+        since = newest;
+        reportedVersions.values().removeIf(modified -> modified < since - OVERLAP_MILLIS);
+        reportedDeletes.values().removeIf(modified -> modified < since - OVERLAP_MILLIS);
+
+        long now = System.currentTimeMillis();
+        if (cleared || now - lastFullDiff >= FULL_DIFF_MILLIS) {
+            Set<String> currentIds = loadIds();
+            for (String id : knownIds) {
+                if (!currentIds.contains(id)) {
+                    events.add(ChangeEvent.delete(id));
+                    reportedVersions.remove(id);
+                }
+            }
+            knownIds = currentIds;
+            lastFullDiff = now;
+        }
+        return events;
+    }
+
+    private ChangeEvent<T> delete(String id) {
+        knownIds.remove(id);
+        reportedVersions.remove(id);
+        return ChangeEvent.delete(id);
+    }
+
+    // Without a filter the planner would scan the collection; the hint makes this a covered
+    // scan of the unique key index the DAOs create
+    private Set<String> loadIds() {
+        Set<String> ids = new HashSet<>();
+        try (MongoCursor<BsonDocument> keys = collection.withDocumentClass(BsonDocument.class)
+                .find()
+                .projection(Projections.fields(Projections.include(keyField), Projections.excludeId()))
+                .hint(Indexes.ascending(keyField))
+                .iterator()) {
+            while (keys.hasNext()) {
+                BsonValue key = keys.next().get(keyField);
+                if (key != null && key.isString()) {
+                    ids.add(key.asString().getValue());
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public String resumeToken() {
+        return String.valueOf(since);
+    }
+
+    @Override
+    public void close() {
+        knownIds.clear();
+    }
+}
@@ -0,0 +1,194 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Single-flight for identical reads: while one request runs a read, identical requests wait
+// for it and are answered with the same serialized body instead of running their own.
+//   -Dcarehub.coalesce.enabled=true       (default)
+//   -Dcarehub.coalesce.windowMs=0         (default) how long a finished body keeps answering
+//                                          identical requests; 0 shares in-flight reads only
+//   -Dcarehub.coalesce.maxBytes=8388608   (default 8 MB) larger bodies are not shared; those
+//                                          requests stream their own response
+// Every write ends the current generation: a read that arrives after a write never joins a
+// flight, or takes a body, from before it.
+final class ReadCoalescer {
+
+    static final long DEFAULT_WINDOW_MS = 0;
+    static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_REMEMBERED = 1000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBytes;
+    private final LongSupplier clock;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    // Keys whose body was too large to share; they bypass coalescing from then on
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong windowHits = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+
+    // Thrown by the buffer when a body passes maxBytes, and to every request of that flight
+    static final class TooLargeException extends RuntimeException {
+        TooLargeException() {
+            super("Response too large to share", null, false, false);
+        }
+    }
+
+    private static final class Flight {
+        final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        volatile long completedAt;
+    }
+
+    ReadCoalescer(boolean enabled, long windowMs, int maxBytes, LongSupplier clock) {
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(windowMs, 0));
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    static ReadCoalescer fromSystemProperties() {
+        String enabled = System.getProperty("carehub.coalesce.enabled", "true");
+        return new ReadCoalescer(Boolean.parseBoolean(enabled.trim()),
+                Long.getLong("carehub.coalesce.windowMs", DEFAULT_WINDOW_MS),
+                Integer.getInteger("carehub.coalesce.maxBytes", DEFAULT_MAX_BYTES),
+                System::nanoTime);
+    }
+
+    // Whether a request with this key should go through execute; false means serve it directly
+    boolean shares(String key) {
+        return enabled && !oversized.contains(key);
+    }
+
+    // The body for the key: taken from an identical read in flight or inside the window, or
+    // produced by the loader. The loader's exceptions reach every request that waited on it.
+    byte[] execute(String key, Callable<byte[]> loader) throws Exception {
+        requests.incrementAndGet();
+        String flightKey = generation.get() + " " + key;
+        while (true) {
+            Flight flight = flights.get(flightKey);
+            if (flight != null) {
+                if (!flight.body.isDone()) {
+                    joined.incrementAndGet();
+                    return await(flight);
+                }
+                if (clock.getAsLong() - flight.completedAt < windowNanos) {
+                    windowHits.incrementAndGet();
+                    return await(flight);
+                }
+                flights.remove(flightKey, flight);
+                continue;
+            }
+            Flight mine = new Flight();
+            if (flights.putIfAbsent(flightKey, mine) != null) {
+                continue;
+            }
+            return lead(key, flightKey, mine, loader);
+        }
+    }
+
+    private byte[] lead(String key, String flightKey, Flight flight, Callable<byte[]> loader) throws Exception {
+        executions.incrementAndGet();
+        if (flights.size() > MAX_REMEMBERED) {
+            prune();
+        }
+        try {
+            byte[] body = loader.call();
+            flight.completedAt = clock.getAsLong();
+            flight.body.complete(body);
+            if (windowNanos == 0) {
+                flights.remove(flightKey, flight);
+            }
+            return body;
+        } catch (Exception e) {
+            if (e instanceof TooLargeException) {
+                tooLarge.incrementAndGet();
+                if (oversized.size() >= MAX_REMEMBERED) {
+                    oversized.clear();
+                }
+                oversized.add(key);
+            }
+            flight.body.completeExceptionally(e);
+            flights.remove(flightKey, flight);
+            throw e;
+        }
+    }
+
+    private static byte[] await(Flight flight) throws Exception {
+        try {
+            return flight.body.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Called after every write; later reads start a new generation of flights
+    void invalidate() {
+        generation.incrementAndGet();
+        if (windowNanos > 0) {
+            prune();
+        }
+    }
+
+    // Finished flights of old generations or past the window are never answered again
+    private void prune() {
+        String current = generation.get() + " ";
+        long now = clock.getAsLong();
+        flights.entrySet().removeIf(entry -> entry.getValue().body.isDone()
+                && (!entry.getKey().startsWith(current) || now - entry.getValue().completedAt >= windowNanos));
+    }
+
+    // A body buffer that gives up once the body is too large to share
+    ByteArrayOutputStream newBuffer() {
+        return new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                check(len);
+                super.write(b, off, len);
+            }
+
+            @Override
+            public synchronized void write(int b) {
+                check(1);
+                super.write(b);
+            }
+
+            private void check(int len) {
+                if (count + len > maxBytes) {
+                    throw new TooLargeException();
+                }
+            }
+        };
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMs", TimeUnit.NANOSECONDS.toMillis(windowNanos));
+        stats.put("requests", requests.get());
+        stats.put("executions", executions.get());
+        stats.put("joined", joined.get());
+        stats.put("windowHits", windowHits.get());
+        stats.put("tooLarge", tooLarge.get());
+        stats.put("inFlight", flights.values().stream().filter(flight -> !flight.body.isDone()).count());
+        return stats;
+    }
+}
@@ -1,13 +1,15 @@
 package org.example;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 class ReceptionistDashboard extends JPanel {
     private HospitalManagementSystem system;
     private JTabbedPane tabbedPane;
+    private TabLoadCoordinator tabLoader;
+    private final LoadingIndicator loadingIndicator = new LoadingIndicator();
 
     public ReceptionistDashboard(HospitalManagementSystem system) {
         this.system = system;
@@ -21,9 +23,16 @@ class ReceptionistDashboard extends JPanel {
         // Tabbed interface
         tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Segoe UI", Font.PLAIN, 14)); // Set font for tabs
+        tabLoader = new TabLoadCoordinator(tabbedPane);
         tabbedPane.addTab("Appointments", new AppointmentManagementPanel());
         tabbedPane.addTab("Billing", new BillingManagementPanel());
+        for (Component comp : tabbedPane.getComponents()) {
+            if (comp instanceof Refreshable) {
+                tabLoader.register(comp, ((Refreshable) comp)::loadData);
+            }
+        }
         add(tabbedPane, BorderLayout.CENTER);
+        add(loadingIndicator, BorderLayout.PAGE_END);
     }
 
     public void refreshData() {
@@ -35,22 +44,38 @@ class ReceptionistDashboard extends JPanel {
         }
     }
 
+    // Loads the tables in the background, starting with the selected tab
+    public void loadData() {
+        tabLoader.loadAll();
+    }
+
+    public void cancelLoading() {
+        tabLoader.cancelAll();
+    }
+
     interface Refreshable {
         void refreshData();
+
+        // Starts filling the table off the EDT
+        TableLoader<?> loadData();
     }
 
     class AppointmentManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<Appointment> tableModel;
         private JTable appointmentTable;
 
         public AppointmentManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"ID", "Patient", "Doctor", "Date", "Time", "Description", "Status"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(Appointment::getAppointmentId)
+                    .addColumn("ID", Appointment::getAppointmentId)
+                    .addColumn("Patient", this::patientNameOf)
+                    .addColumn("Doctor", this::doctorNameOf)
+                    .addColumn("Date", Appointment::getDate)
+                    .addColumn("Time", Appointment::getTime)
+                    .addColumn("Description", Appointment::getDescription)
+                    .addColumn("Status", a -> a.isCompleted() ? "Completed" : "Pending");
             appointmentTable = system.new StyledTable(tableModel);
             JScrollPane scrollPane = new JScrollPane(appointmentTable);
             add(scrollPane, BorderLayout.CENTER);
@@ -66,8 +91,7 @@ class ReceptionistDashboard extends JPanel {
             cancelButton.addActionListener(e -> cancelAppointment());
             refreshButton.addActionListener(e -> {
                 System.out.println("Appointment Refresh button clicked - refreshing appointment data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
             logoutButton.addActionListener(e -> system.showLoginPanel());
 
@@ -83,41 +107,36 @@ class ReceptionistDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing appointment table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             List<Appointment> currentAppointments = system.getAllAppointments();
             System.out.println("Found " + currentAppointments.size() + " appointments");
 
-            for (Appointment a : currentAppointments) {
-                // Use stored names if available, otherwise lookup
-                String patientName = a.getPatientName();
-                String doctorName = a.getDoctorName();
-
-                // Fallback to lookup if names not stored
-                if (patientName == null || patientName.isEmpty()) {
-                    Patient p = system.getPatientById(a.getPatientId());
-                    patientName = p != null ? p.getName() : "Unknown Patient";
-                }
+            tableModel.setRecords(currentAppointments);
+            appointmentTable.revalidate();
+            appointmentTable.repaint();
+            System.out.println("Appointment table refreshed with " + currentAppointments.size() + " appointments");
+        }
 
-                if (doctorName == null || doctorName.isEmpty()) {
-                    Doctor d = system.getDoctorById(a.getDoctorId());
-                    doctorName = d != null ? d.getName() : "Unknown Doctor";
-                }
+        @Override
+        public TableLoader<?> loadData() {
+            return TableLoader.start(tableModel, system::getAllAppointments, loadingIndicator);
+        }
 
-                tableModel.addRow(new Object[]{
-                        a.getAppointmentId(),
-                        patientName,
-                        doctorName,
-                        a.getDate(),
-                        a.getTime(),
-                        a.getDescription(),
-                        a.isCompleted() ? "Completed" : "Pending"
-                });
+        // Use stored names if available, otherwise lookup
+        private String patientNameOf(Appointment a) {
+            if (a.getPatientName() != null && !a.getPatientName().isEmpty()) {
+                return a.getPatientName();
             }
+            Patient p = system.getPatientById(a.getPatientId());
+            return p != null ? p.getName() : "Unknown Patient";
+        }
 
-            tableModel.fireTableDataChanged();
-            appointmentTable.revalidate();
-            appointmentTable.repaint();
-            System.out.println("Appointment table refreshed with " + currentAppointments.size() + " appointments");
+        private String doctorNameOf(Appointment a) {
+            if (a.getDoctorName() != null && !a.getDoctorName().isEmpty()) {
+                return a.getDoctorName();
+            }
+            Doctor d = system.getDoctorById(a.getDoctorId());
+            return d != null ? d.getName() : "Unknown Doctor";
         }
 
         private void showAppointmentDialog() {
@@ -128,7 +147,7 @@ class ReceptionistDashboard extends JPanel {
 
             // 1. Patient Selection Panel (with New Patient button)
             JPanel patientPanel = new JPanel(new BorderLayout());
-            JComboBox<Patient> patientCombo = new JComboBox<>();
+            JComboBox<PatientSummary> patientCombo = new JComboBox<>();
             JButton newPatientButton = new JButton("New Patient");
             patientPanel.add(patientCombo, BorderLayout.CENTER);
             patientPanel.add(newPatientButton, BorderLayout.EAST);
@@ -139,6 +158,10 @@ class ReceptionistDashboard extends JPanel {
             // 3. Appointment Details
             JTextField dateField = new JTextField();
             JTextField timeField = new JTextField();
+            JPanel timePanel = new JPanel(new BorderLayout());
+            JButton nextFreeButton = new JButton("Next Free");
+            timePanel.add(timeField, BorderLayout.CENTER);
+            timePanel.add(nextFreeButton, BorderLayout.EAST);
             JTextArea descArea = new JTextArea(3, 20);
             descArea.setLineWrap(true);
 
@@ -154,7 +177,7 @@ class ReceptionistDashboard extends JPanel {
             dialog.add(new JLabel("Date (YYYY-MM-DD):"));
             dialog.add(dateField);
             dialog.add(new JLabel("Time (HH:MM):"));
-            dialog.add(timeField);
+            dialog.add(timePanel);
             dialog.add(new JLabel("Description:"));
             dialog.add(new JScrollPane(descArea));
 
@@ -204,9 +227,15 @@ class ReceptionistDashboard extends JPanel {
                         );
 
                         System.out.println("Creating new patient: " + newPatient.getName());
-                        system.addPatient(newPatient);
+                        WriteResult result = system.addPatient(newPatient);
+                        if (!result.isSuccess()) {
+                            JOptionPane.showMessageDialog(patientDialog,
+                                    HospitalManagementSystem.notSavedMessage("Patient", newPatient.getPatientId(), result),
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
                         refreshPatientCombo(patientCombo);
-                        patientCombo.setSelectedItem(newPatient);
+                        patientCombo.setSelectedItem(PatientSummary.of(newPatient));
                         patientDialog.dispose();
                         JOptionPane.showMessageDialog(dialog, "Patient added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                     } catch (NumberFormatException ex) {
@@ -234,11 +263,32 @@ class ReceptionistDashboard extends JPanel {
                 patientDialog.setVisible(true);
             });
 
+            // Fills in the selected doctor's first free slot from the entered date, or from now
+            nextFreeButton.addActionListener(e -> {
+                Doctor d = (Doctor) doctorCombo.getSelectedItem();
+                if (d == null) {
+                    return;
+                }
+                try {
+                    String date = dateField.getText().trim();
+                    LocalDateTime from = date.isEmpty() ? LocalDateTime.now(TemporalFields.zone()) : TemporalFields.parse(date, "00:00");
+                    List<LocalDateTime> free = system.getFreeSlots(d.getDoctorId(), from, 1);
+                    if (free.isEmpty()) {
+                        JOptionPane.showMessageDialog(dialog, "No free slots within a year", "Scheduling", JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    dateField.setText(free.get(0).toLocalDate().toString());
+                    timeField.setText(AppointmentScheduler.formatTime(free.get(0)));
+                } catch (IllegalArgumentException ex) {
+                    JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+
             // Save Button for Appointment
             JButton saveButton = new JButton("Save");
             saveButton.addActionListener(e -> {
                 try {
-                    Patient p = (Patient) patientCombo.getSelectedItem();
+                    PatientSummary p = (PatientSummary) patientCombo.getSelectedItem();
                     Doctor d = (Doctor) doctorCombo.getSelectedItem();
                     String date = dateField.getText().trim();
                     String time = timeField.getText().trim();
@@ -256,11 +306,18 @@ class ReceptionistDashboard extends JPanel {
                     newAppointment.setNames(p.getName(), d.getName());
 
                     System.out.println("Creating appointment for " + p.getName() + " with " + d.getName());
-                    system.addAppointment(newAppointment);
+                    WriteResult result = system.addAppointment(newAppointment);
+                    if (!result.isSuccess()) {
+                        JOptionPane.showMessageDialog(dialog, HospitalManagementSystem.notSavedMessage("Appointment", id, result),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     refreshData();
                     dialog.dispose();
                     JOptionPane.showMessageDialog(this, "Appointment created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
 
+                } catch (AppointmentScheduler.ConflictException ex) {
+                    JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Time Not Available", JOptionPane.WARNING_MESSAGE);
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(dialog, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -284,10 +341,10 @@ class ReceptionistDashboard extends JPanel {
         }
 
         // Helper method to refresh patient combo box
-        private void refreshPatientCombo(JComboBox<Patient> combo) {
-            DefaultComboBoxModel<Patient> model = (DefaultComboBoxModel<Patient>) combo.getModel();
+        private void refreshPatientCombo(JComboBox<PatientSummary> combo) {
+            DefaultComboBoxModel<PatientSummary> model = (DefaultComboBoxModel<PatientSummary>) combo.getModel();
             model.removeAllElements();
-            for (Patient p : system.getAllPatients()) {
+            for (PatientSummary p : system.getPatientSummaries()) {
                 model.addElement(p);
             }
         }
@@ -319,7 +376,7 @@ class ReceptionistDashboard extends JPanel {
 
             if (confirm == JOptionPane.YES_OPTION) {
                 System.out.println("Cancelling appointment: " + id);
-                system.getAllAppointments().removeIf(a -> a.getAppointmentId().equals(id));
+                system.deleteAppointment(id);
                 refreshData();
                 JOptionPane.showMessageDialog(this, "Appointment cancelled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -327,17 +384,22 @@ class ReceptionistDashboard extends JPanel {
     }
 
     class BillingManagementPanel extends JPanel implements Refreshable {
-        private DefaultTableModel tableModel;
+        private RecordTableModel<Bill> tableModel;
         private JTable billTable;
 
         public BillingManagementPanel() {
             setLayout(new BorderLayout());
 
             // Table setup
-            String[] columns = {"ID", "Patient", "Amount", "Description", "Status"};
-            tableModel = new DefaultTableModel(columns, 0) {
-                @Override public boolean isCellEditable(int row, int column) { return false; }
-            };
+            tableModel = new RecordTableModel<>(Bill::getBillId)
+                    .addColumn("ID", Bill::getBillId)
+                    .addColumn("Patient", b -> {
+                        Patient p = system.getPatientById(b.getPatientId());
+                        return p != null ? p.getName() : "Unknown Patient";
+                    })
+                    .addColumn("Amount", b -> String.format("$%.2f", b.getAmount()))
+                    .addColumn("Description", Bill::getDescription)
+                    .addColumn("Status", b -> b.isPaid() ? "Paid" : "Pending");
             billTable = system.new StyledTable(tableModel);
             JScrollPane scrollPane = new JScrollPane(billTable);
             add(scrollPane, BorderLayout.CENTER);
@@ -353,8 +415,7 @@ class ReceptionistDashboard extends JPanel {
             payButton.addActionListener(e -> markBillPaid());
             refreshButton.addActionListener(e -> {
                 System.out.println("Billing Refresh button clicked - refreshing billing data...");
-                system.refreshAllData(); // Refresh from database first
-                refreshData(); // Then refresh UI
+                system.refreshAllData(); // Reloads the visible dashboard in the background
             });
             logoutButton.addActionListener(e -> system.showLoginPanel());
 
@@ -371,40 +432,34 @@ class ReceptionistDashboard extends JPanel {
         @Override
         public void refreshData() {
             System.out.println("Refreshing billing table data...");
-            tableModel.setRowCount(0);
+            tabLoader.cancel(this);
             List<Bill> currentBills = system.getAllBills();
             System.out.println("Found " + currentBills.size() + " bills");
 
-            for (Bill b : currentBills) {
-                Patient p = system.getPatientById(b.getPatientId());
-                tableModel.addRow(new Object[]{
-                        b.getBillId(),
-                        p != null ? p.getName() : "Unknown Patient",
-                        String.format("$%.2f", b.getAmount()),
-                        b.getDescription(),
-                        b.isPaid() ? "Paid" : "Pending"
-                });
-            }
-
-            tableModel.fireTableDataChanged();
+            tableModel.setRecords(currentBills);
             billTable.revalidate();
             billTable.repaint();
             System.out.println("Billing table refreshed with " + currentBills.size() + " bills");
         }
 
+        @Override
+        public TableLoader<?> loadData() {
+            return TableLoader.start(tableModel, system::getAllBills, loadingIndicator);
+        }
+
         private void showBillDialog() {
             JDialog dialog = new JDialog();
             dialog.setTitle("New Bill");
             dialog.setModal(true);
             dialog.setLayout(new GridLayout(0, 2, 10, 10));
 
-            JComboBox<Patient> patientCombo = new JComboBox<>();
+            JComboBox<PatientSummary> patientCombo = new JComboBox<>();
             JTextField amountField = new JTextField();
             JTextArea descArea = new JTextArea(3, 20);
             descArea.setLineWrap(true);
 
             // Populate patient combo
-            for (Patient p : system.getAllPatients()) {
+            for (PatientSummary p : system.getPatientSummaries()) {
                 patientCombo.addItem(p);
             }
 
@@ -418,7 +473,7 @@ class ReceptionistDashboard extends JPanel {
             JButton saveButton = new JButton("Save");
             saveButton.addActionListener(e -> {
                 try {
-                    Patient p = (Patient) patientCombo.getSelectedItem();
+                    PatientSummary p = (PatientSummary) patientCombo.getSelectedItem();
                     String amountText = amountField.getText().trim();
                     String desc = descArea.getText().trim();
 
@@ -435,7 +490,12 @@ class ReceptionistDashboard extends JPanel {
                     Bill newBill = new Bill(id, p.getPatientId(), amount, desc);
 
                     System.out.println("Creating bill for " + p.getName() + ": $" + amount);
-                    system.addBill(newBill);
+                    WriteResult result = system.addBill(newBill);
+                    if (!result.isSuccess()) {
+                        JOptionPane.showMessageDialog(dialog, HospitalManagementSystem.notSavedMessage("Bill", id, result),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     refreshData();
                     dialog.dispose();
                     JOptionPane.showMessageDialog(this, "Bill created successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -487,7 +547,7 @@ class ReceptionistDashboard extends JPanel {
             if (confirm == JOptionPane.YES_OPTION) {
                 System.out.println("Marking bill as paid: " + id);
                 system.markBillPaid(id);
-                refreshData();
+                tableModel.recordChanged(id); // Only the status cell changes
                 JOptionPane.showMessageDialog(this, "Bill marked as paid successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
             }
         }
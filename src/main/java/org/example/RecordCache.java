@@ -0,0 +1,305 @@
+package org.example;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import org.bson.RawBsonDocument;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static com.mongodb.client.model.Filters.eq;
+
+// A bounded read-through cache of one collection's documents by business key, shared by every
+// DAO of that collection in the process. Entries are the raw BSON the server returned: a hit
+// decodes a fresh object the caller may modify, and an entry weighs its size in bytes.
+//   -Dcarehub.cache.maxEntries=10000     (default; 0 turns caching off)
+//   -Dcarehub.cache.maxBytes=16777216    (default 16 MB)
+//   -Dcarehub.cache.ttlSeconds=60        (default)
+// Each can be set per collection, e.g. -Dcarehub.cache.patients.ttlSeconds=300. The time to live
+// bounds how long a write made by another process goes unseen; writes through the DAOs of this
+// process invalidate the keys they touch.
+//
+// Entries leave in least-recently-used order, but a new key only displaces the LRU victim when
+// it has been asked for more often recently (TinyLFU admission), so a one-off scan of cold
+// records cannot flush the hot ones.
+final class RecordCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+    static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    static final long DEFAULT_TTL_SECONDS = 60;
+
+    private static final int STRIPES = 64;
+    private static final Map<String, RecordCache> SHARED = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // LRU order
+    private final FrequencySketch frequencies;
+    // Bumped by every invalidation of a key hashing to the stripe. A load only stores its result
+    // if its stripe did not move meanwhile, so a read racing a write cannot cache the old value.
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long rejections;
+
+    private static final class Entry {
+        final RawBsonDocument value;
+        final int weight;
+        final long loadedAt;
+
+        Entry(RawBsonDocument value, long loadedAt) {
+            this.value = value;
+            this.weight = value.getByteBuffer().remaining();
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    RecordCache(String name, int maxEntries, long maxBytes, long ttlSeconds, LongSupplier clock) {
+        if (maxEntries < 0 || maxBytes < 0 || ttlSeconds < 0) {
+            throw new IllegalArgumentException("Cache limits of " + name + " must not be negative");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clock = clock;
+        this.frequencies = new FrequencySketch(Math.max(maxEntries, 1));
+    }
+
+    // The process-wide cache of a collection, configured from system properties on first use
+    static RecordCache forCollection(String collection) {
+        return SHARED.computeIfAbsent(collection, RecordCache::fromSystemProperties);
+    }
+
+    static RecordCache fromSystemProperties(String collection) {
+        return new RecordCache(collection,
+                (int) setting(collection, "maxEntries", DEFAULT_MAX_ENTRIES),
+                setting(collection, "maxBytes", DEFAULT_MAX_BYTES),
+                setting(collection, "ttlSeconds", DEFAULT_TTL_SECONDS),
+                System::nanoTime);
+    }
+
+    private static long setting(String collection, String key, long defaultValue) {
+        long global = Long.getLong("carehub.cache." + key, defaultValue);
+        return Long.getLong("carehub.cache." + collection + "." + key, global);
+    }
+
+    // Empties every shared cache, for when collections are dropped or reloaded wholesale
+    static void clearAll() {
+        SHARED.values().forEach(RecordCache::clear);
+    }
+
+    // Stats of every shared cache, by collection
+    static Map<String, Object> allStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        SHARED.forEach((collection, cache) -> stats.put(collection, cache.getStats()));
+        return stats;
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0 && maxBytes > 0 && ttlNanos > 0;
+    }
+
+    // The document whose keyField is key, read through the cache and decoded with the
+    // collection's codecs. Loads go to the primary whatever the collection's read preference:
+    // a lagging secondary could return the copy a write of this process just replaced, and
+    // caching it would keep it for the whole time to live after the write's invalidation.
+    <T> T find(MongoCollection<?> collection, String keyField, String key, Class<T> type) {
+        MongoCollection<RawBsonDocument> raw = collection.withDocumentClass(RawBsonDocument.class);
+        MongoCollection<RawBsonDocument> source = isEnabled() ? raw.withReadPreference(ReadPreference.primary()) : raw;
+        RawBsonDocument document = get(key, k -> source.find(eq(keyField, k)).first());
+        return document != null ? document.decode(collection.getCodecRegistry().get(type)) : null;
+    }
+
+    // The cached document, or the loader's result; null (not found) is passed through and not
+    // cached. Loader exceptions propagate and leave the cache unchanged.
+    RawBsonDocument get(String key, Function<String, RawBsonDocument> loader) {
+        if (!isEnabled()) {
+            return loader.apply(key);
+        }
+        long stamp;
+        synchronized (this) {
+            frequencies.increment(key);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    return entry.value;
+                }
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            stamp = stamps.get(stripe(key));
+        }
+        RawBsonDocument loaded = loader.apply(key);
+        if (loaded != null) {
+            put(key, loaded, stamp);
+        }
+        return loaded;
+    }
+
+    // Called after every write to the key, whether or not it succeeded
+    void invalidate(String key) {
+        stamps.incrementAndGet(stripe(key));
+        synchronized (this) {
+            if (remove(key) != null) {
+                invalidations++;
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        synchronized (this) {
+            invalidations += entries.size();
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    private synchronized void put(String key, RawBsonDocument value, long stamp) {
+        if (stamps.get(stripe(key)) != stamp) {
+            return;
+        }
+        Entry entry = new Entry(value, clock.getAsLong());
+        if (entry.weight > maxBytes) {
+            rejections++;
+            return;
+        }
+        remove(key);
+        // Admission: a full cache only takes the new key if it is asked for more often than
+        // the entries it would push out
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        int needed = 0;
+        long freed = 0;
+        while (eldest.hasNext() && (entries.size() - needed + 1 > maxEntries || bytes - freed + entry.weight > maxBytes)) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            if (frequencies.frequency(key) <= frequencies.frequency(victim.getKey())) {
+                rejections++;
+                return;
+            }
+            needed++;
+            freed += victim.getValue().weight;
+        }
+        eldest = entries.entrySet().iterator();
+        for (int i = 0; i < needed; i++) {
+            bytes -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+        entries.put(key, entry);
+        bytes += entry.weight;
+    }
+
+    private Entry remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.weight;
+        }
+        return removed;
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    String getName() { return name; }
+    synchronized int size() { return entries.size(); }
+    synchronized long getBytes() { return bytes; }
+    synchronized long getHits() { return hits; }
+    synchronized long getMisses() { return misses; }
+    synchronized long getEvictions() { return evictions; }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("entries", entries.size());
+        stats.put("bytes", bytes);
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        long requests = hits + misses;
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        stats.put("invalidations", invalidations);
+        stats.put("rejections", rejections);
+        return stats;
+    }
+
+    // Approximate recent access counts: a count-min sketch of four rows of counters capped at
+    // 15. All counters are halved once the cache size times ten accesses have been counted, so
+    // old popularity fades.
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 24)) * 2 - 1);
+            counters = new byte[ROWS][width];
+            mask = width - 1;
+            resetAfter = (int) Math.min(Integer.MAX_VALUE, 10L * capacity);
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAfter) {
+                for (byte[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, counters[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example;
+
+import com.mongodb.client.MongoCursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.function.Function;
+
+// Forward-only view over a query result that maps documents one at a time,
+// so callers can stream large collections without building a List first.
+// Must be closed to release the underlying server cursor.
+public interface RecordCursor<T> extends Iterator<T>, Closeable {
+
+    @Override
+    void close();
+
+    static <T> RecordCursor<T> over(MongoCursor<T> cursor) {
+        return over(cursor, Function.identity());
+    }
+
+    static <S, T> RecordCursor<T> over(MongoCursor<S> cursor, Function<S, T> mapper) {
+        return new RecordCursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return mapper.apply(cursor.next());
+            }
+
+            @Override
+            public void close() {
+                cursor.close();
+            }
+        };
+    }
+
+    static <T> RecordCursor<T> of(Iterable<T> records) {
+        Iterator<T> iterator = records.iterator();
+        return new RecordCursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package org.example;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Filter and projection for list reads, built from request parameters:
+//   /api/appointments?doctorId=DOC1&from=2024-03-01&to=2024-03-07&completed=false&fields=appointmentId,time
+// Only fields declared in the collection's Fields can be filtered on or selected, and every
+// filterable field has an index (see DatabaseSchemaInitializer), so filters never turn a
+// list read into a collection scan.
+public final class RecordFilter {
+
+    // What a collection allows: equality filters on text fields, true/false filters, an
+    // optional yyyy-MM-dd range field, and the fields a projection may select
+    public static final class Fields {
+        final String keyField;
+        final Set<String> textFields;
+        final Set<String> booleanFields;
+        final String dateField;
+        final Set<String> projectable;
+
+        Fields(String keyField, List<String> textFields, List<String> booleanFields, String dateField,
+               List<String> projectable) {
+            this.keyField = keyField;
+            this.textFields = new LinkedHashSet<>(textFields);
+            this.booleanFields = new LinkedHashSet<>(booleanFields);
+            this.dateField = dateField;
+            this.projectable = new LinkedHashSet<>(projectable);
+        }
+    }
+
+    public static final Fields PATIENTS = new Fields("patientId",
+            Arrays.asList("name", "phone"), Collections.emptyList(), null,
+            Arrays.asList("patientId", "name", "age", "gender", "address", "phone",
+                    "allergies", "medications", "medicalHistory"));
+    public static final Fields DOCTORS = new Fields("doctorId",
+            Arrays.asList("specialization"), Collections.emptyList(), null,
+            Arrays.asList("doctorId", "name", "specialization", "availability"));
+    public static final Fields APPOINTMENTS = new Fields("appointmentId",
+            Arrays.asList("patientId", "doctorId"), Arrays.asList("completed"), "date",
+            Arrays.asList("appointmentId", "patientId", "patientName", "doctorId", "doctorName",
+                    "date", "time", "description", "completed"));
+    public static final Fields BILLS = new Fields("billId",
+            Arrays.asList("patientId"), Arrays.asList("paid"), null,
+            Arrays.asList("billId", "patientId", "amount", "description", "paid"));
+
+    public static final RecordFilter NONE = new RecordFilter(Collections.emptyList(), Collections.emptyList(), null);
+
+    private final List<Bson> conditions;
+    private final List<Predicate<Document>> predicates; // the same conditions, for the in-memory engine
+    private final List<String> selectedFields; // null selects whole records
+
+    private RecordFilter(List<Bson> conditions, List<Predicate<Document>> predicates, List<String> selectedFields) {
+        this.conditions = conditions;
+        this.predicates = predicates;
+        this.selectedFields = selectedFields;
+    }
+
+    // Parameters that are not filters for this collection (limit, cursor, ...) are ignored;
+    // malformed values throw IllegalArgumentException
+    public static RecordFilter fromParameters(Map<String, String> params, Fields fields) {
+        List<Bson> conditions = new ArrayList<>();
+        List<Predicate<Document>> predicates = new ArrayList<>();
+        for (String field : fields.textFields) {
+            String value = params.get(field);
+            if (value != null && !value.isEmpty()) {
+                conditions.add(Filters.eq(field, value));
+                predicates.add(doc -> value.equals(doc.get(field)));
+            }
+        }
+        for (String field : fields.booleanFields) {
+            String value = params.get(field);
+            if (value != null && !value.isEmpty()) {
+                Boolean expected = parseBoolean(field, value);
+                conditions.add(Filters.eq(field, expected));
+                predicates.add(doc -> expected.equals(doc.get(field)));
+            }
+        }
+        if (fields.dateField != null) {
+            String dateField = fields.dateField;
+            String date = params.get("date");
+            String from = params.get("from");
+            String to = params.get("to");
+            if (date != null && !date.isEmpty()) {
+                String day = parseDate("date", date);
+                conditions.add(Filters.eq(dateField, day));
+                predicates.add(doc -> day.equals(doc.get(dateField)));
+            }
+            if (from != null && !from.isEmpty()) {
+                String first = parseDate("from", from);
+                conditions.add(Filters.gte(dateField, first));
+                predicates.add(doc -> doc.get(dateField) instanceof String && ((String) doc.get(dateField)).compareTo(first) >= 0);
+            }
+            if (to != null && !to.isEmpty()) {
+                String last = parseDate("to", to);
+                conditions.add(Filters.lte(dateField, last));
+                predicates.add(doc -> doc.get(dateField) instanceof String && ((String) doc.get(dateField)).compareTo(last) <= 0);
+            }
+        }
+
+        List<String> selected = null;
+        String requested = params.get("fields");
+        if (requested != null && !requested.isEmpty()) {
+            Set<String> names = new LinkedHashSet<>();
+            names.add(fields.keyField); // pages continue from the last key
+            for (String name : requested.split(",")) {
+                String field = name.trim();
+                if (field.isEmpty()) {
+                    continue;
+                }
+                if (!fields.projectable.contains(field)) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                names.add(field);
+            }
+            selected = new ArrayList<>(names);
+        }
+        return new RecordFilter(conditions, predicates, selected);
+    }
+
+    public Bson toBson() {
+        if (conditions.isEmpty()) {
+            return new Document();
+        }
+        return conditions.size() == 1 ? conditions.get(0) : Filters.and(conditions);
+    }
+
+    // Combined with the keyset condition of a page read
+    public Bson and(Bson condition) {
+        if (conditions.isEmpty()) {
+            return condition;
+        }
+        List<Bson> all = new ArrayList<>(conditions);
+        all.add(condition);
+        return Filters.and(all);
+    }
+
+    // Evaluates the filter against a stored document, as the server would
+    public boolean matches(Document doc) {
+        for (Predicate<Document> predicate : predicates) {
+            if (!predicate.test(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasProjection() {
+        return selectedFields != null;
+    }
+
+    public List<String> getSelectedFields() {
+        return selectedFields;
+    }
+
+    // _id is always left out; null when whole records are wanted
+    public Bson projection() {
+        if (selectedFields == null) {
+            return null;
+        }
+        return Projections.fields(Projections.include(selectedFields), Projections.excludeId());
+    }
+
+    // The selected fields of a stored document, in stored order, like a server-side projection
+    public Document project(Document doc) {
+        Document projected = new Document();
+        for (Map.Entry<String, Object> field : doc.entrySet()) {
+            if (selectedFields.contains(field.getKey())) {
+                projected.append(field.getKey(), field.getValue());
+            }
+        }
+        return projected;
+    }
+
+    private static boolean parseBoolean(String field, String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException(field + " must be true or false");
+    }
+
+    // Dates are stored as yyyy-MM-dd strings, which order the same way as the dates
+    private static String parseDate(String parameter, String value) {
+        try {
+            return LocalDate.parse(value).toString();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(parameter + " must be a date in yyyy-MM-dd format");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Table model that reads cells straight from the domain objects instead of copying every
+// record into an Object[] row. It holds only a list of references; cell values (formatted
+// amounts, looked-up names) are computed when a cell is painted, so only visible rows cost
+// anything. Each bulk change fires a single event. Use on the EDT only.
+class RecordTableModel<T> extends AbstractTableModel {
+
+    private final Function<T, String> idOf;
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<Function<T, Object>> columnValues = new ArrayList<>();
+    private List<T> records = new ArrayList<>();
+
+    RecordTableModel(Function<T, String> idOf) {
+        this.idOf = idOf;
+    }
+
+    RecordTableModel<T> addColumn(String name, Function<T, Object> value) {
+        columnNames.add(name);
+        columnValues.add(value);
+        return this;
+    }
+
+    // Replaces all rows with one tableDataChanged event; null is treated as empty
+    void setRecords(Collection<T> newRecords) {
+        records = newRecords == null ? new ArrayList<>() : new ArrayList<>(newRecords);
+        fireTableDataChanged();
+    }
+
+    void clear() {
+        setRecords(null);
+    }
+
+    // Appends a chunk with one rowsInserted event
+    void appendRecords(Collection<T> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int first = records.size();
+        records.addAll(chunk);
+        fireTableRowsInserted(first, records.size() - 1);
+    }
+
+    // Repaints the row of a record that was changed in place (e.g. marked paid)
+    void recordChanged(String id) {
+        int row = indexOf(id);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    void removeRecord(String id) {
+        int row = indexOf(id);
+        if (row >= 0) {
+            records.remove(row);
+            fireTableRowsDeleted(row, row);
+        }
+    }
+
+    int indexOf(String id) {
+        for (int i = 0; i < records.size(); i++) {
+            if (idOf.apply(records.get(i)).equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    T getRecordAt(int row) {
+        return records.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return records.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames.get(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columnValues.get(column).apply(records.get(row));
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+}
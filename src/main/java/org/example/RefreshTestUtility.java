@@ -74,7 +74,7 @@ public class RefreshTestUtility extends JFrame {
             );
 
             log("Adding test patient: " + patientId);
-            boolean success = patientDAO.insertPatient(testPatient);
+            boolean success = patientDAO.insertPatient(testPatient).isSuccess();
 
             if (success) {
                 log("✓ Patient added successfully!");
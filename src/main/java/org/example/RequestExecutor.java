@@ -0,0 +1,158 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Executor used by RestApiServer to run request handlers off the HttpServer dispatcher thread.
+// Keeps queue-depth and in-flight gauges so saturation is visible through /metrics.
+public class RequestExecutor implements Executor {
+
+    public enum Mode {
+        VIRTUAL,   // one virtual thread per request
+        POOL,      // bounded platform thread pool
+        INLINE     // legacy behaviour: run on the dispatcher thread
+    }
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private final Mode mode;
+    private final ExecutorService delegate;
+    private final int poolSize;
+    private final int queueCapacity;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong overflow = new AtomicLong();
+
+    public RequestExecutor(Mode mode, int poolSize, int queueCapacity) {
+        this.mode = mode;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+
+        switch (mode) {
+            case VIRTUAL:
+                delegate = Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("api-request-", 0).factory());
+                break;
+            case POOL:
+                AtomicInteger threadNumber = new AtomicInteger();
+                delegate = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity),
+                        r -> {
+                            Thread t = new Thread(r, "api-request-" + threadNumber.getAndIncrement());
+                            t.setDaemon(true);
+                            return t;
+                        });
+                break;
+            default:
+                delegate = null;
+        }
+    }
+
+    // Reads carehub.server.executor (virtual|pool|inline), carehub.server.poolSize
+    // and carehub.server.queueCapacity from system properties.
+    public static RequestExecutor fromSystemProperties() {
+        Mode mode = Mode.VIRTUAL;
+        String configured = System.getProperty("carehub.server.executor");
+        if (configured != null && !configured.isBlank()) {
+            try {
+                mode = Mode.valueOf(configured.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown executor mode '" + configured + "', using " + mode);
+            }
+        }
+        int poolSize = Integer.getInteger("carehub.server.poolSize", DEFAULT_POOL_SIZE);
+        int queueCapacity = Integer.getInteger("carehub.server.queueCapacity", DEFAULT_QUEUE_CAPACITY);
+        return new RequestExecutor(mode, poolSize, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (delegate == null) {
+            runTracked(task);
+            return;
+        }
+
+        queueDepth.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                queueDepth.decrementAndGet();
+                runTracked(task);
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool and queue are full: fall back to the caller (the dispatcher thread),
+            // which pushes back on the accept loop instead of dropping the exchange.
+            queueDepth.decrementAndGet();
+            overflow.incrementAndGet();
+            runTracked(task);
+        }
+    }
+
+    private void runTracked(Runnable task) {
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            completed.incrementAndGet();
+        }
+    }
+
+    public void shutdown() {
+        if (delegate != null) {
+            delegate.shutdown();
+            try {
+                if (!delegate.awaitTermination(5, TimeUnit.SECONDS)) {
+                    delegate.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                delegate.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Gauges
+    public Mode getMode() { return mode; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public int getQueueDepth() { return queueDepth.get(); }
+    public int getInFlight() { return inFlight.get(); }
+    public int getPeakInFlight() { return peakInFlight.get(); }
+    public long getCompleted() { return completed.get(); }
+    public long getOverflow() { return overflow.get(); }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.toString());
+        if (mode == Mode.POOL) {
+            stats.put("poolSize", poolSize);
+            stats.put("queueCapacity", queueCapacity);
+        }
+        stats.put("queueDepth", getQueueDepth());
+        stats.put("inFlight", getInFlight());
+        stats.put("peakInFlight", getPeakInFlight());
+        stats.put("completed", getCompleted());
+        stats.put("overflow", getOverflow());
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.POOL
+                ? mode + " (poolSize=" + poolSize + ", queueCapacity=" + queueCapacity + ")"
+                : mode.toString();
+    }
+}
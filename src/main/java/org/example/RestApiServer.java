@@ -4,56 +4,114 @@ import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.bson.Document;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class RestApiServer {
     private HttpServer server;
-    private final Gson gson = new Gson();
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_BULK_ITEMS = 10_000;
 
-    // DAO instances
-    private PatientDAO patientDAO;
-    private DoctorDAO doctorDAO;
-    private AppointmentDAO appointmentDAO;
-    private BillDAO billDAO;
-    private UserDAO userDAO;
+    private final Gson gson = new Gson();
+    private final RequestExecutor requestExecutor;
+    private final ReadCoalescer coalescer = ReadCoalescer.fromSystemProperties();
+
+    // ETags of the record and list responses (see CollectionVersions)
+    private final CollectionVersions patientVersions = CollectionVersions.forCollection("patients");
+    private final CollectionVersions doctorVersions = CollectionVersions.forCollection("doctors");
+    private final CollectionVersions appointmentVersions = CollectionVersions.forCollection("appointments");
+    private final CollectionVersions billVersions = CollectionVersions.forCollection("bills");
+    private HealthMonitor healthMonitor;
+
+    // Executor queue fill ratio at which the server reports itself degraded
+    private static final double QUEUE_DEGRADED_RATIO = 0.8;
+
+    // Stores of the selected backend (see StorageBackend)
+    private StorageBackend storage;
+    private PatientStore patientDAO;
+    private DoctorStore doctorDAO;
+    private AppointmentStore appointmentDAO;
+    private BillStore billDAO;
+    private UserStore userDAO;
+    private MedicalRecordStore medicalRecordDAO;
+    private AppointmentScheduler scheduler;
+
+    // Upper bound for GET /api/doctors/{id}/slots?count=
+    private static final int MAX_SLOTS = 100;
+    // Upper bound for GET /api/patients/{id}/records?days=
+    private static final int MAX_HISTORY_DAYS = 3660;
 
     public RestApiServer() {
-        initializeDAOs();
+        this(RequestExecutor.fromSystemProperties());
     }
 
-    private void initializeDAOs() {
+    public RestApiServer(RequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
         try {
-            patientDAO = new PatientDAO();
-            doctorDAO = new DoctorDAO();
-            appointmentDAO = new AppointmentDAO();
-            billDAO = new BillDAO();
-            userDAO = new UserDAO();
-            System.out.println("DAOs initialized successfully");
+            initializeStores(StorageBackend.fromSystemProperties());
         } catch (Exception e) {
             System.err.println("Error initializing DAOs: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    public RestApiServer(RequestExecutor requestExecutor, StorageBackend storage) {
+        this.requestExecutor = requestExecutor;
+        initializeStores(storage);
+    }
+
+    private void initializeStores(StorageBackend storage) {
+        this.storage = storage;
+        patientDAO = storage.getPatientStore();
+        doctorDAO = storage.getDoctorStore();
+        appointmentDAO = storage.getAppointmentStore();
+        billDAO = storage.getBillStore();
+        userDAO = storage.getUserStore();
+        medicalRecordDAO = storage.getMedicalRecordStore();
+        scheduler = AppointmentScheduler.fromSystemProperties(doctorDAO::getDoctorById, appointmentDAO::getAppointmentsByDoctorId,
+                appointmentDAO::getAppointmentsForDoctorBetween);
+        IDGenerator.useCounterStore(storage.getCounterStore());
+        System.out.println("Stores initialized successfully (" + storage + ")");
+    }
+
+    private boolean usesDatabase() {
+        return storage == null || storage.isPersistent();
+    }
+
     public void start(int port) {
         try {
             System.out.println("Starting REST API Server...");
-            System.out.println("Testing database connection...");
+            if (usesDatabase()) {
+                System.out.println("Testing database connection...");
 
-            boolean dbConnected = DatabaseConnection.getInstance().testConnection();
-            if (!dbConnected) {
-                System.err.println("WARNING: Database connection failed. Server will start but some operations may fail.");
-                System.err.println("Please check your MongoDB Atlas connection and network connectivity.");
+                boolean dbConnected = DatabaseConnection.getInstance().testConnection();
+                if (!dbConnected) {
+                    System.err.println("WARNING: Database connection failed. Server will start but some operations may fail.");
+                    System.err.println("Please check your MongoDB Atlas connection and network connectivity.");
+                } else {
+                    System.out.println("Database connection successful!");
+                }
             } else {
-                System.out.println("Database connection successful!");
+                System.out.println("Using in-memory storage; data is lost when the server stops.");
             }
 
             server = HttpServer.create(new InetSocketAddress(port), 0);
@@ -64,21 +122,29 @@ public class RestApiServer {
             setupAppointmentEndpoints();
             setupBillEndpoints();
             setupUserEndpoints();
+            setupBulkEndpoints();
             setupHealthEndpoint();
+            setupMetricsEndpoint();
 
-            server.setExecutor(null);
+            server.setExecutor(requestExecutor);
             server.start();
 
             System.out.println("✅ REST API Server started successfully on port " + port);
+            System.out.println("⚙️ Request execution mode: " + requestExecutor);
             System.out.println("🌐 Server URL: http://localhost:" + port);
             System.out.println("\n📋 Available endpoints:");
             System.out.println("  Health Check: GET  http://localhost:" + port + "/health");
+            System.out.println("  Liveness:     GET  http://localhost:" + port + "/health/live");
+            System.out.println("  Readiness:    GET  http://localhost:" + port + "/health/ready");
+            System.out.println("  Metrics:      GET  http://localhost:" + port + "/metrics");
             System.out.println("  Patients:     GET  http://localhost:" + port + "/api/patients");
             System.out.println("  Patients:     POST http://localhost:" + port + "/api/patients");
             System.out.println("  Patient by ID: GET http://localhost:" + port + "/api/patients/{id}");
             System.out.println("  Update Patient: PUT http://localhost:" + port + "/api/patients/{id}");
             System.out.println("  Delete Patient: DELETE http://localhost:" + port + "/api/patients/{id}");
             System.out.println("  Doctors:      GET  http://localhost:" + port + "/api/doctors");
+            System.out.println("  Free slots:   GET  http://localhost:" + port + "/api/doctors/{id}/slots");
+            System.out.println("  Day schedule: GET  http://localhost:" + port + "/api/doctors/{id}/schedule");
             System.out.println("  Appointments: GET  http://localhost:" + port + "/api/appointments");
             System.out.println("  Bills:        GET  http://localhost:" + port + "/api/bills");
             System.out.println("  Users:        GET  http://localhost:" + port + "/api/users");
@@ -100,19 +166,215 @@ public class RestApiServer {
         }
     }
 
+    // POST /api/{collection}/bulk?mode=insert|upsert|delete&ordered=true|false
+    private void setupBulkEndpoints() {
+        createBulkContext("/api/patients/bulk", new BulkTarget<Patient>() {
+            public String idField() { return "patientId"; }
+            public Patient parse(JsonObject json) { return parsePatient(json); }
+            public BulkWriteSummary insert(List<Patient> items, boolean ordered) { return patientDAO.bulkInsertPatients(items, ordered); }
+            public BulkWriteSummary upsert(List<Patient> items, boolean ordered) { return patientDAO.bulkUpsertPatients(items, ordered); }
+            public BulkWriteSummary delete(List<String> ids, boolean ordered) { return patientDAO.bulkDeletePatients(ids, ordered); }
+        });
+
+        createBulkContext("/api/doctors/bulk", new BulkTarget<Doctor>() {
+            public String idField() { return "doctorId"; }
+            public Doctor parse(JsonObject json) { return parseDoctor(json); }
+            public BulkWriteSummary insert(List<Doctor> items, boolean ordered) { return doctorDAO.bulkInsertDoctors(items, ordered); }
+            public BulkWriteSummary upsert(List<Doctor> items, boolean ordered) { return doctorDAO.bulkUpsertDoctors(items, ordered); }
+            public BulkWriteSummary delete(List<String> ids, boolean ordered) { return doctorDAO.bulkDeleteDoctors(ids, ordered); }
+        });
+
+        // Each item is booked like a single create; see scheduledBulkWrite
+        createBulkContext("/api/appointments/bulk", new BulkTarget<Appointment>() {
+            public String idField() { return "appointmentId"; }
+            public Appointment parse(JsonObject json) { return parseAppointment(json); }
+            public BulkWriteSummary insert(List<Appointment> items, boolean ordered) {
+                return scheduledBulkWrite("insert", items, ordered, appointmentDAO::bulkInsertAppointments);
+            }
+            public BulkWriteSummary upsert(List<Appointment> items, boolean ordered) {
+                return scheduledBulkWrite("upsert", items, ordered, appointmentDAO::bulkUpsertAppointments);
+            }
+            public BulkWriteSummary delete(List<String> ids, boolean ordered) {
+                BulkWriteSummary summary = appointmentDAO.bulkDeleteAppointments(ids, ordered);
+                for (String id : summary.idsWith(BulkWriteSummary.ItemStatus.OK)) {
+                    scheduler.release(id);
+                }
+                return summary;
+            }
+        });
+
+        createBulkContext("/api/bills/bulk", new BulkTarget<Bill>() {
+            public String idField() { return "billId"; }
+            public Bill parse(JsonObject json) { return parseBill(json); }
+            public BulkWriteSummary insert(List<Bill> items, boolean ordered) { return billDAO.bulkInsertBills(items, ordered); }
+            public BulkWriteSummary upsert(List<Bill> items, boolean ordered) { return billDAO.bulkUpsertBills(items, ordered); }
+            public BulkWriteSummary delete(List<String> ids, boolean ordered) { return billDAO.bulkDeleteBills(ids, ordered); }
+        });
+    }
+
+    // Reserves every item's slot in request order, as a single create would, before writing the
+    // accepted items in one bulk write. Items that conflict with a stored appointment or with an
+    // earlier item, or fall outside the doctor's hours, are reported FAILED; an ordered write
+    // stops there and skips the rest. Slots of items the write did not apply are given back.
+    private BulkWriteSummary scheduledBulkWrite(String operation, List<Appointment> items, boolean ordered,
+                                                BiFunction<List<Appointment>, Boolean, BulkWriteSummary> write) {
+        List<String> ids = new ArrayList<>();
+        for (Appointment item : items) {
+            ids.add(item.getAppointmentId());
+        }
+        BulkWriteSummary summary = new BulkWriteSummary(operation, ordered, ids);
+        List<Appointment> accepted = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<AppointmentScheduler.Booking> previous = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                previous.add(scheduler.reserve(items.get(i)));
+                accepted.add(items.get(i));
+                positions.add(i);
+            } catch (AppointmentScheduler.ConflictException | IllegalArgumentException e) {
+                summary.markFailed(i, BulkWriteSummary.ItemStatus.FAILED, e.getMessage());
+                if (ordered) {
+                    for (int j = i + 1; j < items.size(); j++) {
+                        summary.markFailed(j, BulkWriteSummary.ItemStatus.SKIPPED, null);
+                    }
+                    break;
+                }
+            }
+        }
+        if (accepted.isEmpty()) {
+            return summary;
+        }
+
+        BulkWriteSummary written;
+        try {
+            written = write.apply(accepted, ordered);
+        } catch (RuntimeException e) {
+            for (int i = accepted.size() - 1; i >= 0; i--) {
+                scheduler.restore(accepted.get(i).getAppointmentId(), previous.get(i));
+            }
+            throw e;
+        }
+        summary.merge(written, positions);
+        for (int i = accepted.size() - 1; i >= 0; i--) {
+            if (written.getResults().get(i).getStatus() != BulkWriteSummary.ItemStatus.OK) {
+                scheduler.restore(accepted.get(i).getAppointmentId(), previous.get(i));
+            }
+        }
+        return summary;
+    }
+
+    private <T> void createBulkContext(String path, BulkTarget<T> target) {
+        server.createContext(path, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    handleBulkWrite(exchange, target);
+                } else {
+                    sendErrorResponse(exchange, 405, "Method not allowed");
+                }
+            }
+        });
+    }
+
+    // All three endpoints serve the snapshot cached by the background probe; none of them
+    // touches the database per request
     private void setupHealthEndpoint() {
+        healthMonitor = createHealthMonitor();
+        healthMonitor.start();
+
+        // GET /health - full report with per-dependency detail
         server.createContext("/health", new HttpHandler() {
             @Override
             public void handle(HttpExchange exchange) throws IOException {
                 if ("GET".equals(exchange.getRequestMethod())) {
-                    boolean dbConnected = DatabaseConnection.getInstance().testConnection();
+                    Map<String, Object> health = healthMonitor.report();
+                    health.put("database", healthMonitor.isReady() ? "Connected" : "Disconnected");
+                    sendJsonResponse(exchange, 200, health);
+                } else {
+                    sendErrorResponse(exchange, 405, "Method not allowed");
+                }
+            }
+        });
 
+        // GET /health/live - 503 only when the process itself is stuck
+        server.createContext("/health/live", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    boolean live = healthMonitor.isLive();
                     Map<String, Object> health = new HashMap<>();
-                    health.put("status", dbConnected ? "UP" : "DOWN");
-                    health.put("database", dbConnected ? "Connected" : "Disconnected");
-                    health.put("timestamp", System.currentTimeMillis());
+                    health.put("status", live ? "UP" : "DOWN");
+                    health.put("ageMs", healthMonitor.ageMs());
+                    sendJsonResponse(exchange, live ? 200 : 503, health);
+                } else {
+                    sendErrorResponse(exchange, 405, "Method not allowed");
+                }
+            }
+        });
 
-                    sendJsonResponse(exchange, 200, health);
+        // GET /health/ready - 503 while a critical dependency is down or the probe is stale
+        server.createContext("/health/ready", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    sendJsonResponse(exchange, healthMonitor.isReady() ? 200 : 503, healthMonitor.report());
+                } else {
+                    sendErrorResponse(exchange, 405, "Method not allowed");
+                }
+            }
+        });
+    }
+
+    private HealthMonitor createHealthMonitor() {
+        HealthMonitor monitor = HealthMonitor.fromSystemProperties();
+        if (usesDatabase()) {
+            registerDatabaseChecks(monitor);
+        } else {
+            monitor.register("storage", true, () -> {
+                Map<String, Object> details = new HashMap<>();
+                details.put("backend", storage.toString());
+                return HealthMonitor.Result.up(details);
+            });
+        }
+        return monitor.register("executor", false, () -> {
+            Map<String, Object> details = requestExecutor.getStats();
+            boolean backlogged = requestExecutor.getMode() == RequestExecutor.Mode.POOL
+                    && requestExecutor.getQueueDepth() >= requestExecutor.getQueueCapacity() * QUEUE_DEGRADED_RATIO;
+            return HealthMonitor.Result.of(backlogged ? HealthMonitor.Status.DEGRADED : HealthMonitor.Status.UP, details);
+        });
+    }
+
+    private void registerDatabaseChecks(HealthMonitor monitor) {
+        DatabaseConnection connection = DatabaseConnection.getInstance();
+        monitor.register("database", true, () -> {
+                    Map<String, Object> details = new HashMap<>();
+                    details.put("latencyMs", connection.ping(monitor.getCheckTimeoutMs()));
+                    return HealthMonitor.Result.up(details);
+                })
+                .register("connectionPool", false, () -> {
+                    ConnectionPoolStats pool = connection.getPoolStats();
+                    Map<String, Object> details = pool.getStats();
+                    int maxSize = connection.getConfig().getMaxPoolSize();
+                    details.put("maxSize", maxSize);
+                    boolean saturated = pool.getInUse() >= maxSize && pool.getWaiting() > 0;
+                    return HealthMonitor.Result.of(saturated ? HealthMonitor.Status.DEGRADED : HealthMonitor.Status.UP, details);
+                });
+    }
+
+    private void setupMetricsEndpoint() {
+        server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    Map<String, Object> metrics = new HashMap<>();
+                    metrics.put("executor", requestExecutor.getStats());
+                    metrics.put("coalescing", coalescer.getStats());
+                    if (usesDatabase()) {
+                        metrics.put("connectionPool", DatabaseConnection.getInstance().getPoolStats().getStats());
+                        metrics.put("caches", RecordCache.allStats());
+                    }
+                    metrics.put("timestamp", System.currentTimeMillis());
+                    sendJsonResponse(exchange, 200, metrics);
                 } else {
                     sendErrorResponse(exchange, 405, "Method not allowed");
                 }
@@ -138,7 +400,7 @@ public class RestApiServer {
             }
         });
 
-        // GET/PUT/DELETE /api/patients/{id}
+        // GET/PUT/PATCH/DELETE /api/patients/{id}
         server.createContext("/api/patients/", new HttpHandler() {
             @Override
             public void handle(HttpExchange exchange) throws IOException {
@@ -151,6 +413,17 @@ public class RestApiServer {
                     return;
                 }
 
+                if (path.endsWith("/records")) {
+                    if ("GET".equals(method)) {
+                        handleGetMedicalRecords(exchange, patientId);
+                    } else if ("POST".equals(method)) {
+                        handleAddMedicalRecord(exchange, patientId);
+                    } else {
+                        sendErrorResponse(exchange, 405, "Method not allowed");
+                    }
+                    return;
+                }
+
                 switch (method) {
                     case "GET":
                         handleGetPatient(exchange, patientId);
@@ -158,6 +431,9 @@ public class RestApiServer {
                     case "PUT":
                         handleUpdatePatient(exchange, patientId);
                         break;
+                    case "PATCH":
+                        handlePatch(exchange, "Patient", patientId, json -> parsePatientPatch(patientId, json), patientDAO::patchPatient);
+                        break;
                     case "DELETE":
                         handleDeletePatient(exchange, patientId);
                         break;
@@ -209,6 +485,23 @@ public class RestApiServer {
                     return;
                 }
 
+                if (path.endsWith("/slots")) {
+                    if ("GET".equals(method)) {
+                        handleGetFreeSlots(exchange, doctorId);
+                    } else {
+                        sendErrorResponse(exchange, 405, "Method not allowed");
+                    }
+                    return;
+                }
+                if (path.endsWith("/schedule")) {
+                    if ("GET".equals(method)) {
+                        handleGetSchedule(exchange, doctorId);
+                    } else {
+                        sendErrorResponse(exchange, 405, "Method not allowed");
+                    }
+                    return;
+                }
+
                 switch (method) {
                     case "GET":
                         handleGetDoctor(exchange, doctorId);
@@ -216,6 +509,9 @@ public class RestApiServer {
                     case "PUT":
                         handleUpdateDoctor(exchange, doctorId);
                         break;
+                    case "PATCH":
+                        handlePatch(exchange, "Doctor", doctorId, json -> parseDoctorPatch(doctorId, json), doctorDAO::patchDoctor);
+                        break;
                     case "DELETE":
                         handleDeleteDoctor(exchange, doctorId);
                         break;
@@ -267,6 +563,9 @@ public class RestApiServer {
                     case "PUT":
                         handleUpdateAppointment(exchange, appointmentId);
                         break;
+                    case "PATCH":
+                        handlePatch(exchange, "Appointment", appointmentId, json -> parseAppointmentPatch(appointmentId, json), RestApiServer.this::patchScheduledAppointment);
+                        break;
                     case "DELETE":
                         handleDeleteAppointment(exchange, appointmentId);
                         break;
@@ -318,6 +617,9 @@ public class RestApiServer {
                     case "PUT":
                         handleUpdateBill(exchange, billId);
                         break;
+                    case "PATCH":
+                        handlePatch(exchange, "Bill", billId, json -> parseBillPatch(billId, json), billDAO::patchBill);
+                        break;
                     case "DELETE":
                         handleDeleteBill(exchange, billId);
                         break;
@@ -359,18 +661,34 @@ public class RestApiServer {
 
     // Patient handlers
     private void handleGetAllPatients(HttpExchange exchange) throws IOException {
-        try {
-            List<Patient> patients = patientDAO.getAllPatients();
-            sendJsonResponse(exchange, 200, patients);
-        } catch (Exception e) {
-            sendErrorResponse(exchange, 500, "Error fetching patients: " + e.getMessage());
-        }
+        sendRead(exchange, "patients", patientVersions, sink -> {
+            ListQuery pageQuery = getPageQuery(exchange);
+            RecordFilter filter = RecordFilter.fromParameters(parseQueryParams(exchange), RecordFilter.PATIENTS);
+            if (filter.hasProjection()) {
+                if (pageQuery != null) {
+                    sink.send(patientDAO.getPatientFieldsPage(pageQuery, filter));
+                    return;
+                }
+                sink.stream(patientDAO.streamPatientFields(filter), Document.class);
+                return;
+            }
+            if (pageQuery != null) {
+                sink.send(patientDAO.getPatientsPage(pageQuery, filter));
+                return;
+            }
+            sink.stream(patientDAO.streamPatients(filter), Patient.class);
+        });
     }
 
     private void handleGetPatient(HttpExchange exchange, String patientId) throws IOException {
         try {
+            String etag = patientVersions.recordTag(patientId);
+            if (notModified(exchange, etag)) {
+                return;
+            }
             Patient patient = patientDAO.getPatientById(patientId);
             if (patient != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
                 sendJsonResponse(exchange, 200, patient);
             } else {
                 sendErrorResponse(exchange, 404, "Patient not found");
@@ -380,51 +698,97 @@ public class RestApiServer {
         }
     }
 
-    private void handleCreatePatient(HttpExchange exchange) throws IOException {
+    // Always paged, newest visit first; history can be far longer than a list page.
+    // ?days=N instead returns every visit of the last N days, oldest first.
+    private void handleGetMedicalRecords(HttpExchange exchange, String patientId) throws IOException {
+        try {
+            String days = parseQueryParams(exchange).get("days");
+            if (days != null) {
+                int count = Integer.parseInt(days);
+                if (count < 1 || count > MAX_HISTORY_DAYS) {
+                    throw new IllegalArgumentException("days must be between 1 and " + MAX_HISTORY_DAYS);
+                }
+                LocalDateTime now = LocalDateTime.now(TemporalFields.zone());
+                sendJsonResponse(exchange, 200, medicalRecordDAO.getRecordsBetween(patientId, now.minusDays(count), now));
+                return;
+            }
+            ListQuery pageQuery = getPageQuery(exchange);
+            if (pageQuery == null) {
+                pageQuery = ListQuery.firstPage(ListQuery.DEFAULT_LIMIT);
+            }
+            sendJsonResponse(exchange, 200, medicalRecordDAO.getRecordsPage(patientId, pageQuery));
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            sendErrorResponse(exchange, 500, "Error fetching medical records: " + e.getMessage());
+        }
+    }
+
+    // Records are append-only; the visit is stamped now unless visitDate and visitTime are given
+    private void handleAddMedicalRecord(HttpExchange exchange, String patientId) throws IOException {
         try {
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            Patient patient = new Patient(
-                    jsonObject.get("patientId").getAsString(),
-                    jsonObject.get("name").getAsString(),
-                    jsonObject.get("age").getAsInt(),
-                    jsonObject.get("gender").getAsString(),
-                    jsonObject.get("address").getAsString(),
-                    jsonObject.get("phone").getAsString()
+            if (!patientDAO.patientExists(patientId)) {
+                sendErrorResponse(exchange, 404, "Patient with ID " + patientId + " not found");
+                return;
+            }
+            assignIdIfMissing(jsonObject, "recordId", IdFormat.MEDICAL_RECORD);
+            MedicalRecord record = new MedicalRecord(
+                    jsonObject.get("recordId").getAsString(),
+                    patientId, // Use the ID from URL
+                    requireField(jsonObject, "doctorId").getAsString(),
+                    requireField(jsonObject, "diagnosis").getAsString(),
+                    requireField(jsonObject, "treatment").getAsString(),
+                    jsonObject.has("notes") ? jsonObject.get("notes").getAsString() : ""
             );
+            if (jsonObject.has("visitDate")) {
+                record.setVisitDate(jsonObject.get("visitDate").getAsString());
+            }
+            if (jsonObject.has("visitTime")) {
+                record.setVisitTime(jsonObject.get("visitTime").getAsString());
+            }
 
-            boolean success = patientDAO.insertPatient(patient);
-            if (success) {
-                sendJsonResponse(exchange, 201, patient);
+            WriteResult result = medicalRecordDAO.insertRecord(record);
+            if (result.isSuccess()) {
+                sendJsonResponse(exchange, 201, record);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "Medical record " + record.getRecordId() + " already exists");
             } else {
-                sendErrorResponse(exchange, 500, "Failed to create patient");
+                sendErrorResponse(exchange, 500, "Failed to add medical record");
             }
         } catch (Exception e) {
             sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
         }
     }
 
-    private void handleUpdatePatient(HttpExchange exchange, String patientId) throws IOException {
+    private void handleCreatePatient(HttpExchange exchange) throws IOException {
         try {
-            System.out.println("=== UPDATE PATIENT DEBUG ===");
-            System.out.println("Attempting to update patient with ID: " + patientId);
+            String requestBody = getRequestBody(exchange);
+            JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            // First check if patient exists
-            Patient existingPatient = patientDAO.getPatientById(patientId);
-            System.out.println("Existing patient found: " + (existingPatient != null));
+            assignIdIfMissing(jsonObject, "patientId", IdFormat.PATIENT);
+            Patient patient = parsePatient(jsonObject);
 
-            if (existingPatient == null) {
-                System.out.println("Patient not found, returning 404 error");
-                sendErrorResponse(exchange, 404, "Patient with ID " + patientId + " not found");
-                return;
+            WriteResult result = patientDAO.insertPatient(patient);
+            if (result.isSuccess()) {
+                sendJsonResponse(exchange, 201, patient);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "Patient " + patient.getPatientId() + " already exists");
+            } else {
+                sendErrorResponse(exchange, 500, "Failed to create patient");
             }
+        } catch (Exception e) {
+            sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
+        }
+    }
 
-            System.out.println("Patient exists, proceeding with update...");
+    private void handleUpdatePatient(HttpExchange exchange, String patientId) throws IOException {
+        try {
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            // Create updated patient object with existing ID
             Patient patient = new Patient(
                     patientId, // Use the ID from URL, not from request body
                     jsonObject.get("name").getAsString(),
@@ -434,49 +798,35 @@ public class RestApiServer {
                     jsonObject.get("phone").getAsString()
             );
 
-            // Preserve existing medical data
-            for (String allergy : existingPatient.getAllergies()) {
-                patient.addAllergy(allergy);
-            }
-            for (Medication med : existingPatient.getMedications()) {
-                patient.addMedication(med);
-            }
-            for (MedicalRecord record : existingPatient.getMedicalHistory()) {
-                patient.addMedicalRecord(record);
+            // Single round trip: medical data is left untouched in the database and the
+            // stored patient is returned, so no existence check or read-back is needed
+            Patient updatedPatient;
+            try {
+                updatedPatient = patientDAO.updatePatientDetails(patient);
+            } catch (Exception e) {
+                sendErrorResponse(exchange, 500, "Failed to update patient: " + e.getMessage());
+                return;
             }
 
-            System.out.println("Calling patientDAO.updatePatient()...");
-            boolean success = patientDAO.updatePatient(patient);
-            System.out.println("Update result: " + success);
-
-            if (success) {
-                System.out.println("Sending success response");
-                sendJsonResponse(exchange, 200, patient);
+            if (updatedPatient != null) {
+                sendJsonResponse(exchange, 200, updatedPatient);
             } else {
-                System.out.println("Sending failure response");
-                sendErrorResponse(exchange, 500, "Failed to update patient");
+                sendErrorResponse(exchange, 404, "Patient with ID " + patientId + " not found");
             }
         } catch (Exception e) {
-            System.err.println("Exception in handleUpdatePatient: " + e.getMessage());
-            e.printStackTrace();
             sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
         }
     }
 
     private void handleDeletePatient(HttpExchange exchange, String patientId) throws IOException {
         try {
-            // First check if patient exists
-            Patient existingPatient = patientDAO.getPatientById(patientId);
-            if (existingPatient == null) {
-                sendErrorResponse(exchange, 404, "Patient with ID " + patientId + " not found");
-                return;
-            }
-
-            boolean success = patientDAO.deletePatient(patientId);
-            if (success) {
+            WriteResult result = patientDAO.deletePatient(patientId);
+            if (result.isSuccess()) {
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Patient " + patientId + " deleted successfully");
                 sendJsonResponse(exchange, 200, response);
+            } else if (result == WriteResult.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Patient with ID " + patientId + " not found");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to delete patient");
             }
@@ -487,18 +837,34 @@ public class RestApiServer {
 
     // Doctor handlers
     private void handleGetAllDoctors(HttpExchange exchange) throws IOException {
-        try {
-            List<Doctor> doctors = doctorDAO.getAllDoctors();
-            sendJsonResponse(exchange, 200, doctors);
-        } catch (Exception e) {
-            sendErrorResponse(exchange, 500, "Error fetching doctors: " + e.getMessage());
-        }
+        sendRead(exchange, "doctors", doctorVersions, sink -> {
+            ListQuery pageQuery = getPageQuery(exchange);
+            RecordFilter filter = RecordFilter.fromParameters(parseQueryParams(exchange), RecordFilter.DOCTORS);
+            if (filter.hasProjection()) {
+                if (pageQuery != null) {
+                    sink.send(doctorDAO.getDoctorFieldsPage(pageQuery, filter));
+                    return;
+                }
+                sink.stream(doctorDAO.streamDoctorFields(filter), Document.class);
+                return;
+            }
+            if (pageQuery != null) {
+                sink.send(doctorDAO.getDoctorsPage(pageQuery, filter));
+                return;
+            }
+            sink.stream(doctorDAO.streamDoctors(filter), Doctor.class);
+        });
     }
 
     private void handleGetDoctor(HttpExchange exchange, String doctorId) throws IOException {
         try {
+            String etag = doctorVersions.recordTag(doctorId);
+            if (notModified(exchange, etag)) {
+                return;
+            }
             Doctor doctor = doctorDAO.getDoctorById(doctorId);
             if (doctor != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
                 sendJsonResponse(exchange, 200, doctor);
             } else {
                 sendErrorResponse(exchange, 404, "Doctor not found");
@@ -513,16 +879,14 @@ public class RestApiServer {
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            Doctor doctor = new Doctor(
-                    jsonObject.get("doctorId").getAsString(),
-                    jsonObject.get("name").getAsString(),
-                    jsonObject.get("specialization").getAsString(),
-                    jsonObject.get("availability").getAsString()
-            );
+            assignIdIfMissing(jsonObject, "doctorId", IdFormat.DOCTOR);
+            Doctor doctor = parseDoctor(jsonObject);
 
-            boolean success = doctorDAO.insertDoctor(doctor);
-            if (success) {
+            WriteResult result = doctorDAO.insertDoctor(doctor);
+            if (result.isSuccess()) {
                 sendJsonResponse(exchange, 201, doctor);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "Doctor " + doctor.getDoctorId() + " already exists");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to create doctor");
             }
@@ -533,13 +897,6 @@ public class RestApiServer {
 
     private void handleUpdateDoctor(HttpExchange exchange, String doctorId) throws IOException {
         try {
-            // First check if doctor exists
-            Doctor existingDoctor = doctorDAO.getDoctorById(doctorId);
-            if (existingDoctor == null) {
-                sendErrorResponse(exchange, 404, "Doctor with ID " + doctorId + " not found");
-                return;
-            }
-
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
@@ -550,9 +907,11 @@ public class RestApiServer {
                     jsonObject.get("availability").getAsString()
             );
 
-            boolean success = doctorDAO.updateDoctor(doctor);
-            if (success) {
+            WriteResult result = doctorDAO.updateDoctor(doctor);
+            if (result.isSuccess()) {
                 sendJsonResponse(exchange, 200, doctor);
+            } else if (result == WriteResult.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Doctor with ID " + doctorId + " not found");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to update doctor");
             }
@@ -563,13 +922,15 @@ public class RestApiServer {
 
     private void handleDeleteDoctor(HttpExchange exchange, String doctorId) throws IOException {
         try {
-            boolean success = doctorDAO.deleteDoctor(doctorId);
-            if (success) {
+            WriteResult result = doctorDAO.deleteDoctor(doctorId);
+            if (result.isSuccess()) {
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Doctor deleted successfully");
                 sendJsonResponse(exchange, 200, response);
-            } else {
+            } else if (result == WriteResult.NOT_FOUND) {
                 sendErrorResponse(exchange, 404, "Doctor not found");
+            } else {
+                sendErrorResponse(exchange, 500, "Failed to delete doctor");
             }
         } catch (Exception e) {
             sendErrorResponse(exchange, 500, "Error deleting doctor: " + e.getMessage());
@@ -578,18 +939,34 @@ public class RestApiServer {
 
     // Appointment handlers
     private void handleGetAllAppointments(HttpExchange exchange) throws IOException {
-        try {
-            List<Appointment> appointments = appointmentDAO.getAllAppointments();
-            sendJsonResponse(exchange, 200, appointments);
-        } catch (Exception e) {
-            sendErrorResponse(exchange, 500, "Error fetching appointments: " + e.getMessage());
-        }
+        sendRead(exchange, "appointments", appointmentVersions, sink -> {
+            ListQuery pageQuery = getPageQuery(exchange);
+            RecordFilter filter = RecordFilter.fromParameters(parseQueryParams(exchange), RecordFilter.APPOINTMENTS);
+            if (filter.hasProjection()) {
+                if (pageQuery != null) {
+                    sink.send(appointmentDAO.getAppointmentFieldsPage(pageQuery, filter));
+                    return;
+                }
+                sink.stream(appointmentDAO.streamAppointmentFields(filter), Document.class);
+                return;
+            }
+            if (pageQuery != null) {
+                sink.send(appointmentDAO.getAppointmentsPage(pageQuery, filter));
+                return;
+            }
+            sink.stream(appointmentDAO.streamAppointments(filter), Appointment.class);
+        });
     }
 
     private void handleGetAppointment(HttpExchange exchange, String appointmentId) throws IOException {
         try {
+            String etag = appointmentVersions.recordTag(appointmentId);
+            if (notModified(exchange, etag)) {
+                return;
+            }
             Appointment appointment = appointmentDAO.getAppointmentById(appointmentId);
             if (appointment != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
                 sendJsonResponse(exchange, 200, appointment);
             } else {
                 sendErrorResponse(exchange, 404, "Appointment not found");
@@ -604,21 +981,24 @@ public class RestApiServer {
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            Appointment appointment = new Appointment(
-                    jsonObject.get("appointmentId").getAsString(),
-                    jsonObject.get("patientId").getAsString(),
-                    jsonObject.get("doctorId").getAsString(),
-                    jsonObject.get("date").getAsString(),
-                    jsonObject.get("time").getAsString(),
-                    jsonObject.get("description").getAsString()
-            );
+            assignIdIfMissing(jsonObject, "appointmentId", IdFormat.APPOINTMENT);
+            Appointment appointment = parseAppointment(jsonObject);
 
-            boolean success = appointmentDAO.insertAppointment(appointment);
-            if (success) {
+            // The slot is held before the insert, so two requests cannot both book it
+            AppointmentScheduler.Booking previous = scheduler.reserve(appointment);
+            WriteResult result = appointmentDAO.insertAppointment(appointment);
+            if (!result.isSuccess()) {
+                scheduler.restore(appointment.getAppointmentId(), previous);
+            }
+            if (result.isSuccess()) {
                 sendJsonResponse(exchange, 201, appointment);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "Appointment " + appointment.getAppointmentId() + " already exists");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to create appointment");
             }
+        } catch (AppointmentScheduler.ConflictException e) {
+            sendErrorResponse(exchange, 409, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
         }
@@ -626,24 +1006,15 @@ public class RestApiServer {
 
     private void handleCompleteAppointment(HttpExchange exchange, String appointmentId) throws IOException {
         try {
-            // First check if appointment exists
-            Appointment existingAppointment = appointmentDAO.getAppointmentById(appointmentId);
-            if (existingAppointment == null) {
-                sendErrorResponse(exchange, 404, "Appointment with ID " + appointmentId + " not found");
-                return;
-            }
-
-            // Check if already completed
-            if (existingAppointment.isCompleted()) {
-                sendErrorResponse(exchange, 400, "Appointment " + appointmentId + " is already completed");
-                return;
-            }
-
-            boolean success = appointmentDAO.markAppointmentCompleted(appointmentId);
-            if (success) {
+            WriteResult result = appointmentDAO.markAppointmentCompleted(appointmentId);
+            if (result == WriteResult.APPLIED) {
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Appointment " + appointmentId + " marked as completed");
                 sendJsonResponse(exchange, 200, response);
+            } else if (result == WriteResult.UNCHANGED) {
+                sendErrorResponse(exchange, 400, "Appointment " + appointmentId + " is already completed");
+            } else if (result == WriteResult.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Appointment with ID " + appointmentId + " not found");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to complete appointment");
             }
@@ -654,13 +1025,6 @@ public class RestApiServer {
 
     private void handleUpdateAppointment(HttpExchange exchange, String appointmentId) throws IOException {
         try {
-            // First check if appointment exists
-            Appointment existingAppointment = appointmentDAO.getAppointmentById(appointmentId);
-            if (existingAppointment == null) {
-                sendErrorResponse(exchange, 404, "Appointment with ID " + appointmentId + " not found");
-                return;
-            }
-
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
@@ -673,15 +1037,26 @@ public class RestApiServer {
                     jsonObject.get("description").getAsString()
             );
 
-            // Preserve completion status
-            appointment.setCompleted(existingAppointment.isCompleted());
+            AppointmentScheduler.Booking previous = scheduler.reserve(appointment);
 
-            boolean success = appointmentDAO.updateAppointment(appointment);
-            if (success) {
-                sendJsonResponse(exchange, 200, appointment);
+            // Completion status is preserved by the DAO, which returns the stored appointment
+            Appointment updatedAppointment;
+            try {
+                updatedAppointment = appointmentDAO.updateAppointmentDetails(appointment);
+            } catch (Exception e) {
+                scheduler.restore(appointmentId, previous);
+                sendErrorResponse(exchange, 500, "Failed to update appointment: " + e.getMessage());
+                return;
+            }
+
+            if (updatedAppointment != null) {
+                sendJsonResponse(exchange, 200, updatedAppointment);
             } else {
-                sendErrorResponse(exchange, 500, "Failed to update appointment");
+                scheduler.restore(appointmentId, previous);
+                sendErrorResponse(exchange, 404, "Appointment with ID " + appointmentId + " not found");
             }
+        } catch (AppointmentScheduler.ConflictException e) {
+            sendErrorResponse(exchange, 409, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
         }
@@ -689,33 +1064,106 @@ public class RestApiServer {
 
     private void handleDeleteAppointment(HttpExchange exchange, String appointmentId) throws IOException {
         try {
-            boolean success = appointmentDAO.deleteAppointment(appointmentId);
-            if (success) {
+            WriteResult result = appointmentDAO.deleteAppointment(appointmentId);
+            if (result.isSuccess()) {
+                scheduler.release(appointmentId);
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Appointment deleted successfully");
                 sendJsonResponse(exchange, 200, response);
-            } else {
+            } else if (result == WriteResult.NOT_FOUND) {
                 sendErrorResponse(exchange, 404, "Appointment not found");
+            } else {
+                sendErrorResponse(exchange, 500, "Failed to delete appointment");
             }
         } catch (Exception e) {
             sendErrorResponse(exchange, 500, "Error deleting appointment: " + e.getMessage());
         }
     }
 
-    // Bill handlers
-    private void handleGetAllBills(HttpExchange exchange) throws IOException {
+    // GET /api/doctors/{id}/schedule?date=YYYY-MM-DD: the doctor's appointments on that day
+    // (default today) in start order
+    private void handleGetSchedule(HttpExchange exchange, String doctorId) throws IOException {
+        sendRead(exchange, "schedule", appointmentVersions, sink -> {
+            String date = parseQueryParams(exchange).get("date");
+            LocalDate day = date != null ? TemporalFields.parse(date, "00:00").toLocalDate()
+                    : LocalDate.now(TemporalFields.zone());
+            sink.send(appointmentDAO.getAppointmentsForDoctorBetween(doctorId,
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        });
+    }
+
+    // GET /api/doctors/{id}/slots?from=YYYY-MM-DD[&time=HH:MM]&count=N: the doctor's next free
+    // slots, by default from now
+    private void handleGetFreeSlots(HttpExchange exchange, String doctorId) throws IOException {
         try {
-            List<Bill> bills = billDAO.getAllBills();
-            sendJsonResponse(exchange, 200, bills);
+            Doctor doctor = doctorDAO.getDoctorById(doctorId);
+            if (doctor == null) {
+                sendErrorResponse(exchange, 404, "Doctor not found");
+                return;
+            }
+            Map<String, String> params = parseQueryParams(exchange);
+            LocalDateTime from = LocalDateTime.now(TemporalFields.zone());
+            if (params.containsKey("from")) {
+                from = TemporalFields.parse(params.get("from"), params.getOrDefault("time", "00:00"));
+            }
+            int count = Integer.parseInt(params.getOrDefault("count", "10"));
+            if (count < 1 || count > MAX_SLOTS) {
+                throw new IllegalArgumentException("count must be between 1 and " + MAX_SLOTS);
+            }
+
+            List<Map<String, String>> slots = new ArrayList<>();
+            for (LocalDateTime start : scheduler.nextFreeSlots(doctorId, from, count)) {
+                Map<String, String> slot = new LinkedHashMap<>();
+                slot.put("date", start.toLocalDate().toString());
+                slot.put("time", AppointmentScheduler.formatTime(start));
+                slots.add(slot);
+            }
+            WorkingHours hours = scheduler.workingHoursOf(doctorId);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("doctorId", doctorId);
+            response.put("availability", doctor.getAvailability());
+            response.put("workingDays", hours.getDays());
+            response.put("workingHours", WorkingHours.clock(hours.getStartMinute()) + "-" + WorkingHours.clock(hours.getEndMinute()));
+            response.put("slotMinutes", scheduler.getSlotMinutes());
+            response.put("slots", slots);
+            sendJsonResponse(exchange, 200, response);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(exchange, 400, e.getMessage());
         } catch (Exception e) {
-            sendErrorResponse(exchange, 500, "Error fetching bills: " + e.getMessage());
+            sendErrorResponse(exchange, 500, "Error finding free slots: " + e.getMessage());
         }
     }
 
+    // Bill handlers
+    private void handleGetAllBills(HttpExchange exchange) throws IOException {
+        sendRead(exchange, "bills", billVersions, sink -> {
+            ListQuery pageQuery = getPageQuery(exchange);
+            RecordFilter filter = RecordFilter.fromParameters(parseQueryParams(exchange), RecordFilter.BILLS);
+            if (filter.hasProjection()) {
+                if (pageQuery != null) {
+                    sink.send(billDAO.getBillFieldsPage(pageQuery, filter));
+                    return;
+                }
+                sink.stream(billDAO.streamBillFields(filter), Document.class);
+                return;
+            }
+            if (pageQuery != null) {
+                sink.send(billDAO.getBillsPage(pageQuery, filter));
+                return;
+            }
+            sink.stream(billDAO.streamBills(filter), Bill.class);
+        });
+    }
+
     private void handleGetBill(HttpExchange exchange, String billId) throws IOException {
         try {
+            String etag = billVersions.recordTag(billId);
+            if (notModified(exchange, etag)) {
+                return;
+            }
             Bill bill = billDAO.getBillById(billId);
             if (bill != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
                 sendJsonResponse(exchange, 200, bill);
             } else {
                 sendErrorResponse(exchange, 404, "Bill not found");
@@ -730,16 +1178,14 @@ public class RestApiServer {
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
-            Bill bill = new Bill(
-                    jsonObject.get("billId").getAsString(),
-                    jsonObject.get("patientId").getAsString(),
-                    jsonObject.get("amount").getAsDouble(),
-                    jsonObject.get("description").getAsString()
-            );
+            assignIdIfMissing(jsonObject, "billId", IdFormat.BILL);
+            Bill bill = parseBill(jsonObject);
 
-            boolean success = billDAO.insertBill(bill);
-            if (success) {
+            WriteResult result = billDAO.insertBill(bill);
+            if (result.isSuccess()) {
                 sendJsonResponse(exchange, 201, bill);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "Bill " + bill.getBillId() + " already exists");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to create bill");
             }
@@ -750,24 +1196,15 @@ public class RestApiServer {
 
     private void handlePayBill(HttpExchange exchange, String billId) throws IOException {
         try {
-            // First check if bill exists
-            Bill existingBill = billDAO.getBillById(billId);
-            if (existingBill == null) {
-                sendErrorResponse(exchange, 404, "Bill with ID " + billId + " not found");
-                return;
-            }
-
-            // Check if already paid
-            if (existingBill.isPaid()) {
-                sendErrorResponse(exchange, 400, "Bill " + billId + " is already paid");
-                return;
-            }
-
-            boolean success = billDAO.markBillPaid(billId);
-            if (success) {
+            WriteResult result = billDAO.markBillPaid(billId);
+            if (result == WriteResult.APPLIED) {
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Bill " + billId + " marked as paid");
                 sendJsonResponse(exchange, 200, response);
+            } else if (result == WriteResult.UNCHANGED) {
+                sendErrorResponse(exchange, 400, "Bill " + billId + " is already paid");
+            } else if (result == WriteResult.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Bill with ID " + billId + " not found");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to pay bill");
             }
@@ -778,13 +1215,6 @@ public class RestApiServer {
 
     private void handleUpdateBill(HttpExchange exchange, String billId) throws IOException {
         try {
-            // First check if bill exists
-            Bill existingBill = billDAO.getBillById(billId);
-            if (existingBill == null) {
-                sendErrorResponse(exchange, 404, "Bill with ID " + billId + " not found");
-                return;
-            }
-
             String requestBody = getRequestBody(exchange);
             JsonObject jsonObject = JsonParser.parseString(requestBody).getAsJsonObject();
 
@@ -795,14 +1225,19 @@ public class RestApiServer {
                     jsonObject.get("description").getAsString()
             );
 
-            // Preserve payment status
-            bill.setPaid(existingBill.isPaid());
+            // Payment status is preserved by the DAO, which returns the stored bill
+            Bill updatedBill;
+            try {
+                updatedBill = billDAO.updateBillDetails(bill);
+            } catch (Exception e) {
+                sendErrorResponse(exchange, 500, "Failed to update bill: " + e.getMessage());
+                return;
+            }
 
-            boolean success = billDAO.updateBill(bill);
-            if (success) {
-                sendJsonResponse(exchange, 200, bill);
+            if (updatedBill != null) {
+                sendJsonResponse(exchange, 200, updatedBill);
             } else {
-                sendErrorResponse(exchange, 500, "Failed to update bill");
+                sendErrorResponse(exchange, 404, "Bill with ID " + billId + " not found");
             }
         } catch (Exception e) {
             sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
@@ -811,29 +1246,125 @@ public class RestApiServer {
 
     private void handleDeleteBill(HttpExchange exchange, String billId) throws IOException {
         try {
-            boolean success = billDAO.deleteBill(billId);
-            if (success) {
+            WriteResult result = billDAO.deleteBill(billId);
+            if (result.isSuccess()) {
                 Map<String, String> response = new HashMap<>();
                 response.put("message", "Bill deleted successfully");
                 sendJsonResponse(exchange, 200, response);
-            } else {
+            } else if (result == WriteResult.NOT_FOUND) {
                 sendErrorResponse(exchange, 404, "Bill not found");
+            } else {
+                sendErrorResponse(exchange, 500, "Failed to delete bill");
             }
         } catch (Exception e) {
             sendErrorResponse(exchange, 500, "Error deleting bill: " + e.getMessage());
         }
     }
 
-    // User handlers
-    private void handleGetAllUsers(HttpExchange exchange) throws IOException {
+    // Bulk handlers
+    // The whole payload is validated before anything is written, then sent as one bulkWrite
+    private <T> void handleBulkWrite(HttpExchange exchange, BulkTarget<T> target) throws IOException {
         try {
-            Map<String, User> users = userDAO.getAllUsers();
-            sendJsonResponse(exchange, 200, users.values());
+            Map<String, String> params = parseQueryParams(exchange);
+            String mode = params.getOrDefault("mode", "insert").toLowerCase();
+            boolean ordered = !"false".equalsIgnoreCase(params.get("ordered"));
+            if (!"insert".equals(mode) && !"upsert".equals(mode) && !"delete".equals(mode)) {
+                sendErrorResponse(exchange, 400, "mode must be insert, upsert or delete");
+                return;
+            }
+
+            List<JsonElement> elements = readBulkItems(exchange);
+            if (elements.size() > MAX_BULK_ITEMS) {
+                sendErrorResponse(exchange, 413, "At most " + MAX_BULK_ITEMS + " items per bulk request");
+                return;
+            }
+
+            List<String> itemErrors = new ArrayList<>();
+            List<String> ids = new ArrayList<>();
+            List<T> items = new ArrayList<>();
+            for (int i = 0; i < elements.size(); i++) {
+                JsonElement element = elements.get(i);
+                try {
+                    if ("delete".equals(mode)) {
+                        // Deletes accept bare IDs or objects carrying the ID field
+                        ids.add(element.isJsonPrimitive()
+                                ? element.getAsString()
+                                : element.getAsJsonObject().get(target.idField()).getAsString());
+                    } else {
+                        items.add(target.parse(element.getAsJsonObject()));
+                    }
+                } catch (Exception e) {
+                    itemErrors.add("Item " + i + ": " + (e.getMessage() != null ? e.getMessage() : "missing required field"));
+                }
+            }
+
+            if (!itemErrors.isEmpty()) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "Invalid items in bulk request, nothing was written");
+                error.put("status", "400");
+                error.put("itemErrors", itemErrors);
+                sendJsonResponse(exchange, 400, error);
+                return;
+            }
+
+            BulkWriteSummary summary;
+            if ("delete".equals(mode)) {
+                summary = target.delete(ids, ordered);
+            } else if ("upsert".equals(mode)) {
+                summary = target.upsert(items, ordered);
+            } else {
+                summary = target.insert(items, ordered);
+            }
+            sendJsonResponse(exchange, summary.getFailed() == 0 ? 200 : 207, summary);
+        } catch (JsonParseException | IllegalStateException e) {
+            sendErrorResponse(exchange, 400, "Invalid request body: " + e.getMessage());
         } catch (Exception e) {
-            sendErrorResponse(exchange, 500, "Error fetching users: " + e.getMessage());
+            sendErrorResponse(exchange, 500, "Error processing bulk request: " + e.getMessage());
         }
     }
 
+    // Accepts a JSON array, or NDJSON (one JSON object per line)
+    private List<JsonElement> readBulkItems(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        List<JsonElement> items = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            reader.mark(1 << 16);
+            int first;
+            do {
+                first = reader.read();
+            } while (first != -1 && Character.isWhitespace(first));
+            reader.reset();
+
+            boolean ndjson = (contentType != null && contentType.contains("ndjson")) || first != '[';
+            if (ndjson) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        items.add(JsonParser.parseString(line));
+                    }
+                }
+            } else {
+                for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray()) {
+                    items.add(element);
+                }
+            }
+        }
+        return items;
+    }
+
+    // User handlers
+    private void handleGetAllUsers(HttpExchange exchange) throws IOException {
+        sendRead(exchange, "users", null, sink -> {
+            ListQuery pageQuery = getPageQuery(exchange);
+            if (pageQuery != null) {
+                sink.send(userDAO.getUsersPage(pageQuery));
+                return;
+            }
+            sink.stream(userDAO.streamUsers(), User.class);
+        });
+    }
+
     private void handleCreateUser(HttpExchange exchange) throws IOException {
         try {
             String requestBody = getRequestBody(exchange);
@@ -845,9 +1376,11 @@ public class RestApiServer {
                     UserRole.valueOf(jsonObject.get("role").getAsString())
             );
 
-            boolean success = userDAO.insertUser(user);
-            if (success) {
+            WriteResult result = userDAO.insertUser(user);
+            if (result.isSuccess()) {
                 sendJsonResponse(exchange, 201, user);
+            } else if (result == WriteResult.DUPLICATE) {
+                sendErrorResponse(exchange, 409, "User " + user.getUsername() + " already exists");
             } else {
                 sendErrorResponse(exchange, 500, "Failed to create user");
             }
@@ -878,6 +1411,238 @@ public class RestApiServer {
         }
     }
 
+    // Request parsing shared by the single-record and bulk endpoints
+    private Patient parsePatient(JsonObject json) {
+        return new Patient(
+                requireField(json, "patientId").getAsString(),
+                requireField(json, "name").getAsString(),
+                requireField(json, "age").getAsInt(),
+                requireField(json, "gender").getAsString(),
+                requireField(json, "address").getAsString(),
+                requireField(json, "phone").getAsString()
+        );
+    }
+
+    private Doctor parseDoctor(JsonObject json) {
+        return new Doctor(
+                requireField(json, "doctorId").getAsString(),
+                requireField(json, "name").getAsString(),
+                requireField(json, "specialization").getAsString(),
+                requireField(json, "availability").getAsString()
+        );
+    }
+
+    private Appointment parseAppointment(JsonObject json) {
+        return new Appointment(
+                requireField(json, "appointmentId").getAsString(),
+                requireField(json, "patientId").getAsString(),
+                requireField(json, "doctorId").getAsString(),
+                requireField(json, "date").getAsString(),
+                requireField(json, "time").getAsString(),
+                requireField(json, "description").getAsString()
+        );
+    }
+
+    private Bill parseBill(JsonObject json) {
+        return new Bill(
+                requireField(json, "billId").getAsString(),
+                requireField(json, "patientId").getAsString(),
+                requireField(json, "amount").getAsDouble(),
+                requireField(json, "description").getAsString()
+        );
+    }
+
+    // Creates may leave the ID out and get the next one from the shared counters
+    private void assignIdIfMissing(JsonObject json, String idField, IdFormat format) {
+        JsonElement id = json.get(idField);
+        if (id == null || id.isJsonNull() || id.getAsString().isEmpty()) {
+            json.addProperty(idField, IDGenerator.generate(format));
+        }
+    }
+
+    // PATCH applies only the fields present in the body, as a $set/$push/$pull of those fields,
+    // and answers with the stored record, so a client never has to send the whole document
+    private <T> void handlePatch(HttpExchange exchange, String what, String id,
+                                 Function<JsonObject, T> parse, Function<T, T> patch) throws IOException {
+        T changes;
+        try {
+            changes = parse.apply(JsonParser.parseString(getRequestBody(exchange)).getAsJsonObject());
+        } catch (Exception e) {
+            sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
+            return;
+        }
+
+        T updated;
+        try {
+            updated = patch.apply(changes);
+        } catch (AppointmentScheduler.ConflictException e) {
+            sendErrorResponse(exchange, 409, e.getMessage());
+            return;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            sendErrorResponse(exchange, 400, "Invalid request: " + e.getMessage());
+            return;
+        } catch (Exception e) {
+            sendErrorResponse(exchange, 500, "Failed to update " + what.toLowerCase() + ": " + e.getMessage());
+            return;
+        }
+
+        if (updated != null) {
+            sendJsonResponse(exchange, 200, updated);
+        } else {
+            sendErrorResponse(exchange, 404, what + " with ID " + id + " not found");
+        }
+    }
+
+    // Allergies and medications are edited element by element; replacing a list is left to PUT
+    private Patient parsePatientPatch(String patientId, JsonObject json) {
+        Patient patient = Patient.patch(patientId);
+        for (Map.Entry<String, JsonElement> field : json.entrySet()) {
+            JsonElement value = field.getValue();
+            switch (field.getKey()) {
+                case "name": patient.setName(value.getAsString()); break;
+                case "age": patient.setAge(value.getAsInt()); break;
+                case "gender": patient.setGender(value.getAsString()); break;
+                case "address": patient.setAddress(value.getAsString()); break;
+                case "phone": patient.setPhone(value.getAsString()); break;
+                case "addAllergies":
+                    for (JsonElement allergy : value.getAsJsonArray()) {
+                        patient.addAllergy(allergy.getAsString());
+                    }
+                    break;
+                case "removeAllergies":
+                    for (JsonElement allergy : value.getAsJsonArray()) {
+                        patient.removeAllergy(allergy.getAsString());
+                    }
+                    break;
+                case "addMedications":
+                    for (JsonElement element : value.getAsJsonArray()) {
+                        JsonObject medication = element.getAsJsonObject();
+                        patient.addMedication(new Medication(
+                                requireField(medication, "name").getAsString(),
+                                optionalString(medication, "dosage"),
+                                optionalString(medication, "frequency"),
+                                optionalString(medication, "startDate"),
+                                optionalString(medication, "endDate")));
+                    }
+                    break;
+                case "removeMedications":
+                    for (JsonElement name : value.getAsJsonArray()) {
+                        patient.removeMedication(name.getAsString());
+                    }
+                    break;
+                default:
+                    rejectPatchField(field.getKey(), "patientId");
+            }
+        }
+        return patient;
+    }
+
+    private Doctor parseDoctorPatch(String doctorId, JsonObject json) {
+        Doctor doctor = Doctor.patch(doctorId);
+        for (Map.Entry<String, JsonElement> field : json.entrySet()) {
+            String value = field.getValue().getAsString();
+            switch (field.getKey()) {
+                case "name": doctor.setName(value); break;
+                case "specialization": doctor.setSpecialization(value); break;
+                case "availability": doctor.setAvailability(value); break;
+                default:
+                    rejectPatchField(field.getKey(), "doctorId");
+            }
+        }
+        return doctor;
+    }
+
+    private Appointment parseAppointmentPatch(String appointmentId, JsonObject json) {
+        Appointment appointment = Appointment.patch(appointmentId);
+        for (Map.Entry<String, JsonElement> field : json.entrySet()) {
+            JsonElement value = field.getValue();
+            switch (field.getKey()) {
+                case "patientId": appointment.setPatientId(value.getAsString()); break;
+                case "doctorId": appointment.setDoctorId(value.getAsString()); break;
+                case "date": appointment.setDate(value.getAsString()); break;
+                case "time": appointment.setTime(value.getAsString()); break;
+                case "description": appointment.setDescription(value.getAsString()); break;
+                case "completed": appointment.setCompleted(value.getAsBoolean()); break;
+                default:
+                    rejectPatchField(field.getKey(), "appointmentId");
+            }
+        }
+        return appointment;
+    }
+
+    // A PATCH that changes the doctor, date or time moves the appointment's booking first
+    private Appointment patchScheduledAppointment(Appointment changes) {
+        if (changes.getDoctorId() == null && changes.getDate() == null && changes.getTime() == null) {
+            return appointmentDAO.patchAppointment(changes);
+        }
+        String appointmentId = changes.getAppointmentId();
+        Appointment current = appointmentDAO.getAppointmentById(appointmentId);
+        if (current == null) {
+            return null;
+        }
+        String doctorId = changes.getDoctorId() != null ? changes.getDoctorId() : current.getDoctorId();
+        String date = changes.getDate() != null ? changes.getDate() : current.getDate();
+        String time = changes.getTime() != null ? changes.getTime() : current.getTime();
+        AppointmentScheduler.Booking previous = scheduler.reserve(appointmentId, doctorId, scheduler.slotStart(doctorId, date, time));
+
+        Appointment patched;
+        try {
+            patched = appointmentDAO.patchAppointment(changes);
+        } catch (RuntimeException e) {
+            scheduler.restore(appointmentId, previous);
+            throw e;
+        }
+        if (patched == null) {
+            scheduler.restore(appointmentId, previous);
+        }
+        return patched;
+    }
+
+    private Bill parseBillPatch(String billId, JsonObject json) {
+        Bill bill = Bill.patch(billId);
+        for (Map.Entry<String, JsonElement> field : json.entrySet()) {
+            JsonElement value = field.getValue();
+            switch (field.getKey()) {
+                case "patientId": bill.setPatientId(value.getAsString()); break;
+                case "amount": bill.setAmount(value.getAsDouble()); break;
+                case "description": bill.setDescription(value.getAsString()); break;
+                case "paid": bill.setPaid(value.getAsBoolean()); break;
+                default:
+                    rejectPatchField(field.getKey(), "billId");
+            }
+        }
+        return bill;
+    }
+
+    // The ID comes from the URL; repeating it in the body is harmless, anything else is an error
+    private void rejectPatchField(String name, String idField) {
+        if (!idField.equals(name)) {
+            throw new IllegalArgumentException("Field cannot be patched: " + name);
+        }
+    }
+
+    private String optionalString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private JsonElement requireField(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || value.isJsonNull()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value;
+    }
+
+    // Per-collection hooks for the shared bulk endpoint
+    private interface BulkTarget<T> {
+        String idField();
+        T parse(JsonObject json);
+        BulkWriteSummary insert(List<T> items, boolean ordered);
+        BulkWriteSummary upsert(List<T> items, boolean ordered);
+        BulkWriteSummary delete(List<String> ids, boolean ordered);
+    }
+
     // Utility methods
     private String extractIdFromPath(String path, String prefix) {
         if (path.startsWith(prefix)) {
@@ -892,27 +1657,209 @@ public class RestApiServer {
         return null;
     }
 
+    private Map<String, String> parseQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equalsIndex = pair.indexOf('=');
+            String key = equalsIndex == -1 ? pair : pair.substring(0, equalsIndex);
+            String value = equalsIndex == -1 ? "" : pair.substring(equalsIndex + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // List endpoints only paginate when the client asks for it with ?limit= or ?cursor=,
+    // so existing callers keep receiving the plain JSON array.
+    private ListQuery getPageQuery(HttpExchange exchange) {
+        Map<String, String> params = parseQueryParams(exchange);
+        if (!params.containsKey("limit") && !params.containsKey("cursor")) {
+            return null;
+        }
+        return ListQuery.fromParameters(params.get("cursor"), params.get("limit"));
+    }
+
     private String getRequestBody(HttpExchange exchange) throws IOException {
         InputStream inputStream = exchange.getRequestBody();
         return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
     }
 
     private void sendJsonResponse(HttpExchange exchange, int statusCode, Object data) throws IOException {
-        String jsonResponse = gson.toJson(data);
-
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+        sendJsonBytes(exchange, statusCode, gson.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
 
-        exchange.sendResponseHeaders(statusCode, jsonResponse.getBytes().length);
+    private void sendJsonBytes(HttpExchange exchange, int statusCode, byte[] jsonResponse) throws IOException {
+        if (!isRead(exchange)) {
+            // Whatever this request changed, reads from now on must not share an older body
+            coalescer.invalidate();
+        }
+        setJsonHeaders(exchange);
+        exchange.sendResponseHeaders(statusCode, jsonResponse.length);
 
         OutputStream outputStream = exchange.getResponseBody();
-        outputStream.write(jsonResponse.getBytes());
+        outputStream.write(jsonResponse);
         outputStream.close();
     }
 
+    private static boolean isRead(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    // Writes the records as a JSON array using chunked transfer encoding, serializing one
+    // record at a time from the cursor so neither the list nor the full string is held in memory.
+    private <T> void sendJsonStream(HttpExchange exchange, int statusCode, RecordCursor<T> records, Class<T> type) throws IOException {
+        try (RecordCursor<T> cursor = records) {
+            setJsonHeaders(exchange);
+            exchange.sendResponseHeaders(statusCode, 0);
+            writeJsonArray(exchange.getResponseBody(), cursor, type);
+        }
+    }
+
+    private <T> void writeJsonArray(OutputStream out, RecordCursor<T> cursor, Class<T> type) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+        writer.beginArray();
+        while (cursor.hasNext()) {
+            gson.toJson(cursor.next(), type, writer);
+        }
+        writer.endArray();
+        writer.close();
+    }
+
+    // Where a read handler puts its 200 response: straight onto the exchange, or into the body
+    // shared by identical concurrent requests (see ReadCoalescer)
+    private interface JsonSink {
+        void send(Object data) throws IOException;
+
+        <T> void stream(RecordCursor<T> records, Class<T> type) throws IOException;
+    }
+
+    // Sends 304 and returns true when If-None-Match names the tag. The tag is taken before the
+    // record is read, so nothing is read or serialized for an unchanged one.
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesTag(ifNoneMatch, etag)) {
+            return false;
+        }
+        setJsonHeaders(exchange);
+        exchange.getResponseHeaders().remove("Content-Type");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // If-None-Match compares weakly: W/"x" matches "x"
+    static boolean matchesTag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface ReadHandler {
+        void render(JsonSink sink) throws IOException;
+    }
+
+    // Runs a GET handler once for all identical requests in flight. Bodies too large to share
+    // and requests with coalescing turned off are rendered straight onto the exchange, streamed.
+    // With the versions of the collection read, the response is tagged and a client that has
+    // the current tag gets 304 before anything is read.
+    private void sendRead(HttpExchange exchange, String what, CollectionVersions versions, ReadHandler handler) throws IOException {
+        try {
+            String key = readKey(exchange);
+            if (versions != null) {
+                String etag = versions.collectionTag(key);
+                if (notModified(exchange, etag)) {
+                    return;
+                }
+                exchange.getResponseHeaders().set("ETag", etag);
+                key += " " + etag; // a flight that began before a write is not joined after it
+            }
+            if (coalescer.shares(key)) {
+                try {
+                    sendJsonBytes(exchange, 200, coalescer.execute(key, () -> render(handler)));
+                    return;
+                } catch (ReadCoalescer.TooLargeException e) {
+                    // rendered again below, streamed
+                }
+            }
+            handler.render(new JsonSink() {
+                @Override
+                public void send(Object data) throws IOException {
+                    sendJsonResponse(exchange, 200, data);
+                }
+
+                @Override
+                public <T> void stream(RecordCursor<T> records, Class<T> type) throws IOException {
+                    sendJsonStream(exchange, 200, records, type);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            sendErrorResponse(exchange, 500, "Error fetching " + what + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] render(ReadHandler handler) throws IOException {
+        ByteArrayOutputStream buffer = coalescer.newBuffer();
+        handler.render(new JsonSink() {
+            @Override
+            public void send(Object data) throws IOException {
+                OutputStreamWriter writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+                gson.toJson(data, writer);
+                writer.flush();
+            }
+
+            @Override
+            public <T> void stream(RecordCursor<T> records, Class<T> type) throws IOException {
+                try (RecordCursor<T> cursor = records) {
+                    writeJsonArray(buffer, cursor, type);
+                }
+            }
+        });
+        return buffer.toByteArray();
+    }
+
+    // Method, path and the query parameters in order, so ?a=1&b=2 and ?b=2&a=1 share a flight.
+    // The pairs stay URL-encoded, which keeps '&' and '=' inside values from colliding.
+    private static String readKey(HttpExchange exchange) {
+        String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return key;
+        }
+        String[] pairs = query.split("&");
+        Arrays.sort(pairs);
+        return key + "?" + String.join("&", pairs);
+    }
+
+    private void setJsonHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
+        exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag");
+    }
+
     private void sendErrorResponse(HttpExchange exchange, int statusCode, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // Headers already went out (a streamed response failed part way). Failing here drops
+            // the connection before the final chunk, so the client sees an incomplete body.
+            throw new IOException("Response already committed, aborting: " + message);
+        }
+        exchange.getResponseHeaders().remove("ETag"); // set before a read that then failed
         Map<String, String> error = new HashMap<>();
         error.put("error", message);
         error.put("status", String.valueOf(statusCode));
@@ -922,6 +1869,10 @@ public class RestApiServer {
     public void stop() {
         if (server != null) {
             server.stop(0);
+            if (healthMonitor != null) {
+                healthMonitor.close();
+            }
+            requestExecutor.shutdown();
             System.out.println("REST API Server stopped");
         }
     }
@@ -947,7 +1898,9 @@ public class RestApiServer {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("\n🛑 Shutting down server...");
             server.stop();
-            DatabaseConnection.getInstance().closeConnection();
+            if (server.usesDatabase()) {
+                DatabaseConnection.getInstance().closeConnection();
+            }
             System.out.println("✅ Server shutdown complete.");
         }));
 
@@ -961,16 +1914,11 @@ public class RestApiServer {
 
     private void handleDeleteAllPatients(HttpExchange exchange) throws IOException {
         try {
-            // Get all patients first
-            List<Patient> patients = patientDAO.getAllPatients();
-            int deletedCount = 0;
-
-            // Delete each patient
-            for (Patient patient : patients) {
-                boolean success = patientDAO.deletePatient(patient.getPatientId());
-                if (success) {
-                    deletedCount++;
-                }
+            // Single deleteMany instead of reading every patient and deleting them one by one
+            long deletedCount = patientDAO.deleteAllPatients();
+            if (deletedCount < 0) {
+                sendErrorResponse(exchange, 500, "Failed to delete all patients");
+                return;
             }
 
             Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,107 @@
+package org.example;
+
+// The stores the application reads and writes through, chosen once at startup:
+//   -Dcarehub.storage=mongodb   the DAOs on the configured MongoDB deployment (default)
+//   -Dcarehub.storage=memory    the embedded in-memory engine; nothing survives a restart
+// The desktop client also falls back to memory when MongoDB cannot be reached, so offline
+// mode runs the same code paths against real stores instead of a fixed set of cached objects.
+public final class StorageBackend {
+
+    public enum Type { MONGODB, MEMORY }
+
+    private final Type type;
+    private final PatientStore patients;
+    private final DoctorStore doctors;
+    private final AppointmentStore appointments;
+    private final BillStore bills;
+    private final UserStore users;
+    private final MedicalRecordStore medicalRecords;
+    private final CounterStore counters;
+
+    StorageBackend(Type type, PatientStore patients, DoctorStore doctors, AppointmentStore appointments,
+                   BillStore bills, UserStore users, MedicalRecordStore medicalRecords, CounterStore counters) {
+        this.type = type;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+        this.bills = bills;
+        this.users = users;
+        this.medicalRecords = medicalRecords;
+        this.counters = counters;
+    }
+
+    public static StorageBackend fromSystemProperties() {
+        return configuredType() == Type.MEMORY ? inMemory() : mongo();
+    }
+
+    public static Type configuredType() {
+        Type type = Type.MONGODB;
+        String configured = System.getProperty("carehub.storage");
+        if (configured != null && !configured.isBlank()) {
+            try {
+                type = Type.valueOf(configured.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown storage backend '" + configured + "', using " + type);
+            }
+        }
+        return type;
+    }
+
+    // Opens the MongoDB connection on first use, through DatabaseConnection
+    public static StorageBackend mongo() {
+        return new StorageBackend(Type.MONGODB, new PatientDAO(), new DoctorDAO(), new AppointmentDAO(),
+                new BillDAO(), new UserDAO(), new MedicalRecordDAO(), new CounterDAO());
+    }
+
+    // Empty stores private to this instance
+    public static StorageBackend inMemory() {
+        return new StorageBackend(Type.MEMORY, new InMemoryPatientStore(), new InMemoryDoctorStore(),
+                new InMemoryAppointmentStore(), new InMemoryBillStore(), new InMemoryUserStore(),
+                new InMemoryMedicalRecordStore(), new InMemoryCounterStore());
+    }
+
+    public Type getType() { return type; }
+    public PatientStore getPatientStore() { return patients; }
+    public DoctorStore getDoctorStore() { return doctors; }
+    public AppointmentStore getAppointmentStore() { return appointments; }
+    public BillStore getBillStore() { return bills; }
+    public UserStore getUserStore() { return users; }
+    public MedicalRecordStore getMedicalRecordStore() { return medicalRecords; }
+    public CounterStore getCounterStore() { return counters; }
+
+    public boolean isPersistent() {
+        return type == Type.MONGODB;
+    }
+
+    // The demo doctors, patients, appointments and bills a new installation starts with
+    public void insertSampleData() {
+        Doctor doc1 = new Doctor("DOC1", "Dr. Smith", "Cardiology", "9AM-5PM");
+        Doctor doc2 = new Doctor("DOC2", "Dr. Johnson", "Neurology", "10AM-6PM");
+        Doctor doc3 = new Doctor("DOC3", "Dr. Williams", "Pediatrics", "8AM-4PM");
+        doctors.insertDoctor(doc1);
+        doctors.insertDoctor(doc2);
+        doctors.insertDoctor(doc3);
+
+        Patient pat1 = new Patient("PAT1", "John Doe", 35, "Male", "123 Main St", "555-1234");
+        Patient pat2 = new Patient("PAT2", "Jane Smith", 28, "Female", "456 Oak Ave", "555-5678");
+        Patient pat3 = new Patient("PAT3", "Robert Johnson", 45, "Male", "789 Pine Rd", "555-9012");
+        patients.insertPatient(pat1);
+        patients.insertPatient(pat2);
+        patients.insertPatient(pat3);
+
+        Appointment app1 = new Appointment("APP1", "PAT1", "DOC1", "2023-06-15", "10:00", "Regular checkup");
+        app1.setNames(pat1, doc1);
+        Appointment app2 = new Appointment("APP2", "PAT2", "DOC2", "2023-06-15", "11:30", "Headache consultation");
+        app2.setNames(pat2, doc2);
+        appointments.insertAppointment(app1);
+        appointments.insertAppointment(app2);
+
+        bills.insertBill(new Bill("BILL1", "PAT1", 150.00, "Consultation fee"));
+        bills.insertBill(new Bill("BILL2", "PAT2", 200.00, "Lab tests"));
+    }
+
+    @Override
+    public String toString() {
+        return type.name().toLowerCase();
+    }
+}
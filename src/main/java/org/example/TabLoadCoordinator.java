@@ -0,0 +1,72 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Loads a dashboard's tabs in the background, one tab at a time: only the selected tab is
+// loaded, switching away from a tab cancels its unfinished load, and tabs that were not
+// loaded are loaded when they are next selected. All methods run on the EDT.
+class TabLoadCoordinator {
+
+    private final JTabbedPane tabs;
+    private final Map<Component, Supplier<TableLoader<?>>> loaders = new HashMap<>();
+    private final Map<Component, TableLoader<?>> running = new HashMap<>();
+    private final Set<Component> stale = new HashSet<>();
+
+    TabLoadCoordinator(JTabbedPane tabs) {
+        this.tabs = tabs;
+        tabs.addChangeListener(e -> onTabChanged());
+    }
+
+    void register(Component tab, Supplier<TableLoader<?>> loader) {
+        loaders.put(tab, loader);
+    }
+
+    // Marks every tab stale and starts loading the selected one
+    void loadAll() {
+        cancelAll();
+        stale.addAll(loaders.keySet());
+        loadSelected();
+    }
+
+    // Cancels the tab's unfinished load, e.g. before it is refreshed synchronously
+    void cancel(Component tab) {
+        TableLoader.cancel(running.remove(tab));
+        stale.remove(tab);
+    }
+
+    void cancelAll() {
+        for (TableLoader<?> loader : running.values()) {
+            TableLoader.cancel(loader);
+        }
+        running.clear();
+        stale.clear();
+    }
+
+    private void onTabChanged() {
+        Component selected = tabs.getSelectedComponent();
+        running.entrySet().removeIf(entry -> {
+            if (entry.getKey() == selected) {
+                return false;
+            }
+            if (!entry.getValue().isDone()) {
+                TableLoader.cancel(entry.getValue());
+                stale.add(entry.getKey());
+            }
+            return true;
+        });
+        loadSelected();
+    }
+
+    private void loadSelected() {
+        Component selected = tabs.getSelectedComponent();
+        if (selected != null && stale.remove(selected)) {
+            running.put(selected, loaders.get(selected).get());
+        }
+    }
+}
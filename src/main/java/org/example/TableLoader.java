@@ -0,0 +1,95 @@
+package org.example;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+// Fills one table without blocking the EDT: the source is queried on a SwingWorker thread
+// and its records are appended in chunks, so the EDT only does short bursts of work and
+// the table fills progressively. Chunks from a cancelled load are dropped; which load is
+// current is decided by TabLoadCoordinator.
+class TableLoader<T> extends SwingWorker<Integer, List<T>> {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final RecordTableModel<T> model;
+    private final Callable<? extends Collection<T>> source;
+
+    private TableLoader(RecordTableModel<T> model, Callable<? extends Collection<T>> source) {
+        this.model = model;
+        this.source = source;
+    }
+
+    // Must be called on the EDT: clears the table and starts loading it
+    static <T> TableLoader<T> start(RecordTableModel<T> model, Callable<? extends Collection<T>> source,
+                                    LoadingIndicator indicator) {
+        TableLoader<T> loader = new TableLoader<>(model, source);
+        model.clear();
+        if (indicator != null) {
+            indicator.track(loader);
+        }
+        loader.execute();
+        return loader;
+    }
+
+    static void cancel(TableLoader<?> loader) {
+        if (loader != null && !loader.isDone()) {
+            loader.cancel(true);
+        }
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        Collection<T> records = source.call();
+        int total = records.size();
+        int loaded = 0;
+        List<T> chunk = new ArrayList<>(Math.min(total, CHUNK_SIZE));
+        for (T record : records) {
+            if (isCancelled()) {
+                return loaded;
+            }
+            chunk.add(record);
+            loaded++;
+            if (chunk.size() == CHUNK_SIZE) {
+                publish(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                setProgress(loaded * 100 / total);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            publish(chunk);
+        }
+        setProgress(100);
+        return loaded;
+    }
+
+    @Override
+    protected void process(List<List<T>> chunks) {
+        if (isCancelled()) {
+            return;
+        }
+        // Chunks delivered together are appended with a single event
+        List<T> records = chunks.size() == 1 ? chunks.get(0) : new ArrayList<>();
+        if (chunks.size() > 1) {
+            chunks.forEach(records::addAll);
+        }
+        model.appendRecords(records);
+    }
+
+    @Override
+    protected void done() {
+        try {
+            get();
+        } catch (CancellationException e) {
+            // Superseded by a newer load
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error loading table data: " + e.getCause().getMessage());
+        }
+    }
+}
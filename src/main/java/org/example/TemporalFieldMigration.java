@@ -0,0 +1,103 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import static com.mongodb.client.model.Filters.*;
+
+// Fills in the typed start of appointments (startAt) and of medical record visits (visitAt)
+// for documents written before TemporalFields existed. Documents are read in _id order in
+// batches and each batch is written with one unordered bulkWrite, so a large collection is
+// never held in memory or updated one round trip at a time:
+//   -Dcarehub.migration.batchSize=500   (default)
+// Re-running is safe: only documents still missing the field are visited, and strings that
+// cannot be read are stored as null so they are not visited again.
+//
+//   java -cp carehub.jar org.example.TemporalFieldMigration
+public class TemporalFieldMigration {
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final MongoCollection<Document> appointments;
+    private final MongoCollection<Document> medicalRecords;
+    private final int batchSize;
+
+    public TemporalFieldMigration() {
+        this(DatabaseConnection.getInstance().getCollection("appointments"),
+                DatabaseConnection.getInstance().getCollection("medicalRecords"),
+                Integer.getInteger("carehub.migration.batchSize", DEFAULT_BATCH_SIZE));
+    }
+
+    TemporalFieldMigration(MongoCollection<Document> appointments, MongoCollection<Document> medicalRecords,
+                           int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.appointments = appointments;
+        this.medicalRecords = medicalRecords;
+        this.batchSize = batchSize;
+    }
+
+    // Returns the number of documents updated in both collections
+    public long migrate() {
+        long updated = backfill(appointments, "appointments", "date", "time", TemporalFields.APPOINTMENT_START);
+        updated += backfill(medicalRecords, "medicalRecords", "visitDate", "visitTime", TemporalFields.VISIT);
+        return updated;
+    }
+
+    private long backfill(MongoCollection<Document> collection, String name,
+                          String dateField, String timeField, String target) {
+        long updated = 0;
+        long unreadable = 0;
+        int failed = 0;
+        Object lastId = null;
+        while (true) {
+            // Paging by _id rather than skip keeps each batch an index range scan, and documents
+            // that fail to update are not read again by this run
+            Bson missing = exists(target, false);
+            List<Document> batch = collection.find(lastId == null ? missing : and(missing, gt("_id", lastId)))
+                    .projection(Projections.include(dateField, timeField))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<WriteModel<Document>> models = new ArrayList<>();
+            List<String> ids = new ArrayList<>();
+            for (Document doc : batch) {
+                Date value = TemporalFields.toDate(doc.getString(dateField), doc.getString(timeField));
+                if (value == null) {
+                    unreadable++;
+                }
+                models.add(new UpdateOneModel<>(and(eq("_id", doc.get("_id")), exists(target, false)),
+                        ChangeTracking.stampUpdate(new Document("$set", new Document(target, value)))));
+                ids.add(String.valueOf(doc.get("_id")));
+            }
+            BulkWriteSummary summary = BulkWriter.execute(WriteOperation.BULK.on(collection), "update",
+                    models, ids, false);
+            updated += summary.getModified();
+            failed += summary.getFailed();
+            lastId = batch.get(batch.size() - 1).get("_id");
+        }
+        System.out.println("Set " + target + " on " + updated + " " + name
+                + (unreadable > 0 ? " (" + unreadable + " with an unreadable date or time, stored as null)" : "")
+                + (failed > 0 ? ", " + failed + " left for the next run" : ""));
+        return updated;
+    }
+
+    public static void main(String[] args) {
+        try {
+            new TemporalFieldMigration().migrate();
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
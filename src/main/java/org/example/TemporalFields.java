@@ -0,0 +1,85 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Appointments and medical records keep their date and time as the strings users enter
+// ("2024-03-04", "10:00"), which is what the API and the dashboards show. Next to them every
+// write stores the same moment as a BSON date, which range queries and indexes work on:
+//   appointments     startAt = date + time
+//   medicalRecords   visitAt = visitDate + visitTime
+// Strings that cannot be read are stored as null, so such a record never matches a range.
+// The strings are wall-clock times of the hospital, set with -Dcarehub.timezone (default:
+// the JVM's zone). Records written before these fields existed are filled in by
+// TemporalFieldMigration.
+final class TemporalFields {
+
+    static final String APPOINTMENT_START = "startAt";
+    static final String VISIT = "visitAt";
+
+    private static final List<DateTimeFormatter> TIME_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("H:mm"),
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("h:mm[ ]a").toFormatter(Locale.US));
+
+    private static final ZoneId ZONE = configuredZone();
+
+    private TemporalFields() {
+    }
+
+    private static ZoneId configuredZone() {
+        String configured = System.getProperty("carehub.timezone");
+        if (configured != null && !configured.isBlank()) {
+            try {
+                return ZoneId.of(configured.trim());
+            } catch (Exception e) {
+                System.err.println("Unknown time zone '" + configured + "', using " + ZoneId.systemDefault());
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    static ZoneId zone() {
+        return ZONE;
+    }
+
+    // yyyy-MM-dd and HH:MM (or h:mm AM); throws IllegalArgumentException saying which is wrong
+    static LocalDateTime parse(String date, String time) {
+        LocalDate day;
+        try {
+            day = LocalDate.parse(date.trim());
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid date '" + date + "', expected YYYY-MM-DD");
+        }
+        if (time != null) {
+            for (DateTimeFormatter format : TIME_FORMATS) {
+                try {
+                    return day.atTime(LocalTime.parse(time.trim(), format));
+                } catch (DateTimeParseException e) {
+                    // try the next format
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid time '" + time + "', expected HH:MM");
+    }
+
+    // The stored form; null when either string cannot be read
+    static Date toDate(String date, String time) {
+        try {
+            return toDate(parse(date, time));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZONE).toInstant());
+    }
+}
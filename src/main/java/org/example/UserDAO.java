@@ -2,65 +2,65 @@ package org.example;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.result.DeleteResult;
-import com.mongodb.client.result.UpdateResult;
+import com.mongodb.client.model.Sorts;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import static com.mongodb.client.model.Filters.*;
 
-public class UserDAO {
+public class UserDAO implements UserStore {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private MongoCollection<Document> collection;
+    private MongoCollection<User> typedCollection; // decoded by DomainCodecs
+    private DeletionLog deletions; // tombstones read by the polling change source
 
     public UserDAO() {
-        this.collection = DatabaseConnection.getInstance()
-                .getDatabase()
-                .getCollection("users");
+        this.collection = DatabaseConnection.getInstance().getCollection("users");
+        this.typedCollection = collection.withDocumentClass(User.class);
+        this.deletions = DeletionLog.forCollection("users");
+        DatabaseSchemaInitializer.ensureUniqueIndex(collection, "username");
     }
 
-    // Create
-    public boolean insertUser(User user) {
+    // Create - duplicate IDs are rejected by the unique index on username
+    @Override
+    public WriteResult insertUser(User user) {
         try {
-            // Check if user already exists
-            if (getUserByUsername(user.getUsername()) != null) {
-                System.err.println("User with username " + user.getUsername() + " already exists");
-                return false;
-            }
-
-            Document doc = new Document("username", user.getUsername())
-                    .append("password", user.getPassword())
-                    .append("role", user.getRole().toString());
-
-            collection.insertOne(doc);
+            WriteOperation.INSERT.on(collection).insertOne(ChangeTracking.stampInsert(toDocument(user)));
             System.out.println("User " + user.getUsername() + " inserted successfully");
-            return true;
+            return WriteResult.APPLIED;
         } catch (Exception e) {
-            System.err.println("Error inserting user: " + e.getMessage());
-            return false;
+            WriteResult result = WriteResult.ofException(e);
+            if (result == WriteResult.DUPLICATE) {
+                System.err.println("User with username " + user.getUsername() + " already exists");
+            } else {
+                System.err.println("Error inserting user: " + e.getMessage());
+            }
+            return result;
         }
     }
 
     // Read
+    @Override
     public User getUserByUsername(String username) {
         try {
-            Document doc = collection.find(eq("username", username)).first();
-            if (doc != null) {
-                return documentToUser(doc);
-            }
+            return typedCollection.find(eq("username", username)).first();
         } catch (Exception e) {
             System.err.println("Error getting user: " + e.getMessage());
         }
         return null;
     }
 
+    @Override
     public Map<String, User> getAllUsers() {
         Map<String, User> users = new HashMap<>();
         try {
-            MongoCursor<Document> cursor = collection.find().iterator();
+            MongoCursor<User> cursor = typedCollection.find().iterator();
             while (cursor.hasNext()) {
-                User user = documentToUser(cursor.next());
+                User user = cursor.next();
                 users.put(user.getUsername(), user);
             }
             cursor.close();
@@ -70,90 +70,105 @@ public class UserDAO {
         return users;
     }
 
-    // Update - FIXED to check if record exists
-    public boolean updateUser(User user) {
+    // Keyset pagination ordered by username; reads one extra document to detect the next page.
+    // Errors propagate, so a failed page is not mistaken for the last one.
+    @Override
+    public Page<User> getUsersPage(ListQuery query) {
+        List<User> users = new ArrayList<>();
+        String nextCursor = null;
+        Bson filter = query.getAfterKey() == null ? new Document() : gt("username", query.getAfterKey());
+        MongoCursor<User> cursor = typedCollection.find(filter)
+                .sort(Sorts.ascending("username"))
+                .limit(query.getLimit() + 1)
+                .iterator();
         try {
-            // First check if user exists
-            if (getUserByUsername(user.getUsername()) == null) {
-                System.err.println("Cannot update: User with username " + user.getUsername() + " does not exist");
-                return false;
+            while (cursor.hasNext()) {
+                users.add(cursor.next());
             }
+        } finally {
+            cursor.close();
+        }
+
+        if (users.size() > query.getLimit()) {
+            users.remove(users.size() - 1);
+            nextCursor = ListQuery.encodeCursor(users.get(users.size() - 1).getUsername());
+        }
+        return new Page<>(users, nextCursor);
+    }
 
+    // Streams every user in username order. Unlike getAllUsers() errors are not swallowed,
+    // because the caller may already be writing the response when the cursor is opened.
+    @Override
+    public RecordCursor<User> streamUsers() {
+        MongoCursor<User> cursor = typedCollection.find()
+                .sort(Sorts.ascending("username"))
+                .batchSize(STREAM_BATCH_SIZE)
+                .iterator();
+        return RecordCursor.over(cursor);
+    }
+
+    // Update - existence comes from the matched count, no read beforehand
+    @Override
+    public WriteResult updateUser(User user) {
+        try {
             Document updateDoc = new Document("$set", new Document()
                     .append("password", user.getPassword())
                     .append("role", user.getRole().toString()));
 
-            UpdateResult result = collection.updateOne(eq("username", user.getUsername()), updateDoc);
-
-            if (result.getMatchedCount() > 0) {
-                System.out.println("User " + user.getUsername() + " updated successfully");
-                return true;
-            } else {
+            WriteResult result = WriteResult.ofUpdate(WriteOperation.UPDATE.on(collection).updateOne(eq("username", user.getUsername()), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No user found with username: " + user.getUsername());
-                return false;
+            } else {
+                System.out.println("User " + user.getUsername() + " updated successfully");
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error updating user: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
         }
     }
 
-    // Update password - FIXED to check if record exists
-    public boolean updateUserPassword(String username, String newPassword) {
+    // Update password - existence comes from the matched count
+    @Override
+    public WriteResult updateUserPassword(String username, String newPassword) {
         try {
-            // First check if user exists
-            if (getUserByUsername(username) == null) {
-                System.err.println("Cannot update password: User with username " + username + " does not exist");
-                return false;
-            }
-
             Document updateDoc = new Document("$set", new Document("password", newPassword));
-            UpdateResult result = collection.updateOne(eq("username", username), updateDoc);
-
-            if (result.getMatchedCount() > 0) {
-                System.out.println("Password updated for user " + username);
-                return true;
-            } else {
+            WriteResult result = WriteResult.ofUpdate(WriteOperation.UPDATE.on(collection).updateOne(eq("username", username), ChangeTracking.stampUpdate(updateDoc)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No user found with username: " + username);
-                return false;
+            } else {
+                System.out.println("Password updated for user " + username);
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error updating user password: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
         }
     }
 
-    // Delete - FIXED to check if record exists
-    public boolean deleteUser(String username) {
+    // Delete - existence comes from the deleted count
+    @Override
+    public WriteResult deleteUser(String username) {
         try {
-            // First check if user exists
-            if (getUserByUsername(username) == null) {
-                System.err.println("Cannot delete: User with username " + username + " does not exist");
-                return false;
-            }
-
-            DeleteResult result = collection.deleteOne(eq("username", username));
-
-            if (result.getDeletedCount() > 0) {
-                System.out.println("User " + username + " deleted successfully");
-                return true;
-            } else {
+            WriteResult result = WriteResult.ofDelete(WriteOperation.DELETE.on(collection).deleteOne(eq("username", username)));
+            if (result == WriteResult.NOT_FOUND) {
                 System.err.println("No user found with username: " + username);
-                return false;
+            } else {
+                System.out.println("User " + username + " deleted successfully");
+                deletions.recordDeleted(List.of(username));
             }
+            return result;
         } catch (Exception e) {
             System.err.println("Error deleting user: " + e.getMessage());
-            return false;
+            return WriteResult.FAILED;
         }
     }
 
     // Authentication
+    @Override
     public User authenticateUser(String username, String password) {
         try {
-            Document doc = collection.find(and(eq("username", username), eq("password", password))).first();
-            if (doc != null) {
-                return documentToUser(doc);
-            }
+            return typedCollection.find(and(eq("username", username), eq("password", password))).first();
         } catch (Exception e) {
             System.err.println("Error authenticating user: " + e.getMessage());
         }
@@ -161,30 +176,29 @@ public class UserDAO {
     }
 
     // Check if user exists
+    @Override
     public boolean userExists(String username) {
         return getUserByUsername(username) != null;
     }
 
-    // Helper method
-    private User documentToUser(Document doc) {
-        return new User(
-                doc.getString("username"),
-                doc.getString("password"),
-                UserRole.valueOf(doc.getString("role"))
-        );
-    }
-
     // Initialize default users if collection is empty
+    @Override
     public void initializeDefaultUsers() {
         try {
             if (collection.countDocuments() == 0) {
-                insertUser(new User("admin", "admin123", UserRole.ADMIN));
-                insertUser(new User("doctor1", "doc123", UserRole.DOCTOR));
-                insertUser(new User("reception1", "recep123", UserRole.RECEPTIONIST));
+                for (User user : UserStore.defaultUsers()) {
+                    insertUser(user);
+                }
                 System.out.println("Default users initialized in database.");
             }
         } catch (Exception e) {
             System.err.println("Error initializing default users: " + e.getMessage());
         }
     }
+
+    static Document toDocument(User user) {
+        return new Document("username", user.getUsername())
+                .append("password", user.getPassword())
+                .append("role", user.getRole().toString());
+    }
 }
@@ -0,0 +1,39 @@
+package org.example;
+
+import java.util.List;
+import java.util.Map;
+
+// Storage for login accounts; see PatientStore for the conventions
+public interface UserStore {
+
+    WriteResult insertUser(User user);
+
+    User getUserByUsername(String username);
+
+    Map<String, User> getAllUsers();
+
+    Page<User> getUsersPage(ListQuery query);
+
+    RecordCursor<User> streamUsers();
+
+    WriteResult updateUser(User user);
+
+    WriteResult updateUserPassword(String username, String newPassword);
+
+    WriteResult deleteUser(String username);
+
+    // Null when the username or password does not match
+    User authenticateUser(String username, String password);
+
+    boolean userExists(String username);
+
+    // Adds defaultUsers() if there are no users yet
+    void initializeDefaultUsers();
+
+    static List<User> defaultUsers() {
+        return List.of(
+                new User("admin", "admin123", UserRole.ADMIN),
+                new User("doctor1", "doc123", UserRole.DOCTOR),
+                new User("reception1", "recep123", UserRole.RECEPTIONIST));
+    }
+}
@@ -0,0 +1,145 @@
+package org.example;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A doctor's availability text ("9AM-5PM", "Mon-Fri 9:30AM-5PM", "Tue, Thu 08:00-12:00") read
+// as the days and the daily window appointments may be booked in. The field is free text, so a
+// part that cannot be read places no restriction: "Mon-Fri" is any time on weekdays and text
+// without days or hours, or an overnight window such as "10PM-6AM", is any time at all.
+final class WorkingHours {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final WorkingHours ALWAYS = new WorkingHours(EnumSet.allOf(DayOfWeek.class), 0, MINUTES_PER_DAY);
+
+    private static final Pattern HOURS = Pattern.compile(
+            "(\\d{1,2})(?:[:.](\\d{2}))?\\s*([ap]\\.?m\\.?)?\\s*(?:-|–|to)\\s*(\\d{1,2})(?:[:.](\\d{2}))?\\s*([ap]\\.?m\\.?)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern DAYS = Pattern.compile(
+            "\\b(mon|tue|wed|thu|fri|sat|sun)[a-z]*\\.?(?:\\s*(?:-|–|to)\\s*(mon|tue|wed|thu|fri|sat|sun)[a-z]*\\.?)?",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Set<DayOfWeek> days;
+    private final int startMinute;
+    private final int endMinute;
+
+    WorkingHours(Set<DayOfWeek> days, int startMinute, int endMinute) {
+        this.days = Collections.unmodifiableSet(EnumSet.copyOf(days));
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    static WorkingHours parse(String availability) {
+        if (availability == null || availability.isBlank()) {
+            return ALWAYS;
+        }
+
+        int start = 0;
+        int end = MINUTES_PER_DAY;
+        String rest = availability;
+        Matcher hours = HOURS.matcher(availability);
+        if (hours.find()) {
+            int[] window = window(hours);
+            if (window != null) {
+                start = window[0];
+                end = window[1];
+            }
+            rest = availability.substring(0, hours.start()) + " " + availability.substring(hours.end());
+        }
+
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        Matcher range = DAYS.matcher(rest);
+        while (range.find()) {
+            DayOfWeek first = dayOf(range.group(1));
+            DayOfWeek last = range.group(2) != null ? dayOf(range.group(2)) : first;
+            // Ranges may wrap around the week, e.g. "Fri-Mon"
+            for (DayOfWeek day = first; ; day = day.plus(1)) {
+                days.add(day);
+                if (day == last) {
+                    break;
+                }
+            }
+        }
+        if (days.isEmpty()) {
+            days = EnumSet.allOf(DayOfWeek.class);
+        }
+        return new WorkingHours(days, start, end);
+    }
+
+    // Start and end minute of the day, or null when the match is not a usable daytime window.
+    // "9-5PM" borrows the end's PM only while that keeps the start before the end.
+    private static int[] window(Matcher hours) {
+        String startSuffix = hours.group(3);
+        String endSuffix = hours.group(6);
+        int end = minuteOfDay(hours.group(4), hours.group(5), endSuffix);
+        int start = minuteOfDay(hours.group(1), hours.group(2), startSuffix != null ? startSuffix : endSuffix);
+        if (startSuffix == null && endSuffix != null && start >= end) {
+            start = minuteOfDay(hours.group(1), hours.group(2), "am");
+        }
+        if (end == 0) {
+            end = MINUTES_PER_DAY; // "to 12AM" is midnight at the end of the day
+        }
+        if (start < 0 || end < 0 || start >= end) {
+            return null;
+        }
+        return new int[]{start, end};
+    }
+
+    private static int minuteOfDay(String hour, String minute, String suffix) {
+        int h = Integer.parseInt(hour);
+        int m = minute != null ? Integer.parseInt(minute) : 0;
+        if (m > 59) {
+            return -1;
+        }
+        if (suffix != null) {
+            if (h < 1 || h > 12) {
+                return -1;
+            }
+            h = h % 12 + (Character.toLowerCase(suffix.charAt(0)) == 'p' ? 12 : 0);
+        } else if (h > 24 || (h == 24 && m > 0)) {
+            return -1;
+        }
+        return h * 60 + m;
+    }
+
+    private static DayOfWeek dayOf(String prefix) {
+        switch (prefix.toLowerCase(Locale.ROOT)) {
+            case "mon": return DayOfWeek.MONDAY;
+            case "tue": return DayOfWeek.TUESDAY;
+            case "wed": return DayOfWeek.WEDNESDAY;
+            case "thu": return DayOfWeek.THURSDAY;
+            case "fri": return DayOfWeek.FRIDAY;
+            case "sat": return DayOfWeek.SATURDAY;
+            default: return DayOfWeek.SUNDAY;
+        }
+    }
+
+    Set<DayOfWeek> getDays() { return days; }
+    int getStartMinute() { return startMinute; }
+    int getEndMinute() { return endMinute; }
+
+    boolean worksOn(DayOfWeek day) {
+        return days.contains(day);
+    }
+
+    // Whether an appointment of the given length starting then lies wholly inside the hours
+    boolean covers(LocalDateTime start, int minutes) {
+        int minute = start.getHour() * 60 + start.getMinute();
+        return worksOn(start.getDayOfWeek()) && minute >= startMinute && minute + minutes <= endMinute;
+    }
+
+    @Override
+    public String toString() {
+        return (days.size() == 7 ? "daily" : days.toString()) + " " + clock(startMinute) + "-" + clock(endMinute);
+    }
+
+    static String clock(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example;
+
+import com.mongodb.client.MongoCollection;
+
+// Kinds of DAO writes that can be given their own write concern in DatabaseConfig,
+// e.g. w:1 for bulk imports while single billing updates stay majority.
+public enum WriteOperation {
+    INSERT,
+    UPDATE,
+    DELETE,
+    BULK;
+
+    // The collection with this operation's write concern applied; the wrapper is
+    // immutable and cheap, so it is taken per call
+    public <T> MongoCollection<T> on(MongoCollection<T> collection) {
+        return collection.withWriteConcern(DatabaseConnection.getInstance().getConfig()
+                .writeConcernFor(collection.getNamespace().getCollectionName(), this));
+    }
+
+    String propertyName() {
+        return name().toLowerCase();
+    }
+}
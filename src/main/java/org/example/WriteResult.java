@@ -0,0 +1,55 @@
+package org.example;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+// Outcome of a single DAO write. Each write is one round trip: existence comes from
+// the matched/deleted counts and uniqueness from the collection's unique index.
+public enum WriteResult {
+    APPLIED,
+    UNCHANGED,   // document exists but already had the requested values
+    NOT_FOUND,
+    DUPLICATE,   // unique index rejected the insert
+    FAILED;
+
+    public boolean isSuccess() {
+        return this == APPLIED || this == UNCHANGED;
+    }
+
+    public static WriteResult ofUpdate(UpdateResult result) {
+        return result.getMatchedCount() > 0 ? APPLIED : NOT_FOUND;
+    }
+
+    // For idempotent state changes (mark paid, mark completed) where a no-op is worth reporting
+    public static WriteResult ofStateChange(UpdateResult result) {
+        if (result.getMatchedCount() == 0) {
+            return NOT_FOUND;
+        }
+        return result.getModifiedCount() > 0 ? APPLIED : UNCHANGED;
+    }
+
+    public static WriteResult ofDelete(DeleteResult result) {
+        return result.getDeletedCount() > 0 ? APPLIED : NOT_FOUND;
+    }
+
+    public static WriteResult ofException(Exception e) {
+        if (isDuplicateKey(e)) {
+            return DUPLICATE;
+        }
+        return FAILED;
+    }
+
+    public static boolean isDuplicateKey(Exception e) {
+        if (e instanceof MongoWriteException) {
+            return ((MongoWriteException) e).getError().getCategory() == ErrorCategory.DUPLICATE_KEY;
+        }
+        if (e instanceof MongoBulkWriteException) {
+            return ((MongoBulkWriteException) e).getWriteErrors().stream()
+                    .anyMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+        }
+        return false;
+    }
+}
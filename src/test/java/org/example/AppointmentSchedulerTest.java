@@ -0,0 +1,127 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppointmentSchedulerTest {
+
+    private final Map<String, Doctor> doctors = new HashMap<>();
+    private final List<Appointment> stored = new ArrayList<>();
+
+    private AppointmentScheduler scheduler() {
+        doctors.put("DOC1", new Doctor("DOC1", "Dr. Smith", "Cardiology", "Mon-Fri 9AM-5PM"));
+        return new AppointmentScheduler(30, doctors::get,
+                doctorId -> stored.stream().filter(a -> doctorId.equals(a.getDoctorId())).toList(),
+                (doctorId, from, to) -> stored.stream().filter(a -> doctorId.equals(a.getDoctorId())).filter(a -> {
+                    LocalDateTime start = TemporalFields.parse(a.getDate(), a.getTime());
+                    return !start.isBefore(from) && start.isBefore(to);
+                }).toList());
+    }
+
+    private static Appointment appointment(String id, String date, String time) {
+        return new Appointment(id, "PAT1", "DOC1", date, time, "Checkup");
+    }
+
+    @Test
+    void testAvailabilityIsParsedIntoDaysAndHours() {
+        WorkingHours weekdays = WorkingHours.parse("Mon-Fri 9:30AM-5PM");
+        assertEquals(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), weekdays.getDays());
+        assertEquals(9 * 60 + 30, weekdays.getStartMinute());
+        assertEquals(17 * 60, weekdays.getEndMinute());
+
+        WorkingHours clock = WorkingHours.parse("Tue, Thu 08:00-12:00");
+        assertEquals(EnumSet.of(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY), clock.getDays());
+        assertEquals(8 * 60, clock.getStartMinute());
+        assertEquals(9 * 60, WorkingHours.parse("9-5PM").getStartMinute());
+        assertEquals(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY, DayOfWeek.MONDAY),
+                WorkingHours.parse("Fri-Mon").getDays());
+
+        WorkingHours unknown = WorkingHours.parse("on call 10PM-6AM");
+        assertEquals(7, unknown.getDays().size());
+        assertEquals(0, unknown.getStartMinute());
+        assertEquals(WorkingHours.MINUTES_PER_DAY, unknown.getEndMinute());
+    }
+
+    @Test
+    void testOverlappingBookingIsRejected() {
+        AppointmentScheduler scheduler = scheduler();
+        // 2024-03-04 is a Monday
+        scheduler.reserve(appointment("APP1", "2024-03-04", "10:00"));
+
+        AppointmentScheduler.ConflictException conflict = assertThrows(AppointmentScheduler.ConflictException.class,
+                () -> scheduler.reserve(appointment("APP2", "2024-03-04", "10:15")));
+        assertEquals("APP1", conflict.getConflictingAppointmentId());
+        assertTrue(conflict.getMessage().contains("2024-03-04 10:30"), conflict.getMessage());
+
+        // Rebooking an appointment at an overlapping time moves it instead of conflicting with itself
+        scheduler.reserve(appointment("APP1", "2024-03-04", "10:10"));
+        scheduler.reserve(appointment("APP2", "2024-03-04", "10:40"));
+        scheduler.reserve(appointment("APP3", "2024-03-04", "9:30 AM"));
+        assertThrows(AppointmentScheduler.ConflictException.class,
+                () -> scheduler.reserve(appointment("APP4", "2024-03-04", "9:45")));
+    }
+
+    @Test
+    void testTimesOutsideWorkingHoursAreInvalid() {
+        AppointmentScheduler scheduler = scheduler();
+        assertThrows(IllegalArgumentException.class, () -> scheduler.reserve(appointment("APP1", "2024-03-04", "16:45")));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.reserve(appointment("APP1", "2024-03-09", "10:00")));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.reserve(appointment("APP1", "15/03/2024", "10:00")));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.reserve(appointment("APP1", "2024-03-04", "noon")));
+    }
+
+    @Test
+    void testNextFreeSlotsSkipBookingsAndDaysOff() {
+        stored.add(appointment("APP1", "2024-03-08", "16:00"));
+        stored.add(appointment("APP2", "2024-03-08", "16:40"));
+        AppointmentScheduler scheduler = scheduler();
+
+        // Friday afternoon is booked up, so the search carries over the weekend to Monday
+        List<LocalDateTime> free = scheduler.nextFreeSlots("DOC1", LocalDateTime.of(2024, 3, 8, 15, 50), 3);
+        assertEquals(Arrays.asList(LocalDateTime.of(2024, 3, 11, 9, 0), LocalDateTime.of(2024, 3, 11, 9, 30),
+                LocalDateTime.of(2024, 3, 11, 10, 0)), free);
+
+        scheduler.release("APP2");
+        assertEquals(List.of(LocalDateTime.of(2024, 3, 8, 16, 30)),
+                scheduler.nextFreeSlots("DOC1", LocalDateTime.of(2024, 3, 8, 15, 50), 1));
+    }
+
+    @Test
+    void testRestoreUndoesAFailedMove() {
+        stored.add(appointment("APP1", "2024-03-04", "10:00"));
+        AppointmentScheduler scheduler = scheduler();
+
+        AppointmentScheduler.Booking previous = scheduler.reserve(appointment("APP1", "2024-03-04", "11:00"));
+        assertEquals(LocalDateTime.of(2024, 3, 4, 10, 0), previous.getStart());
+        scheduler.restore("APP1", previous);
+
+        assertThrows(AppointmentScheduler.ConflictException.class,
+                () -> scheduler.reserve(appointment("APP2", "2024-03-04", "10:00")));
+        scheduler.reserve(appointment("APP2", "2024-03-04", "11:00"));
+    }
+
+    @Test
+    void testBookingsStoredByOtherWritersAreSeenBeforeBooking() {
+        AppointmentScheduler scheduler = scheduler();
+        scheduler.nextFreeSlots("DOC1", LocalDateTime.of(2024, 3, 4, 9, 0), 1); // timeline loaded, still empty
+
+        // Another process books 10:00 and later deletes the appointment this one loaded
+        stored.add(appointment("APP1", "2024-03-04", "10:00"));
+        AppointmentScheduler.ConflictException conflict = assertThrows(AppointmentScheduler.ConflictException.class,
+                () -> scheduler.reserve(appointment("APP2", "2024-03-04", "10:15")));
+        assertEquals("APP1", conflict.getConflictingAppointmentId());
+
+        stored.clear();
+        scheduler.reserve(appointment("APP2", "2024-03-04", "10:15"));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class BulkWriterTest {
+
+    private MongoCollection<Document> collection;
+    private List<WriteModel<Document>> models;
+    private final List<String> ids = Arrays.asList("PAT1", "PAT2", "PAT3");
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        collection = mock(MongoCollection.class);
+        models = new ArrayList<>();
+        for (String id : ids) {
+            models.add(new InsertOneModel<>(new Document("patientId", id)));
+        }
+    }
+
+    @Test
+    void testSuccessfulInsertReportsCounts() {
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(3, 0, 0, 0, Collections.emptyList(), Collections.emptyList()));
+
+        BulkWriteSummary summary = BulkWriter.execute(collection, "insert", models, ids, true);
+
+        assertEquals(3, summary.getReceived());
+        assertEquals(3, summary.getInserted());
+        assertEquals(0, summary.getFailed());
+        assertTrue(summary.getResults().stream().allMatch(r -> r.getStatus() == BulkWriteSummary.ItemStatus.OK));
+        verify(collection, times(1)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    void testOrderedWriteSkipsItemsAfterFirstError() {
+        BulkWriteResult partial = BulkWriteResult.acknowledged(1, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenThrow(new MongoBulkWriteException(partial, Collections.singletonList(duplicate), null,
+                        new ServerAddress(), Collections.emptySet()));
+
+        BulkWriteSummary summary = BulkWriter.execute(collection, "insert", models, ids, true);
+
+        assertEquals(1, summary.getInserted());
+        assertEquals(2, summary.getFailed());
+        assertEquals(BulkWriteSummary.ItemStatus.OK, summary.getResults().get(0).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.DUPLICATE, summary.getResults().get(1).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.SKIPPED, summary.getResults().get(2).getStatus());
+    }
+
+    @Test
+    void testUnorderedWriteOnlyFailsRejectedItems() {
+        BulkWriteResult partial = BulkWriteResult.acknowledged(2, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenThrow(new MongoBulkWriteException(partial, Collections.singletonList(duplicate), null,
+                        new ServerAddress(), Collections.emptySet()));
+
+        BulkWriteSummary summary = BulkWriter.execute(collection, "insert", models, ids, false);
+
+        assertEquals(1, summary.getFailed());
+        assertEquals(BulkWriteSummary.ItemStatus.DUPLICATE, summary.getResults().get(0).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.OK, summary.getResults().get(2).getStatus());
+    }
+
+    @Test
+    void testUpsertMarksCreatedItems() {
+        BulkWriteUpsert upsert = new BulkWriteUpsert(2, new BsonString("PAT3"));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.singletonList(upsert), Collections.emptyList()));
+
+        BulkWriteSummary summary = BulkWriter.execute(collection, "upsert", models, ids, true);
+
+        assertEquals(1, summary.getUpserted());
+        assertEquals(2, summary.getMatched());
+        assertNull(summary.getResults().get(0).getCreated());
+        assertEquals(Boolean.TRUE, summary.getResults().get(2).getCreated());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteReportsKeysThatMatchedNothing() {
+        FindIterable<Document> existing = mock(FindIterable.class);
+        when(existing.projection(any(Bson.class))).thenReturn(existing);
+        doAnswer(invocation -> {
+            Consumer<Document> action = invocation.getArgument(0);
+            action.accept(new Document("patientId", "PAT1"));
+            action.accept(new Document("patientId", "PAT3"));
+            return null;
+        }).when(existing).forEach(any());
+        when(collection.find(any(Bson.class))).thenReturn(existing);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 0, 2, 0, Collections.emptyList(), Collections.emptyList()));
+
+        BulkWriteSummary summary = BulkWriter.executeDelete(collection, "patientId", ids, true);
+
+        assertEquals(2, summary.getDeleted());
+        assertEquals(0, summary.getFailed());
+        assertEquals(BulkWriteSummary.ItemStatus.OK, summary.getResults().get(0).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.NOT_FOUND, summary.getResults().get(1).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.OK, summary.getResults().get(2).getStatus());
+    }
+
+    @Test
+    void testEmptyRequestDoesNotTouchDatabase() {
+        BulkWriteSummary summary = BulkWriter.execute(collection, "delete",
+                new ArrayList<>(), new ArrayList<>(), true);
+
+        assertEquals(0, summary.getReceived());
+        verifyNoInteractions(collection);
+    }
+}
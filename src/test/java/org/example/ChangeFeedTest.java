@@ -0,0 +1,187 @@
+package org.example;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    private IndexedRepository<Patient> cache;
+    private AtomicInteger reloads;
+    private ChangeTarget<Patient> target;
+
+    // In-process stand-in for a change stream: events are queued by the test and
+    // positions are plain counters, so resumption can be checked exactly.
+    static class FakeChangeSource implements ChangeSource<Patient> {
+        final List<ChangeEvent<Patient>> queued = new ArrayList<>();
+        final List<String> openedAt = new ArrayList<>();
+        RuntimeException failNextPoll;
+        RuntimeException failNextOpen;
+        int position;
+
+        void emit(ChangeEvent<Patient> event) {
+            queued.add(event);
+        }
+
+        @Override
+        public void open(String resumeToken) {
+            openedAt.add(resumeToken);
+            if (failNextOpen != null) {
+                RuntimeException e = failNextOpen;
+                failNextOpen = null;
+                throw e;
+            }
+        }
+
+        @Override
+        public List<ChangeEvent<Patient>> poll() {
+            if (failNextPoll != null) {
+                RuntimeException e = failNextPoll;
+                failNextPoll = null;
+                throw e;
+            }
+            List<ChangeEvent<Patient>> events = new ArrayList<>(queued);
+            position += events.size();
+            queued.clear();
+            return events;
+        }
+
+        @Override
+        public String resumeToken() {
+            return String.valueOf(position);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static Patient patient(String id, String name) {
+        return new Patient(id, name, 30, "Female", "1 Main St", "555-0000");
+    }
+
+    private static MongoCommandException commandError(int code) {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(code))
+                .append("errmsg", new BsonString("error " + code));
+        return new MongoCommandException(response, new ServerAddress());
+    }
+
+    @BeforeEach
+    void setUp() {
+        cache = new IndexedRepository<>(Patient::getPatientId);
+        cache.putAll(Arrays.asList(patient("PAT1", "John Doe"), patient("PAT2", "Jane Smith")));
+        reloads = new AtomicInteger();
+        target = ChangeTarget.of(cache, () -> {
+            reloads.incrementAndGet();
+            return Arrays.asList(patient("PAT9", "Reloaded"));
+        });
+    }
+
+    @Test
+    void testAppliesDeltasWithoutReloading() {
+        FakeChangeSource source = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", source, () -> fail("fallback not expected"), target);
+
+        source.emit(ChangeEvent.upsert("PAT3", patient("PAT3", "Robert Johnson")));
+        source.emit(ChangeEvent.upsert("PAT1", patient("PAT1", "John Updated")));
+        source.emit(ChangeEvent.delete("PAT2"));
+
+        assertEquals(3, feed.sync());
+        assertEquals(Arrays.asList("PAT1", "PAT3"), cache.values().stream().map(Patient::getPatientId).toList());
+        assertEquals("John Updated", cache.get("PAT1").getName());
+        assertEquals(0, reloads.get());
+        assertEquals(0, feed.sync(), "Nothing new should be applied twice");
+    }
+
+    @Test
+    void testFetchQueuesUntilApplied() {
+        FakeChangeSource source = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", source, () -> fail("fallback not expected"), target);
+
+        source.emit(ChangeEvent.delete("PAT1"));
+        assertEquals(1, feed.fetch());
+        assertNotNull(cache.get("PAT1"), "Fetching must not touch the cache");
+
+        assertEquals(1, feed.applyPending());
+        assertNull(cache.get("PAT1"));
+    }
+
+    @Test
+    void testFallsBackWhenSourceCannotOpen() {
+        FakeChangeSource stream = new FakeChangeSource();
+        stream.failNextOpen = commandError(40573); // change streams need a replica set
+        FakeChangeSource polling = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", stream, () -> polling, target);
+
+        polling.emit(ChangeEvent.delete("PAT2"));
+        feed.sync();
+
+        assertNull(cache.get("PAT2"));
+        assertEquals(Arrays.asList((String) null), polling.openedAt);
+    }
+
+    @Test
+    void testReopensAtLastResumeTokenAfterError() {
+        FakeChangeSource source = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", source, () -> fail("fallback not expected"), target);
+
+        source.emit(ChangeEvent.delete("PAT1"));
+        source.emit(ChangeEvent.delete("PAT2"));
+        feed.sync();
+
+        source.failNextPoll = new IllegalStateException("connection reset");
+        assertEquals(0, feed.sync());
+        assertEquals(Arrays.asList(null, "2"), source.openedAt);
+        assertEquals(0, reloads.get());
+    }
+
+    @Test
+    void testReloadsWhenResumePositionIsLost() {
+        FakeChangeSource source = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", source, () -> fail("fallback not expected"), target);
+        source.emit(ChangeEvent.upsert("PAT3", patient("PAT3", "Robert Johnson")));
+        feed.sync();
+
+        source.failNextPoll = new IllegalStateException("cursor killed");
+        source.failNextOpen = commandError(286); // ChangeStreamHistoryLost
+        feed.sync();
+
+        assertEquals(1, reloads.get());
+        assertEquals(Arrays.asList("PAT9"), cache.values().stream().map(Patient::getPatientId).toList());
+        assertEquals(Arrays.asList(null, "1", null), source.openedAt);
+    }
+
+    @Test
+    void testResetEventReloadsTarget() {
+        FakeChangeSource source = new FakeChangeSource();
+        ChangeFeed feed = new ChangeFeed();
+        feed.watch("patients", source, () -> fail("fallback not expected"), target);
+
+        source.emit(ChangeEvent.reset());
+        assertEquals(1, feed.fetch());
+
+        // The full load is read while fetching; applying only swaps the cache content
+        assertEquals(1, reloads.get());
+        assertEquals(2, cache.size());
+        feed.applyPending();
+        assertEquals(1, reloads.get());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeSetTest {
+
+    private static Document render(ChangeSet changes) {
+        return changes.toUpdate(field -> "current " + field, value -> value);
+    }
+
+    @Test
+    void testScalarChangesBecomeSet() {
+        Doctor doctor = Doctor.patch("DOC1");
+        doctor.setAvailability("Mon-Fri");
+        assertEquals(Document.parse("{$set: {availability: 'Mon-Fri'}}"), doctor.getChanges().toUpdate());
+        assertEquals(Collections.singleton("availability"), doctor.getChanges().changedFields());
+    }
+
+    @Test
+    void testNothingChangedRendersEmptyUpdate() {
+        ChangeSet changes = new ChangeSet();
+        assertTrue(changes.isEmpty());
+        assertTrue(render(changes).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ChangeSet.require(changes));
+        assertThrows(IllegalArgumentException.class, () -> ChangeSet.require(null));
+    }
+
+    @Test
+    void testListAdditionsAndRemovals() {
+        ChangeSet changes = new ChangeSet();
+        changes.set("phone", "555-0100");
+        changes.addToSet("allergies", "Penicillin");
+        changes.pull("tags", "a");
+        changes.pull("tags", "b");
+        assertEquals(Document.parse("{$set: {phone: '555-0100'},"
+                        + " $addToSet: {allergies: {$each: ['Penicillin']}},"
+                        + " $pull: {tags: {$in: ['a', 'b']}}}"),
+                render(changes));
+    }
+
+    @Test
+    void testPullWhereMatchesSubField() {
+        ChangeSet changes = new ChangeSet();
+        changes.pullWhere("medications", "name", "Ibuprofen");
+        assertEquals(Document.parse("{$pull: {medications: {name: 'Ibuprofen'}}}"), render(changes));
+    }
+
+    @Test
+    void testMixedListEditsReplaceTheList() {
+        ChangeSet changes = new ChangeSet();
+        changes.addToSet("allergies", "Penicillin");
+        changes.pull("allergies", "Latex");
+        changes.addToSet("allergies", "Dust");
+        assertEquals(Document.parse("{$set: {allergies: 'current allergies'}}"), render(changes));
+    }
+
+    @Test
+    void testReadPatientWritesOnlyItsEdits() {
+        Patient patient = new Patient("PAT1", "John", 40, "Male", "Street 1", "555-0000");
+        patient.markClean();
+        patient.addAllergy("Penicillin");
+        patient.addMedication(new Medication("Aspirin", "100mg", "Daily", "2024-01-01", "2024-02-01"));
+
+        Document update = patient.getChanges().toUpdate(field -> null,
+                value -> value instanceof Medication ? ((Medication) value).getName() : value);
+        assertEquals(Document.parse("{$push: {medications: {$each: ['Aspirin']}},"
+                + " $addToSet: {allergies: {$each: ['Penicillin']}}}"), update);
+        assertEquals(Arrays.asList("Penicillin"), patient.getAllergies());
+    }
+
+    @Test
+    void testNewObjectsAreNotTracked() {
+        Bill bill = new Bill("BILL1", "PAT1", 10.0, "Visit");
+        bill.setPaid(true);
+        assertNull(bill.getChanges());
+        Bill patch = Bill.patch("BILL1");
+        patch.setPaid(true);
+        assertEquals(Document.parse("{$set: {paid: true}}"), patch.getChanges().toUpdate());
+    }
+}
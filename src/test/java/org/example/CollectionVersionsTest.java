@@ -0,0 +1,65 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollectionVersionsTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testWritesRetireTheTagsTheyAffect() {
+        CollectionVersions versions = new CollectionVersions("patients", 0, now::get);
+        String list = versions.collectionTag("GET /api/patients");
+        String pat1 = versions.recordTag("PAT1");
+        String pat2 = versions.recordTag("PAT2");
+        assertEquals(list, versions.collectionTag("GET /api/patients"));
+        assertNotEquals(list, versions.collectionTag("GET /api/patients?limit=5"));
+
+        versions.changed("PAT1");
+        assertNotEquals(list, versions.collectionTag("GET /api/patients"));
+        assertNotEquals(pat1, versions.recordTag("PAT1"));
+        assertEquals(pat2, versions.recordTag("PAT2"));
+
+        versions.changedAll();
+        assertNotEquals(pat2, versions.recordTag("PAT2"));
+    }
+
+    @Test
+    void testTagsExpireAfterMaxAge() {
+        CollectionVersions versions = new CollectionVersions("doctors", 60, now::get);
+        String tag = versions.recordTag("DOC1");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertNotEquals(tag, versions.recordTag("DOC1"));
+    }
+
+    @Test
+    void testInMemoryWritesMoveTheSharedVersions() {
+        BillStore bills = new InMemoryBillStore();
+        CollectionVersions versions = CollectionVersions.forCollection("bills");
+        long before = versions.getVersion();
+        String tag = versions.recordTag("BILL1");
+
+        bills.insertBill(new Bill("BILL1", "PAT1", 150.00, "Consultation fee"));
+        assertTrue(versions.getVersion() > before);
+        assertNotEquals(tag, versions.recordTag("BILL1"));
+
+        // A write that changes nothing keeps the tag
+        bills.markBillPaid("BILL1");
+        tag = versions.recordTag("BILL1");
+        bills.markBillPaid("BILL1");
+        assertEquals(tag, versions.recordTag("BILL1"));
+    }
+
+    @Test
+    void testIfNoneMatchComparesWeakly() {
+        assertTrue(RestApiServer.matchesTag("\"a\", W/\"b\"", "\"b\""));
+        assertTrue(RestApiServer.matchesTag("\"b\"", "\"b\""));
+        assertFalse(RestApiServer.matchesTag("\"a\"", "\"b\""));
+        assertFalse(RestApiServer.matchesTag("*", "\"b\""));
+    }
+}
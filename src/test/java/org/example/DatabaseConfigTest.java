@@ -0,0 +1,112 @@
+package org.example;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseConfigTest {
+
+    private static DatabaseConfig config(String... keyValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.setProperty(DatabaseConfig.PREFIX + keyValues[i], keyValues[i + 1]);
+        }
+        return new DatabaseConfig(properties);
+    }
+
+    @Test
+    void testDefaults() {
+        DatabaseConfig config = config("uri", "mongodb://localhost:27017");
+
+        assertEquals("CareHub", config.getDatabaseName());
+        assertEquals(ReadPreference.primary(), config.readPreferenceFor("doctors"));
+        assertEquals(ReadConcern.DEFAULT, config.readConcernFor("doctors"));
+        assertEquals(WriteConcern.MAJORITY, config.writeConcernFor("bills", WriteOperation.UPDATE));
+        // zlib needs no extra library, so it is always available
+        assertTrue(config.getCompressors().contains("zlib"));
+    }
+
+    @Test
+    void testPoolAndTimeoutsReachClientSettings() {
+        DatabaseConfig config = config(
+                "uri", "mongodb://localhost:27017",
+                "maxPoolSize", "20",
+                "minPoolSize", "4",
+                "maxWaitTimeMs", "750",
+                "connectTimeoutMs", "2000",
+                "socketTimeoutMs", "15000",
+                "serverSelectionTimeoutMs", "3000",
+                "compressors", "zlib");
+
+        MongoClientSettings settings = config.toClientSettings(DatabaseConnection.CODEC_REGISTRY);
+
+        assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(4, settings.getConnectionPoolSettings().getMinSize());
+        assertEquals(750, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertEquals(2000, settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(15000, settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(3000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(1, settings.getCompressorList().size());
+        assertEquals("zlib", settings.getCompressorList().get(0).getName());
+    }
+
+    @Test
+    void testReadSettingsPerCollection() {
+        DatabaseConfig config = config(
+                "readPreference", "primaryPreferred",
+                "readPreference.doctors", "secondaryPreferred",
+                "readConcern.bills", "majority");
+
+        assertEquals(ReadPreference.secondaryPreferred(), config.readPreferenceFor("doctors"));
+        assertEquals(ReadPreference.primaryPreferred(), config.readPreferenceFor("bills"));
+        assertEquals(ReadConcern.MAJORITY, config.readConcernFor("bills"));
+        assertEquals(ReadConcern.DEFAULT, config.readConcernFor("doctors"));
+    }
+
+    @Test
+    void testWriteConcernUsesMostSpecificKey() {
+        DatabaseConfig config = config(
+                "writeConcern", "w1",
+                "writeConcern.bulk", "unacknowledged",
+                "writeConcern.bills", "majority",
+                "writeConcern.bills.bulk", "2");
+
+        assertEquals(WriteConcern.W1, config.writeConcernFor("patients", WriteOperation.INSERT));
+        assertEquals(WriteConcern.UNACKNOWLEDGED, config.writeConcernFor("patients", WriteOperation.BULK));
+        assertEquals(WriteConcern.MAJORITY, config.writeConcernFor("bills", WriteOperation.UPDATE));
+        assertEquals(new WriteConcern(2), config.writeConcernFor("bills", WriteOperation.BULK));
+    }
+
+    @Test
+    void testUnacknowledgedIsOnlyUsedForBulkWrites() {
+        DatabaseConfig config = config("writeConcern", "unacknowledged", "writeConcern.bills.update", "0");
+
+        assertEquals(WriteConcern.UNACKNOWLEDGED, config.writeConcernFor("patients", WriteOperation.BULK));
+        assertEquals(WriteConcern.W1, config.writeConcernFor("patients", WriteOperation.INSERT));
+        assertEquals(WriteConcern.W1, config.writeConcernFor("bills", WriteOperation.UPDATE));
+        assertEquals(WriteConcern.W1, config.writeConcernFor("doctors", WriteOperation.DELETE));
+        assertEquals(WriteConcern.W1, config.writeConcernFor(null, null));
+    }
+
+    @Test
+    void testInvalidValuesFallBackToDefaults() {
+        DatabaseConfig config = config(
+                "maxPoolSize", "lots",
+                "readPreference", "fastest",
+                "writeConcern", "sometimes",
+                "compressors", "zlib,lz4,zlib");
+
+        assertEquals(50, config.getMaxPoolSize());
+        assertEquals(ReadPreference.primary(), config.readPreferenceFor("doctors"));
+        assertEquals(WriteConcern.MAJORITY, config.writeConcernFor("doctors", WriteOperation.DELETE));
+        assertEquals(List.of("zlib"), config.getCompressors());
+    }
+}
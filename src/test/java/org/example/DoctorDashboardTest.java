@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+
+import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -41,6 +43,12 @@ class DoctorDashboardTest {
         clearInvocations(mockSystem);
     }
 
+    private JTable appointmentTable() {
+        JTabbedPane tabbedPane = (JTabbedPane) doctorDashboard.getComponent(1);
+        JPanel appointmentsPanel = (JPanel) tabbedPane.getComponentAt(0);
+        return (JTable) ((JScrollPane) appointmentsPanel.getComponent(0)).getViewport().getView();
+    }
+
     @Test
     @DisplayName("Should initialize dashboard with correct components")
     void testDashboardInitialization() {
@@ -55,6 +63,10 @@ class DoctorDashboardTest {
         // Call refresh data
         doctorDashboard.refreshData();
 
+        // Patient names are looked up when a cell is read, not when the table is filled
+        verify(mockSystem, never()).getPatientById("P001");
+        assertEquals("John Doe", appointmentTable().getValueAt(0, 1));
+
         verify(mockSystem, times(1)).getAllAppointments();
         verify(mockSystem, times(1)).getAllPatients();
         verify(mockSystem, times(1)).getPatientById("P001");
@@ -0,0 +1,128 @@
+package org.example;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainCodecsTest {
+
+    private <T> T roundTrip(Class<T> type, T value) {
+        Codec<T> codec = DatabaseConnection.CODEC_REGISTRY.get(type);
+        BsonDocument bson = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(bson), value, EncoderContext.builder().build());
+        return decode(type, bson);
+    }
+
+    private <T> T decode(Class<T> type, BsonDocument bson) {
+        Codec<T> codec = DatabaseConnection.CODEC_REGISTRY.get(type);
+        return codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    @Test
+    void testPatientRoundTripKeepsClinicalData() {
+        Patient patient = new Patient("PAT1", "John Doe", 35, "Male", "123 Main St", "555-1234");
+        patient.addAllergy("Penicillin");
+        Medication medication = new Medication("Aspirin", "100mg", "Daily", "2024-01-01", "2024-02-01");
+        medication.setActive(false);
+        patient.addMedication(medication);
+        MedicalRecord record = new MedicalRecord("MR1", "PAT1", "DOC1", "Flu", "Rest", "Follow up");
+        record.setVisitDate("2024-01-15");
+        record.setVisitTime("09:30");
+        patient.addMedicalRecord(record);
+
+        Patient decoded = roundTrip(Patient.class, patient);
+
+        assertEquals("PAT1", decoded.getPatientId());
+        assertEquals("John Doe", decoded.getName());
+        assertEquals(35, decoded.getAge());
+        assertEquals(Arrays.asList("Penicillin"), decoded.getAllergies());
+        assertEquals("Aspirin", decoded.getMedications().get(0).getName());
+        assertFalse(decoded.getMedications().get(0).isActive(), "Stored active flag should be preserved");
+        assertEquals("2024-01-15", decoded.getMedicalHistory().get(0).getVisitDate(),
+                "Stored visit date should be preserved rather than replaced by the current date");
+        assertEquals("09:30", decoded.getMedicalHistory().get(0).getVisitTime());
+    }
+
+    @Test
+    void testDecodesDocumentsWrittenByDaos() {
+        // Same layout the DAOs insert with org.bson.Document
+        Document stored = new Document("patientId", "PAT2")
+                .append("name", "Jane Smith")
+                .append("age", 28)
+                .append("gender", "Female")
+                .append("address", "456 Oak Ave")
+                .append("phone", "555-5678")
+                .append("unknownField", new Document("nested", true));
+
+        Patient decoded = decode(Patient.class, stored.toBsonDocument(Document.class, DatabaseConnection.CODEC_REGISTRY));
+
+        assertEquals("PAT2", decoded.getPatientId());
+        assertEquals(28, decoded.getAge());
+        assertTrue(decoded.getAllergies().isEmpty(), "Missing arrays should decode as empty lists");
+        assertTrue(decoded.getMedicalHistory().isEmpty());
+    }
+
+    @Test
+    void testAppointmentRoundTrip() {
+        Appointment appointment = new Appointment("APP1", "PAT1", "DOC1", "2024-03-01", "10:00", "Checkup",
+                "John Doe", "Dr. Smith");
+        appointment.setCompleted(true);
+
+        Appointment decoded = roundTrip(Appointment.class, appointment);
+
+        assertEquals("APP1", decoded.getAppointmentId());
+        assertEquals("John Doe", decoded.getPatientName());
+        assertEquals("Dr. Smith", decoded.getDoctorName());
+        assertTrue(decoded.isCompleted());
+    }
+
+    @Test
+    void testBillAcceptsIntegerAmounts() {
+        BsonDocument stored = new Document("billId", "BILL1")
+                .append("patientId", "PAT1")
+                .append("amount", 150)
+                .append("description", "Consultation")
+                .append("paid", true)
+                .toBsonDocument(Document.class, DatabaseConnection.CODEC_REGISTRY);
+
+        Bill decoded = decode(Bill.class, stored);
+
+        assertEquals(150.0, decoded.getAmount(), 0.001);
+        assertTrue(decoded.isPaid());
+    }
+
+    @Test
+    void testDoctorAndUserRoundTrip() {
+        Doctor doctor = roundTrip(Doctor.class, new Doctor("DOC1", "Dr. Smith", "Cardiology", "9AM-5PM"));
+        assertEquals("Cardiology", doctor.getSpecialization());
+        assertEquals("9AM-5PM", doctor.getAvailability());
+
+        User user = roundTrip(User.class, new User("admin", "admin123", UserRole.ADMIN));
+        assertEquals("admin", user.getUsername());
+        assertEquals(UserRole.ADMIN, user.getRole());
+    }
+
+    @Test
+    void testMedicalRecordDecodesDocumentsWrittenByDao() {
+        MedicalRecord record = new MedicalRecord("REC1", "PAT1", "DOC1", "Flu", "Rest", "Follow up",
+                "2024-01-15", "09:30");
+        BsonDocument stored = ChangeTracking.stampInsert(MedicalRecordDAO.toDocument(record))
+                .toBsonDocument(Document.class, DatabaseConnection.CODEC_REGISTRY);
+
+        MedicalRecord decoded = decode(MedicalRecord.class, stored);
+
+        assertEquals("REC1", decoded.getRecordId());
+        assertEquals("PAT1", decoded.getPatientId());
+        assertEquals("2024-01-15", decoded.getVisitDate());
+        assertEquals("09:30", roundTrip(MedicalRecord.class, decoded).getVisitTime());
+    }
+}
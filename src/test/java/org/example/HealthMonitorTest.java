@@ -0,0 +1,161 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthMonitorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private HealthMonitor monitor() {
+        return new HealthMonitor(1000, now::get);
+    }
+
+    @Test
+    void testReadingHealthDoesNotRunChecks() {
+        AtomicInteger pings = new AtomicInteger();
+        HealthMonitor monitor = monitor().register("database", true, () -> {
+            pings.incrementAndGet();
+            return HealthMonitor.Result.up(null);
+        });
+        monitor.probeNow();
+
+        for (int i = 0; i < 1000; i++) {
+            monitor.report();
+            monitor.isReady();
+            monitor.isLive();
+        }
+
+        assertEquals(1, pings.get());
+        assertEquals("UP", monitor.report().get("status"));
+    }
+
+    @Test
+    void testCriticalFailureMakesServerNotReady() {
+        HealthMonitor monitor = monitor()
+                .register("database", true, () -> {
+                    throw new IllegalStateException("Timed out waiting for a server");
+                })
+                .register("executor", false, () -> HealthMonitor.Result.up(null));
+
+        HealthMonitor.Snapshot snapshot = monitor.probeNow();
+
+        assertEquals(HealthMonitor.Status.DOWN, snapshot.status);
+        assertEquals("Timed out waiting for a server", snapshot.checks.get("database").get("error"));
+        assertEquals("UP", snapshot.checks.get("executor").get("status"));
+        assertFalse(monitor.isReady());
+        assertTrue(monitor.isLive(), "A database outage must not fail liveness");
+    }
+
+    @Test
+    void testNonCriticalFailureOnlyDegrades() {
+        Map<String, Object> queue = new HashMap<>();
+        queue.put("queueDepth", 950);
+        HealthMonitor monitor = monitor()
+                .register("database", true, () -> HealthMonitor.Result.up(null))
+                .register("executor", false, () -> HealthMonitor.Result.of(HealthMonitor.Status.DEGRADED, queue))
+                .register("connectionPool", false, () -> {
+                    throw new RuntimeException("stats unavailable");
+                });
+
+        HealthMonitor.Snapshot snapshot = monitor.probeNow();
+
+        assertEquals(HealthMonitor.Status.DEGRADED, snapshot.status);
+        assertEquals(950, snapshot.checks.get("executor").get("queueDepth"));
+        assertTrue(monitor.isReady());
+    }
+
+    @Test
+    void testStaleSnapshotIsNotTrusted() {
+        HealthMonitor monitor = monitor().register("database", true, () -> HealthMonitor.Result.up(null));
+        assertFalse(monitor.isReady(), "Nothing is known before the first probe");
+
+        monitor.probeNow();
+        now.addAndGet(2500);
+        assertTrue(monitor.isReady());
+        assertEquals(2500L, monitor.report().get("ageMs"));
+
+        now.addAndGet(1000);
+        assertFalse(monitor.isReady());
+        assertFalse(monitor.isLive());
+        assertEquals("DOWN", monitor.report().get("status"));
+        assertEquals(true, monitor.report().get("stale"));
+    }
+
+    @Test
+    void testCheckThatNeverReturnsIsRecordedDown() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        HealthMonitor monitor = new HealthMonitor(1000, 100, now::get)
+                .register("database", true, () -> {
+                    started.incrementAndGet();
+                    never.await();
+                    return HealthMonitor.Result.up(null);
+                })
+                .register("executor", false, () -> HealthMonitor.Result.up(null));
+        try {
+            long start = System.nanoTime();
+            HealthMonitor.Snapshot snapshot = monitor.probeNow();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "The round must not wait for the hung check");
+            assertEquals(HealthMonitor.Status.DOWN, snapshot.status);
+            assertEquals("No answer within 100 ms", snapshot.checks.get("database").get("error"));
+            assertEquals("UP", snapshot.checks.get("executor").get("status"));
+            assertFalse(monitor.isReady());
+            assertTrue(monitor.isLive());
+
+            // Still hung: reported again without starting a second copy
+            now.addAndGet(1000);
+            assertEquals(HealthMonitor.Status.DOWN, monitor.probeNow().status);
+            assertEquals(1, started.get());
+            assertTrue(monitor.isLive());
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void testHungCheckDoesNotFailLiveness() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        HealthMonitor monitor = new HealthMonitor(20, 10, System::currentTimeMillis).register("database", true, () -> {
+            never.await();
+            return HealthMonitor.Result.up(null);
+        });
+        try {
+            monitor.start();
+            Thread.sleep(300);
+            assertTrue(monitor.isLive());
+            assertTrue(monitor.isFresh());
+            assertFalse(monitor.isReady());
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void testBackgroundProbePublishesSnapshots() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        HealthMonitor monitor = new HealthMonitor(20).register("database", true, () -> {
+            probes.incrementAndGet();
+            return HealthMonitor.Result.up(null);
+        });
+        try {
+            monitor.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (probes.get() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(probes.get() >= 3);
+            assertTrue(monitor.isReady());
+        } finally {
+            monitor.close();
+        }
+    }
+}
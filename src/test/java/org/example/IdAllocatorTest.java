@@ -0,0 +1,110 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    // Counts round trips so the tests can check that IDs come from reserved blocks
+    static class CountingStore extends InMemoryCounterStore {
+        final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public synchronized long reserve(IdFormat format, int count) {
+            reservations.incrementAndGet();
+            return super.reserve(format, count);
+        }
+    }
+
+    @Test
+    void testIdsFollowTheCounterPastExistingRecords() {
+        IdAllocator allocator = new IdAllocator(new InMemoryCounterStore());
+        allocator.advanceTo(IdFormat.PATIENT, 3);
+        allocator.advanceTo(IdFormat.APPOINTMENT, 2);
+
+        assertEquals("PAT4", allocator.next(IdFormat.PATIENT));
+        assertEquals("PAT5", allocator.next(IdFormat.PATIENT));
+        assertEquals("APP3", allocator.next(IdFormat.APPOINTMENT));
+        assertEquals("BILL1", allocator.next(IdFormat.BILL));
+    }
+
+    @Test
+    void testCounterNeverMovesBackwards() {
+        IdAllocator allocator = new IdAllocator(new InMemoryCounterStore());
+        allocator.advanceTo(IdFormat.DOCTOR, 10);
+        // e.g. DOC9 and DOC10 were deleted since
+        allocator.advanceTo(IdFormat.DOCTOR, 8);
+
+        assertEquals("DOC11", allocator.next(IdFormat.DOCTOR));
+    }
+
+    @Test
+    void testReservesOneBlockPerBlockSizeIds() {
+        CountingStore store = new CountingStore();
+        IdAllocator allocator = new IdAllocator(store, 10);
+
+        for (int i = 0; i < 25; i++) {
+            allocator.next(IdFormat.BILL);
+        }
+
+        assertEquals(3, store.reservations.get());
+    }
+
+    @Test
+    void testConcurrentAllocatorsSharingAStoreNeverCollide() throws Exception {
+        // Two allocators on one store stand in for two processes on the counters collection
+        CountingStore store = new CountingStore();
+        IdAllocator first = new IdAllocator(store, 7);
+        IdAllocator second = new IdAllocator(store, 7);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                IdAllocator allocator = t % 2 == 0 ? first : second;
+                Callable<Integer> task = () -> {
+                    int duplicates = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        if (!ids.add(allocator.next(IdFormat.PATIENT))) {
+                            duplicates++;
+                        }
+                    }
+                    return duplicates;
+                };
+                results.add(executor.submit(task));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void testFormatParsesOnlyItsOwnIds() {
+        assertEquals(12, IdFormat.BILL.parse("BILL12"));
+        assertEquals(-1, IdFormat.BILL.parse("BILL"));
+        assertEquals(-1, IdFormat.BILL.parse("PAT12"));
+        assertEquals(-1, IdFormat.PATIENT.parse("PATX"));
+        assertEquals(-1, IdFormat.PATIENT.parse(null));
+        assertEquals(7, IdFormat.PATIENT.highest(List.of("PAT2", "PAT7", "legacy", "PAT3")));
+    }
+}
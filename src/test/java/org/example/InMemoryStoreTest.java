@@ -0,0 +1,211 @@
+package org.example;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStoreTest {
+
+    private static Appointment appointment(String id, String doctorId, String date) {
+        return new Appointment(id, "PAT1", doctorId, date, "10:00", "Checkup");
+    }
+
+    @Test
+    void testInsertRejectsDuplicatesAndReadsAreCopies() {
+        PatientStore patients = new InMemoryPatientStore();
+        assertEquals(WriteResult.APPLIED, patients.insertPatient(new Patient("PAT1", "John Doe", 35, "Male", "1 Main St", "555-1234")));
+        assertEquals(WriteResult.DUPLICATE, patients.insertPatient(new Patient("PAT1", "Other", 20, "Male", "", "")));
+
+        Patient read = patients.getPatientById("PAT1");
+        read.setName("Changed locally");
+        assertEquals("John Doe", patients.getPatientById("PAT1").getName());
+        assertNull(patients.getPatientById("PAT9"));
+        assertEquals(1, patients.getPatientCount());
+    }
+
+    @Test
+    void testUpdateAppliesTrackedListChanges() {
+        PatientStore patients = new InMemoryPatientStore();
+        Patient patient = new Patient("PAT1", "John Doe", 35, "Male", "1 Main St", "555-1234");
+        patient.addAllergy("Latex");
+        patient.addMedication(new Medication("Aspirin", "100mg", "Daily", "2024-01-01", "2024-12-31"));
+        patients.insertPatient(patient);
+
+        Patient read = patients.getPatientById("PAT1");
+        assertEquals(WriteResult.UNCHANGED, patients.updatePatient(read));
+        read.addAllergy("Penicillin");
+        read.removeAllergy("Latex");
+        read.addMedication(new Medication("Ibuprofen", "200mg", "As needed", "2024-02-01", "2024-03-01"));
+        read.removeMedication("Aspirin");
+        assertEquals(WriteResult.APPLIED, patients.updatePatient(read));
+
+        Patient stored = patients.getPatientById("PAT1");
+        assertEquals(List.of("Penicillin"), stored.getAllergies());
+        assertEquals(1, stored.getMedications().size());
+        assertEquals("Ibuprofen", stored.getMedications().get(0).getName());
+        assertEquals(WriteResult.NOT_FOUND, patients.updatePatient(new Patient("PAT9", "Nobody", 1, "", "", "")));
+    }
+
+    @Test
+    void testStateChangesReportUnchanged() {
+        BillStore bills = new InMemoryBillStore();
+        bills.insertBill(new Bill("BILL1", "PAT1", 150.0, "Consultation"));
+        assertEquals(WriteResult.APPLIED, bills.markBillPaid("BILL1"));
+        assertEquals(WriteResult.UNCHANGED, bills.markBillPaid("BILL1"));
+        assertEquals(WriteResult.NOT_FOUND, bills.markBillPaid("BILL9"));
+        assertTrue(bills.getBillById("BILL1").isPaid());
+    }
+
+    @Test
+    void testIndexesFollowUpdatesAndDeletes() {
+        AppointmentStore appointments = new InMemoryAppointmentStore();
+        appointments.insertAppointment(appointment("APP1", "DOC1", "2024-03-01"));
+        appointments.insertAppointment(appointment("APP2", "DOC1", "2024-03-02"));
+
+        Appointment moved = appointments.getAppointmentById("APP2");
+        moved.setDoctorId("DOC2");
+        appointments.updateAppointment(moved);
+        appointments.deleteAppointment("APP1");
+
+        assertTrue(appointments.getAppointmentsByDoctorId("DOC1").isEmpty());
+        assertEquals("APP2", appointments.getAppointmentsByDoctorId("DOC2").get(0).getAppointmentId());
+        assertEquals(1, appointments.getAppointmentsByPatientId("PAT1").size());
+    }
+
+    @Test
+    void testFilteredPagesAndProjection() {
+        AppointmentStore appointments = new InMemoryAppointmentStore();
+        for (int i = 1; i <= 5; i++) {
+            appointments.insertAppointment(appointment("APP" + i, i % 2 == 0 ? "DOC2" : "DOC1", "2024-03-0" + i));
+        }
+        RecordFilter filter = RecordFilter.fromParameters(
+                Map.of("doctorId", "DOC1", "from", "2024-03-02", "fields", "date"), RecordFilter.APPOINTMENTS);
+
+        Page<Appointment> first = appointments.getAppointmentsPage(ListQuery.firstPage(1), filter);
+        assertEquals("APP3", first.getItems().get(0).getAppointmentId());
+        assertTrue(first.hasMore());
+        Page<Appointment> second = appointments.getAppointmentsPage(ListQuery.fromParameters(first.getNextCursor(), "1"), filter);
+        assertEquals("APP5", second.getItems().get(0).getAppointmentId());
+        assertFalse(second.hasMore());
+
+        Page<Document> fields = appointments.getAppointmentFieldsPage(ListQuery.firstPage(10), filter);
+        assertEquals(Document.parse("{appointmentId: 'APP3', date: '2024-03-03'}"), fields.getItems().get(0));
+        try (RecordCursor<Appointment> cursor = appointments.streamAppointments(filter)) {
+            assertEquals("APP3", cursor.next().getAppointmentId());
+            assertEquals("APP5", cursor.next().getAppointmentId());
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    void testOrderedBulkInsertStopsAtDuplicateAndUpsertKeepsStatus() {
+        AppointmentStore appointments = new InMemoryAppointmentStore();
+        appointments.insertAppointment(appointment("APP2", "DOC1", "2024-03-01"));
+        appointments.markAppointmentCompleted("APP2");
+
+        BulkWriteSummary inserted = appointments.bulkInsertAppointments(Arrays.asList(
+                appointment("APP1", "DOC1", "2024-03-01"), appointment("APP2", "DOC1", "2024-03-01"),
+                appointment("APP3", "DOC1", "2024-03-01")), true);
+        assertEquals(1, inserted.getInserted());
+        assertEquals(BulkWriteSummary.ItemStatus.DUPLICATE, inserted.getResults().get(1).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.SKIPPED, inserted.getResults().get(2).getStatus());
+        assertFalse(appointments.appointmentExists("APP3"));
+
+        BulkWriteSummary upserted = appointments.bulkUpsertAppointments(Arrays.asList(
+                appointment("APP2", "DOC2", "2024-04-01"), appointment("APP4", "DOC2", "2024-04-01")), false);
+        assertEquals(1, upserted.getUpserted());
+        assertEquals(1, upserted.getMatched());
+        Appointment kept = appointments.getAppointmentById("APP2");
+        assertEquals("DOC2", kept.getDoctorId());
+        assertTrue(kept.isCompleted());
+
+        BulkWriteSummary deleted = appointments.bulkDeleteAppointments(Arrays.asList("APP2", "APP9"), true);
+        assertEquals(1, deleted.getDeleted());
+        assertEquals(0, deleted.getFailed());
+        assertEquals(BulkWriteSummary.ItemStatus.OK, deleted.getResults().get(0).getStatus());
+        assertEquals(BulkWriteSummary.ItemStatus.NOT_FOUND, deleted.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void testMedicalRecordsPageNewestFirst() {
+        MedicalRecordStore records = new InMemoryMedicalRecordStore();
+        records.insertRecord(new MedicalRecord("MR1", "PAT1", "DOC1", "Flu", "Rest", "", "2024-01-05", "09:00"));
+        records.insertRecord(new MedicalRecord("MR2", "PAT1", "DOC1", "Cold", "Tea", "", "2024-02-10", "09:00"));
+        records.insertRecord(new MedicalRecord("MR3", "PAT1", "DOC2", "Check", "None", "", "2024-02-10", "11:00"));
+        records.insertRecord(new MedicalRecord("MR4", "PAT2", "DOC2", "Check", "None", "", "2024-03-01", "11:00"));
+
+        assertEquals(Arrays.asList("MR1", "MR2", "MR3"),
+                records.getRecordsForPatient("PAT1").stream().map(MedicalRecord::getRecordId).toList());
+        Page<MedicalRecord> first = records.getRecordsPage("PAT1", ListQuery.firstPage(2));
+        assertEquals(Arrays.asList("MR3", "MR2"), first.getItems().stream().map(MedicalRecord::getRecordId).toList());
+        Page<MedicalRecord> second = records.getRecordsPage("PAT1", ListQuery.fromParameters(first.getNextCursor(), "2"));
+        assertEquals(List.of("MR1"), second.getItems().stream().map(MedicalRecord::getRecordId).toList());
+        assertFalse(second.hasMore());
+        assertEquals(3, records.getRecordCount("PAT1"));
+    }
+
+    @Test
+    void testTimeRangesFollowTheTypedStart() {
+        AppointmentStore appointments = new InMemoryAppointmentStore();
+        appointments.insertAppointment(appointment("APP1", "DOC1", "2024-03-04"));
+        appointments.insertAppointment(new Appointment("APP2", "PAT1", "DOC1", "2024-03-04", "9:00 AM", "Checkup"));
+        appointments.insertAppointment(appointment("APP3", "DOC2", "2024-03-04"));
+        appointments.insertAppointment(appointment("APP4", "DOC1", "2024-03-05"));
+        appointments.insertAppointment(new Appointment("APP5", "PAT1", "DOC1", "2024-03-04", "soon", "Checkup"));
+
+        LocalDateTime day = LocalDateTime.of(2024, 3, 4, 0, 0);
+        assertEquals(Arrays.asList("APP2", "APP1"), ids(appointments.getAppointmentsForDoctorBetween("DOC1", day, day.plusDays(1))));
+        assertEquals(Arrays.asList("APP2", "APP1", "APP3"), ids(appointments.getAppointmentsBetween(day, day.plusDays(1))));
+
+        Appointment moved = appointments.getAppointmentById("APP1");
+        moved.setDate("2024-03-05");
+        appointments.updateAppointment(moved);
+        Appointment patch = Appointment.patch("APP4");
+        patch.setTime("08:00");
+        appointments.patchAppointment(patch);
+        assertEquals(List.of("APP2"), ids(appointments.getAppointmentsForDoctorBetween("DOC1", day, day.plusDays(1))));
+        assertEquals(Arrays.asList("APP4", "APP1"),
+                ids(appointments.getAppointmentsForDoctorBetween("DOC1", day.plusDays(1), day.plusDays(2))));
+
+        // A date-only patch keeps the stored time, and startAt moves with it in the same update
+        Appointment datePatch = Appointment.patch("APP2");
+        datePatch.setDate("2024-03-06");
+        Document update = AppointmentDAO.patchUpdate(datePatch, appointments.getAppointmentById("APP2"));
+        assertEquals(TemporalFields.toDate("2024-03-06", "9:00 AM"),
+                update.get("$set", Document.class).get(TemporalFields.APPOINTMENT_START));
+        assertEquals("time", AppointmentDAO.keptStartField(datePatch));
+        assertEquals("9:00 AM", appointments.patchAppointment(datePatch).getTime());
+        assertEquals(List.of(), ids(appointments.getAppointmentsForDoctorBetween("DOC1", day, day.plusDays(1))));
+        assertEquals(List.of("APP2"),
+                ids(appointments.getAppointmentsBetween(day.plusDays(2).plusHours(9), day.plusDays(2).plusHours(10))));
+        Appointment missing = Appointment.patch("APP9");
+        missing.setDate("2024-03-06");
+        assertNull(appointments.patchAppointment(missing));
+
+        MedicalRecordStore records = new InMemoryMedicalRecordStore();
+        records.insertRecord(new MedicalRecord("MR1", "PAT1", "DOC1", "Flu", "Rest", "", "2024-01-05", "09:00"));
+        records.insertRecord(new MedicalRecord("MR2", "PAT1", "DOC1", "Cold", "Tea", "", "2024-02-10", "09:00"));
+        records.insertRecord(new MedicalRecord("MR3", "PAT2", "DOC1", "Cold", "Tea", "", "2024-02-11", "09:00"));
+        assertEquals(List.of("MR2"), records.getRecordsBetween("PAT1", LocalDateTime.of(2024, 2, 1, 0, 0),
+                LocalDateTime.of(2024, 3, 1, 0, 0)).stream().map(MedicalRecord::getRecordId).toList());
+    }
+
+    private static List<String> ids(List<Appointment> appointments) {
+        return appointments.stream().map(Appointment::getAppointmentId).toList();
+    }
+
+    @Test
+    void testUnsupportedOperatorIsRejected() {
+        InMemoryCollection collection = new InMemoryCollection("id");
+        collection.insert(new Document("id", "A").append("n", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> collection.update("A", new Document("$inc", new Document("n", 1))));
+        assertEquals(1, collection.get("A").getInteger("n"));
+    }
+}
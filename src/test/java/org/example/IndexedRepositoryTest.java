@@ -0,0 +1,72 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedRepositoryTest {
+
+    private IndexedRepository<Appointment> repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new IndexedRepository<>(Appointment::getAppointmentId)
+                .withIndex("doctorId", Appointment::getDoctorId)
+                .withIndex("date", Appointment::getDate);
+        repository.putAll(Arrays.asList(
+                new Appointment("APP1", "PAT1", "DOC1", "2024-03-01", "10:00", "Checkup"),
+                new Appointment("APP2", "PAT2", "DOC1", "2024-03-02", "11:00", "Follow up"),
+                new Appointment("APP3", "PAT1", "DOC2", "2024-03-01", "12:00", "Consultation")));
+    }
+
+    @Test
+    void testLookupByIdAndSecondaryIndex() {
+        assertEquals("PAT2", repository.get("APP2").getPatientId());
+        assertNull(repository.get("APP9"));
+        assertNull(repository.get(null));
+
+        List<Appointment> forDoctor = repository.findBy("doctorId", "DOC1");
+        assertEquals(Arrays.asList("APP1", "APP2"), forDoctor.stream().map(Appointment::getAppointmentId).toList());
+        assertEquals(2, repository.findBy("date", "2024-03-01").size());
+        assertTrue(repository.findBy("doctorId", "DOC9").isEmpty());
+    }
+
+    @Test
+    void testRemoveUpdatesEveryIndex() {
+        repository.remove("APP1");
+
+        assertFalse(repository.contains("APP1"));
+        assertEquals(1, repository.findBy("doctorId", "DOC1").size());
+        assertEquals("APP3", repository.findBy("date", "2024-03-01").get(0).getAppointmentId());
+    }
+
+    @Test
+    void testReplacingRecordMovesIndexEntries() {
+        repository.put(new Appointment("APP1", "PAT1", "DOC2", "2024-03-05", "09:00", "Rescheduled"));
+
+        assertEquals(3, repository.size());
+        assertEquals(1, repository.findBy("doctorId", "DOC1").size());
+        assertEquals(2, repository.findBy("doctorId", "DOC2").size());
+        assertTrue(repository.findBy("date", "2024-03-05").stream().anyMatch(a -> a.getAppointmentId().equals("APP1")));
+    }
+
+    @Test
+    void testValuesKeepInsertionOrder() {
+        assertEquals(Arrays.asList("APP1", "APP2", "APP3"),
+                repository.values().stream().map(Appointment::getAppointmentId).toList());
+
+        repository.replaceAll(List.of(new Appointment("APP4", "PAT3", "DOC3", "2024-04-01", "08:00", "New")));
+        assertEquals(1, repository.size());
+        assertTrue(repository.findBy("doctorId", "DOC1").isEmpty());
+    }
+
+    @Test
+    void testUnknownIndexIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> repository.findBy("patientId", "PAT1"));
+        assertThrows(IllegalStateException.class, () -> repository.withIndex("patientId", Appointment::getPatientId));
+    }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListQueryTest {
+
+    @Test
+    void testDefaultsWhenNoParameters() {
+        ListQuery query = ListQuery.fromParameters(null, null);
+        assertNull(query.getAfterKey(), "First page should not have an after key");
+        assertEquals(ListQuery.DEFAULT_LIMIT, query.getLimit(), "Limit should fall back to the default");
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        String cursor = ListQuery.encodeCursor("PAT42");
+        assertNotEquals("PAT42", cursor, "Cursor should not expose the raw key");
+
+        ListQuery query = ListQuery.fromParameters(cursor, "25");
+        assertEquals("PAT42", query.getAfterKey(), "Decoded cursor should resume after the encoded key");
+        assertEquals(25, query.getLimit());
+    }
+
+    @Test
+    void testLimitIsClampedToMaximum() {
+        ListQuery query = ListQuery.fromParameters(null, "50000");
+        assertEquals(ListQuery.MAX_LIMIT, query.getLimit(), "Limit should be capped at MAX_LIMIT");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-5", "abc"})
+    void testInvalidLimitIsRejected(String limit) {
+        assertThrows(IllegalArgumentException.class, () -> ListQuery.fromParameters(null, limit));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not-a-cursor!", "UEFUNDI"})
+    void testInvalidCursorIsRejected(String cursor) {
+        assertThrows(IllegalArgumentException.class, () -> ListQuery.fromParameters(cursor, null));
+    }
+
+    @Test
+    void testPageReportsNextCursor() {
+        Page<String> page = new Page<>(Arrays.asList("a", "b"), ListQuery.encodeCursor("b"));
+        assertEquals(2, page.getCount());
+        assertTrue(page.hasMore(), "Page with a cursor should report more results");
+
+        Page<String> lastPage = new Page<>(Arrays.asList("c"), null);
+        assertFalse(lastPage.hasMore(), "Last page should not report more results");
+    }
+}
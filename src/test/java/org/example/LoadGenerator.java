@@ -0,0 +1,370 @@
+package org.example;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+// Replays the requests of the Postman collection against a running RestApiServer and reports
+// latency percentiles (HdrHistogram) and throughput per endpoint.
+//
+// Two workload models:
+//   closed - a fixed number of virtual users, each sending its next request when the previous
+//            one has answered (plus optional think time). Throughput follows the server.
+//   open   - requests arrive at a fixed rate whether or not earlier ones have answered, like
+//            independent clients. Latency is measured from the intended send time, so a stalled
+//            server shows up in the percentiles instead of silently lowering the load.
+// During ramp-up users are started, or the rate raised, gradually; those requests are sent
+// but not recorded, so the report covers the steady state only.
+//
+// Run with: mvn test-compile exec:java -Dexec.mainClass=org.example.LoadGenerator
+//               -Dexec.classpathScope=test -Dexec.args="--model open --rate 200 --duration 60"
+public class LoadGenerator {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int NO_RESPONSE = -1; // timeouts and connection errors
+
+    enum Model { CLOSED, OPEN }
+
+    // Command-line settings; see usage()
+    static final class Options {
+        Path collection = Path.of("Hospital_Management_API.postman_collection.json");
+        Map<String, String> variables = new LinkedHashMap<>();
+        Pattern include;
+        Pattern exclude;
+        Map<String, Integer> weights = new HashMap<>();
+        Model model = Model.CLOSED;
+        int concurrency = 10;
+        double rate;
+        int durationSeconds = 30;
+        int rampUpSeconds;
+        long thinkTimeMillis;
+        long timeoutMillis = 10_000;
+        boolean serverIds;
+        int inProcessPort = -1;
+        StorageBackend.Type storage = StorageBackend.Type.MEMORY;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--server-ids".equals(arg)) {
+                    options.serverIds = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--collection": options.collection = Path.of(value); break;
+                    case "--var": options.variables.put(key(value), value(value)); break;
+                    case "--include": options.include = Pattern.compile(value); break;
+                    case "--exclude": options.exclude = Pattern.compile(value); break;
+                    case "--weight": options.weights.put(key(value), Integer.parseInt(value(value))); break;
+                    case "--model": options.model = Model.valueOf(value.toUpperCase()); break;
+                    case "--concurrency": options.concurrency = Integer.parseInt(value); break;
+                    case "--rate": options.rate = Double.parseDouble(value); break;
+                    case "--duration": options.durationSeconds = Integer.parseInt(value); break;
+                    case "--ramp-up": options.rampUpSeconds = Integer.parseInt(value); break;
+                    case "--think-time": options.thinkTimeMillis = Long.parseLong(value); break;
+                    case "--timeout": options.timeoutMillis = Long.parseLong(value); break;
+                    case "--in-process": options.inProcessPort = Integer.parseInt(value); break;
+                    case "--storage": options.storage = StorageBackend.Type.valueOf(value.toUpperCase()); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (options.model == Model.OPEN && options.rate <= 0) {
+                throw new IllegalArgumentException("The open model needs --rate");
+            }
+            if (options.concurrency < 1 || options.durationSeconds < 1 || options.rampUpSeconds < 0) {
+                throw new IllegalArgumentException("Concurrency and duration must be positive");
+            }
+            return options;
+        }
+
+        private static String key(String pair) {
+            int eq = pair.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected name=value: " + pair);
+            }
+            return pair.substring(0, eq);
+        }
+
+        private static String value(String pair) {
+            return pair.substring(pair.indexOf('=') + 1);
+        }
+    }
+
+    // Latency and outcome counts of one collection request
+    static final class EndpointStats {
+        final String name;
+        final Recorder latency = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder errors = new LongAdder();
+
+        EndpointStats(String name) {
+            this.name = name;
+        }
+
+        void record(long micros, int status) {
+            latency.recordValue(Math.min(Math.max(micros, 0), HIGHEST_LATENCY_MICROS));
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (status < 200 || status >= 400) {
+                errors.increment();
+            }
+        }
+    }
+
+    private final Options options;
+    private final List<PostmanCollection.Template> requests = new ArrayList<>();
+    private final List<EndpointStats> stats = new ArrayList<>();
+    private int[] mix; // request indexes, each repeated by its weight
+    private final HttpClient client;
+    private final LongAdder sent = new LongAdder();
+    private volatile long measureFromNanos;
+    private volatile long stopAtNanos;
+
+    LoadGenerator(Options options, PostmanCollection collection) {
+        this.options = options;
+        List<Integer> weighted = new ArrayList<>();
+        for (PostmanCollection.Template template : collection.getRequests()) {
+            if ((options.include != null && !options.include.matcher(template.getName()).find())
+                    || (options.exclude != null && options.exclude.matcher(template.getName()).find())) {
+                continue;
+            }
+            int weight = options.weights.getOrDefault(template.getName(), 1);
+            for (int i = 0; i < weight; i++) {
+                weighted.add(requests.size());
+            }
+            requests.add(options.serverIds ? template.withServerAssignedId() : template);
+            stats.add(new EndpointStats(template.getName()));
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("No requests selected from " + options.collection);
+        }
+        mix = weighted.stream().mapToInt(Integer::intValue).toArray();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // HttpServer does not speak HTTP/2
+                .connectTimeout(Duration.ofMillis(options.timeoutMillis))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    void run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + TimeUnit.SECONDS.toNanos(options.rampUpSeconds);
+        stopAtNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        System.out.printf("Replaying %d requests, %s model, %s, %ds ramp-up + %ds%n", requests.size(),
+                options.model.name().toLowerCase(),
+                options.model == Model.OPEN ? options.rate + " req/s" : options.concurrency + " users",
+                options.rampUpSeconds, options.durationSeconds);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (options.model == Model.CLOSED) {
+                runClosed(workers, start);
+            } else {
+                runOpen(workers, start);
+            }
+        }
+    }
+
+    // Users start evenly spread over the ramp-up and loop until the end of the run
+    private void runClosed(ExecutorService workers, long start) throws InterruptedException {
+        long stagger = TimeUnit.SECONDS.toNanos(options.rampUpSeconds) / options.concurrency;
+        for (int user = 0; user < options.concurrency; user++) {
+            long userStart = start + user * stagger;
+            workers.submit(() -> {
+                LockSupport.parkNanos(userStart - System.nanoTime());
+                while (System.nanoTime() < stopAtNanos) {
+                    long sendAt = System.nanoTime();
+                    send(nextRequest(), sendAt);
+                    if (options.thinkTimeMillis > 0) {
+                        Thread.sleep(options.thinkTimeMillis);
+                    }
+                }
+                return null;
+            });
+        }
+        reportProgressUntilStop(start);
+    }
+
+    // Arrivals on a fixed schedule; the rate rises linearly during ramp-up (from 1 req/s)
+    private void runOpen(ExecutorService workers, long start) {
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+        long intended = start;
+        while (intended < stopAtNanos) {
+            double rate = options.rate;
+            if (intended < measureFromNanos) {
+                rate = Math.max(1, options.rate * (intended - start) / (measureFromNanos - start));
+            }
+            LockSupport.parkNanos(intended - System.nanoTime());
+            long sendAt = intended;
+            int request = nextRequest();
+            workers.submit(() -> send(request, sendAt));
+            intended += (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+
+            if (System.nanoTime() >= nextProgress) {
+                printProgress(start);
+                nextProgress += PROGRESS_INTERVAL_NANOS;
+            }
+        }
+    }
+
+    private void reportProgressUntilStop(long start) throws InterruptedException {
+        while (System.nanoTime() < stopAtNanos) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(PROGRESS_INTERVAL_NANOS, stopAtNanos - System.nanoTime()));
+            printProgress(start);
+        }
+    }
+
+    private void printProgress(long start) {
+        long errors = 0;
+        for (EndpointStats endpoint : stats) {
+            errors += endpoint.errors.sum();
+        }
+        System.out.printf("  t=%3ds  sent %d  errors %d%s%n", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                sent.sum(), errors, System.nanoTime() < measureFromNanos ? "  (ramp-up)" : "");
+    }
+
+    private int nextRequest() {
+        return mix[ThreadLocalRandom.current().nextInt(mix.length)];
+    }
+
+    // Latency counts from sendAt, which for the open model is the scheduled time, not the
+    // moment a worker got to it
+    private void send(int index, long sendAt) {
+        PostmanCollection.Template template = requests.get(index);
+        String body = PostmanCollection.resolveDynamic(template.getBody());
+        int status;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(PostmanCollection.resolveDynamic(template.getUrl())))
+                    .timeout(Duration.ofMillis(options.timeoutMillis))
+                    .method(template.getMethod(), body == null
+                            ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+            for (Map.Entry<String, String> header : template.getHeaders().entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            status = NO_RESPONSE;
+        }
+        sent.increment();
+        if (sendAt >= measureFromNanos && sendAt < stopAtNanos) {
+            stats.get(index).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sendAt), status);
+        }
+    }
+
+    void printReport() {
+        System.out.println();
+        System.out.printf("%-24s %8s %7s %9s %9s %9s %9s %9s %9s  %s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "Status codes");
+        Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long totalErrors = 0;
+        Map<Integer, Long> totalStatuses = new TreeMap<>();
+        for (EndpointStats endpoint : stats) {
+            Histogram histogram = endpoint.latency.getIntervalHistogram();
+            Map<Integer, Long> statuses = new TreeMap<>();
+            endpoint.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            statuses.forEach((status, count) -> totalStatuses.merge(status, count, Long::sum));
+            total.add(histogram);
+            totalErrors += endpoint.errors.sum();
+            printRow(endpoint.name, histogram, endpoint.errors.sum(), statuses);
+        }
+        printRow("All", total, totalErrors, totalStatuses);
+    }
+
+    private void printRow(String name, Histogram histogram, long errors, Map<Integer, Long> statuses) {
+        long count = histogram.getTotalCount();
+        StringBuilder codes = new StringBuilder();
+        statuses.forEach((status, n) -> codes.append(status == NO_RESPONSE ? "none" : status).append('=').append(n).append(' '));
+        System.out.printf("%-24s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                name.length() > 24 ? name.substring(0, 24) : name, count, errors,
+                (double) count / options.durationSeconds,
+                millis(histogram, count, 50), millis(histogram, count, 90), millis(histogram, count, 99),
+                millis(histogram, count, 99.9), count == 0 ? 0 : histogram.getMaxValue() / 1000.0,
+                codes.toString().trim());
+    }
+
+    private static double millis(Histogram histogram, long count, double percentile) {
+        return count == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: LoadGenerator [options]");
+        System.out.println("  --collection FILE     Postman collection (default Hospital_Management_API.postman_collection.json)");
+        System.out.println("  --var NAME=VALUE      override a collection variable, e.g. baseUrl=http://host:8080");
+        System.out.println("  --include REGEX       only requests whose name matches");
+        System.out.println("  --exclude REGEX       skip requests whose name matches, e.g. 'Delete'");
+        System.out.println("  --weight NAME=N       send request NAME N times as often (default 1)");
+        System.out.println("  --model closed|open   workload model (default closed)");
+        System.out.println("  --concurrency N       closed: virtual users (default 10)");
+        System.out.println("  --rate R              open: requests per second");
+        System.out.println("  --duration S          measured seconds (default 30)");
+        System.out.println("  --ramp-up S           unmeasured seconds before that (default 0)");
+        System.out.println("  --think-time MS       closed: pause between a user's requests");
+        System.out.println("  --timeout MS          request timeout (default 10000)");
+        System.out.println("  --server-ids          drop IDs from create bodies so the server assigns them");
+        System.out.println("  --in-process PORT     start a RestApiServer in this JVM and target it");
+        System.out.println("  --storage memory|mongodb  in-process: storage backend (default memory, with sample data)");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(2);
+            return;
+        }
+
+        RestApiServer server = null;
+        if (options.inProcessPort >= 0) {
+            // The in-memory backend measures the server itself, without database latency
+            StorageBackend storage = options.storage == StorageBackend.Type.MEMORY
+                    ? StorageBackend.inMemory() : StorageBackend.mongo();
+            if (options.storage == StorageBackend.Type.MEMORY) {
+                storage.getUserStore().initializeDefaultUsers();
+                storage.insertSampleData();
+            }
+            server = new RestApiServer(RequestExecutor.fromSystemProperties(), storage);
+            server.start(options.inProcessPort);
+            options.variables.put("baseUrl", "http://localhost:" + options.inProcessPort);
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(options, PostmanCollection.load(options.collection, options.variables));
+            generator.run();
+            generator.printReport();
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+        System.exit(0);
+    }
+}
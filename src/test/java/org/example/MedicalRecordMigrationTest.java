@@ -0,0 +1,44 @@
+package org.example;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicalRecordMigrationTest {
+
+    @Test
+    void testEmbeddedEntriesBecomeRecordsOfTheirPatient() {
+        List<Document> embedded = Arrays.asList(
+                new Document("recordId", "MR1").append("doctorId", "DOC1").append("diagnosis", "Flu")
+                        .append("visitDate", "2024-01-15").append("visitTime", "09:30"),
+                new Document("diagnosis", "Sprain").append("patientId", "PAT9"));
+
+        List<MedicalRecord> records = MedicalRecordMigration.toRecords("PAT1", embedded);
+
+        assertEquals(2, records.size());
+        assertEquals("MR1", records.get(0).getRecordId());
+        assertEquals("2024-01-15", records.get(0).getVisitDate(), "Visit date should be kept, not re-stamped");
+        assertEquals("PAT1", records.get(1).getPatientId(), "Records belong to the patient they were embedded in");
+    }
+
+    @Test
+    void testGeneratedIdsAreStableAcrossRuns() {
+        List<Document> embedded = Arrays.asList(new Document("diagnosis", "Flu"), new Document("diagnosis", "Cold"));
+
+        List<MedicalRecord> first = MedicalRecordMigration.toRecords("PAT1", embedded);
+        List<MedicalRecord> second = MedicalRecordMigration.toRecords("PAT1", embedded);
+
+        assertEquals("PAT1-MR1", first.get(1).getRecordId());
+        assertEquals(first.get(1).getRecordId(), second.get(1).getRecordId(),
+                "A re-run must produce the same IDs so copied records are recognized as duplicates");
+    }
+
+    @Test
+    void testMissingHistoryYieldsNoRecords() {
+        assertTrue(MedicalRecordMigration.toRecords("PAT1", null).isEmpty());
+    }
+}
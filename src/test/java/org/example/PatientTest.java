@@ -1,10 +1,15 @@
 package org.example;
 
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -81,4 +86,35 @@ class PatientTest {
         assertDoesNotThrow(() -> new Patient("P007", "Grace Lee", 40, "Female", "101 Cedar Ln", "555-7890"),
                 "Patient constructor should not throw an exception for valid inputs");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSummaryMatchesPatientAndSelectsSamePatient() {
+        PatientSummary summary = PatientSummary.of(patient);
+        assertEquals(patient.toString(), summary.toString(), "Pickers should show summaries exactly like patients");
+        assertEquals(new PatientSummary("P001", "Renamed", 31, "Male", "555-0000"), summary,
+                "Summaries of the same patient should be equal so a combo box can reselect them");
+    }
+
+    @Test
+    void testSummaryFromProjectedDocument() {
+        PatientSummary summary = PatientSummary.fromDocument(new Document("patientId", "P001")
+                .append("name", "John Doe").append("age", 30L).append("phone", "555-1234"));
+        assertEquals("P001", summary.getPatientId());
+        assertEquals(30, summary.getAge(), "Numeric ages of any width should be read");
+        assertNull(summary.getGender(), "Fields missing from the projection stay null");
+    }
+
+    @Test
+    void testDeferredClinicalDataIsInstalledOnce() {
+        patient.deferClinicalData();
+        assertTrue(patient.isClinicalDataDeferred());
+
+        MedicalRecord record = new MedicalRecord("MR1", "P001", "DOC1", "Flu", "Rest", "");
+        patient.setClinicalData(Arrays.asList("Penicillin"), new ArrayList<>(),
+                new ArrayList<>(Arrays.asList(record)));
+
+        assertFalse(patient.isClinicalDataDeferred(), "Installing clinical data should clear the deferred flag");
+        assertEquals("Flu", patient.getLatestDiagnosis());
+        assertEquals("Penicillin", patient.getAllergies().get(0));
+    }
+}
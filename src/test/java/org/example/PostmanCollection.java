@@ -0,0 +1,173 @@
+package org.example;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The requests of a Postman v2.1 collection, read for replay by the LoadGenerator. Folders
+// are flattened, {{variables}} are resolved from the collection and any overrides, and the
+// dynamic variables {{$guid}}, {{$randomInt}} and {{$timestamp}} get a fresh value per request.
+final class PostmanCollection {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([^}\\s]+)\\s*}}");
+
+    private final String name;
+    private final List<Template> requests;
+
+    private PostmanCollection(String name, List<Template> requests) {
+        this.name = name;
+        this.requests = requests;
+    }
+
+    static PostmanCollection load(Path file, Map<String, String> overrides) throws IOException {
+        return parse(Files.readString(file, StandardCharsets.UTF_8), overrides);
+    }
+
+    static PostmanCollection parse(String json, Map<String, String> overrides) {
+        JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+        Map<String, String> variables = new LinkedHashMap<>();
+        if (root.has("variable")) {
+            for (JsonElement element : root.getAsJsonArray("variable")) {
+                JsonObject variable = element.getAsJsonObject();
+                variables.put(variable.get("key").getAsString(), stringOrEmpty(variable, "value"));
+            }
+        }
+        variables.putAll(overrides);
+
+        List<Template> requests = new ArrayList<>();
+        collect(root.getAsJsonArray("item"), variables, requests);
+        String name = root.has("info") ? stringOrEmpty(root.getAsJsonObject("info"), "name") : "";
+        return new PostmanCollection(name, Collections.unmodifiableList(requests));
+    }
+
+    private static void collect(JsonArray items, Map<String, String> variables, List<Template> requests) {
+        if (items == null) {
+            return;
+        }
+        for (JsonElement element : items) {
+            JsonObject item = element.getAsJsonObject();
+            if (item.has("item")) {
+                collect(item.getAsJsonArray("item"), variables, requests);
+                continue;
+            }
+            JsonObject request = item.getAsJsonObject("request");
+            JsonElement url = request.get("url");
+            String rawUrl = url.isJsonObject() ? stringOrEmpty(url.getAsJsonObject(), "raw") : url.getAsString();
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (request.has("header")) {
+                for (JsonElement header : request.getAsJsonArray("header")) {
+                    JsonObject h = header.getAsJsonObject();
+                    if (!h.has("disabled") || !h.get("disabled").getAsBoolean()) {
+                        headers.put(resolveStatic(h.get("key").getAsString(), variables),
+                                resolveStatic(stringOrEmpty(h, "value"), variables));
+                    }
+                }
+            }
+
+            String body = null;
+            JsonObject bodyObject = request.has("body") && request.get("body").isJsonObject() ? request.getAsJsonObject("body") : null;
+            if (bodyObject != null && "raw".equals(stringOrEmpty(bodyObject, "mode"))) {
+                body = resolveStatic(stringOrEmpty(bodyObject, "raw"), variables);
+            }
+
+            requests.add(new Template(item.get("name").getAsString(), request.get("method").getAsString(),
+                    resolveStatic(rawUrl, variables), headers, body));
+        }
+    }
+
+    // Collection variables are fixed for the run; dynamic ones are left for each request
+    private static String resolveStatic(String text, Map<String, String> variables) {
+        Matcher matcher = VARIABLE.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = variables.get(matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    static String resolveDynamic(String text) {
+        if (text == null || text.indexOf("{{$") < 0) {
+            return text;
+        }
+        Matcher matcher = VARIABLE.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value;
+            switch (matcher.group(1)) {
+                case "$guid": value = UUID.randomUUID().toString(); break;
+                case "$randomInt": value = String.valueOf(ThreadLocalRandom.current().nextInt(1000)); break;
+                case "$timestamp": value = String.valueOf(System.currentTimeMillis() / 1000); break;
+                default: value = matcher.group();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String stringOrEmpty(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+
+    String getName() { return name; }
+    List<Template> getRequests() { return requests; }
+
+    // One request of the collection with its static variables resolved
+    static final class Template {
+        private final String name;
+        private final String method;
+        private final String url;
+        private final Map<String, String> headers;
+        private final String body;
+
+        Template(String name, String method, String url, Map<String, String> headers, String body) {
+            this.name = name;
+            this.method = method;
+            this.url = url;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        String getName() { return name; }
+        String getMethod() { return method; }
+        String getUrl() { return url; }
+        Map<String, String> getHeaders() { return headers; }
+        String getBody() { return body; }
+
+        // Creates posted to a collection path (POST /api/patients) without their ID field, so
+        // the server assigns one and repeated creates do not all collide with 409
+        Template withServerAssignedId() {
+            if (!"POST".equals(method) || body == null) {
+                return this;
+            }
+            Matcher path = Pattern.compile("/api/([a-z]+)s/?$").matcher(url);
+            if (!path.find()) {
+                return this;
+            }
+            JsonElement parsed = JsonParser.parseString(body);
+            if (!parsed.isJsonObject() || parsed.getAsJsonObject().remove(path.group(1) + "Id") == null) {
+                return this;
+            }
+            return new Template(name, method, url, headers, parsed.toString());
+        }
+    }
+}
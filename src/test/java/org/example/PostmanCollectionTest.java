@@ -0,0 +1,75 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostmanCollectionTest {
+
+    private static final String NESTED = "{"
+            + "\"info\": {\"name\": \"Nested\"},"
+            + "\"variable\": [{\"key\": \"baseUrl\", \"value\": \"http://localhost:8080\"}, {\"key\": \"id\", \"value\": \"PAT1\"}],"
+            + "\"item\": [{\"name\": \"Patients\", \"item\": ["
+            + "  {\"name\": \"Get\", \"request\": {\"method\": \"GET\", \"url\": {\"raw\": \"{{baseUrl}}/api/patients/{{id}}\"}}},"
+            + "  {\"name\": \"Create\", \"request\": {\"method\": \"POST\", \"url\": \"{{baseUrl}}/api/patients\","
+            + "     \"header\": [{\"key\": \"Content-Type\", \"value\": \"application/json\"}, {\"key\": \"X-Off\", \"value\": \"1\", \"disabled\": true}],"
+            + "     \"body\": {\"mode\": \"raw\", \"raw\": \"{\\\"patientId\\\": \\\"PAT{{$randomInt}}\\\", \\\"name\\\": \\\"A\\\"}\"}}}"
+            + "]}]}";
+
+    @Test
+    void testShippedCollectionParses() throws Exception {
+        PostmanCollection collection = PostmanCollection.load(
+                Path.of("Hospital_Management_API.postman_collection.json"), Collections.emptyMap());
+        List<PostmanCollection.Template> requests = collection.getRequests();
+        assertEquals("Hospital Management System API", collection.getName());
+        assertEquals(26, requests.size());
+        assertEquals("http://localhost:8080/health", requests.get(0).getUrl());
+        assertTrue(requests.stream().allMatch(r -> r.getUrl().startsWith("http://localhost:8080/")));
+    }
+
+    @Test
+    void testFoldersAreFlattenedAndVariablesResolved() {
+        PostmanCollection collection = PostmanCollection.parse(NESTED, Map.of("baseUrl", "http://10.0.0.5:9090"));
+        List<PostmanCollection.Template> requests = collection.getRequests();
+        assertEquals(2, requests.size());
+        assertEquals("http://10.0.0.5:9090/api/patients/PAT1", requests.get(0).getUrl());
+        assertNull(requests.get(0).getBody());
+        assertEquals(Map.of("Content-Type", "application/json"), requests.get(1).getHeaders());
+    }
+
+    @Test
+    void testDynamicVariablesChangePerRequest() {
+        PostmanCollection.Template create = PostmanCollection.parse(NESTED, Collections.emptyMap()).getRequests().get(1);
+        assertTrue(create.getBody().contains("{{$randomInt}}"));
+        String body = PostmanCollection.resolveDynamic(create.getBody());
+        assertTrue(body.matches("\\{\"patientId\": \"PAT\\d+\", \"name\": \"A\"}"), body);
+        assertEquals("{{unknown}}", PostmanCollection.resolveDynamic("{{unknown}}"));
+    }
+
+    @Test
+    void testServerAssignedIdOnlyStripsCreateId() {
+        List<PostmanCollection.Template> requests = PostmanCollection.parse(NESTED, Collections.emptyMap()).getRequests();
+        assertEquals("{\"name\":\"A\"}", requests.get(1).withServerAssignedId().getBody());
+        assertSame(requests.get(0), requests.get(0).withServerAssignedId());
+
+        PostmanCollection.Template appointment = new PostmanCollection.Template("Create Appointment", "POST",
+                "http://localhost:8080/api/appointments", Collections.emptyMap(),
+                "{\"appointmentId\": \"APP1\", \"patientId\": \"PAT1\"}");
+        assertEquals("{\"patientId\":\"PAT1\"}", appointment.withServerAssignedId().getBody());
+    }
+
+    @Test
+    void testOpenModelRequiresRate() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Options.parse(new String[]{"--model", "open"}));
+        LoadGenerator.Options options = LoadGenerator.Options.parse(new String[]{
+                "--model", "open", "--rate", "250", "--weight", "Get All Patients=5", "--var", "baseUrl=http://h:1"});
+        assertEquals(LoadGenerator.Model.OPEN, options.model);
+        assertEquals(5, options.weights.get("Get All Patients"));
+        assertEquals("http://h:1", options.variables.get("baseUrl"));
+    }
+}
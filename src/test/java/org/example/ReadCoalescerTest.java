@@ -0,0 +1,106 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCoalescerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private byte[] load() {
+        return ("[" + loads.incrementAndGet() + "]").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testConcurrentIdenticalReadsShareOneLoadAndOneBody() throws Exception {
+        ReadCoalescer coalescer = new ReadCoalescer(true, 0, 1024, now::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<byte[]> leader = pool.submit(() -> coalescer.execute("GET /api/doctors", () -> {
+                started.countDown();
+                release.await();
+                return load();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<byte[]>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(pool.submit(() -> coalescer.execute("GET /api/doctors", this::load)));
+            }
+            while ((long) coalescer.getStats().get("joined") < 7) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            byte[] body = leader.get(5, TimeUnit.SECONDS);
+            for (Future<byte[]> follower : followers) {
+                assertSame(body, follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Without a window the next read loads again
+        coalescer.execute("GET /api/doctors", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testWindowServesFinishedBodiesUntilAWrite() throws Exception {
+        ReadCoalescer coalescer = new ReadCoalescer(true, 500, 1024, now::get);
+        byte[] first = coalescer.execute("GET /api/bills", this::load);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertSame(first, coalescer.execute("GET /api/bills", this::load));
+        assertEquals(1, loads.get());
+
+        coalescer.invalidate();
+        coalescer.execute("GET /api/bills", this::load);
+        assertEquals(2, loads.get());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        coalescer.execute("GET /api/bills", this::load);
+        assertEquals(3, loads.get());
+        coalescer.execute("GET /api/bills?limit=5", this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testFailuresAreNotRemembered() throws Exception {
+        ReadCoalescer coalescer = new ReadCoalescer(true, 500, 1024, now::get);
+        assertThrows(IllegalArgumentException.class, () -> coalescer.execute("GET /api/patients", () -> {
+            throw new IllegalArgumentException("bad filter");
+        }));
+        coalescer.execute("GET /api/patients", this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testBodiesOverTheLimitAreNotShared() {
+        ReadCoalescer coalescer = new ReadCoalescer(true, 0, 4, now::get);
+        assertTrue(coalescer.shares("GET /api/patients"));
+        assertThrows(ReadCoalescer.TooLargeException.class, () -> coalescer.execute("GET /api/patients", () -> {
+            ByteArrayOutputStream buffer = coalescer.newBuffer();
+            buffer.write("[1,2,3]".getBytes(StandardCharsets.UTF_8));
+            return buffer.toByteArray();
+        }));
+        assertFalse(coalescer.shares("GET /api/patients"));
+        assertFalse(new ReadCoalescer(false, 0, 1024, now::get).shares("GET /api/patients"));
+    }
+}
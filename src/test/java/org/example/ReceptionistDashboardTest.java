@@ -10,7 +10,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -147,7 +147,7 @@ class ReceptionistDashboardTest {
         // Get the JTabbedPane and then the AppointmentManagementPanel from it.
         JTabbedPane tabbedPane = (JTabbedPane) receptionistDashboard.getComponent(1);
         ReceptionistDashboard.AppointmentManagementPanel appointmentPanel = (ReceptionistDashboard.AppointmentManagementPanel) tabbedPane.getComponentAt(0);
-        DefaultTableModel model = (DefaultTableModel) ((JTable)((JScrollPane) appointmentPanel.getComponent(0)).getViewport().getView()).getModel();
+        TableModel model = ((JTable)((JScrollPane) appointmentPanel.getComponent(0)).getViewport().getView()).getModel();
 
         try {
             SwingUtilities.invokeAndWait(() -> {
@@ -170,7 +170,7 @@ class ReceptionistDashboardTest {
         // Get the JTabbedPane and then the BillingManagementPanel from it.
         JTabbedPane tabbedPane = (JTabbedPane) receptionistDashboard.getComponent(1);
         ReceptionistDashboard.BillingManagementPanel billingPanel = (ReceptionistDashboard.BillingManagementPanel) tabbedPane.getComponentAt(1);
-        DefaultTableModel model = (DefaultTableModel) ((JTable)((JScrollPane) billingPanel.getComponent(0)).getViewport().getView()).getModel();
+        TableModel model = ((JTable)((JScrollPane) billingPanel.getComponent(0)).getViewport().getView()).getModel();
 
         try {
             SwingUtilities.invokeAndWait(() -> {
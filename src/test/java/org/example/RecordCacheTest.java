@@ -0,0 +1,136 @@
+package org.example;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RecordCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    private RecordCache cache(int maxEntries, long maxBytes) {
+        return new RecordCache("patients", maxEntries, maxBytes, 60, now::get);
+    }
+
+    private Function<String, RawBsonDocument> loader() {
+        return key -> {
+            loads.merge(key, 1, Integer::sum);
+            return RawBsonDocument.parse("{patientId: '" + key + "', name: 'Patient " + key + "'}");
+        };
+    }
+
+    @Test
+    void testRepeatedReadsAreServedFromTheCacheUntilTheyExpire() {
+        RecordCache cache = cache(10, 1024);
+        assertEquals("PAT1", cache.get("PAT1", loader()).getString("patientId").getValue());
+        cache.get("PAT1", loader());
+        assertEquals(1, loads.get("PAT1"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        cache.get("PAT1", loader());
+        assertEquals(2, loads.get("PAT1"));
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    @Test
+    void testMissingRecordsAreNotCached() {
+        RecordCache cache = cache(10, 1024);
+        assertNull(cache.get("PAT9", key -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testWritesInvalidateAndARacingLoadIsNotStored() {
+        RecordCache cache = cache(10, 1024);
+        cache.get("PAT1", loader());
+        cache.invalidate("PAT1");
+        assertEquals(0, cache.size());
+
+        // A write lands while the read is on its way back: the old value goes to the reader only
+        cache.get("PAT1", key -> {
+            cache.invalidate(key);
+            return loader().apply(key);
+        });
+        assertEquals(0, cache.size());
+        cache.get("PAT1", loader());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testFullCacheAdmitsOnlyKeysReadMoreOftenThanTheVictim() {
+        RecordCache cache = cache(2, 1024);
+        cache.get("PAT1", loader());
+        cache.get("PAT2", loader());
+
+        // Read once, PAT3 is no more popular than the least recently used entry
+        cache.get("PAT3", loader());
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        cache.get("PAT3", loader());
+        assertEquals(1, cache.getEvictions());
+        cache.get("PAT2", loader());
+        cache.get("PAT3", loader());
+        assertEquals(1, loads.get("PAT2"));
+        assertEquals(2, loads.get("PAT3"));
+        cache.get("PAT1", loader());
+        assertEquals(2, loads.get("PAT1"));
+    }
+
+    @Test
+    void testSizeIsBoundedByBytes() {
+        RawBsonDocument one = loader().apply("PAT1");
+        int weight = one.getByteBuffer().remaining();
+        RecordCache cache = cache(10, weight * 2L);
+        cache.get("PAT1", loader());
+        cache.get("PAT2", loader());
+        assertEquals(weight * 2L, cache.getBytes());
+
+        RecordCache tiny = cache(10, weight - 1);
+        tiny.get("PAT1", loader());
+        assertEquals(0, tiny.size());
+        assertEquals(1L, tiny.getStats().get("rejections"));
+    }
+
+    @Test
+    void testZeroEntriesTurnsTheCacheOff() {
+        RecordCache cache = cache(0, 1024);
+        assertFalse(cache.isEnabled());
+        cache.get("PAT1", loader());
+        cache.get("PAT1", loader());
+        assertEquals(2, loads.get("PAT1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLoadsReadFromThePrimary() {
+        MongoCollection<Object> collection = mock(MongoCollection.class);
+        MongoCollection<RawBsonDocument> raw = mock(MongoCollection.class);
+        MongoCollection<RawBsonDocument> primary = mock(MongoCollection.class);
+        FindIterable<RawBsonDocument> found = mock(FindIterable.class);
+        when(collection.withDocumentClass(RawBsonDocument.class)).thenReturn(raw);
+        when(raw.withReadPreference(ReadPreference.primary())).thenReturn(primary);
+        when(primary.find(any(Bson.class))).thenReturn(found);
+        when(found.first()).thenReturn(null);
+
+        assertNull(cache(10, 1024).find(collection, "patientId", "PAT1", Object.class));
+        verify(primary).find(any(Bson.class));
+        verify(raw, never()).find(any(Bson.class));
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordFilterTest {
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private static Map<String, String> params(String... pairs) {
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+        return params;
+    }
+
+    @Test
+    void testNoParametersMatchesEverything() {
+        RecordFilter filter = RecordFilter.fromParameters(params("limit", "20"), RecordFilter.APPOINTMENTS);
+        assertEquals(BsonDocument.parse("{}"), render(filter.toBson()));
+        assertFalse(filter.hasProjection());
+        assertNull(filter.projection());
+    }
+
+    @Test
+    void testDoctorDayQuery() {
+        RecordFilter filter = RecordFilter.fromParameters(
+                params("doctorId", "DOC3", "date", "2024-03-05", "completed", "false"), RecordFilter.APPOINTMENTS);
+        assertEquals(BsonDocument.parse("{$and: [{doctorId: 'DOC3'}, {completed: false}, {date: '2024-03-05'}]}"),
+                render(filter.toBson()));
+    }
+
+    @Test
+    void testDateRangeIsInclusive() {
+        RecordFilter filter = RecordFilter.fromParameters(
+                params("from", "2024-03-01", "to", "2024-03-07"), RecordFilter.APPOINTMENTS);
+        assertEquals(BsonDocument.parse("{$and: [{date: {$gte: '2024-03-01'}}, {date: {$lte: '2024-03-07'}}]}"),
+                render(filter.toBson()));
+    }
+
+    @Test
+    void testFiltersNotDeclaredForCollectionAreIgnored() {
+        RecordFilter filter = RecordFilter.fromParameters(params("doctorId", "DOC3", "paid", "true"), RecordFilter.BILLS);
+        assertEquals(BsonDocument.parse("{paid: true}"), render(filter.toBson()));
+    }
+
+    @Test
+    void testKeysetConditionIsAddedToFilter() {
+        RecordFilter filter = RecordFilter.fromParameters(params("patientId", "PAT1"), RecordFilter.BILLS);
+        Bson where = filter.and(Filters.gt("billId", "BILL10"));
+        assertEquals(BsonDocument.parse("{$and: [{patientId: 'PAT1'}, {billId: {$gt: 'BILL10'}}]}"), render(where));
+    }
+
+    @Test
+    void testProjectionAlwaysKeepsKeyAndDropsId() {
+        RecordFilter filter = RecordFilter.fromParameters(params("fields", "time, patientName"), RecordFilter.APPOINTMENTS);
+        assertTrue(filter.hasProjection());
+        assertEquals(Arrays.asList("appointmentId", "time", "patientName"), filter.getSelectedFields());
+        assertEquals(BsonDocument.parse("{appointmentId: 1, time: 1, patientName: 1, _id: 0}"),
+                render(filter.projection()));
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordFilter.fromParameters(params("fields", "name,password"), RecordFilter.PATIENTS));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"yes", "1", "2024-13-01"})
+    void testMalformedValuesAreRejected(String value) {
+        assertThrows(IllegalArgumentException.class,
+                () -> RecordFilter.fromParameters(params("completed", value, "date", value), RecordFilter.APPOINTMENTS));
+    }
+}
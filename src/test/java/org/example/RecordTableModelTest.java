@@ -0,0 +1,94 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordTableModelTest {
+
+    private RecordTableModel<Bill> model;
+    private AtomicInteger formatted;
+    private List<TableModelEvent> events;
+
+    @BeforeEach
+    void setUp() {
+        formatted = new AtomicInteger();
+        model = new RecordTableModel<>(Bill::getBillId)
+                .addColumn("ID", Bill::getBillId)
+                .addColumn("Amount", b -> {
+                    formatted.incrementAndGet();
+                    return String.format("$%.2f", b.getAmount());
+                })
+                .addColumn("Status", b -> b.isPaid() ? "Paid" : "Pending");
+        events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+    }
+
+    private static List<Bill> bills(int count) {
+        List<Bill> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bills.add(new Bill("BILL" + i, "PAT1", i, "Visit"));
+        }
+        return bills;
+    }
+
+    @Test
+    void testCellsAreComputedOnlyWhenRead() {
+        model.setRecords(bills(100_000));
+
+        assertEquals(100_000, model.getRowCount());
+        assertEquals(0, formatted.get(), "Filling the model must not format any cell");
+        assertEquals(1, events.size(), "A bulk fill should fire a single event");
+
+        assertEquals("$42.00", model.getValueAt(42, 1));
+        assertEquals(1, formatted.get());
+    }
+
+    @Test
+    void testColumnsAndRecordAccess() {
+        model.setRecords(bills(2));
+
+        assertEquals(3, model.getColumnCount());
+        assertEquals("Amount", model.getColumnName(1));
+        assertEquals("BILL1", model.getRecordAt(1).getBillId());
+        assertEquals(1, model.indexOf("BILL1"));
+        assertEquals(-1, model.indexOf("BILL9"));
+        assertFalse(model.isCellEditable(0, 0));
+    }
+
+    @Test
+    void testRecordChangedReflectsInPlaceUpdate() {
+        List<Bill> bills = bills(3);
+        model.setRecords(bills);
+        events.clear();
+
+        bills.get(1).setPaid(true);
+        model.recordChanged("BILL1");
+
+        assertEquals("Paid", model.getValueAt(1, 2));
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+    }
+
+    @Test
+    void testAppendAndRemove() {
+        model.appendRecords(bills(2));
+        model.appendRecords(new ArrayList<>());
+        model.appendRecords(Arrays.asList(new Bill("BILL9", "PAT2", 5, "Lab")));
+        assertEquals(3, model.getRowCount());
+        assertEquals(2, events.size(), "Empty chunks should not fire events");
+
+        model.removeRecord("BILL0");
+        assertEquals("BILL1", model.getValueAt(0, 0));
+        model.setRecords(null);
+        assertEquals(0, model.getRowCount());
+    }
+}
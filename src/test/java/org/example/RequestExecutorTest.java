@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestExecutorTest {
+
+    @Test
+    void testInlineRunsOnTheCallingThread() {
+        RequestExecutor executor = new RequestExecutor(RequestExecutor.Mode.INLINE, 0, 0);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1, executor.getCompleted());
+        assertEquals(1, executor.getPeakInFlight());
+        assertEquals(0, executor.getInFlight());
+        executor.shutdown();
+    }
+
+    @Test
+    void testFullPoolRunsOverflowOnTheCaller() throws Exception {
+        RequestExecutor executor = new RequestExecutor(RequestExecutor.Mode.POOL, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The only thread is busy and the queue takes one more; the third runs right here
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        executor.execute(queuedRan::countDown);
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getInFlight());
+
+        AtomicReference<Thread> overflowRanOn = new AtomicReference<>();
+        executor.execute(() -> overflowRanOn.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), overflowRanOn.get());
+        assertEquals(1, executor.getOverflow());
+        assertEquals(2, executor.getPeakInFlight());
+
+        release.countDown();
+        assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(3, executor.getCompleted());
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(0, executor.getInFlight());
+        assertEquals(1L, executor.getStats().get("overflow"));
+        assertEquals(1, executor.getStats().get("poolSize"));
+    }
+
+    @Test
+    void testShutdownWaitsForRunningRequests() {
+        RequestExecutor executor = new RequestExecutor(RequestExecutor.Mode.VIRTUAL, 0, 0);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            sleep(100);
+            done.countDown();
+        });
+        executor.shutdown();
+
+        assertEquals(0, done.getCount());
+        assertEquals(1, executor.getCompleted());
+        // Requests after shutdown are not dropped; they run on the caller
+        executor.execute(() -> { });
+        assertEquals(1, executor.getOverflow());
+        assertEquals(2, executor.getCompleted());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
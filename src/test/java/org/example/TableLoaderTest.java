@@ -0,0 +1,141 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableLoaderTest {
+
+    private static List<Integer> numbers(int count) {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    private static RecordTableModel<Integer> model() {
+        return new RecordTableModel<Integer>(String::valueOf).addColumn("Value", n -> n);
+    }
+
+    private static <T> T onEdt(Callable<T> action) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(action.call());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return result.get();
+    }
+
+    @Test
+    void testLoadsAllRowsInChunksOffTheEdt() throws Exception {
+        RecordTableModel<Integer> model = model();
+        model.setRecords(List.of(-1));
+        AtomicReference<Boolean> fetchedOnEdt = new AtomicReference<>(false);
+        AtomicInteger insertEvents = new AtomicInteger();
+        model.addTableModelListener(e -> {
+            if (e.getType() == TableModelEvent.INSERT) {
+                insertEvents.incrementAndGet();
+            }
+        });
+        int count = TableLoader.CHUNK_SIZE * 2 + 7;
+
+        TableLoader<Integer> loader = onEdt(() -> TableLoader.start(model, () -> {
+            fetchedOnEdt.set(SwingUtilities.isEventDispatchThread());
+            return numbers(count);
+        }, null));
+
+        assertEquals(count, loader.get(5, TimeUnit.SECONDS));
+        // process() calls are delivered on the EDT shortly after publish()
+        long deadline = System.currentTimeMillis() + 5000;
+        while (onEdt(model::getRowCount) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(count, model.getRowCount());
+        assertEquals(0, model.getValueAt(0, 0), "Stale rows should be cleared before loading");
+        assertEquals(count - 1, model.getValueAt(count - 1, 0));
+        assertFalse(fetchedOnEdt.get(), "Records should be fetched off the EDT");
+        assertTrue(insertEvents.get() <= 3, "Chunks should be announced with one event each, not per row");
+    }
+
+    @Test
+    void testCancelledLoadAddsNoMoreRows() throws Exception {
+        RecordTableModel<Integer> model = model();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TableLoader<Integer> loader = onEdt(() -> TableLoader.start(model, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return numbers(100);
+        }, null));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        onEdt(() -> {
+            TableLoader.cancel(loader);
+            return null;
+        });
+        release.countDown();
+        Thread.sleep(100);
+
+        assertTrue(loader.isCancelled());
+        assertEquals(0, model.getRowCount());
+    }
+
+    @Test
+    void testSwitchingTabsCancelsUnfinishedLoad() throws Exception {
+        JTabbedPane tabs = new JTabbedPane();
+        JPanel first = new JPanel();
+        JPanel second = new JPanel();
+        RecordTableModel<Integer> firstModel = model();
+        RecordTableModel<Integer> secondModel = model();
+        CountDownLatch release = new CountDownLatch(1);
+        List<TableLoader<?>> firstLoads = new ArrayList<>();
+
+        TabLoadCoordinator coordinator = onEdt(() -> {
+            TabLoadCoordinator c = new TabLoadCoordinator(tabs);
+            tabs.addTab("First", first);
+            tabs.addTab("Second", second);
+            c.register(first, () -> {
+                TableLoader<Integer> loader = TableLoader.start(firstModel, () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return numbers(10);
+                }, null);
+                firstLoads.add(loader);
+                return loader;
+            });
+            c.register(second, () -> TableLoader.start(secondModel, () -> numbers(3), null));
+            c.loadAll();
+            return c;
+        });
+        assertNotNull(coordinator);
+        assertEquals(1, firstLoads.size(), "Only the selected tab should start loading");
+
+        onEdt(() -> {
+            tabs.setSelectedComponent(second);
+            return null;
+        });
+        release.countDown();
+        assertTrue(firstLoads.get(0).isCancelled(), "Leaving a tab should cancel its load");
+
+        onEdt(() -> {
+            tabs.setSelectedComponent(first);
+            return null;
+        });
+        assertEquals(2, firstLoads.size(), "A tab whose load was cancelled should reload when selected again");
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteResultTest {
+
+    @Test
+    void testUpdateUsesMatchedCount() {
+        assertEquals(WriteResult.APPLIED, WriteResult.ofUpdate(UpdateResult.acknowledged(1, 0L, null)),
+                "A matched document counts as applied even when no field changed");
+        assertEquals(WriteResult.NOT_FOUND, WriteResult.ofUpdate(UpdateResult.acknowledged(0, 0L, null)));
+    }
+
+    @Test
+    void testStateChangeReportsNoOp() {
+        assertEquals(WriteResult.APPLIED, WriteResult.ofStateChange(UpdateResult.acknowledged(1, 1L, null)));
+        assertEquals(WriteResult.UNCHANGED, WriteResult.ofStateChange(UpdateResult.acknowledged(1, 0L, null)),
+                "Marking an already paid bill should be reported as unchanged");
+        assertEquals(WriteResult.NOT_FOUND, WriteResult.ofStateChange(UpdateResult.acknowledged(0, 0L, null)));
+    }
+
+    @Test
+    void testDeleteUsesDeletedCount() {
+        assertEquals(WriteResult.APPLIED, WriteResult.ofDelete(DeleteResult.acknowledged(1)));
+        assertEquals(WriteResult.NOT_FOUND, WriteResult.ofDelete(DeleteResult.acknowledged(0)));
+    }
+
+    @Test
+    void testDuplicateKeyErrorIsRecognised() {
+        MongoWriteException duplicate = new MongoWriteException(
+                new WriteError(11000, "E11000 duplicate key error", new BsonDocument()),
+                new ServerAddress(), Collections.emptySet());
+        assertEquals(WriteResult.DUPLICATE, WriteResult.ofException(duplicate));
+        assertEquals(WriteResult.FAILED, WriteResult.ofException(new RuntimeException("Network error")));
+    }
+
+    @Test
+    void testSuccessStates() {
+        assertTrue(WriteResult.APPLIED.isSuccess());
+        assertTrue(WriteResult.UNCHANGED.isSuccess());
+        assertFalse(WriteResult.NOT_FOUND.isSuccess());
+        assertFalse(WriteResult.DUPLICATE.isSuccess());
+        assertFalse(WriteResult.FAILED.isSuccess());
+    }
+}